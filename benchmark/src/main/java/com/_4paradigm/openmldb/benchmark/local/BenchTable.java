@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.benchmark.local;
+
+import com._4paradigm.openmldb.sdk.SqlExecutor;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Random;
+
+/**
+ * The table used by local workloads, rows are generated by a seeded random.
+ */
+public class BenchTable {
+    public static final String COLUMNS = "c1 string, c2 int, c3 bigint, c4 double, c5 timestamp, c6 string";
+    // fixed base time, so that data of the same seed are identical between runs
+    private static final long TS_BASE = 1600000000000L;
+
+    private final String db;
+    private final String name;
+    private final int keyNum;
+
+    public BenchTable(String db, String name, int keyNum) {
+        this.db = db;
+        this.name = name;
+        this.keyNum = keyNum;
+    }
+
+    public String getDb() {
+        return db;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void create(SqlExecutor executor, String tableOptions) throws SQLException {
+        try (Statement statement = executor.getStatement()) {
+            statement.execute("CREATE DATABASE IF NOT EXISTS " + db + ";");
+            statement.execute("USE " + db + ";");
+            statement.execute("CREATE TABLE " + name + " (" + COLUMNS + ", INDEX(KEY=c1, TS=c5))"
+                    + tableOptions + ";");
+        }
+    }
+
+    public void drop(SqlExecutor executor) {
+        try (Statement statement = executor.getStatement()) {
+            statement.execute("USE " + db + ";");
+            statement.execute("DROP TABLE " + name + ";");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public PreparedStatement prepareInsert(SqlExecutor executor) throws SQLException {
+        return executor.getInsertPreparedStmt(db, "INSERT INTO " + name + " VALUES (?, ?, ?, ?, ?, ?);");
+    }
+
+    /**
+     * Set the parameters of one row, the columns are in the same order as {@link #COLUMNS}.
+     *
+     * @param seq sequence of the row, used as the timestamp offset
+     */
+    public void setRow(PreparedStatement statement, Random random, long seq) throws SQLException {
+        statement.setString(1, "k" + random.nextInt(keyNum));
+        statement.setInt(2, random.nextInt(1000));
+        statement.setLong(3, random.nextLong());
+        statement.setDouble(4, random.nextDouble());
+        statement.setTimestamp(5, new Timestamp(TS_BASE + seq));
+        statement.setString(6, "v" + random.nextInt(100));
+    }
+
+    /**
+     * The insert statement reports failed rows by result code instead of exception.
+     */
+    public static void checkBatchResult(int[] result) throws SQLException {
+        for (int code : result) {
+            if (code != 0) {
+                throw new SQLException("fail to insert rows");
+            }
+        }
+    }
+
+    /**
+     * Insert rows in batches.
+     */
+    public void load(SqlExecutor executor, long rows, long seed) throws SQLException {
+        Random random = new Random(seed);
+        int batchSize = 1000;
+        try (PreparedStatement statement = prepareInsert(executor)) {
+            for (long i = 0; i < rows; i++) {
+                setRow(statement, random, i);
+                statement.addBatch();
+                if ((i + 1) % batchSize == 0 || i == rows - 1) {
+                    checkBatchResult(statement.executeBatch());
+                }
+            }
+        }
+    }
+}
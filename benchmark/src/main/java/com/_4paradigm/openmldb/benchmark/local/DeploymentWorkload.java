@@ -0,0 +1,123 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.benchmark.local;
+
+import com._4paradigm.openmldb.sdk.SqlExecutor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * Request a deployment with window aggregations over loaded data. If batchSize is larger than 0, batchSize rows are
+ * requested in one batch request, otherwise one row in one request.
+ */
+public class DeploymentWorkload implements Workload {
+    private final String name;
+    private final BenchTable table;
+    private final String deployName;
+    private final String tableOptions;
+    private final long loadRows;
+    private final long loadSeed;
+    private final int windowSize;
+    private final int batchSize;
+
+    public DeploymentWorkload(String name, String db, int keyNum, long loadRows, long loadSeed, int windowSize,
+                              int batchSize, String tableOptions) {
+        this.name = name;
+        this.table = new BenchTable(db, "bench_" + name, keyNum);
+        this.deployName = "deploy_" + name;
+        this.loadRows = loadRows;
+        this.loadSeed = loadSeed;
+        this.windowSize = windowSize;
+        this.batchSize = batchSize;
+        this.tableOptions = tableOptions;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    private String getSql() {
+        return "SELECT c1, c3, sum(c4) OVER w1 AS w1_sum_c4, count(c3) OVER w1 AS w1_count_c3, "
+                + "max(c2) OVER w1 AS w1_max_c2, distinct_count(c6) OVER w1 AS w1_dc_c6 FROM " + table.getName()
+                + " WINDOW w1 AS (PARTITION BY c1 ORDER BY c5 ROWS BETWEEN " + windowSize
+                + " PRECEDING AND CURRENT ROW);";
+    }
+
+    @Override
+    public void prepare(SqlExecutor executor) throws Exception {
+        table.create(executor, tableOptions);
+        table.load(executor, loadRows, loadSeed);
+        try (Statement statement = executor.getStatement()) {
+            statement.execute("USE " + table.getDb() + ";");
+            statement.execute("DEPLOY " + deployName + " " + getSql());
+        }
+    }
+
+    @Override
+    public Worker createWorker(SqlExecutor executor, long seed) throws Exception {
+        PreparedStatement statement = batchSize > 0
+                ? executor.getCallablePreparedStmtBatch(table.getDb(), deployName)
+                : executor.getCallablePreparedStmt(table.getDb(), deployName);
+        Random random = new Random(seed);
+        return new Worker() {
+            // request rows are later than loaded rows
+            private long seq = loadRows;
+
+            @Override
+            public int execute() throws Exception {
+                int rows = Math.max(batchSize, 1);
+                for (int i = 0; i < rows; i++) {
+                    table.setRow(statement, random, seq++);
+                    if (batchSize > 0) {
+                        statement.addBatch();
+                    }
+                }
+                int resultRows = 0;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        resultRows++;
+                    }
+                }
+                if (resultRows != rows) {
+                    throw new SQLException("expect " + rows + " result rows but got " + resultRows);
+                }
+                return rows;
+            }
+
+            @Override
+            public void close() throws Exception {
+                statement.close();
+            }
+        };
+    }
+
+    @Override
+    public void cleanup(SqlExecutor executor) {
+        try (Statement statement = executor.getStatement()) {
+            statement.execute("USE " + table.getDb() + ";");
+            statement.execute("DROP DEPLOYMENT " + deployName + ";");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        table.drop(executor);
+    }
+}
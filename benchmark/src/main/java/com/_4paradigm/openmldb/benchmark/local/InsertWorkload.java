@@ -0,0 +1,84 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.benchmark.local;
+
+import com._4paradigm.openmldb.sdk.SqlExecutor;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Random;
+
+/**
+ * Insert rows by the insert prepared statement, batchSize rows in one operation.
+ */
+public class InsertWorkload implements Workload {
+    private final BenchTable table;
+    private final String tableOptions;
+    private final int batchSize;
+
+    public InsertWorkload(String db, int keyNum, int batchSize, String tableOptions) {
+        this.table = new BenchTable(db, "bench_insert", keyNum);
+        this.batchSize = batchSize;
+        this.tableOptions = tableOptions;
+    }
+
+    @Override
+    public String getName() {
+        return "insert";
+    }
+
+    @Override
+    public void prepare(SqlExecutor executor) throws Exception {
+        table.create(executor, tableOptions);
+    }
+
+    @Override
+    public Worker createWorker(SqlExecutor executor, long seed) throws Exception {
+        PreparedStatement statement = table.prepareInsert(executor);
+        Random random = new Random(seed);
+        return new Worker() {
+            private long seq = 0;
+
+            @Override
+            public int execute() throws Exception {
+                if (batchSize <= 1) {
+                    table.setRow(statement, random, seq++);
+                    if (!statement.execute()) {
+                        throw new SQLException("fail to insert row");
+                    }
+                    return 1;
+                }
+                for (int i = 0; i < batchSize; i++) {
+                    table.setRow(statement, random, seq++);
+                    statement.addBatch();
+                }
+                BenchTable.checkBatchResult(statement.executeBatch());
+                return batchSize;
+            }
+
+            @Override
+            public void close() throws Exception {
+                statement.close();
+            }
+        };
+    }
+
+    @Override
+    public void cleanup(SqlExecutor executor) {
+        table.drop(executor);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.benchmark.local;
+
+import com._4paradigm.openmldb.sdk.SqlExecutor;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Start OpenMLDB on localhost, run insert, deployment request and batch request workloads, then write a json report.
+ *
+ * <p>Usage: {@code java -cp conf/:lib/* com._4paradigm.openmldb.benchmark.local.LocalBenchmark --bin <openmldb>
+ * [--option value]...}, see {@link #DEFAULTS} for all options.
+ */
+public class LocalBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(LocalBenchmark.class);
+    private static final String DB = "local_bench";
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        // path of the openmldb binary
+        DEFAULTS.put("bin", "build/bin/openmldb");
+        // standalone or cluster, cluster mode starts an embedded zookeeper
+        DEFAULTS.put("mode", "standalone");
+        // comma separated workloads: insert, request, batch_request
+        DEFAULTS.put("workloads", "insert,request,batch_request");
+        DEFAULTS.put("threads", "4");
+        // operations of each thread before measurement
+        DEFAULTS.put("warmup_ops", "1000");
+        // operations of each thread in measurement, the duration is used if it is 0
+        DEFAULTS.put("ops", "10000");
+        DEFAULTS.put("duration_seconds", "60");
+        DEFAULTS.put("seed", "1");
+        DEFAULTS.put("keys", "1000");
+        // rows loaded before request workloads
+        DEFAULTS.put("load_rows", "100000");
+        DEFAULTS.put("window_size", "100");
+        DEFAULTS.put("insert_batch_size", "1");
+        DEFAULTS.put("request_batch_size", "100");
+        DEFAULTS.put("report", "local_benchmark.json");
+        // free text to identify the run in report, e.g. the commit id
+        DEFAULTS.put("label", "");
+        DEFAULTS.put("keep_workspace", "false");
+    }
+
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> conf = new LinkedHashMap<>(DEFAULTS);
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("invalid argument " + args[i] + ", should be --option value");
+            }
+            String key = args[i].substring(2).replace('-', '_');
+            if (!DEFAULTS.containsKey(key)) {
+                throw new IllegalArgumentException("unknown option " + args[i] + ", options are " + DEFAULTS.keySet());
+            }
+            conf.put(key, args[++i]);
+        }
+        return conf;
+    }
+
+    static Workload createWorkload(String name, Map<String, String> conf, String tableOptions) {
+        int keys = Integer.parseInt(conf.get("keys"));
+        long loadRows = Long.parseLong(conf.get("load_rows"));
+        long seed = Long.parseLong(conf.get("seed"));
+        int windowSize = Integer.parseInt(conf.get("window_size"));
+        switch (name) {
+            case "insert":
+                return new InsertWorkload(DB, keys, Integer.parseInt(conf.get("insert_batch_size")), tableOptions);
+            case "request":
+                return new DeploymentWorkload(name, DB, keys, loadRows, seed, windowSize, 0, tableOptions);
+            case "batch_request":
+                return new DeploymentWorkload(name, DB, keys, loadRows, seed, windowSize,
+                        Integer.parseInt(conf.get("request_batch_size")), tableOptions);
+            default:
+                throw new IllegalArgumentException("unknown workload " + name);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> conf = parseArgs(args);
+        LocalCluster.Mode mode = LocalCluster.Mode.valueOf(conf.get("mode").toUpperCase());
+        WorkloadRunner runner = new WorkloadRunner(
+                Integer.parseInt(conf.get("threads")),
+                Long.parseLong(conf.get("warmup_ops")),
+                Long.parseLong(conf.get("ops")),
+                Long.parseLong(conf.get("duration_seconds")) * 1000,
+                Long.parseLong(conf.get("seed")));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        try (LocalCluster cluster = new LocalCluster(conf.get("bin"), mode,
+                Boolean.parseBoolean(conf.get("keep_workspace")))) {
+            cluster.start();
+            SqlExecutor executor = cluster.newSqlExecutor();
+            try {
+                for (String name : conf.get("workloads").split(",")) {
+                    Workload workload = createWorkload(name.trim(), conf, cluster.getTableOptions());
+                    WorkloadResult result = runner.run(workload, executor);
+                    logger.info("workload {}: {}", name, result.toReport());
+                    results.add(result.toReport());
+                }
+            } finally {
+                executor.close();
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", conf.get("label"));
+        report.put("config", conf);
+        report.put("workloads", results);
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        File reportFile = new File(conf.get("report"));
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(reportFile), StandardCharsets.UTF_8)) {
+            gson.toJson(report, writer);
+        }
+        logger.info("write report to {}", reportFile.getAbsolutePath());
+    }
+}
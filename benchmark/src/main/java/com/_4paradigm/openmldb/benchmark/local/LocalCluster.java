@@ -0,0 +1,230 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.benchmark.local;
+
+import com._4paradigm.openmldb.sdk.SdkOption;
+import com._4paradigm.openmldb.sdk.SqlExecutor;
+import com._4paradigm.openmldb.sdk.impl.SqlClusterExecutor;
+import org.apache.commons.io.FileUtils;
+import org.apache.curator.test.TestingServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start OpenMLDB on localhost with the openmldb binary, all data and logs are kept in a temporary workspace.
+ *
+ * <p>In standalone mode one tablet and one nameserver are started. In cluster mode an embedded ZooKeeper is started as
+ * well, so no external service is needed in both modes.
+ */
+public class LocalCluster implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LocalCluster.class);
+    private static final String HOST = "127.0.0.1";
+    private static final String ZK_PATH = "/openmldb_bench";
+    private static final long START_TIMEOUT_MS = 60000;
+
+    public enum Mode {
+        STANDALONE, CLUSTER
+    }
+
+    private final String binPath;
+    private final Mode mode;
+    private final boolean keepWorkspace;
+    private final List<Process> processes = new ArrayList<>();
+    private File workspace;
+    private TestingServer zkServer;
+    private int zkPort;
+    private int tabletPort;
+    private int nsPort;
+
+    public LocalCluster(String binPath, Mode mode, boolean keepWorkspace) {
+        this.binPath = binPath;
+        this.mode = mode;
+        this.keepWorkspace = keepWorkspace;
+    }
+
+    public void start() throws Exception {
+        if (!new File(binPath).canExecute()) {
+            throw new IOException("openmldb binary " + binPath + " is not executable");
+        }
+        workspace = Files.createTempDirectory("openmldb_bench_").toFile();
+        logger.info("start {} mode in {}", mode, workspace);
+        tabletPort = getFreePort();
+        nsPort = getFreePort();
+        List<String> zkArgs = new ArrayList<>();
+        if (mode == Mode.CLUSTER) {
+            zkPort = getFreePort();
+            zkServer = new TestingServer(zkPort, new File(workspace, "zookeeper"), true);
+            zkArgs.add("--zk_cluster=" + getZkCluster());
+            zkArgs.add("--zk_root_path=" + ZK_PATH);
+        }
+
+        List<String> tabletArgs = new ArrayList<>(Arrays.asList(
+                "--role=tablet",
+                "--endpoint=" + HOST + ":" + tabletPort,
+                "--db_root_path=" + new File(workspace, "tablet/db").getAbsolutePath(),
+                "--recycle_bin_root_path=" + new File(workspace, "tablet/recycle").getAbsolutePath(),
+                "--binlog_notify_on_put=true"));
+        tabletArgs.addAll(zkArgs);
+        startProcess("tablet", tabletArgs);
+        waitPort(tabletPort);
+
+        List<String> nsArgs = new ArrayList<>(Arrays.asList(
+                "--role=nameserver",
+                "--endpoint=" + HOST + ":" + nsPort,
+                "--tablet_offline_check_interval=1",
+                "--tablet_heartbeat_timeout=1"));
+        if (mode == Mode.STANDALONE) {
+            nsArgs.add("--tablet=" + HOST + ":" + tabletPort);
+        }
+        nsArgs.addAll(zkArgs);
+        startProcess("nameserver", nsArgs);
+        waitPort(nsPort);
+    }
+
+    private void startProcess(String role, List<String> args) throws IOException {
+        File logDir = new File(workspace, "logs/" + role);
+        if (!logDir.mkdirs()) {
+            throw new IOException("fail to create " + logDir);
+        }
+        List<String> command = new ArrayList<>();
+        command.add(binPath);
+        command.addAll(args);
+        command.add("--openmldb_log_dir=" + logDir.getAbsolutePath());
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(workspace, role + ".log"));
+        processes.add(builder.start());
+        logger.info("start {}: {}", role, String.join(" ", command));
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        }
+    }
+
+    private void waitPort(int port) throws Exception {
+        long deadline = System.currentTimeMillis() + START_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            for (Process process : processes) {
+                if (!process.isAlive()) {
+                    throw new IOException("openmldb process exits, see logs in " + workspace);
+                }
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(HOST, port), 1000);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(200);
+            }
+        }
+        throw new IOException("timeout to wait for port " + port + ", see logs in " + workspace);
+    }
+
+    private String getZkCluster() {
+        return HOST + ":" + zkPort;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Table options to create tables on the only tablet.
+     */
+    public String getTableOptions() {
+        return mode == Mode.CLUSTER ? " OPTIONS (partitionnum=8, replicanum=1)" : "";
+    }
+
+    /**
+     * Create a sdk connected to the started server, retry until the nameserver is ready.
+     */
+    public SqlExecutor newSqlExecutor() throws Exception {
+        SdkOption option = new SdkOption();
+        if (mode == Mode.CLUSTER) {
+            option.setZkCluster(getZkCluster());
+            option.setZkPath(ZK_PATH);
+        } else {
+            option.setClusterMode(false);
+            option.setHost(HOST);
+            option.setPort(nsPort);
+        }
+        option.setSessionTimeout(30000);
+        option.setRequestTimeout(60000);
+        long deadline = System.currentTimeMillis() + START_TIMEOUT_MS;
+        Exception lastError = null;
+        while (System.currentTimeMillis() < deadline) {
+            SqlExecutor executor = null;
+            try {
+                executor = new SqlClusterExecutor(option);
+                // the nameserver is ready only if ddl works
+                if (executor.getStatement().execute("SHOW DATABASES;")) {
+                    return executor;
+                }
+            } catch (Exception e) {
+                lastError = e;
+                logger.info("wait for nameserver: {}", e.getMessage());
+            }
+            if (executor != null) {
+                executor.close();
+            }
+            TimeUnit.SECONDS.sleep(1);
+        }
+        throw new IOException("timeout to wait for nameserver, see logs in " + workspace, lastError);
+    }
+
+    @Override
+    public void close() {
+        // stop nameserver before tablet
+        for (int i = processes.size() - 1; i >= 0; i--) {
+            Process process = processes.get(i);
+            process.destroy();
+            try {
+                if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        processes.clear();
+        if (zkServer != null) {
+            try {
+                zkServer.close();
+            } catch (IOException e) {
+                logger.warn("fail to stop zookeeper", e);
+            }
+            zkServer = null;
+        }
+        if (workspace != null && !keepWorkspace) {
+            FileUtils.deleteQuietly(workspace);
+        }
+    }
+}
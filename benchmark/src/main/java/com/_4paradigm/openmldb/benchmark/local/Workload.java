@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.benchmark.local;
+
+import com._4paradigm.openmldb.sdk.SqlExecutor;
+
+/**
+ * A workload to run by {@link WorkloadRunner}.
+ */
+public interface Workload {
+
+    String getName();
+
+    /**
+     * Create tables, load data and deploy sql before running.
+     */
+    void prepare(SqlExecutor executor) throws Exception;
+
+    /**
+     * Create the worker of one thread, workers are not shared between threads.
+     *
+     * @param seed seed of the random data, so that runs with the same seed issue the same requests
+     */
+    Worker createWorker(SqlExecutor executor, long seed) throws Exception;
+
+    void cleanup(SqlExecutor executor);
+
+    interface Worker extends AutoCloseable {
+        /**
+         * Execute one operation.
+         *
+         * @return the number of rows in the operation
+         */
+        int execute() throws Exception;
+
+        @Override
+        void close() throws Exception;
+    }
+}
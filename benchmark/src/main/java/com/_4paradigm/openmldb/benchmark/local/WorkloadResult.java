@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.benchmark.local;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of one workload, latencies are in microseconds.
+ */
+public class WorkloadResult {
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private final String name;
+    private final int threads;
+    private final long elapsedMs;
+    private final long operations;
+    private final long rows;
+    private final long errors;
+    private final Histogram latency;
+
+    public WorkloadResult(String name, int threads, long elapsedMs, long operations, long rows, long errors,
+                          Histogram latency) {
+        this.name = name;
+        this.threads = threads;
+        this.elapsedMs = elapsedMs;
+        this.operations = operations;
+        this.rows = rows;
+        this.errors = errors;
+        this.latency = latency;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Convert to an ordered map, so that reports of different runs can be diffed line by line.
+     */
+    public Map<String, Object> toReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("name", name);
+        report.put("threads", threads);
+        report.put("elapsed_ms", elapsedMs);
+        report.put("operations", operations);
+        report.put("rows", rows);
+        report.put("errors", errors);
+        double seconds = Math.max(elapsedMs, 1) / 1000.0;
+        report.put("ops_per_second", round(operations / seconds));
+        report.put("rows_per_second", round(rows / seconds));
+        Map<String, Object> latencyReport = new LinkedHashMap<>();
+        latencyReport.put("mean", round(latency.getMean()));
+        for (double percentile : PERCENTILES) {
+            latencyReport.put("p" + String.valueOf(percentile).replace(".0", ""),
+                    latency.getValueAtPercentile(percentile));
+        }
+        latencyReport.put("max", latency.getMaxValue());
+        report.put("latency_us", latencyReport);
+        return report;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.benchmark.local;
+
+import com._4paradigm.openmldb.sdk.SqlExecutor;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run a workload with fixed threads, each thread records latencies into its own histogram.
+ *
+ * <p>If operations per thread is set, each thread runs exactly that number of operations after warmup, so that runs
+ * with the same seed issue the same requests. Otherwise threads run until the duration elapses.
+ */
+public class WorkloadRunner {
+    private static final Logger logger = LoggerFactory.getLogger(WorkloadRunner.class);
+
+    private final int threads;
+    private final long warmupOperations;
+    private final long operationsPerThread;
+    private final long durationMs;
+    private final long seed;
+
+    public WorkloadRunner(int threads, long warmupOperations, long operationsPerThread, long durationMs, long seed) {
+        this.threads = threads;
+        this.warmupOperations = warmupOperations;
+        this.operationsPerThread = operationsPerThread;
+        this.durationMs = durationMs;
+        this.seed = seed;
+    }
+
+    private static class ThreadResult {
+        private final Histogram latency = new Histogram(3);
+        private long operations = 0;
+        private long rows = 0;
+        private long errors = 0;
+    }
+
+    public WorkloadResult run(Workload workload, SqlExecutor executor) throws Exception {
+        logger.info("prepare workload {}", workload.getName());
+        workload.prepare(executor);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Workload.Worker> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                workers.add(workload.createWorker(executor, seed * 31 + i));
+            }
+            for (Workload.Worker worker : workers) {
+                for (long i = 0; i < warmupOperations; i++) {
+                    worker.execute();
+                }
+            }
+
+            logger.info("run workload {} with {} threads", workload.getName(), threads);
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(durationMs);
+            List<Future<ThreadResult>> futures = new ArrayList<>();
+            for (Workload.Worker worker : workers) {
+                futures.add(pool.submit(() -> runWorker(worker, deadline)));
+            }
+            Histogram latency = new Histogram(3);
+            long operations = 0;
+            long rows = 0;
+            long errors = 0;
+            for (Future<ThreadResult> future : futures) {
+                ThreadResult result = future.get();
+                latency.add(result.latency);
+                operations += result.operations;
+                rows += result.rows;
+                errors += result.errors;
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new WorkloadResult(workload.getName(), threads, elapsedMs, operations, rows, errors, latency);
+        } finally {
+            pool.shutdownNow();
+            for (Workload.Worker worker : workers) {
+                try {
+                    worker.close();
+                } catch (Exception e) {
+                    logger.warn("fail to close worker", e);
+                }
+            }
+            workload.cleanup(executor);
+        }
+    }
+
+    private ThreadResult runWorker(Workload.Worker worker, long deadline) {
+        ThreadResult result = new ThreadResult();
+        while (operationsPerThread > 0 ? result.operations + result.errors < operationsPerThread
+                : System.nanoTime() < deadline) {
+            long begin = System.nanoTime();
+            try {
+                result.rows += worker.execute();
+                result.operations++;
+                result.latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin));
+            } catch (Exception e) {
+                if (result.errors == 0) {
+                    logger.warn("operation failed", e);
+                }
+                result.errors++;
+            }
+        }
+        return result;
+    }
+}
@@ -167,6 +167,8 @@ class RunSession {
     void SetSpName(const std::string& sp_name) { sp_name_ = sp_name; }
     /// Return the engine mode of this run session
     EngineMode engine_mode() const { return engine_mode_; }
+    /// Return if the compile info was found in the engine cache by the last Engine::Get
+    bool IsCompileCacheHit() const { return compile_cache_hit_; }
 
     const std::shared_ptr<const std::unordered_map<std::string, std::string>>& GetOptions() const {
         return options_;
@@ -183,6 +185,7 @@ class RunSession {
     hybridse::vm::EngineMode engine_mode_;
     bool is_debug_;
     std::string sp_name_;
+    bool compile_cache_hit_ = false;
     std::shared_ptr<const std::unordered_map<std::string, std::string>> options_ = nullptr;
 
     // [ALPHA] output possible diagnostic infos from compiler
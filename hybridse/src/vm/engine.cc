@@ -147,8 +147,10 @@ bool Engine::Get(const std::string& sql, const std::string& db, RunSession& sess
     std::shared_ptr<CompileInfo> cached_info = GetCacheLocked(db, sql, session.engine_mode());
     if (cached_info && IsCompatibleCache(session, cached_info, status)) {
         session.SetCompileInfo(cached_info);
+        session.compile_cache_hit_ = true;
         return true;
     }
+    session.compile_cache_hit_ = false;
     // TODO(baoxinqi): IsCompatibleCache fail, return false, or reset status.
     if (!status.isOK()) {
         LOG(WARNING) << status;
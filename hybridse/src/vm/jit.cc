@@ -15,6 +15,10 @@
  */
 
 #include "vm/jit.h"
+#include <unistd.h>
+#include <atomic>
+#include <cstdio>
+#include <fstream>
 #include <string>
 #include <utility>
 extern "C" {
@@ -36,6 +40,10 @@ extern "C" {
 #include "llvm/IR/LLVMContext.h"
 #include "llvm/IR/LegacyPassManager.h"
 #include "llvm/IR/Verifier.h"
+#include "llvm/Config/llvm-config.h"
+#include "llvm/Support/FileSystem.h"
+#include "llvm/Support/Host.h"
+#include "llvm/Support/Path.h"
 #include "llvm/Transforms/InstCombine/InstCombine.h"
 #include "llvm/Transforms/Scalar.h"
 #include "llvm/Transforms/Scalar/GVN.h"
@@ -148,10 +156,98 @@ bool HybridSeJit::AddSymbol(::llvm::orc::JITDylib& jd,
     }
 }
 
+const char HybridSeObjectCache::kCacheableModulePrefix[] = "hybridse_ir_";
+
+HybridSeObjectCache::HybridSeObjectCache(const std::string& cache_dir)
+    : cache_dir_(cache_dir) {
+    auto ec = ::llvm::sys::fs::create_directories(cache_dir_);
+    if (ec) {
+        LOG(WARNING) << "fail to create jit object cache dir " << cache_dir_
+                     << ": " << ec.message();
+        return;
+    }
+    available_ = true;
+}
+
+bool HybridSeObjectCache::GetCachePath(const ::llvm::Module* m,
+                                       std::string* path) const {
+    if (!available_) {
+        return false;
+    }
+    const std::string& id = m->getModuleIdentifier();
+    if (id.compare(0, sizeof(kCacheableModulePrefix) - 1,
+                   kCacheableModulePrefix) != 0) {
+        return false;
+    }
+    // object code depends on the llvm version and host cpu besides the ir
+    ::llvm::SmallString<256> file_path(cache_dir_);
+    ::llvm::sys::path::append(
+        file_path, id + "_" + LLVM_VERSION_STRING + "_" +
+                       ::llvm::sys::getHostCPUName().str() + ".o");
+    *path = file_path.str().str();
+    return true;
+}
+
+void HybridSeObjectCache::notifyObjectCompiled(const ::llvm::Module* m,
+                                               ::llvm::MemoryBufferRef obj) {
+    std::string path;
+    if (!GetCachePath(m, &path)) {
+        return;
+    }
+    // write to a temporary file then rename, so that other processes never
+    // read a partial object
+    static std::atomic<uint64_t> tmp_seq(0);
+    std::string tmp_path = path + ".tmp." + std::to_string(getpid()) + "." +
+                           std::to_string(tmp_seq.fetch_add(1));
+    {
+        std::ofstream ofs(tmp_path, std::ios::binary | std::ios::trunc);
+        ofs.write(obj.getBufferStart(), obj.getBufferSize());
+        if (!ofs.good()) {
+            LOG(WARNING) << "fail to write jit object cache " << tmp_path;
+            ofs.close();
+            std::remove(tmp_path.c_str());
+            return;
+        }
+    }
+    if (std::rename(tmp_path.c_str(), path.c_str()) != 0) {
+        LOG(WARNING) << "fail to rename jit object cache to " << path;
+        std::remove(tmp_path.c_str());
+        return;
+    }
+    DLOG(INFO) << "cache object code of module " << m->getModuleIdentifier()
+               << " to " << path;
+}
+
+std::unique_ptr<::llvm::MemoryBuffer> HybridSeObjectCache::getObject(
+    const ::llvm::Module* m) {
+    std::string path;
+    if (!GetCachePath(m, &path)) {
+        return nullptr;
+    }
+    auto buffer = ::llvm::MemoryBuffer::getFile(path, -1, false);
+    if (!buffer) {
+        return nullptr;
+    }
+    DLOG(INFO) << "load object code of module " << m->getModuleIdentifier()
+               << " from " << path;
+    return std::move(buffer.get());
+}
+
 bool HybridSeLlvmJitWrapper::Init() {
     DLOG(INFO) << "Start to initialize hybridse jit";
-    auto jit = ::llvm::Expected<std::unique_ptr<HybridSeJit>>(
-        HybridSeJitBuilder().create());
+    HybridSeJitBuilder builder;
+    if (!object_cache_dir_.empty()) {
+        object_cache_.reset(new HybridSeObjectCache(object_cache_dir_));
+        auto cache = object_cache_.get();
+        using CompileFunction = ::llvm::orc::IRCompileLayer::CompileFunction;
+        builder.setCompileFunctionCreator(
+            [cache](::llvm::orc::JITTargetMachineBuilder jtmb)
+                -> ::llvm::Expected<CompileFunction> {
+                return CompileFunction(
+                    ::llvm::orc::ConcurrentIRCompiler(std::move(jtmb), cache));
+            });
+    }
+    auto jit = ::llvm::Expected<std::unique_ptr<HybridSeJit>>(builder.create());
     {
         ::llvm::Error e = jit.takeError();
         if (e) {
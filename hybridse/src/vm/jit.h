@@ -21,6 +21,7 @@
 #include <memory>
 #include <string>
 #include "llvm/ExecutionEngine/GenericValue.h"
+#include "llvm/ExecutionEngine/ObjectCache.h"
 #include "llvm/ExecutionEngine/Orc/LLJIT.h"
 #include "vm/jit_wrapper.h"
 
@@ -85,9 +86,34 @@ std::string LlvmToString(const T& value) {
     return str;
 }
 
+// Object code cache on local disk, shared by all processes on the same host.
+// Only modules whose identifier starts with kCacheableModulePrefix are cached,
+// the identifier should carry the hash of module IR.
+class HybridSeObjectCache : public ::llvm::ObjectCache {
+ public:
+    static const char kCacheableModulePrefix[];
+
+    explicit HybridSeObjectCache(const std::string& cache_dir);
+    ~HybridSeObjectCache() {}
+
+    void notifyObjectCompiled(const ::llvm::Module* m,
+                              ::llvm::MemoryBufferRef obj) override;
+
+    std::unique_ptr<::llvm::MemoryBuffer> getObject(
+        const ::llvm::Module* m) override;
+
+ private:
+    bool GetCachePath(const ::llvm::Module* m, std::string* path) const;
+
+    const std::string cache_dir_;
+    bool available_ = false;
+};
+
 class HybridSeLlvmJitWrapper : public HybridSeJitWrapper {
  public:
     HybridSeLlvmJitWrapper() {}
+    explicit HybridSeLlvmJitWrapper(const JitOptions& jit_options)
+        : object_cache_dir_(jit_options.GetObjectCacheDir()) {}
     ~HybridSeLlvmJitWrapper() {}
 
     bool Init() override;
@@ -105,6 +131,9 @@ class HybridSeLlvmJitWrapper : public HybridSeJitWrapper {
     // llvm::LLVMContext* GetLlvmContext();
 
  private:
+    const std::string object_cache_dir_;
+    // should outlive jit_ since it is used by the compile layer
+    std::unique_ptr<HybridSeObjectCache> object_cache_;
     std::unique_ptr<HybridSeJit> jit_;
     std::unique_ptr<::llvm::orc::MangleAndInterner> mi_;
 };
@@ -31,6 +31,7 @@
 #include "llvm/IR/LLVMContext.h"
 #include "llvm/IR/LegacyPassManager.h"
 #include "llvm/IRReader/IRReader.h"
+#include "llvm/Support/MD5.h"
 #include "llvm/Support/SourceMgr.h"
 #include "llvm/Transforms/InstCombine/InstCombine.h"
 #include "llvm/Transforms/Scalar.h"
@@ -56,6 +57,15 @@ bool HybridSeJitWrapper::AddModuleFromBuffer(const base::RawBuffer& buf) {
         diagnostic.print("", err_msg_stream);
         return false;
     }
+    // identify the module by ir hash, so that the object cache can reuse
+    // the object code compiled from the same ir
+    ::llvm::MD5 md5;
+    md5.update(::llvm::StringRef(buf.addr, buf.size));
+    ::llvm::MD5::MD5Result md5_result;
+    md5.final(md5_result);
+    llvm_module->setModuleIdentifier(
+        std::string(HybridSeObjectCache::kCacheableModulePrefix) +
+        md5_result.digest().str().str());
     return this->AddModule(std::move(llvm_module), std::move(llvm_ctx));
 }
 
@@ -76,14 +86,14 @@ HybridSeJitWrapper* HybridSeJitWrapper::Create(const JitOptions& jit_options) {
         return new HybridSeMcJitWrapper(jit_options);
 #else
         LOG(WARNING) << "McJit support is not enabled";
-        return new HybridSeLlvmJitWrapper();
+        return new HybridSeLlvmJitWrapper(jit_options);
 #endif
     } else {
         if (jit_options.IsEnableVtune() || jit_options.IsEnablePerf() ||
             jit_options.IsEnableGdb()) {
             LOG(WARNING) << "LLJIT do not support jit events";
         }
-        return new HybridSeLlvmJitWrapper();
+        return new HybridSeLlvmJitWrapper(jit_options);
     }
 }
 
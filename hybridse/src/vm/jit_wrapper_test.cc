@@ -15,8 +15,11 @@
  */
 
 #include "vm/jit_wrapper.h"
+#include <unistd.h>
+#include <string>
 #include "codec/fe_row_codec.h"
 #include "gtest/gtest.h"
+#include "llvm/Support/FileSystem.h"
 #include "udf/udf.h"
 #include "vm/engine.h"
 #include "vm/simple_catalog.h"
@@ -162,6 +165,41 @@ TEST_F(JitWrapperTest, test_window) {
     delete jit;
 }
 
+TEST_F(JitWrapperTest, test_object_cache) {
+    EngineOptions options;
+    options.SetKeepIr(true);
+    auto catalog = GetTestCatalog();
+    auto compile_info =
+        Compile("select col_1, col_2 + 1 from t1;", options, catalog);
+    auto &sql_context = compile_info->get_sql_context();
+    std::string ir_str = sql_context.ir;
+    ASSERT_FALSE(ir_str.empty());
+    auto fn_name = sql_context.physical_plan->GetFnInfos()[0]->fn_name();
+
+    std::string cache_dir = "/tmp/hybridse_jit_object_cache_test_" +
+                            std::to_string(getpid());
+    JitOptions jit_options;
+    jit_options.SetObjectCacheDir(cache_dir);
+    base::RawBuffer ir_buf(const_cast<char *>(ir_str.data()), ir_str.size());
+
+    // the first jit compiles the module and fills the cache, the second one
+    // loads the object code from cache
+    for (int i = 0; i < 2; ++i) {
+        HybridSeJitWrapper *jit = HybridSeJitWrapper::Create(jit_options);
+        ASSERT_TRUE(jit->Init());
+        HybridSeJitWrapper::InitJitSymbols(jit);
+        ASSERT_TRUE(jit->AddModuleFromBuffer(ir_buf));
+        ASSERT_TRUE(jit->FindFunction(fn_name) != nullptr);
+        delete jit;
+
+        std::error_code ec;
+        ::llvm::sys::fs::directory_iterator it(cache_dir, ec);
+        ASSERT_FALSE(ec);
+        ASSERT_TRUE(it != ::llvm::sys::fs::directory_iterator());
+    }
+    ::llvm::sys::fs::remove_directories(cache_dir);
+}
+
 }  // namespace vm
 }  // namespace hybridse
 
@@ -22,46 +22,90 @@ import com._4paradigm.hybridse.vm.JitOptions;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * JIT manager provides a set of API to access jit, configure JitOptions and init llvm module.
+ *
+ * <p>Jits are cached by tag in a concurrent map, each tag is initialized only once under its own lock, so tasks of
+ * different sql never contend. Users should acquire a module before using it and release it after, the modules which
+ * are not referenced are evicted in LRU order when the total size of module buffers exceeds
+ * {@code openmldb.jit.cache.max.bytes}.
  */
 public class JitManager {
 
     private static Logger logger = LoggerFactory.getLogger(JitManager.class);
 
+    private static final String CACHE_MAX_BYTES_KEY = "openmldb.jit.cache.max.bytes";
+    // 1GB of module buffers by default
+    private static final long DEFAULT_CACHE_MAX_BYTES = 1L << 30;
+
+    private static class JitEntry {
+        private final String tag;
+        private HybridSeJitWrapper jit;
+        private volatile boolean moduleInitialized = false;
+        private volatile long moduleBytes = 0;
+        private volatile long lastAccessTime = System.nanoTime();
+        // guarded by the lock of entry
+        private int refCount = 0;
+        // removed from cache, the jit is deleted once not referenced
+        private boolean removed = false;
+
+        JitEntry(String tag) {
+            this.tag = tag;
+        }
+    }
 
     // One jit currently only take one llvm module, since symbol may duplicate
-    private static Map<String, HybridSeJitWrapper> jits = new HashMap<>();
-    private static Set<String> initializedModuleTags = new HashSet<>();
+    private static final Map<String, JitEntry> entries = new ConcurrentHashMap<>();
+    private static final AtomicLong totalModuleBytes = new AtomicLong(0);
+    private static final long cacheMaxBytes = getCacheMaxBytes();
+    private static volatile boolean llvmInitialized = false;
+    private static volatile String objectCacheDir = null;
 
-    /**
-     * Return JIT specified by tag.
-     */
-    public static synchronized HybridSeJitWrapper getJit(String tag) {
-        if (!jits.containsKey(tag)) {
-            HybridSeJitWrapper jit = HybridSeJitWrapper.Create(getJitOptions());
-            if (jit == null) {
-                throw new RuntimeException("Fail to create native jit");
+    private static JitEntry getOrCreateEntry(String tag) {
+        JitEntry entry = entries.computeIfAbsent(tag, JitEntry::new);
+        synchronized (entry) {
+            if (entry.removed) {
+                // Removed by others concurrently, retry with a new entry
+                return getOrCreateEntry(tag);
             }
-            if(!jit.Init()){
-                throw new RuntimeException("Fail to init jit");
+            if (entry.jit == null) {
+                HybridSeJitWrapper jit = HybridSeJitWrapper.Create(getJitOptions());
+                if (jit == null) {
+                    throw new RuntimeException("Fail to create native jit");
+                }
+                if (!jit.Init()) {
+                    throw new RuntimeException("Fail to init jit");
+                }
+                HybridSeJitWrapper.InitJitSymbols(jit);
+                entry.jit = jit;
             }
-            HybridSeJitWrapper.InitJitSymbols(jit);
-            jits.put(tag, jit);
+            entry.lastAccessTime = System.nanoTime();
         }
-        return jits.get(tag);
+        return entry;
+    }
+
+    /**
+     * Return JIT specified by tag.
+     */
+    public static HybridSeJitWrapper getJit(String tag) {
+        return getOrCreateEntry(tag).jit;
     }
 
     private static JitOptions getJitOptions() {
         JitOptions options = new JitOptions();
+        if (objectCacheDir != null && !objectCacheDir.isEmpty()) {
+            options.SetObjectCacheDir(objectCacheDir);
+        }
         try (InputStream input = JitManager.class.getClassLoader().getResourceAsStream("jit.properties")) {
             Properties prop = new Properties(System.getProperties());
             if (input == null) {
@@ -88,45 +132,181 @@ public class JitManager {
                 logger.info("Try enable gdb jit events support");
                 options.SetEnableGdb(true);
             }
+            String cacheDir = prop.getProperty("fesql.jit.object_cache_dir");
+            if (cacheDir != null && !cacheDir.isEmpty() && options.GetObjectCacheDir().isEmpty()) {
+                logger.info("Try enable jit object cache in " + cacheDir);
+                options.SetObjectCacheDir(cacheDir);
+            }
         } catch (IOException ex) {
             logger.debug("Can not find jit.properties", ex);
         }
         return options;
     }
 
-    private static synchronized boolean hasModule(String tag) {
-        return initializedModuleTags.contains(tag);
+    /**
+     * Set the local directory to cache the compiled object code of modules, the jits created later will skip llvm
+     * codegen for the module which has been compiled by any process on the same host.
+     *
+     * @param dir cache directory, disable the object cache if null or empty
+     */
+    public static void setObjectCacheDir(String dir) {
+        objectCacheDir = dir;
+    }
+
+    private static long getCacheMaxBytes() {
+        String value = System.getProperty(CACHE_MAX_BYTES_KEY);
+        if (value == null) {
+            return DEFAULT_CACHE_MAX_BYTES;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid {}: {}, use the default value", CACHE_MAX_BYTES_KEY, value);
+            return DEFAULT_CACHE_MAX_BYTES;
+        }
     }
 
-    private static synchronized void initModule(String tag, ByteBuffer moduleBuffer) {
-        HybridSeJitWrapper jit = getJit(tag);
-        if (!moduleBuffer.isDirect()) {
-            throw new RuntimeException("JIT must use direct buffer");
+    private static void initGlobalLlvm(boolean isUnsafeRowOpt) {
+        // Notice that we should load library before calling this, invoke SqlClusterExecutor.initJavaSdkLibrary()
+        if (!llvmInitialized) {
+            synchronized (JitManager.class) {
+                if (!llvmInitialized) {
+                    // ensure worker native
+                    Engine.InitializeGlobalLLVM();
+                    llvmInitialized = true;
+                }
+            }
         }
-        if (!jit.AddModuleFromBuffer(moduleBuffer)) {
-            throw new RuntimeException("Fail to initialize native module");
+        Engine.InitializeUnsafeRowOptFlag(isUnsafeRowOpt);
+    }
+
+    private static JitEntry initModule(String tag, ByteBuffer moduleBuffer, boolean isUnsafeRowOpt, boolean acquire) {
+        initGlobalLlvm(isUnsafeRowOpt);
+        JitEntry entry = getOrCreateEntry(tag);
+        synchronized (entry) {
+            if (entry.removed) {
+                return initModule(tag, moduleBuffer, isUnsafeRowOpt, acquire);
+            }
+            // ensure worker side module
+            if (!entry.moduleInitialized) {
+                if (!moduleBuffer.isDirect()) {
+                    throw new RuntimeException("JIT must use direct buffer");
+                }
+                if (!entry.jit.AddModuleFromBuffer(moduleBuffer)) {
+                    throw new RuntimeException("Fail to initialize native module");
+                }
+                entry.moduleBytes = moduleBuffer.capacity();
+                entry.moduleInitialized = true;
+                totalModuleBytes.addAndGet(entry.moduleBytes);
+                logger.info("Init jit module with tag:\n" + tag);
+            }
+            if (acquire) {
+                entry.refCount++;
+            }
         }
-        initializedModuleTags.add(tag);
+        evictIfNeeded();
+        return entry;
     }
 
     /**
      * Init llvm module specified by tag. Init native module with module byte buffer.
      *
+     * <p>The module is not referenced and may be evicted when the cache is full, use acquireJitModule if the jit will
+     * be used later.
+     *
      * @param tag tag specified a jit
      * @param moduleBuffer ByteBuffer used to initialize native module
      */
-    public static synchronized void initJitModule(String tag, ByteBuffer moduleBuffer, boolean isUnsafeRowOpt) {
-        // Notice that we should load library before calling this, invoke SqlClusterExecutor.initJavaSdkLibrary()
+    public static void initJitModule(String tag, ByteBuffer moduleBuffer, boolean isUnsafeRowOpt) {
+        initModule(tag, moduleBuffer, isUnsafeRowOpt, false);
+    }
 
-        // ensure worker native
-        Engine.InitializeGlobalLLVM();
-        Engine.InitializeUnsafeRowOptFlag(isUnsafeRowOpt);
+    /**
+     * Init llvm module specified by tag if needed and hold a reference of it, the module will not be evicted until
+     * all references are released by releaseJitModule.
+     *
+     * @param tag tag specified a jit
+     * @param moduleBuffer ByteBuffer used to initialize native module
+     * @return the jit with module initialized
+     */
+    public static HybridSeJitWrapper acquireJitModule(String tag, ByteBuffer moduleBuffer, boolean isUnsafeRowOpt) {
+        return initModule(tag, moduleBuffer, isUnsafeRowOpt, true).jit;
+    }
 
-        // ensure worker side module
-        if (!JitManager.hasModule(tag)) {
-            JitManager.initModule(tag, moduleBuffer);
-            logger.info("Init jit module with tag:\n" + tag);
+    /**
+     * Release a reference of the module acquired by acquireJitModule.
+     *
+     * @param tag module tag
+     */
+    public static void releaseJitModule(String tag) {
+        JitEntry entry = entries.get(tag);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (entry.refCount <= 0) {
+                logger.warn("Release jit module which is not acquired, tag:\n" + tag);
+                return;
+            }
+            entry.refCount--;
+            entry.lastAccessTime = System.nanoTime();
+            if (entry.removed && entry.refCount == 0) {
+                deleteJit(entry);
+            }
         }
+        evictIfNeeded();
+    }
+
+    /**
+     * Evict the least recently used modules which are not referenced until the total size is under the limit.
+     */
+    private static void evictIfNeeded() {
+        if (totalModuleBytes.get() <= cacheMaxBytes) {
+            return;
+        }
+        List<JitEntry> candidates = new ArrayList<>(entries.values());
+        candidates.sort(Comparator.comparingLong(entry -> entry.lastAccessTime));
+        for (JitEntry entry : candidates) {
+            if (totalModuleBytes.get() <= cacheMaxBytes) {
+                return;
+            }
+            synchronized (entry) {
+                if (entry.refCount == 0 && !entry.removed) {
+                    logger.info("Evict jit module of {} bytes, tag:\n{}", entry.moduleBytes, entry.tag);
+                    removeEntry(entry);
+                }
+            }
+        }
+    }
+
+    // Should be called with the lock of entry
+    private static void removeEntry(JitEntry entry) {
+        entry.removed = true;
+        entries.remove(entry.tag, entry);
+        // The jit in use will be deleted by the last release
+        if (entry.refCount == 0) {
+            deleteJit(entry);
+        }
+    }
+
+    // Should be called with the lock of entry
+    private static void deleteJit(JitEntry entry) {
+        if (entry.moduleInitialized) {
+            totalModuleBytes.addAndGet(-entry.moduleBytes);
+            entry.moduleInitialized = false;
+        }
+        if (entry.jit != null) {
+            HybridSeJitWrapper.DeleteJit(entry.jit);
+            entry.jit.delete();
+            entry.jit = null;
+        }
+    }
+
+    /**
+     * Return the total size of module buffers in cache.
+     */
+    public static long getCachedModuleBytes() {
+        return totalModuleBytes.get();
     }
 
     /**
@@ -134,24 +314,23 @@ public class JitManager {
      *
      * @param tag module tag
      */
-    public static synchronized void removeModule(String tag) {
-        initializedModuleTags.remove(tag);
-        HybridSeJitWrapper jit = jits.remove(tag);
-        if (jit != null) {
-            HybridSeJitWrapper.DeleteJit(jit);
-            jit.delete();
+    public static void removeModule(String tag) {
+        JitEntry entry = entries.get(tag);
+        if (entry != null) {
+            synchronized (entry) {
+                if (!entry.removed) {
+                    removeEntry(entry);
+                }
+            }
         }
     }
 
     /**
      * Clear native modules and jits.
      */
-    public static synchronized void clear() {
-        initializedModuleTags.clear();
-        for (Map.Entry<String, HybridSeJitWrapper> entry : jits.entrySet()) {
-            HybridSeJitWrapper.DeleteJit(entry.getValue());
-            entry.getValue().delete();
+    public static void clear() {
+        for (String tag : new ArrayList<>(entries.keySet())) {
+            removeModule(tag);
         }
-        jits.clear();
     }
 }
@@ -174,21 +174,21 @@ class OpenmldbBatchConfig extends Serializable {
     " function dir")
   var taskmanagerExternalFunctionDir = "/tmp/udf/"
 
-  @ConfigOption(name = "openmldb.savejobresult.http", doc = "The http url of JobResultSaver(taskmanager), " +
-    "send df to it")
-  var saveJobResultHttp = ""
+  @ConfigOption(name = "openmldb.savejobresult.channel", doc = "The host:port of the result channel of " +
+    "JobResultSaver(taskmanager), stream df to it")
+  var saveJobResultChannel = ""
 
   @ConfigOption(name = "openmldb.savejobresult.resultid", doc = "The savejobresult id")
   var saveJobResultId = ""
 
-  // If a post req is too large, > brpc max_body_size, it'll be reject, default is 64M.
-  @ConfigOption(name = "openmldb.savejobresult.rowperpost", doc = "The max row count of a http post request to " +
-    "savejobresult, default is 16000, if the row count is larger than this, will split it into multiple http request" +
-    " with same resultid and different row")
+  // Keep the name for compatibility, it's the row count of a batch in the result channel now.
+  @ConfigOption(name = "openmldb.savejobresult.rowperpost", doc = "The max row count of a batch sent to " +
+    "savejobresult channel, default is 16000, the rows of a partition will be split into multiple batches" +
+    " in the same connection")
   var saveJobResultRowPerPost = 16000
 
   @ConfigOption(name = "openmldb.savejobresult.posttimeouts", doc = "ConnectionRequestTimeout,ConnectTimeout," +
-    "SocketTimeout for http post request to savejobresult, default is '10000,10000,10000', unit is ms")
+    "SocketTimeout for savejobresult channel, default is '10000,10000,10000', unit is ms, the first one is unused")
   var saveJobResultPostTimeouts = "10000,10000,10000"
 }
 
@@ -281,6 +281,35 @@ class OpenmldbSession {
 
   def close(): Unit = stop()
 
+  /**
+   * Register the offline tables of OpenMLDB again, so a long-lived session can see the tables created or updated after
+   * it starts.
+   */
+  def refreshOpenmldbOfflineTables(): Unit = {
+    if (openmldbCatalogService != null) {
+      registeredTables.clear()
+      registerOpenmldbOfflineTable(openmldbCatalogService)
+    }
+  }
+
+  /**
+   * Connect OpenMLDB with another user, so a long-lived session can run the sql of different users. Call
+   * refreshOpenmldbOfflineTables to register the tables of the user.
+   */
+  def switchOpenmldbUser(user: String, password: String): Unit = {
+    if (openmldbCatalogService == null ||
+      (user == this.config.openmldbUser && password == this.config.openmldbPassword)) {
+      return
+    }
+    logger.info(s"Switch OpenMLDB user from ${this.config.openmldbUser} to $user")
+    val catalogService = new OpenmldbCatalogService(this.config.openmldbZkCluster, this.config.openmldbZkRootPath,
+      user, password, config.openmldbJsdkLibraryPath)
+    openmldbCatalogService.close()
+    openmldbCatalogService = catalogService
+    this.config.openmldbUser = user
+    this.config.openmldbPassword = password
+  }
+
   def registerOpenmldbOfflineTable(catalogService: OpenmldbCatalogService): Unit = {
     if (catalogService == null) {
       return
@@ -44,6 +44,11 @@ class OpenmldbCatalogService(val zkCluster: String, val zkPath: String, val user
     this(zkCluster, zkPath, username, password, "")
   }
 
+  def close(): Unit = {
+    sqlExecutor.close()
+    zkClient.getClient.close()
+  }
+
   def getDatabases: Array[String] = {
     sqlExecutor.showDatabases().asScala.toArray
   }
@@ -17,10 +17,9 @@
 package com._4paradigm.openmldb.batch.nodes
 
 import com._4paradigm.hybridse.codec.{Row => NativeRow}
-import com._4paradigm.hybridse.sdk.JitManager
 import com._4paradigm.hybridse.vm.{CoreAPI, GroupbyInterface, PhysicalGroupAggrerationNode}
 import com._4paradigm.openmldb.batch.nodes.RowProjectPlan.ProjectConfig
-import com._4paradigm.openmldb.batch.utils.{HybridseUtil, SparkColumnUtil}
+import com._4paradigm.openmldb.batch.utils.{HybridseUtil, JitUtil, SparkColumnUtil}
 import com._4paradigm.openmldb.batch.{PlanContext, SparkInstance, SparkRowCodec}
 import com._4paradigm.openmldb.sdk.impl.SqlClusterExecutor
 import org.apache.spark.sql.types.LongType
@@ -94,9 +93,7 @@ object GroupByAggregationPlan {
         val tag = projectConfig.moduleTag
         val buffer = projectConfig.moduleNoneBroadcast.getBuffer
         SqlClusterExecutor.initJavaSdkLibrary(openmldbJsdkLibraryPath)
-        JitManager.initJitModule(tag, buffer, isUnafeRowOpt)
-
-        val jit = JitManager.getJit(tag)
+        val jit = JitUtil.acquireForTask(tag, buffer, isUnafeRowOpt)
         val fn = jit.FindFunction(projectConfig.functionName)
 
         val encoder = new SparkRowCodec(projectConfig.inputSchemaSlices)
@@ -19,11 +19,11 @@ package com._4paradigm.openmldb.batch.nodes
 import com._4paradigm.hybridse.`type`.TypeOuterClass.ColumnDef
 import com._4paradigm.hybridse.codec
 import com._4paradigm.hybridse.codec.RowView
-import com._4paradigm.hybridse.sdk.{HybridSeException, JitManager, SerializableByteBuffer, UnsupportedHybridSeException}
+import com._4paradigm.hybridse.sdk.{HybridSeException, SerializableByteBuffer, UnsupportedHybridSeException}
 import com._4paradigm.hybridse.node.{BinaryExpr, ExprListNode, ExprType, FnOperator, JoinType}
 import com._4paradigm.hybridse.vm.{CoreAPI, HybridSeJitWrapper, PhysicalJoinNode}
-import com._4paradigm.openmldb.batch.utils.{ExpressionUtil, ExternalUdfUtil, HybridseUtil, SparkColumnUtil,
-  SparkRowUtil, SparkUtil}
+import com._4paradigm.openmldb.batch.utils.{ExpressionUtil, ExternalUdfUtil, HybridseUtil, JitUtil,
+  SparkColumnUtil, SparkRowUtil, SparkUtil}
 import com._4paradigm.openmldb.batch.{PlanContext, SparkInstance, SparkRowCodec}
 import com._4paradigm.openmldb.sdk.impl.SqlClusterExecutor
 import org.apache.spark.sql.types.StructType
@@ -267,8 +267,7 @@ object JoinPlan {
       ExternalUdfUtil.executorRegisterExternalUdf(externalFunMap, taskmanagerExternalFunctionDir, isYarnMode)
       // ensure worker native
       val buffer = moduleBroadcast.getBuffer
-      JitManager.initJitModule(moduleTag, buffer, isUnafeRowOpt)
-      JitManager.getJit(moduleTag)
+      JitUtil.acquireForTask(moduleTag, buffer, isUnafeRowOpt)
     }
 
     override def apply(row: Row): Boolean = {
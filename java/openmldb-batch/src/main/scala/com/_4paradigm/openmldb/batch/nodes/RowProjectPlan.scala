@@ -17,10 +17,10 @@
 package com._4paradigm.openmldb.batch.nodes
 
 import com._4paradigm.hybridse.codec
-import com._4paradigm.hybridse.sdk.{JitManager, SerializableByteBuffer}
+import com._4paradigm.hybridse.sdk.SerializableByteBuffer
 import com._4paradigm.hybridse.vm.{CoreAPI, PhysicalTableProjectNode}
-import com._4paradigm.openmldb.batch.utils.{AutoDestructibleIterator, ExternalUdfUtil, HybridseUtil, SparkUtil,
-  UnsafeRowUtil}
+import com._4paradigm.openmldb.batch.utils.{AutoDestructibleIterator, ExternalUdfUtil, HybridseUtil, JitUtil,
+  SparkUtil, UnsafeRowUtil}
 import com._4paradigm.openmldb.batch.{PlanContext, SparkInstance, SparkRowCodec}
 import com._4paradigm.openmldb.common.codec.CodecUtil
 import com._4paradigm.openmldb.sdk.impl.SqlClusterExecutor
@@ -100,8 +100,7 @@ object RowProjectPlan {
         // Load external udf if exists
         ExternalUdfUtil.executorRegisterExternalUdf(externalFunMap, taskmanagerExternalFunctionDir, isYarnMode)
 
-        JitManager.initJitModule(tag, buffer, isUnsafeRowOpt)
-        val jit = JitManager.getJit(tag)
+        val jit = JitUtil.acquireForTask(tag, buffer, isUnsafeRowOpt)
         val fn = jit.FindFunction(projectConfig.functionName)
 
 
@@ -200,8 +199,7 @@ object RowProjectPlan {
         // Load external udf if exists
         ExternalUdfUtil.executorRegisterExternalUdf(externalFunMap, taskmanagerExternalFunctionDir, isYarnMode)
 
-        JitManager.initJitModule(tag, buffer.getBuffer, isUnsafeRowOpt)
-        val jit = JitManager.getJit(tag)
+        val jit = JitUtil.acquireForTask(tag, buffer.getBuffer, isUnsafeRowOpt)
         val fn = jit.FindFunction(projectConfig.functionName)
 
         val encoder = new SparkRowCodec(projectConfig.inputSchemaSlices)
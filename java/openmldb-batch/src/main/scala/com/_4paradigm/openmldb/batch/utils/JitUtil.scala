@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.batch.utils
+
+import java.nio.ByteBuffer
+
+import com._4paradigm.hybridse.sdk.JitManager
+import com._4paradigm.hybridse.vm.HybridSeJitWrapper
+import org.apache.spark.{SparkEnv, TaskContext}
+
+
+object JitUtil {
+
+  private val objectCacheDirKey = "openmldb.jit.object.cache.dir"
+
+  // Read from the executor's spark conf rather than OpenmldbBatchConfig, which lives in the driver. Only spark.* conf
+  // is passed to executors, so both keys are checked like OpenmldbBatchConfig
+  private lazy val initObjectCache: Unit = {
+    Option(SparkEnv.get).map(_.conf).foreach { conf =>
+      conf.getOption(objectCacheDirKey).orElse(conf.getOption("spark." + objectCacheDirKey))
+        .filter(_.nonEmpty)
+        .foreach(dir => JitManager.setObjectCacheDir(dir))
+    }
+  }
+
+  /**
+   * Init the module of tag if needed and hold it until the current task completes, so the module can be evicted by
+   * JitManager once no running task uses it. The module is held forever if called outside of a spark task.
+   *
+   * If `openmldb.jit.object.cache.dir` is set, the object code is cached in the local directory so that later jobs
+   * with the same sql skip llvm codegen.
+   */
+  def acquireForTask(tag: String, buffer: ByteBuffer, isUnsafeRowOpt: Boolean): HybridSeJitWrapper = {
+    initObjectCache
+    val jit = JitManager.acquireJitModule(tag, buffer, isUnsafeRowOpt)
+    val taskContext = TaskContext.get()
+    if (taskContext != null) {
+      taskContext.addTaskCompletionListener[Unit](_ => JitManager.releaseJitModule(tag))
+    }
+    jit
+  }
+
+}
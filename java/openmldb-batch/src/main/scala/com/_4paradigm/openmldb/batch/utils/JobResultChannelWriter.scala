@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.batch.utils
+
+import org.apache.spark.sql.Row
+
+import java.io.{BufferedOutputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream, IOException}
+import java.net.{InetSocketAddress, Socket}
+import java.nio.charset.StandardCharsets
+
+/**
+ * The writer of the TaskManager job result channel.
+ *
+ * One connection is kept for all rows of a partition. Rows are sent in length-prefixed batches, a batch is
+ * [row count(4)|column count(4)|values], a value is [length(4)|utf-8 bytes] and length -1 means null. The
+ * TaskManager appends the batches to the spill file of the result id as they arrive.
+ */
+class JobResultChannelWriter(address: String, resultId: Int, connectTimeoutMs: Int, socketTimeoutMs: Int) {
+
+  private val socket = {
+    val Array(host, port) = address.split(":")
+    val s = new Socket()
+    s.connect(new InetSocketAddress(host, port.toInt), connectTimeoutMs)
+    s.setSoTimeout(socketTimeoutMs)
+    s
+  }
+  private val out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream, 64 * 1024))
+  private val in = new DataInputStream(socket.getInputStream)
+
+  private val batchBuffer = new ByteArrayOutputStream()
+  private val batchOut = new DataOutputStream(batchBuffer)
+  private var rowCount = 0L
+
+  out.writeInt(JobResultChannelWriter.MAGIC)
+  out.writeInt(resultId)
+
+  def writeBatch(rows: Seq[Row]): Unit = {
+    if (rows.isEmpty) {
+      return
+    }
+    batchBuffer.reset()
+    batchOut.writeInt(rows.size)
+    batchOut.writeInt(rows.head.length)
+    rows.foreach(row => {
+      var i = 0
+      while (i < row.length) {
+        writeValue(if (row.isNullAt(i)) null else row.get(i).toString)
+        i += 1
+      }
+    })
+    batchOut.flush()
+    writeFrame(JobResultChannelWriter.FRAME_ROWS, batchBuffer.toByteArray)
+    rowCount += rows.size
+  }
+
+  /**
+   * Finish the rows of this connection and wait until TaskManager has written them.
+   */
+  def finishPartition(): Unit = {
+    writeFrame(JobResultChannelWriter.FRAME_END, Array.emptyByteArray)
+    waitAck()
+  }
+
+  /**
+   * Mark the whole result as complete, which should be sent after all partitions are finished.
+   */
+  def finishResult(columnNames: Seq[String]): Unit = {
+    batchBuffer.reset()
+    batchOut.writeInt(columnNames.size)
+    columnNames.foreach(writeValue)
+    batchOut.flush()
+    writeFrame(JobResultChannelWriter.FRAME_FINISH, batchBuffer.toByteArray)
+    waitAck()
+  }
+
+  def sentRowCount: Long = rowCount
+
+  def close(): Unit = {
+    socket.close()
+  }
+
+  private def writeValue(value: String): Unit = {
+    if (value == null) {
+      batchOut.writeInt(-1)
+    } else {
+      val bytes = value.getBytes(StandardCharsets.UTF_8)
+      batchOut.writeInt(bytes.length)
+      batchOut.write(bytes)
+    }
+  }
+
+  private def writeFrame(frameType: Byte, payload: Array[Byte]): Unit = {
+    out.writeByte(frameType)
+    out.writeInt(payload.length)
+    out.write(payload)
+  }
+
+  private def waitAck(): Unit = {
+    out.flush()
+    val ack = in.readByte()
+    if (ack != JobResultChannelWriter.ACK_OK) {
+      throw new IOException(s"TaskManager fails to save result $resultId, ack $ack")
+    }
+  }
+
+}
+
+object JobResultChannelWriter {
+  // Keep the same with com._4paradigm.openmldb.taskmanager.server.JobResultChannel
+  val MAGIC: Int = 0x4f524553
+  val FRAME_ROWS: Byte = 1
+  val FRAME_END: Byte = 2
+  val FRAME_FINISH: Byte = 3
+  val ACK_OK: Byte = 0
+}
@@ -17,10 +17,10 @@
 package com._4paradigm.openmldb.batch.window
 
 import com._4paradigm.hybridse.node.FrameType
-import com._4paradigm.hybridse.sdk.{HybridSeException, JitManager, SerializableByteBuffer}
+import com._4paradigm.hybridse.sdk.{HybridSeException, SerializableByteBuffer}
 import com._4paradigm.hybridse.vm.PhysicalWindowAggrerationNode
 import com._4paradigm.hybridse.vm.Window.WindowFrameType
-import com._4paradigm.openmldb.batch.utils.{ExternalUdfUtil, HybridseUtil, SparkColumnUtil, SparkUtil}
+import com._4paradigm.openmldb.batch.utils.{ExternalUdfUtil, HybridseUtil, JitUtil, SparkColumnUtil, SparkUtil}
 import com._4paradigm.openmldb.batch.{OpenmldbBatchConfig, PlanContext, SparkInstance}
 import com._4paradigm.openmldb.sdk.impl.SqlClusterExecutor
 import org.apache.hadoop.fs.FileSystem
@@ -269,8 +269,7 @@ object WindowAggPlanUtil {
     ExternalUdfUtil.executorRegisterExternalUdf(config.externalFunMap, config.taskmanagerExternalFunctionDir,
       config.isYarnMode)
 
-    JitManager.initJitModule(tag, buffer, config.isUnsafeRowOpt)
-    val jit = JitManager.getJit(tag)
+    val jit = JitUtil.acquireForTask(tag, buffer, config.isUnsafeRowOpt)
 
     // create stateful computer
     val computer = new WindowComputer(config, jit, config.keepIndexColumn)
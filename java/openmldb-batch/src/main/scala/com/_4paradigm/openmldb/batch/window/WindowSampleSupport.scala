@@ -18,9 +18,9 @@ package com._4paradigm.openmldb.batch.window
 
 import java.io.{IOException, ObjectInputStream, ObjectOutputStream, OutputStream, PrintStream}
 import com._4paradigm.hybridse.codec.{Row => NativeRow}
-import com._4paradigm.hybridse.sdk.JitManager
 import com._4paradigm.hybridse.vm.{CoreAPI, HybridSeJitWrapper}
 import com._4paradigm.openmldb.batch.OpenmldbBatchConfig
+import com._4paradigm.openmldb.batch.utils.JitUtil
 import com._4paradigm.openmldb.batch.window.WindowAggPlanUtil.WindowAggConfig
 import com._4paradigm.openmldb.sdk.impl.SqlClusterExecutor
 import org.apache.hadoop.conf.Configuration
@@ -205,8 +205,7 @@ object WindowSampleSupport {
     private val jit = {
       val buffer = config.moduleNoneBroadcast.getBuffer
       SqlClusterExecutor.initJavaSdkLibrary(sqlConfig.openmldbJsdkLibraryPath)
-      JitManager.initJitModule(config.moduleTag, buffer, sqlConfig.enableUnsafeRowOptimization)
-      JitManager.getJit(config.moduleTag)
+      JitUtil.acquireForTask(config.moduleTag, buffer, sqlConfig.enableUnsafeRowOptimization)
     }
 
     // TODO: Check if we need to support keep index column here
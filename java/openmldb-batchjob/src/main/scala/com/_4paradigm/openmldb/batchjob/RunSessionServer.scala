@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.batchjob
+
+import com._4paradigm.openmldb.batch.api.OpenmldbSession
+import com._4paradigm.openmldb.batchjob.util.SessionProtocol
+import org.apache.commons.lang3.exception.ExceptionUtils
+import org.apache.spark.sql.SparkSession
+import org.slf4j.LoggerFactory
+
+import java.io.{BufferedInputStream, BufferedOutputStream, DataInputStream, DataOutputStream, EOFException}
+import java.net.{InetSocketAddress, Socket}
+
+/**
+ * The long-lived Spark application which keeps the Spark driver and OpenMLDB session warm and runs the batch sql
+ * dispatched by TaskManager, so the short queries do not pay for the startup of Spark and OpenMLDB library.
+ */
+object RunSessionServer {
+  private val logger = LoggerFactory.getLogger(this.getClass)
+
+  def main(args: Array[String]): Unit = {
+    val spark = SparkSession.builder().getOrCreate()
+    val dispatcher = spark.conf.get("spark.openmldb.session.dispatcher")
+    val sessionId = spark.conf.get("spark.openmldb.session.id").toInt
+
+    val sess = new OpenmldbSession(spark)
+    val socket = new Socket()
+    try {
+      val Array(host, port) = dispatcher.split(":")
+      socket.connect(new InetSocketAddress(host, port.toInt))
+      val in = new DataInputStream(new BufferedInputStream(socket.getInputStream))
+      val out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream))
+      SessionProtocol.writeHandshake(out, sessionId, spark.sparkContext.applicationId)
+      logger.info(s"Session $sessionId connects to $dispatcher and waits for sql")
+
+      serve(sess, in, out)
+    } finally {
+      socket.close()
+      sess.close()
+    }
+  }
+
+  def serve(sess: OpenmldbSession, in: DataInputStream, out: DataOutputStream): Unit = {
+    val initialDefaultDb = sess.config.defaultDb
+    val initialUser = sess.config.openmldbUser
+    val initialPassword = sess.config.openmldbPassword
+    while (true) {
+      val request = try {
+        SessionProtocol.readRequest(in)
+      } catch {
+        case _: EOFException =>
+          // TaskManager closes the session
+          logger.info("Session is closed by TaskManager")
+          return
+      }
+
+      try {
+        sess.config.defaultDb = if (request.defaultDb.nonEmpty) request.defaultDb else initialDefaultDb
+        // Run as the user of the request, so it can only read the tables it has permission to
+        if (request.user.nonEmpty) {
+          sess.switchOpenmldbUser(request.user, request.password)
+        } else {
+          sess.switchOpenmldbUser(initialUser, initialPassword)
+        }
+        // Tables may be created or loaded after the session starts
+        sess.refreshOpenmldbOfflineTables()
+        sess.sql(request.sql).sendResult(request.resultId)
+        SessionProtocol.writeResponse(out, SessionProtocol.STATUS_OK, "ok")
+      } catch {
+        case e: Exception =>
+          logger.warn(s"Fail to run sql in session, result id ${request.resultId}, " + e.getMessage)
+          SessionProtocol.writeResponse(out, SessionProtocol.STATUS_FAILED, ExceptionUtils.getStackTrace(e))
+      }
+    }
+  }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.batchjob.util
+
+import java.io.{DataInputStream, DataOutputStream}
+import java.nio.charset.StandardCharsets
+
+/**
+ * The protocol between TaskManager and the long-lived session server of RunSessionServer.
+ *
+ * The session server dials TaskManager and sends the handshake [magic(4)|session id(4)|app id]. Then TaskManager sends
+ * requests of [sql|default db|result id(4)|user|password] one by one, and the session server replies [status(1)|message] for each.
+ * Strings are [length(4)|utf-8 bytes].
+ */
+object SessionProtocol {
+  val MAGIC: Int = 0x4f535353
+  val STATUS_OK: Byte = 0
+  val STATUS_FAILED: Byte = 1
+
+  // The user and password of OpenMLDB, empty user means the user of the session
+  case class SessionRequest(sql: String, defaultDb: String, resultId: Int, user: String = "", password: String = "")
+
+  def writeString(out: DataOutputStream, value: String): Unit = {
+    val bytes = value.getBytes(StandardCharsets.UTF_8)
+    out.writeInt(bytes.length)
+    out.write(bytes)
+  }
+
+  def readString(in: DataInputStream): String = {
+    val bytes = new Array[Byte](in.readInt())
+    in.readFully(bytes)
+    new String(bytes, StandardCharsets.UTF_8)
+  }
+
+  def writeHandshake(out: DataOutputStream, sessionId: Int, appId: String): Unit = {
+    out.writeInt(MAGIC)
+    out.writeInt(sessionId)
+    writeString(out, appId)
+    out.flush()
+  }
+
+  /**
+   * Read the handshake of session server.
+   *
+   * @return the session id and app id
+   */
+  def readHandshake(in: DataInputStream): (Int, String) = {
+    val magic = in.readInt()
+    if (magic != MAGIC) {
+      throw new IllegalArgumentException(s"Invalid session handshake magic $magic")
+    }
+    val sessionId = in.readInt()
+    (sessionId, readString(in))
+  }
+
+  def writeRequest(out: DataOutputStream, request: SessionRequest): Unit = {
+    writeString(out, request.sql)
+    writeString(out, request.defaultDb)
+    out.writeInt(request.resultId)
+    writeString(out, request.user)
+    writeString(out, request.password)
+    out.flush()
+  }
+
+  def readRequest(in: DataInputStream): SessionRequest = {
+    val sql = readString(in)
+    val defaultDb = readString(in)
+    val resultId = in.readInt()
+    val user = readString(in)
+    SessionRequest(sql, defaultDb, resultId, user, readString(in))
+  }
+
+  def writeResponse(out: DataOutputStream, status: Byte, message: String): Unit = {
+    out.writeByte(status)
+    writeString(out, message)
+    out.flush()
+  }
+
+  /**
+   * Read the response of session server.
+   *
+   * @return the status and message
+   */
+  def readResponse(in: DataInputStream): (Byte, String) = {
+    val status = in.readByte()
+    (status, readString(in))
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.batchjob.util
+
+import com._4paradigm.openmldb.batchjob.util.SessionProtocol.SessionRequest
+import org.scalatest.FunSuite
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream}
+
+class TestSessionProtocol extends FunSuite {
+
+  private def roundTrip[T](write: DataOutputStream => Unit)(read: DataInputStream => T): T = {
+    val buffer = new ByteArrayOutputStream()
+    write(new DataOutputStream(buffer))
+    read(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray)))
+  }
+
+  test("Test handshake") {
+    val (sessionId, appId) = roundTrip(SessionProtocol.writeHandshake(_, 3, "local-123"))(SessionProtocol.readHandshake)
+    assert(sessionId == 3)
+    assert(appId == "local-123")
+  }
+
+  test("Test request and response") {
+    val request = SessionRequest("SELECT '中文', 1", "db1", 7)
+    assert(roundTrip(SessionProtocol.writeRequest(_, request))(SessionProtocol.readRequest) == request)
+
+    val userRequest = SessionRequest("SELECT 1", "", 8, "user1", "pwd")
+    assert(roundTrip(SessionProtocol.writeRequest(_, userRequest))(SessionProtocol.readRequest) == userRequest)
+
+    val (status, message) = roundTrip(SessionProtocol.writeResponse(_, SessionProtocol.STATUS_FAILED, "error"))(
+      SessionProtocol.readResponse)
+    assert(status == SessionProtocol.STATUS_FAILED)
+    assert(message == "error")
+  }
+
+  test("Test invalid handshake") {
+    assertThrows[IllegalArgumentException] {
+      roundTrip(_.writeInt(0))(SessionProtocol.readHandshake)
+    }
+  }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.jmh.codec;
+
+import com._4paradigm.openmldb.proto.Common.ColumnDesc;
+import com._4paradigm.openmldb.proto.Type.DataType;
+import org.apache.spark.sql.catalyst.InternalRow;
+import org.apache.spark.sql.catalyst.expressions.GenericInternalRow;
+import org.apache.spark.sql.catalyst.expressions.UnsafeProjection;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.apache.spark.unsafe.types.UTF8String;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generate schemas and rows for codec benchmarks.
+ *
+ * <p>The string columns are spread evenly by the string ratio, the other columns cycle through int, bigint, double and
+ * timestamp. Values are generated with a fixed seed so that results are comparable between runs.
+ */
+public class CodecBenchmarkData {
+
+    public static final int STRING_LENGTH = 16;
+
+    private static final DataType[] BASE_TYPES = {
+            DataType.kInt, DataType.kBigInt, DataType.kDouble, DataType.kTimestamp};
+
+    private final List<ColumnDesc> schema = new ArrayList<>();
+    private final StructType sparkSchema;
+    private final List<Object[]> rows = new ArrayList<>();
+
+    public CodecBenchmarkData(int columnCount, double stringRatio, int rowCount) {
+        List<StructField> fields = new ArrayList<>();
+        int baseIdx = 0;
+        for (int i = 0; i < columnCount; i++) {
+            DataType type;
+            if (Math.floor((i + 1) * stringRatio) > Math.floor(i * stringRatio)) {
+                type = DataType.kString;
+            } else {
+                type = BASE_TYPES[baseIdx++ % BASE_TYPES.length];
+            }
+            String name = "c" + i;
+            schema.add(ColumnDesc.newBuilder().setName(name).setDataType(type).build());
+            fields.add(DataTypes.createStructField(name, toSparkType(type), true));
+        }
+        sparkSchema = DataTypes.createStructType(fields);
+
+        Random random = new Random(42);
+        for (int i = 0; i < rowCount; i++) {
+            Object[] row = new Object[columnCount];
+            for (int j = 0; j < columnCount; j++) {
+                row[j] = randomValue(schema.get(j).getDataType(), random);
+            }
+            rows.add(row);
+        }
+    }
+
+    private static org.apache.spark.sql.types.DataType toSparkType(DataType type) {
+        switch (type) {
+            case kInt:
+                return DataTypes.IntegerType;
+            case kBigInt:
+                return DataTypes.LongType;
+            case kDouble:
+                return DataTypes.DoubleType;
+            case kTimestamp:
+                return DataTypes.TimestampType;
+            default:
+                return DataTypes.StringType;
+        }
+    }
+
+    private static Object randomValue(DataType type, Random random) {
+        switch (type) {
+            case kInt:
+                return random.nextInt();
+            case kBigInt:
+                return random.nextLong();
+            case kDouble:
+                return random.nextDouble();
+            case kTimestamp:
+                return new Timestamp(1600000000000L + random.nextInt(Integer.MAX_VALUE));
+            default:
+                StringBuilder sb = new StringBuilder(STRING_LENGTH);
+                for (int i = 0; i < STRING_LENGTH; i++) {
+                    sb.append((char) ('a' + random.nextInt(26)));
+                }
+                return sb.toString();
+        }
+    }
+
+    public List<ColumnDesc> getSchema() {
+        return schema;
+    }
+
+    public StructType getSparkSchema() {
+        return sparkSchema;
+    }
+
+    public List<Object[]> getRows() {
+        return rows;
+    }
+
+    /**
+     * Convert rows to spark rows.
+     */
+    public List<org.apache.spark.sql.Row> getSparkRows() {
+        List<org.apache.spark.sql.Row> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(org.apache.spark.sql.RowFactory.create(row));
+        }
+        return result;
+    }
+
+    /**
+     * Convert rows to UnsafeRow, which is the input of UnsafeRow optimization.
+     */
+    public List<InternalRow> getUnsafeRows() {
+        UnsafeProjection projection = UnsafeProjection.create(sparkSchema);
+        List<InternalRow> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Object[] values = new Object[row.length];
+            for (int i = 0; i < row.length; i++) {
+                Object value = row[i];
+                if (value instanceof String) {
+                    values[i] = UTF8String.fromString((String) value);
+                } else if (value instanceof Timestamp) {
+                    values[i] = ((Timestamp) value).getTime() * 1000;
+                } else {
+                    values[i] = value;
+                }
+            }
+            result.add(projection.apply(new GenericInternalRow(values)).copy());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.jmh.codec;
+
+import com._4paradigm.openmldb.proto.Common.ColumnDesc;
+import com._4paradigm.openmldb.proto.Common.ColumnKey;
+import com._4paradigm.openmldb.proto.NS;
+import com._4paradigm.openmldb.sdk.impl.InsertPreparedStatementMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode the dimensions of one row as the insert prepared statement does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgs = {"-Xms2G", "-Xmx2G"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InsertDimensionBenchmark {
+
+    @Param({"10", "100"})
+    private int columnCount;
+
+    @Param({"1", "4"})
+    private int indexCount;
+
+    // columns of each index
+    @Param({"1", "2"})
+    private int indexWidth;
+
+    private InsertPreparedStatementMeta meta;
+    private List<Map<Integer, String>> indexValues;
+    private int cursor = 0;
+
+    @Setup
+    public void setup() {
+        // all columns are strings, so that any column can be the key of index
+        CodecBenchmarkData data = new CodecBenchmarkData(columnCount, 1.0, 1024);
+        List<ColumnDesc> schema = data.getSchema();
+        NS.TableInfo.Builder tableInfo = NS.TableInfo.newBuilder()
+                .setName("t1").setDb("db").setTid(1).setPartitionNum(8)
+                .addAllColumnDesc(schema);
+        List<Integer> indexColumns = new ArrayList<>();
+        for (int i = 0; i < indexCount; i++) {
+            ColumnKey.Builder columnKey = ColumnKey.newBuilder().setIndexName("index" + i);
+            for (int j = 0; j < indexWidth; j++) {
+                int pos = (i * indexWidth + j) % columnCount;
+                columnKey.addColName(schema.get(pos).getName());
+                indexColumns.add(pos);
+            }
+            tableInfo.addColumnKey(columnKey);
+        }
+        meta = new InsertPreparedStatementMeta("insert into t1 values (?)", tableInfo.build());
+
+        indexValues = new ArrayList<>(data.getRows().size());
+        for (Object[] row : data.getRows()) {
+            Map<Integer, String> indexValue = new HashMap<>();
+            for (Integer pos : indexColumns) {
+                indexValue.put(pos, (String) row[pos]);
+            }
+            indexValues.add(indexValue);
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer buildDimension() throws SQLException {
+        cursor = (cursor + 1) & (indexValues.size() - 1);
+        return meta.buildDimension(indexValues.get(cursor));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(InsertDimensionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+}
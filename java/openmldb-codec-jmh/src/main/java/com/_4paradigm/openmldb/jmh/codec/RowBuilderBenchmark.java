@@ -0,0 +1,122 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.jmh.codec;
+
+import com._4paradigm.openmldb.common.codec.ClassicRowBuilder;
+import com._4paradigm.openmldb.common.codec.CodecMetaData;
+import com._4paradigm.openmldb.common.codec.FlexibleRowBuilder;
+import com._4paradigm.openmldb.proto.Common.ColumnDesc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode one row by the row builders of Java SDK.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgs = {"-Xms2G", "-Xmx2G"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RowBuilderBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int columnCount;
+
+    @Param({"0.0", "0.2", "0.8"})
+    private double stringRatio;
+
+    private List<ColumnDesc> schema;
+    private List<Object[]> rows;
+    private FlexibleRowBuilder flexibleRowBuilder;
+    private int cursor = 0;
+
+    @Setup
+    public void setup() throws Exception {
+        CodecBenchmarkData data = new CodecBenchmarkData(columnCount, stringRatio, 1024);
+        schema = data.getSchema();
+        rows = data.getRows();
+        flexibleRowBuilder = new FlexibleRowBuilder(new CodecMetaData(schema, false));
+    }
+
+    private Object[] nextRow() {
+        cursor = (cursor + 1) & (rows.size() - 1);
+        return rows.get(cursor);
+    }
+
+    @Benchmark
+    public ByteBuffer classicEncode() throws Exception {
+        return ClassicRowBuilder.encode(nextRow(), schema, 1);
+    }
+
+    @Benchmark
+    public ByteBuffer flexibleEncode() throws Exception {
+        Object[] row = nextRow();
+        flexibleRowBuilder.clear();
+        for (int i = 0; i < row.length; i++) {
+            Object value = row[i];
+            switch (schema.get(i).getDataType()) {
+                case kInt:
+                    flexibleRowBuilder.setInt(i, (Integer) value);
+                    break;
+                case kBigInt:
+                    flexibleRowBuilder.setBigInt(i, (Long) value);
+                    break;
+                case kDouble:
+                    flexibleRowBuilder.setDouble(i, (Double) value);
+                    break;
+                case kTimestamp:
+                    flexibleRowBuilder.setTimestamp(i, (Timestamp) value);
+                    break;
+                default:
+                    flexibleRowBuilder.setString(i, (String) value);
+                    break;
+            }
+        }
+        if (!flexibleRowBuilder.build()) {
+            throw new IllegalStateException("fail to build row");
+        }
+        return flexibleRowBuilder.getValue();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(RowBuilderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.jmh.codec;
+
+import com._4paradigm.openmldb.common.codec.ClassicRowBuilder;
+import com._4paradigm.openmldb.common.codec.CodecMetaData;
+import com._4paradigm.openmldb.common.codec.RowView;
+import com._4paradigm.openmldb.proto.Common.ColumnDesc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode rows by RowView, and build the codec meta data of a schema.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgs = {"-Xms2G", "-Xmx2G"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RowViewBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int columnCount;
+
+    @Param({"0.0", "0.2", "0.8"})
+    private double stringRatio;
+
+    private List<ColumnDesc> schema;
+    private List<ByteBuffer> encodedRows;
+    private RowView rowView;
+    private int cursor = 0;
+
+    @Setup
+    public void setup() throws Exception {
+        CodecBenchmarkData data = new CodecBenchmarkData(columnCount, stringRatio, 1024);
+        schema = data.getSchema();
+        encodedRows = new ArrayList<>(data.getRows().size());
+        for (Object[] row : data.getRows()) {
+            encodedRows.add(ClassicRowBuilder.encode(row, schema, 1));
+        }
+        rowView = new RowView(schema);
+    }
+
+    private ByteBuffer nextRow() {
+        cursor = (cursor + 1) & (encodedRows.size() - 1);
+        return encodedRows.get(cursor);
+    }
+
+    @Benchmark
+    public void readAll(Blackhole bh) throws Exception {
+        ByteBuffer row = nextRow();
+        bh.consume(rowView.read(row));
+    }
+
+    @Benchmark
+    public void resetAndGetEach(Blackhole bh) throws Exception {
+        ByteBuffer row = nextRow();
+        if (!rowView.reset(row, row.capacity())) {
+            throw new IllegalStateException("fail to reset row view");
+        }
+        for (int i = 0; i < columnCount; i++) {
+            bh.consume(rowView.getValue(i, schema.get(i).getDataType()));
+        }
+    }
+
+    @Benchmark
+    public CodecMetaData buildCodecMetaData() throws Exception {
+        return new CodecMetaData(schema, false);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(RowViewBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.jmh.codec;
+
+import com._4paradigm.hybridse.codec.Row;
+import com._4paradigm.openmldb.batch.SparkRowCodec;
+import com._4paradigm.openmldb.batch.utils.UnsafeRowUtil;
+import com._4paradigm.openmldb.sdk.impl.SqlClusterExecutor;
+import org.apache.spark.sql.catalyst.InternalRow;
+import org.apache.spark.sql.types.StructType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Convert rows between Spark and HybridSE formats as OpenMLDB Batch does, the native library is loaded from the jar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgs = {"-Xms2G", "-Xmx2G"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SparkRowCodecBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int columnCount;
+
+    @Param({"0.0", "0.2", "0.8"})
+    private double stringRatio;
+
+    private SparkRowCodec codec;
+    private List<org.apache.spark.sql.Row> sparkRows;
+    private List<InternalRow> unsafeRows;
+    private Object[] output;
+    private int cursor = 0;
+
+    @Setup
+    public void setup() {
+        SqlClusterExecutor.initJavaSdkLibrary(null);
+        CodecBenchmarkData data = new CodecBenchmarkData(columnCount, stringRatio, 1024);
+        codec = new SparkRowCodec(new StructType[] {data.getSparkSchema()});
+        sparkRows = data.getSparkRows();
+        unsafeRows = data.getUnsafeRows();
+        output = new Object[columnCount];
+    }
+
+    @TearDown
+    public void tearDown() {
+        codec.delete();
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (sparkRows.size() - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public Object[] encodeAndDecode() {
+        Row nativeRow = codec.encode(sparkRows.get(next()));
+        codec.decode(nativeRow, output);
+        nativeRow.delete();
+        return output;
+    }
+
+    @Benchmark
+    public byte[] unsafeRowToBytes() {
+        return UnsafeRowUtil.internalRowToHybridseRowBytes(unsafeRows.get(next()));
+    }
+
+    @Benchmark
+    public ByteBuffer unsafeRowToDirectBuffer() {
+        return UnsafeRowUtil.internalRowToHybridseByteBuffer(unsafeRows.get(next()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SparkRowCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -23,20 +23,16 @@ import com._4paradigm.openmldb.proto.Type;
 import com._4paradigm.openmldb.common.codec.RowBuilder;
 import com.baidu.brpc.RpcContext;
 import com.google.common.base.Preconditions;
-import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
-import java.sql.Date;
-import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -49,18 +45,18 @@ public class BulkLoadGenerator implements Runnable {
     public static class FeedItem {
         public final Map<Integer, List<Tablet.Dimension>> dims;
         public final List<Long> tsDims; // TODO(hw): how to use uint64? BigInteger is low-effective
-        public final Map<String, String> valueMap;
+        public final SourceRecord record;
 
-        public FeedItem(Map<Integer, List<Tablet.Dimension>> dims, Set<Integer> tsSet, CSVRecord record) {
+        public FeedItem(Map<Integer, List<Tablet.Dimension>> dims, List<String> tsCols, SourceRecord record) {
             this.dims = dims;
-            this.valueMap = record.toMap();
+            this.record = record;
             // TODO(hw): can't support no header csv now
-            Preconditions.checkNotNull(valueMap);
+            Preconditions.checkNotNull(record);
             // TODO(hw): build tsDims here!! copy then improve
             tsDims = new ArrayList<>();
-            for (Integer tsPos : tsSet) {
+            for (String tsCol : tsCols) {
                 // only kTimeStamp type
-                tsDims.add((Long) buildTypedValues(record.get(tsPos), Type.DataType.kTimestamp));
+                tsDims.add((Long) record.getTyped(tsCol, Type.DataType.kTimestamp));
             }
         }
     }
@@ -109,7 +105,7 @@ public class BulkLoadGenerator implements Runnable {
                 long realStartTime = System.currentTimeMillis();
 
                 // build data buffer
-                ByteBuffer dataBuffer = buildData(item.valueMap);
+                ByteBuffer dataBuffer = buildData(item.record);
 
                 List<Tablet.Dimension> dimensions = item.dims.get(this.pid);
 
@@ -253,16 +249,22 @@ public class BulkLoadGenerator implements Runnable {
         }
     }
 
-    private ByteBuffer buildData(Map<String, String> valueMap) throws Exception{
+    private ByteBuffer buildData(SourceRecord record) throws Exception{
         List<Object> rowValues = new ArrayList<>();
         for (int j = 0; j < tableInfo.getColumnDescCount(); j++) {
             Common.ColumnDesc desc = tableInfo.getColumnDesc(j);
-            String v = valueMap.get(desc.getName());
             Type.DataType type = desc.getDataType();
-            Object obj = buildTypedValues(v, type);
+            // csv record parses the text here, columnar records return the typed value directly
+            Object obj = record.getTyped(desc.getName(), type);
             if (obj == null) {
-                throw new RuntimeException("build value failed, raw " + v + ", col " + desc.getName() + ", type " + type.name());
+                // the text is only needed to tell a bad value from a null one
+                String raw = record.getString(desc.getName());
+                if (raw != null) {
+                    throw new RuntimeException("build value failed, raw " + raw
+                            + ", col " + desc.getName() + ", type " + type.name());
+                }
             }
+            // a null value is encoded as null, the encoder rejects it if the column is not null
             rowValues.add(obj);
         }
 
@@ -314,34 +316,4 @@ public class BulkLoadGenerator implements Runnable {
     public boolean hasInternalError() {
         return internalErrorOcc.get();
     }
-
-    private static Object buildTypedValues(String v, Type.DataType type) {
-        switch (type) {
-            case kBool:
-                return v.equals("true");
-            case kSmallInt:
-                return Short.parseShort(v);
-            case kInt:
-                return (Integer.parseInt(v));
-            case kBigInt:
-                return Long.parseLong(v);
-            case kFloat:
-                return Float.parseFloat(v);
-            case kDouble:
-                return Double.parseDouble(v);
-            case kVarchar:
-            case kString:
-                return v;
-            case kDate:
-                return Date.valueOf(v);
-            case kTimestamp:
-                // TODO(hw): no need to support data time. Converting here is only for simplify. Should be deleted later.
-                if (v.contains("-")) {
-                    Timestamp ts = Timestamp.valueOf(v);
-                    return ts.getTime(); // milliseconds
-                }
-                return Long.parseLong(v);
-        }
-        return null;
-    }
 }
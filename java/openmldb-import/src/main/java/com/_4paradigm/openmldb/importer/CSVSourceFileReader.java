@@ -0,0 +1,48 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.importer;
+
+import java.util.Set;
+
+// adapts the csv readers(local or hdfs) to SourceFileReader
+public class CSVSourceFileReader implements SourceFileReader {
+    private final CSVFileReader reader;
+
+    public CSVSourceFileReader(CSVFileReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return reader.hasNext();
+    }
+
+    @Override
+    public SourceRecord next() {
+        return new CSVSourceRecord(reader.next());
+    }
+
+    @Override
+    public Set<String> getColumnNames() {
+        return reader.getHeader().keySet();
+    }
+
+    @Override
+    public void close() {
+        // csv parser is released with the stream
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.importer;
+
+import com._4paradigm.openmldb.proto.Type;
+import org.apache.commons.csv.CSVRecord;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+
+public class CSVSourceRecord implements SourceRecord {
+    private final CSVRecord record;
+
+    public CSVSourceRecord(CSVRecord record) {
+        this.record = record;
+    }
+
+    @Override
+    public String getString(String colName) {
+        return record.get(colName);
+    }
+
+    @Override
+    public Object getTyped(String colName, Type.DataType type) {
+        return parseTypedValue(record.get(colName), type);
+    }
+
+    @Override
+    public String toString() {
+        return record.toString();
+    }
+
+    public static Object parseTypedValue(String v, Type.DataType type) {
+        switch (type) {
+            case kBool:
+                return v.equals("true");
+            case kSmallInt:
+                return Short.parseShort(v);
+            case kInt:
+                return (Integer.parseInt(v));
+            case kBigInt:
+                return Long.parseLong(v);
+            case kFloat:
+                return Float.parseFloat(v);
+            case kDouble:
+                return Double.parseDouble(v);
+            case kVarchar:
+            case kString:
+                return v;
+            case kDate:
+                return Date.valueOf(v);
+            case kTimestamp:
+                // TODO(hw): no need to support data time. Converting here is only for simplify. Should be deleted later.
+                if (v.contains("-")) {
+                    Timestamp ts = Timestamp.valueOf(v);
+                    return ts.getTime(); // milliseconds
+                }
+                return Long.parseLong(v);
+        }
+        return null;
+    }
+}
@@ -20,7 +20,6 @@ import com._4paradigm.openmldb.proto.Common;
 import com._4paradigm.openmldb.proto.NS;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Sets;
-import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,13 +30,27 @@ import java.util.Set;
 public class FilesReader {
     private static final Logger logger = LoggerFactory.getLogger(FilesReader.class);
 
+    public enum Format {
+        // detect by the file extension, csv if not .parquet or .orc
+        Auto,
+        CSV,
+        Parquet,
+        ORC
+    }
+
     private final List<String> files;
+    private final Format format;
     private int nextFileIdx = 0;
-    private CSVFileReader curReader = null;
+    private SourceFileReader curReader = null;
     private final Set<String> expectedColSet = Sets.newHashSet();
 
     public FilesReader(List<String> files) {
+        this(files, Format.Auto);
+    }
+
+    public FilesReader(List<String> files, Format format) {
         this.files = files;
+        this.format = format;
     }
 
     private boolean updateParser() throws IOException {
@@ -45,16 +58,15 @@ public class FilesReader {
             // TODO(hw): what about no header?
             String filePath = files.get(nextFileIdx).trim();
             logger.info("read next file {}", filePath);
-            if (isHDFSFile(filePath)) {
-                curReader = new HDFSCSVFileReader(filePath);
-            } else {
-                curReader = new LocalCSVFileReader(filePath);
+            if (curReader != null) {
+                curReader.close();
             }
+            curReader = createReader(filePath);
 
             // only check col name set
             Preconditions.checkState(expectedColSet.isEmpty()
-                            || Sets.difference(curReader.getHeader().keySet(), expectedColSet).isEmpty(),
-                    "file's header " + curReader.getHeader().keySet() + " != expected header " + expectedColSet);
+                            || Sets.difference(curReader.getColumnNames(), expectedColSet).isEmpty(),
+                    "file's header " + curReader.getColumnNames() + " != expected header " + expectedColSet);
 
             nextFileIdx++;
             if (curReader.hasNext()) {
@@ -65,12 +77,45 @@ public class FilesReader {
         return false;
     }
 
+    private SourceFileReader createReader(String filePath) throws IOException {
+        switch (detectFormat(filePath)) {
+            case Parquet:
+                return new ParquetSourceFileReader(filePath);
+            case ORC:
+                return new OrcSourceFileReader(filePath);
+            default:
+                if (isHDFSFile(filePath)) {
+                    return new CSVSourceFileReader(new HDFSCSVFileReader(filePath));
+                }
+                return new CSVSourceFileReader(new LocalCSVFileReader(filePath));
+        }
+    }
+
+    private Format detectFormat(String filePath) {
+        if (format != Format.Auto) {
+            return format;
+        }
+        String lower = filePath.toLowerCase();
+        if (lower.endsWith(".parquet")) {
+            return Format.Parquet;
+        }
+        if (lower.endsWith(".orc")) {
+            return Format.ORC;
+        }
+        return Format.CSV;
+    }
+
     private boolean isHDFSFile(String filePath) {
         return filePath.startsWith("hdfs://");
     }
 
-    public CSVRecord next() throws IOException {
+    public SourceRecord next() throws IOException {
         if ((curReader == null || !curReader.hasNext()) && !updateParser()) {
+            // all files are read, release the last one
+            if (curReader != null) {
+                curReader.close();
+                curReader = null;
+            }
             return null;
         }
         Preconditions.checkState(curReader.hasNext());
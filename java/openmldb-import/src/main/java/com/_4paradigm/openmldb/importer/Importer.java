@@ -50,7 +50,7 @@ import java.util.stream.Collectors;
 import static com.google.common.collect.MoreCollectors.onlyElement;
 
 @CommandLine.Command(name = "Data Importer", mixinStandardHelpOptions = true, requiredOptionMarker = '*',
-        description = "insert/bulk load data(csv) to openmldb")
+        description = "insert/bulk load data(csv/parquet/orc) to openmldb")
 public class Importer {
     private static final Logger logger = LoggerFactory.getLogger(Importer.class);
 
@@ -64,6 +64,9 @@ public class Importer {
 
     @CommandLine.Option(names = "--files", description = "sources files, local or hdfs path", split = ",", required = true)
     private List<String> files;
+    @CommandLine.Option(names = "--files_format", description = "format of files: ${COMPLETION-CANDIDATES}. Case insensitive. "
+            + "Auto means parquet for *.parquet, orc for *.orc and csv for others", defaultValue = "Auto")
+    private FilesReader.Format filesFormat;
 
     @CommandLine.Option(names = {"--zk_cluster", "-z"}, description = "zookeeper cluster address of openmldb", required = true)
     private String zkCluster;
@@ -106,7 +109,7 @@ public class Importer {
             logger.info("config 'files' is empty");
             return false;
         }
-        reader = new FilesReader(files);
+        reader = new FilesReader(files, filesFormat);
         return true;
     }
 
@@ -212,21 +215,27 @@ public class Importer {
         Map<Integer, List<Integer>> keyIndexMap = new HashMap<>();
         Set<Integer> tsIdxSet = new HashSet<>();
         parseIndexMapAndTsSet(tableMetaData, keyIndexMap, tsIdxSet);
+        // records are read by column name, the column order of source files may differ from the table
+        Map<Integer, List<String>> keyColsMap = new HashMap<>();
+        keyIndexMap.forEach((index, cols) -> keyColsMap.put(index,
+                cols.stream().map(i -> tableMetaData.getColumnDesc(i).getName()).collect(Collectors.toList())));
+        List<String> tsCols = tsIdxSet.stream().map(i -> tableMetaData.getColumnDesc(i).getName())
+                .collect(Collectors.toList());
 
         // check header, header should == tableMetaData.
         reader.enableCheckHeader(tableMetaData);
         try {
-            CSVRecord record;
+            SourceRecord record;
             int lines = 0;
             while ((record = reader.next()) != null) {
                 // integer gets added at the start of iteration for each line.
                 lines++;
-                Map<Integer, List<Tablet.Dimension>> dims = buildDimensions(record, keyIndexMap, tableMetaData.getPartitionNum());
+                Map<Integer, List<Tablet.Dimension>> dims = buildDimensions(record, keyColsMap, tableMetaData.getPartitionNum());
                 // distribute the row to the bulk load generators for each MemTable(tid, pid)
                 for (Integer pid : dims.keySet()) {
                     // Note: NS pid is int
                     // no need to calc dims twice, pass it to BulkLoadGenerator
-                    generators.get(pid).feed(new BulkLoadGenerator.FeedItem(dims, tsIdxSet, record));
+                    generators.get(pid).feed(new BulkLoadGenerator.FeedItem(dims, tsCols, record));
                 }
             }
             System.out.println("Total read rows: " + lines);
@@ -401,13 +410,13 @@ public class Importer {
 
     // ref SQLInsertRow::GetDimensions()
     // TODO(hw): integer or long?
-    private static Map<Integer, List<Tablet.Dimension>> buildDimensions(CSVRecord record, Map<Integer, List<Integer>> keyIndexMap, int pidNum) {
+    private static Map<Integer, List<Tablet.Dimension>> buildDimensions(SourceRecord record, Map<Integer, List<String>> keyColsMap, int pidNum) {
         Map<Integer, List<Tablet.Dimension>> dims = new HashMap<>();
         int pid = 0;
-        for (Map.Entry<Integer, List<Integer>> entry : keyIndexMap.entrySet()) {
+        for (Map.Entry<Integer, List<String>> entry : keyColsMap.entrySet()) {
             Integer index = entry.getKey();
-            List<Integer> keyCols = entry.getValue();
-            String combinedKey = keyCols.stream().map(record::get).collect(Collectors.joining("|"));
+            List<String> keyCols = entry.getValue();
+            String combinedKey = keyCols.stream().map(record::getString).collect(Collectors.joining("|"));
             if (pidNum > 0) {
                 pid = (int) Math.abs(MurmurHash.hash64(combinedKey) % pidNum);
             }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.importer;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.OrcFile;
+import org.apache.orc.Reader;
+import org.apache.orc.RecordReader;
+import org.apache.orc.TypeDescription;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// local or hdfs orc file, read by vectorized batches
+public class OrcSourceFileReader implements SourceFileReader {
+    private final RecordReader rows;
+    private final TypeDescription schema;
+    private final Map<String, Integer> fieldIndex = new HashMap<>();
+    private final Set<String> columnNames = new LinkedHashSet<>();
+    private VectorizedRowBatch batch;
+    private int rowInBatch = 0;
+
+    public OrcSourceFileReader(String filePath) throws IOException {
+        Configuration conf = new Configuration();
+        Reader reader = OrcFile.createReader(new Path(filePath), OrcFile.readerOptions(conf));
+        schema = reader.getSchema();
+        List<String> names = schema.getFieldNames();
+        for (int i = 0; i < names.size(); i++) {
+            fieldIndex.put(names.get(i), i);
+            columnNames.add(names.get(i));
+        }
+        rows = reader.rows();
+        nextBatch();
+    }
+
+    // Records are views of the batch and they are consumed by generators asynchronously, so we must not reuse the
+    // batch, create a new one for each read.
+    private void nextBatch() throws IOException {
+        batch = schema.createRowBatch();
+        rowInBatch = 0;
+        if (!rows.nextBatch(batch)) {
+            batch = null;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return batch != null;
+    }
+
+    @Override
+    public SourceRecord next() throws IOException {
+        SourceRecord record = new OrcSourceRecord(batch, rowInBatch, schema, fieldIndex);
+        rowInBatch++;
+        if (rowInBatch >= batch.size) {
+            nextBatch();
+        }
+        return record;
+    }
+
+    @Override
+    public Set<String> getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public void close() throws IOException {
+        rows.close();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.importer;
+
+import com._4paradigm.openmldb.proto.Type;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.TypeDescription;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Map;
+
+public class OrcSourceRecord implements SourceRecord {
+    private final VectorizedRowBatch batch;
+    private final int row;
+    private final TypeDescription schema;
+    private final Map<String, Integer> fieldIndex;
+
+    public OrcSourceRecord(VectorizedRowBatch batch, int row, TypeDescription schema, Map<String, Integer> fieldIndex) {
+        this.batch = batch;
+        this.row = row;
+        this.schema = schema;
+        this.fieldIndex = fieldIndex;
+    }
+
+    private int getFieldIndex(String colName) {
+        Integer idx = fieldIndex.get(colName);
+        if (idx == null) {
+            throw new IllegalArgumentException("col " + colName + " is not in orc file, fields " + fieldIndex.keySet());
+        }
+        return idx;
+    }
+
+    // repeating vector only has the value in position 0
+    private static int valuePos(ColumnVector vector, int row) {
+        return vector.isRepeating ? 0 : row;
+    }
+
+    @Override
+    public String getString(String colName) {
+        int idx = getFieldIndex(colName);
+        ColumnVector vector = batch.cols[idx];
+        int pos = valuePos(vector, row);
+        if (!vector.noNulls && vector.isNull[pos]) {
+            return null;
+        }
+        TypeDescription.Category category = schema.getChildren().get(idx).getCategory();
+        switch (category) {
+            case BOOLEAN:
+                return String.valueOf(((LongColumnVector) vector).vector[pos] != 0);
+            case DATE:
+                return LocalDate.ofEpochDay(((LongColumnVector) vector).vector[pos]).toString();
+            case TIMESTAMP:
+                return String.valueOf(((TimestampColumnVector) vector).getTime(pos));
+            default:
+                if (vector instanceof BytesColumnVector) {
+                    return getBytesString((BytesColumnVector) vector, pos);
+                }
+                return String.valueOf(getNumber(vector, pos, colName));
+        }
+    }
+
+    @Override
+    public Object getTyped(String colName, Type.DataType type) {
+        int idx = getFieldIndex(colName);
+        ColumnVector vector = batch.cols[idx];
+        int pos = valuePos(vector, row);
+        if (!vector.noNulls && vector.isNull[pos]) {
+            return null;
+        }
+        switch (type) {
+            case kBool:
+                return getNumber(vector, pos, colName).longValue() != 0;
+            case kSmallInt:
+                return getNumber(vector, pos, colName).shortValue();
+            case kInt:
+                return getNumber(vector, pos, colName).intValue();
+            case kBigInt:
+                return getNumber(vector, pos, colName).longValue();
+            case kFloat:
+                return getNumber(vector, pos, colName).floatValue();
+            case kDouble:
+                return getNumber(vector, pos, colName).doubleValue();
+            case kVarchar:
+            case kString:
+                if (!(vector instanceof BytesColumnVector)) {
+                    throw new IllegalStateException("col " + colName + " is not a orc string");
+                }
+                return getBytesString((BytesColumnVector) vector, pos);
+            case kDate:
+                // orc date is the days since epoch
+                return Date.valueOf(LocalDate.ofEpochDay(getNumber(vector, pos, colName).longValue()));
+            case kTimestamp:
+                if (vector instanceof TimestampColumnVector) {
+                    return ((TimestampColumnVector) vector).getTime(pos); // milliseconds
+                }
+                return getNumber(vector, pos, colName).longValue();
+        }
+        return null;
+    }
+
+    private static String getBytesString(BytesColumnVector vector, int pos) {
+        return new String(vector.vector[pos], vector.start[pos], vector.length[pos], StandardCharsets.UTF_8);
+    }
+
+    private static Number getNumber(ColumnVector vector, int pos, String colName) {
+        if (vector instanceof LongColumnVector) {
+            return ((LongColumnVector) vector).vector[pos];
+        }
+        if (vector instanceof DoubleColumnVector) {
+            return ((DoubleColumnVector) vector).vector[pos];
+        }
+        throw new IllegalStateException("col " + colName + " is not a orc number, vector " + vector.getClass().getSimpleName());
+    }
+}
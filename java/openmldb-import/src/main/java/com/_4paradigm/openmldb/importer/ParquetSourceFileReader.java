@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.importer;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// local or hdfs parquet file, hadoop Path will choose the file system by the scheme
+public class ParquetSourceFileReader implements SourceFileReader {
+    private final ParquetReader<Group> reader;
+    private final MessageType schema;
+    private final Set<String> columnNames = new LinkedHashSet<>();
+    private Group nextGroup;
+
+    public ParquetSourceFileReader(String filePath) throws IOException {
+        Configuration conf = new Configuration();
+        Path path = new Path(filePath);
+        try (ParquetFileReader footerReader = ParquetFileReader.open(HadoopInputFile.fromPath(path, conf))) {
+            schema = footerReader.getFooter().getFileMetaData().getSchema();
+        }
+        for (Type field : schema.getFields()) {
+            // nested columns can't be mapped to a table column
+            if (field.isPrimitive()) {
+                columnNames.add(field.getName());
+            }
+        }
+        reader = ParquetReader.builder(new GroupReadSupport(), path).withConf(conf).build();
+        nextGroup = reader.read();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextGroup != null;
+    }
+
+    @Override
+    public SourceRecord next() throws IOException {
+        SourceRecord record = new ParquetSourceRecord(nextGroup, schema);
+        nextGroup = reader.read();
+        return record;
+    }
+
+    @Override
+    public Set<String> getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
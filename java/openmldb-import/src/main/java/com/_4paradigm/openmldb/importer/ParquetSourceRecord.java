@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.importer;
+
+import com._4paradigm.openmldb.proto.Type;
+import com.google.common.base.Preconditions;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+public class ParquetSourceRecord implements SourceRecord {
+    // julian day of 1970-01-01, used to decode int96 timestamps(written by spark/hive)
+    private static final long JULIAN_DAY_OF_EPOCH = 2440588;
+
+    private final Group group;
+    private final MessageType schema;
+
+    public ParquetSourceRecord(Group group, MessageType schema) {
+        this.group = group;
+        this.schema = schema;
+    }
+
+    @Override
+    public String getString(String colName) {
+        int idx = schema.getFieldIndex(colName);
+        if (isNull(idx)) {
+            return null;
+        }
+        PrimitiveType field = schema.getType(idx).asPrimitiveType();
+        switch (field.getPrimitiveTypeName()) {
+            case BINARY:
+            case FIXED_LEN_BYTE_ARRAY:
+                return group.getString(idx, 0);
+            case BOOLEAN:
+                return String.valueOf(group.getBoolean(idx, 0));
+            case INT96:
+                return String.valueOf(getTimestamp(idx, field));
+            default:
+                if (field.getOriginalType() == OriginalType.DATE) {
+                    return getDate(idx).toString();
+                }
+                if (isTimestamp(field)) {
+                    return String.valueOf(getTimestamp(idx, field));
+                }
+                return String.valueOf(getNumber(idx, field));
+        }
+    }
+
+    @Override
+    public Object getTyped(String colName, Type.DataType type) {
+        int idx = schema.getFieldIndex(colName);
+        if (isNull(idx)) {
+            return null;
+        }
+        PrimitiveType field = schema.getType(idx).asPrimitiveType();
+        switch (type) {
+            case kBool:
+                return group.getBoolean(idx, 0);
+            case kSmallInt:
+                return getNumber(idx, field).shortValue();
+            case kInt:
+                return getNumber(idx, field).intValue();
+            case kBigInt:
+                return getNumber(idx, field).longValue();
+            case kFloat:
+                return getNumber(idx, field).floatValue();
+            case kDouble:
+                return getNumber(idx, field).doubleValue();
+            case kVarchar:
+            case kString:
+                return group.getString(idx, 0);
+            case kDate:
+                Preconditions.checkState(field.getOriginalType() == OriginalType.DATE,
+                        "col " + colName + " is not a parquet date, can't load into date column");
+                return getDate(idx);
+            case kTimestamp:
+                return getTimestamp(idx, field);
+        }
+        return null;
+    }
+
+    private boolean isNull(int idx) {
+        return group.getFieldRepetitionCount(idx) == 0;
+    }
+
+    private Number getNumber(int idx, PrimitiveType field) {
+        switch (field.getPrimitiveTypeName()) {
+            case INT32:
+                return group.getInteger(idx, 0);
+            case INT64:
+                return group.getLong(idx, 0);
+            case FLOAT:
+                return group.getFloat(idx, 0);
+            case DOUBLE:
+                return group.getDouble(idx, 0);
+            default:
+                throw new IllegalStateException(
+                        "parquet type " + field.getPrimitiveTypeName() + " of " + field.getName() + " is not a number");
+        }
+    }
+
+    private Date getDate(int idx) {
+        // parquet date is the days since epoch
+        return Date.valueOf(LocalDate.ofEpochDay(group.getInteger(idx, 0)));
+    }
+
+    private static boolean isTimestamp(PrimitiveType field) {
+        return field.getOriginalType() == OriginalType.TIMESTAMP_MILLIS
+                || field.getOriginalType() == OriginalType.TIMESTAMP_MICROS;
+    }
+
+    // returns milliseconds
+    private long getTimestamp(int idx, PrimitiveType field) {
+        switch (field.getPrimitiveTypeName()) {
+            case INT96: {
+                // 8 bytes nanos of the day + 4 bytes julian day, little endian
+                Binary binary = group.getInt96(idx, 0);
+                ByteBuffer buf = binary.toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+                long nanosOfDay = buf.getLong();
+                long julianDay = buf.getInt();
+                return TimeUnit.DAYS.toMillis(julianDay - JULIAN_DAY_OF_EPOCH) + TimeUnit.NANOSECONDS.toMillis(nanosOfDay);
+            }
+            case INT64:
+                if (field.getOriginalType() == OriginalType.TIMESTAMP_MICROS) {
+                    return TimeUnit.MICROSECONDS.toMillis(group.getLong(idx, 0));
+                }
+                return group.getLong(idx, 0);
+            default:
+                return getNumber(idx, field).longValue();
+        }
+    }
+}
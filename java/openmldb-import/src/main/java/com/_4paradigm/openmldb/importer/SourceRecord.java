@@ -0,0 +1,36 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.importer;
+
+import com._4paradigm.openmldb.proto.Type;
+
+/**
+ * One row read from a source file. CSV rows only have text, columnar formats(parquet/orc) keep the typed values, so
+ * the generator asks for the value in the type it needs instead of parsing text.
+ */
+public interface SourceRecord {
+    /**
+     * The text form of the column, used to build the index key. Returns null if the column is null.
+     */
+    String getString(String colName);
+
+    /**
+     * The value in the java type which the row encoder expects, e.g. Long for kTimestamp, java.sql.Date for kDate.
+     * Returns null if the column is null.
+     */
+    Object getTyped(String colName, Type.DataType type);
+}
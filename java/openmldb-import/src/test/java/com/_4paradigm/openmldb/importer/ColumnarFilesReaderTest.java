@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.importer;
+
+import com._4paradigm.openmldb.proto.Type;
+import junit.framework.TestCase;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.OrcFile;
+import org.apache.orc.TypeDescription;
+import org.apache.orc.Writer;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.Assert;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Collections;
+
+public class ColumnarFilesReaderTest extends TestCase {
+    private static final int ROWS = 3000;
+    private File baseDir;
+
+    @Override
+    protected void setUp() {
+        baseDir = new File("./target/columnar").getAbsoluteFile();
+        FileUtil.fullyDelete(baseDir);
+        Assert.assertTrue(baseDir.mkdirs());
+    }
+
+    public void testParquet() throws Exception {
+        String filePath = new File(baseDir, "data.parquet").getAbsolutePath();
+        MessageType schema = MessageTypeParser.parseMessageType("message test { "
+                + "required binary c1 (UTF8); required int32 c2; optional int64 c3; "
+                + "required int32 c4 (DATE); required int64 c5 (TIMESTAMP_MILLIS); }");
+        SimpleGroupFactory factory = new SimpleGroupFactory(schema);
+        try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new Path(filePath)).withType(schema)
+                .withConf(new Configuration()).build()) {
+            for (int i = 0; i < ROWS; i++) {
+                Group group = factory.newGroup().append("c1", "key" + i).append("c2", i);
+                if (i % 2 == 0) {
+                    group.append("c3", (long) i * 10);
+                }
+                group.append("c4", 19000).append("c5", 1000L * i);
+                writer.write(group);
+            }
+        }
+
+        FilesReader reader = new FilesReader(Collections.singletonList(filePath));
+        int count = 0;
+        SourceRecord record;
+        while ((record = reader.next()) != null) {
+            Assert.assertEquals("key" + count, record.getTyped("c1", Type.DataType.kString));
+            Assert.assertEquals(count, record.getTyped("c2", Type.DataType.kInt));
+            // int32 can be loaded into a bigint column
+            Assert.assertEquals((long) count, record.getTyped("c2", Type.DataType.kBigInt));
+            if (count % 2 == 0) {
+                Assert.assertEquals((long) count * 10, record.getTyped("c3", Type.DataType.kBigInt));
+            } else {
+                Assert.assertNull(record.getTyped("c3", Type.DataType.kBigInt));
+            }
+            Assert.assertEquals(Date.valueOf("2022-01-08"), record.getTyped("c4", Type.DataType.kDate));
+            Assert.assertEquals(1000L * count, record.getTyped("c5", Type.DataType.kTimestamp));
+            Assert.assertEquals(String.valueOf(count), record.getString("c2"));
+            count++;
+        }
+        Assert.assertEquals(ROWS, count);
+    }
+
+    public void testOrc() throws Exception {
+        String filePath = new File(baseDir, "data.orc").getAbsolutePath();
+        TypeDescription schema = TypeDescription.fromString("struct<c1:string,c2:int,c3:bigint,c4:date,c5:timestamp>");
+        Writer writer = OrcFile.createWriter(new Path(filePath), OrcFile.writerOptions(new Configuration()).setSchema(schema));
+        VectorizedRowBatch batch = schema.createRowBatch();
+        for (int i = 0; i < ROWS; i++) {
+            int row = batch.size++;
+            ((BytesColumnVector) batch.cols[0]).setVal(row, ("key" + i).getBytes(StandardCharsets.UTF_8));
+            ((LongColumnVector) batch.cols[1]).vector[row] = i;
+            if (i % 2 == 0) {
+                ((LongColumnVector) batch.cols[2]).vector[row] = (long) i * 10;
+            } else {
+                batch.cols[2].noNulls = false;
+                batch.cols[2].isNull[row] = true;
+            }
+            ((LongColumnVector) batch.cols[3]).vector[row] = 19000;
+            ((TimestampColumnVector) batch.cols[4]).set(row, new Timestamp(1000L * i));
+            if (batch.size == batch.getMaxSize()) {
+                writer.addRowBatch(batch);
+                batch.reset();
+            }
+        }
+        if (batch.size != 0) {
+            writer.addRowBatch(batch);
+        }
+        writer.close();
+
+        FilesReader reader = new FilesReader(Collections.singletonList(filePath));
+        int count = 0;
+        SourceRecord record;
+        while ((record = reader.next()) != null) {
+            Assert.assertEquals("key" + count, record.getTyped("c1", Type.DataType.kString));
+            Assert.assertEquals(count, record.getTyped("c2", Type.DataType.kInt));
+            if (count % 2 == 0) {
+                Assert.assertEquals((long) count * 10, record.getTyped("c3", Type.DataType.kBigInt));
+            } else {
+                Assert.assertNull(record.getTyped("c3", Type.DataType.kBigInt));
+            }
+            Assert.assertEquals(Date.valueOf("2022-01-08"), record.getTyped("c4", Type.DataType.kDate));
+            Assert.assertEquals(1000L * count, record.getTyped("c5", Type.DataType.kTimestamp));
+            count++;
+        }
+        Assert.assertEquals(ROWS, count);
+    }
+}
@@ -20,7 +20,6 @@ import com._4paradigm.openmldb.proto.NS;
 import junit.framework.TestCase;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
-import org.apache.commons.csv.CSVRecord;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
@@ -100,7 +99,7 @@ public class FilesReaderTest extends TestCase {
     public void testMixedFiles() {
         FilesReader filesReader = new FilesReader(Arrays.asList("src/test/resources/train.csv.small", hdfsFilePath.toString()));
         try {
-            CSVRecord record;
+            SourceRecord record;
             int recordCount = 0;
             while ((record = filesReader.next()) != null) {
                 logger.info(record);
@@ -120,7 +119,7 @@ public class FilesReaderTest extends TestCase {
         tableInfoBuilder.addColumnDescBuilder().setName("c2");
         filesReader.enableCheckHeader(tableInfoBuilder.build());
         try {
-            CSVRecord record;
+            SourceRecord record;
             while ((record = filesReader.next()) != null) {
                 logger.info(record);
             }
@@ -20,6 +20,8 @@ import com._4paradigm.openmldb.SQLRouter;
 import com._4paradigm.openmldb.common.codec.FlexibleRowBuilder;
 import com._4paradigm.openmldb.sdk.QueryFuture;
 import com._4paradigm.openmldb.sdk.impl.Deployment;
+import com._4paradigm.openmldb.sdk.metrics.StatementMetrics;
+import com._4paradigm.openmldb.sdk.trace.Tracer;
 
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -30,11 +32,25 @@ public abstract class CallablePreparedStatement extends PreparedStatement {
     protected FlexibleRowBuilder rowBuilder;
     protected String db;
     protected String deploymentName;
+    protected StatementMetrics metrics;
+    protected Tracer tracer;
 
     public CallablePreparedStatement(Deployment deployment, SQLRouter router) throws SQLException {
+        this(deployment, router, StatementMetrics.NOOP);
+    }
+
+    public CallablePreparedStatement(Deployment deployment, SQLRouter router, StatementMetrics metrics)
+            throws SQLException {
+        this(deployment, router, metrics, Tracer.DISABLED);
+    }
+
+    public CallablePreparedStatement(Deployment deployment, SQLRouter router, StatementMetrics metrics,
+                                     Tracer tracer) throws SQLException {
         if (router == null) throw new SQLException("router is null");
         this.router = router;
         this.deployment = deployment;
+        this.metrics = metrics;
+        this.tracer = tracer;
         db = deployment.getDatabase();
         deploymentName = deployment.getName();
     }
@@ -186,6 +186,14 @@ public class SQLDriver implements Driver {
         if (prop != null) {
             option.setPassword(prop);
         }
+        prop = properties.getProperty("enableMetrics");
+        if (prop != null) {
+            option.setEnableMetrics(Boolean.parseBoolean(prop));
+        }
+        prop = properties.getProperty("traceSampleRatio");
+        if (prop != null) {
+            option.setTraceSampleRatio(Double.parseDouble(prop));
+        }
         return option;
     }
 
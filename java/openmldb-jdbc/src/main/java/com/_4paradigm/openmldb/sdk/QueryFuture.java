@@ -19,26 +19,56 @@ package com._4paradigm.openmldb.sdk;
 import com._4paradigm.openmldb.Status;
 import com._4paradigm.openmldb.common.codec.CodecMetaData;
 import com._4paradigm.openmldb.sdk.impl.CallableDirectResultSet;
+import com._4paradigm.openmldb.sdk.metrics.StatementMetrics;
+import com._4paradigm.openmldb.sdk.trace.ActiveSpan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 public class QueryFuture implements Future<java.sql.ResultSet>{
     private static final Logger logger = LoggerFactory.getLogger(QueryFuture.class);
     com._4paradigm.openmldb.QueryFuture queryFuture;
     Schema schema;
     CodecMetaData metaData;
+    StatementMetrics metrics;
+    // System.nanoTime() when the request started
+    long startNanos;
+    // null if the request is not traced
+    ActiveSpan span;
+    // set when the native call is seen completed, the in-flight gauge is decremented once
+    private final AtomicBoolean completed = new AtomicBoolean(false);
 
     public QueryFuture(com._4paradigm.openmldb.QueryFuture queryFuture, Schema schema, CodecMetaData metaData) {
+        this(queryFuture, schema, metaData, StatementMetrics.NOOP, System.nanoTime(), null);
+    }
+
+    /**
+     * @param metrics the request is counted as in-flight by the caller until the native call completes, get() records
+     *                its remaining metrics
+     * @param span    the span of a traced request, get() ends it
+     */
+    public QueryFuture(com._4paradigm.openmldb.QueryFuture queryFuture, Schema schema, CodecMetaData metaData,
+                       StatementMetrics metrics, long startNanos, ActiveSpan span) {
         this.queryFuture = queryFuture;
         this.schema = schema;
         this.metaData = metaData;
+        this.metrics = metrics;
+        this.startNanos = startNanos;
+        this.span = span;
+        if (metrics != StatementMetrics.NOOP) {
+            CompletionWatcher.watch(this);
+        }
     }
 
     @Override
@@ -55,10 +85,27 @@ public class QueryFuture implements Future<java.sql.ResultSet>{
 
     @Override
     public boolean isDone() {
-        if (queryFuture != null) {
-            return queryFuture.IsDone();
+        return pollDone();
+    }
+
+    // the native future is deleted under the lock, so the watcher won't touch a deleted one
+    private synchronized boolean pollDone() {
+        if (queryFuture == null || queryFuture.IsDone()) {
+            markCompleted();
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void deleteNative() {
+        queryFuture.delete();
+        queryFuture = null;
+    }
+
+    private void markCompleted() {
+        if (completed.compareAndSet(false, true)) {
+            metrics.inflight.decrement();
         }
-        return true;
     }
 
     @Override
@@ -67,16 +114,24 @@ public class QueryFuture implements Future<java.sql.ResultSet>{
             throw new ExecutionException(new SqlException("queryFuture is null"));
         }
         Status status = new Status();
+        long waitStart = System.nanoTime();
         com._4paradigm.openmldb.ResultSet resultSet = queryFuture.GetResultSet(status);
+        long waited = System.nanoTime();
+        metrics.waiting.record(waited - waitStart);
+        if (span != null) {
+            span.waiting(waited - waitStart);
+            queryFuture.GetTrace(span.getNativeTrace());
+        }
         if (status.getCode() != 0 || resultSet == null) {
             String msg = status.ToString();
             status.delete();
             if (resultSet != null) {
                 resultSet.delete();
             }
-            queryFuture.delete();
-            queryFuture = null;
+            deleteNative();
             logger.error("call procedure failed: {}", msg);
+            metrics.errors.increment();
+            finishMetrics(msg);
             throw new ExecutionException(new SqlException("call procedure failed: " + msg));
         }
         status.delete();
@@ -85,11 +140,25 @@ public class QueryFuture implements Future<java.sql.ResultSet>{
         ByteBuffer dataBuf = ByteBuffer.allocate(dataLength).order(ByteOrder.LITTLE_ENDIAN);
         resultSet.CopyTo(dataBuf.array());
         resultSet.delete();
-        queryFuture.delete();
-        queryFuture = null;
+        deleteNative();
+        long decoded = System.nanoTime() - waited;
+        metrics.decode.record(decoded);
+        if (span != null) {
+            span.decode(decoded);
+        }
+        finishMetrics(null);
         return new CallableDirectResultSet(dataBuf, totalRows, schema, metaData);
     }
 
+    private void finishMetrics(String error) {
+        markCompleted();
+        metrics.latency.record(System.nanoTime() - startNanos);
+        if (span != null) {
+            span.end(error);
+            span = null;
+        }
+    }
+
     /**
      *
      * @param l  current timeout set by executeQeuryAsyn, so the param is invalid
@@ -104,4 +173,45 @@ public class QueryFuture implements Future<java.sql.ResultSet>{
     public java.sql.ResultSet get(long l, TimeUnit timeUnit) throws InterruptedException, ExecutionException, TimeoutException {
         return get();
     }
+
+    /**
+     * Polls the native calls of async requests in one daemon thread, so a request leaves the in-flight gauge when its
+     * rpc completes, even if the caller gets the result much later or never.
+     */
+    private static final class CompletionWatcher {
+        private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+        private static final Queue<QueryFuture> PENDING = new ConcurrentLinkedQueue<>();
+        private static Thread thread;
+
+        static void watch(QueryFuture future) {
+            PENDING.add(future);
+            LockSupport.unpark(getThread());
+        }
+
+        private static synchronized Thread getThread() {
+            if (thread == null) {
+                thread = new Thread(CompletionWatcher::run, "openmldb-query-future-watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            return thread;
+        }
+
+        private static void run() {
+            while (true) {
+                Iterator<QueryFuture> it = PENDING.iterator();
+                while (it.hasNext()) {
+                    if (it.next().pollDone()) {
+                        it.remove();
+                    }
+                }
+                // unpark before park is not lost, a new future wakes it up
+                if (PENDING.isEmpty()) {
+                    LockSupport.park();
+                } else {
+                    LockSupport.parkNanos(POLL_NANOS);
+                }
+            }
+        }
+    }
 }
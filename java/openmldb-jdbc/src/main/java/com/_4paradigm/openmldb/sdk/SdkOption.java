@@ -22,6 +22,8 @@ import java.io.Serializable;
 import com._4paradigm.openmldb.BasicRouterOptions;
 import com._4paradigm.openmldb.SQLRouterOptions;
 import com._4paradigm.openmldb.StandaloneOptions;
+import com._4paradigm.openmldb.sdk.metrics.MetricsRegistry;
+import com._4paradigm.openmldb.sdk.trace.SpanExporter;
 
 @Data
 public class SdkOption implements Serializable {
@@ -49,6 +51,14 @@ public class SdkOption implements Serializable {
     private boolean isLight = false;
     private String user = "root";
     private String password = "";
+    // collect client side metrics by HdrMetricsRegistry, get them by SqlClusterExecutor.getMetricsRegistry()
+    private boolean enableMetrics = false;
+    // custom registry, used even if enableMetrics is false
+    private transient MetricsRegistry metricsRegistry = null;
+    // ratio of deployment requests to trace, 0 disables tracing
+    private double traceSampleRatio = 0;
+    // receives the spans of traced requests, see SpanExporter for the default one
+    private transient SpanExporter spanExporter = null;
 
     private void buildBaseOptions(BasicRouterOptions opt) {
         opt.setEnable_debug(getEnableDebug());
@@ -22,6 +22,7 @@ import com._4paradigm.openmldb.common.codec.FlexibleRowBuilder;
 import com._4paradigm.openmldb.jdbc.CallablePreparedStatement;
 import com._4paradigm.openmldb.jdbc.SQLResultSet;
 import com._4paradigm.openmldb.sdk.QueryFuture;
+import com._4paradigm.openmldb.sdk.metrics.StatementMetrics;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -37,9 +38,16 @@ public class BatchCallablePreparedStatementImpl extends CallablePreparedStatemen
     private ByteBuffer meta;
     private ByteBuffer result;
     private int totalSize = 0;
+    // time of encoding the rows added, recorded with the batch request
+    private long encodeNanos = 0;
 
     public BatchCallablePreparedStatementImpl(Deployment deployment, SQLRouter router) throws SQLException {
-        super(deployment, router);
+        this(deployment, router, StatementMetrics.NOOP);
+    }
+
+    public BatchCallablePreparedStatementImpl(Deployment deployment, SQLRouter router, StatementMetrics metrics)
+            throws SQLException {
+        super(deployment, router, metrics);
         rowBuilder = new FlexibleRowBuilder(deployment.getInputMetaData());
     }
 
@@ -60,55 +68,85 @@ public class BatchCallablePreparedStatementImpl extends CallablePreparedStatemen
     public SQLResultSet executeQuery() throws SQLException {
         checkClosed();
         checkExecutorClosed();
-        build();
-        Status status = new Status();
-        com._4paradigm.openmldb.ResultSet resultSet = router.CallSQLBatchRequestProcedure(
-                db, deploymentName, meta.array(), meta.capacity(), result.array(), result.capacity(), status);
-        if (status.getCode() != 0 || resultSet == null) {
-            String msg = status.ToString();
+        long start = System.nanoTime();
+        metrics.inflight.increment();
+        try {
+            build();
+            long encoded = System.nanoTime();
+            metrics.encode.record(encodeNanos + encoded - start);
+            Status status = new Status();
+            com._4paradigm.openmldb.ResultSet resultSet = router.CallSQLBatchRequestProcedure(
+                    db, deploymentName, meta.array(), meta.capacity(), result.array(), result.capacity(), status);
+            long called = System.nanoTime();
+            metrics.jni.record(called - encoded);
+            if (status.getCode() != 0 || resultSet == null) {
+                String msg = status.ToString();
+                status.delete();
+                if (resultSet != null) {
+                    resultSet.delete();
+                }
+                throw new SQLException("execute sql fail: " + msg);
+            }
             status.delete();
-            if (resultSet != null) {
-                resultSet.delete();
+            int totalRows = resultSet.Size();
+            int dataLength = resultSet.GetDataLength();
+            ByteBuffer dataBuf = ByteBuffer.allocate(dataLength).order(ByteOrder.LITTLE_ENDIAN);
+            resultSet.CopyTo(dataBuf.array());
+            resultSet.delete();
+            SQLResultSet rs = new CallableDirectResultSet(dataBuf, totalRows, deployment.getOutputSchema(), deployment.getOutputMetaData());
+            metrics.decode.record(System.nanoTime() - called);
+            if (closeOnComplete) {
+                closed = true;
             }
-            throw new SQLException("execute sql fail: " + msg);
-        }
-        status.delete();
-        int totalRows = resultSet.Size();
-        int dataLength = resultSet.GetDataLength();
-        ByteBuffer dataBuf = ByteBuffer.allocate(dataLength).order(ByteOrder.LITTLE_ENDIAN);
-        resultSet.CopyTo(dataBuf.array());
-        resultSet.delete();
-        SQLResultSet rs = new CallableDirectResultSet(dataBuf, totalRows, deployment.getOutputSchema(), deployment.getOutputMetaData());
-        if (closeOnComplete) {
-            closed = true;
+            clearParameters();
+            return rs;
+        } catch (SQLException e) {
+            metrics.errors.increment();
+            throw e;
+        } finally {
+            metrics.inflight.decrement();
+            metrics.latency.record(System.nanoTime() - start);
         }
-        clearParameters();
-        return rs;
     }
 
     @Override
     public QueryFuture executeQueryAsync(long timeOut, TimeUnit unit) throws SQLException {
         checkClosed();
         checkExecutorClosed();
-        build();
-        Status status = new Status();
-        com._4paradigm.openmldb.QueryFuture queryFuture = router.CallSQLBatchRequestProcedure(db, deploymentName, unit.toMillis(timeOut),
-                meta.array(), meta.capacity(), result.array(), result.capacity(), status);
-        if (status.getCode() != 0 || queryFuture == null) {
-            String msg = status.ToString();
-            status.delete();
-            if (queryFuture != null) {
-                queryFuture.delete();
+        long start = System.nanoTime();
+        metrics.inflight.increment();
+        try {
+            build();
+            long encoded = System.nanoTime();
+            metrics.encode.record(encodeNanos + encoded - start);
+            Status status = new Status();
+            com._4paradigm.openmldb.QueryFuture queryFuture = router.CallSQLBatchRequestProcedure(db, deploymentName, unit.toMillis(timeOut),
+                    meta.array(), meta.capacity(), result.array(), result.capacity(), status);
+            metrics.jni.record(System.nanoTime() - encoded);
+            if (status.getCode() != 0 || queryFuture == null) {
+                String msg = status.ToString();
+                status.delete();
+                if (queryFuture != null) {
+                    queryFuture.delete();
+                }
+                throw new SQLException("call deployment failed, msg: " + msg);
             }
-            throw new SQLException("call deployment failed, msg: " + msg);
+            status.delete();
+            clearParameters();
+            // the future finishes the metrics of this request in get()
+            return new QueryFuture(queryFuture, deployment.getOutputSchema(), deployment.getOutputMetaData(),
+                    metrics, start, null);
+        } catch (SQLException e) {
+            metrics.errors.increment();
+            metrics.inflight.decrement();
+            metrics.latency.record(System.nanoTime() - start);
+            throw e;
         }
-        status.delete();
-        clearParameters();
-        return new QueryFuture(queryFuture, deployment.getOutputSchema(), deployment.getOutputMetaData());
     }
 
     @Override
     public void addBatch() throws SQLException {
+        long start = System.nanoTime();
         if (!rowBuilder.build()) {
             throw new SQLException("failed to encode data");
         }
@@ -116,6 +154,7 @@ public class BatchCallablePreparedStatementImpl extends CallablePreparedStatemen
         datas.add(buf);
         totalSize += buf.capacity();
         rowBuilder.clear();
+        encodeNanos += System.nanoTime() - start;
     }
 
     @Override
@@ -135,6 +174,7 @@ public class BatchCallablePreparedStatementImpl extends CallablePreparedStatemen
         result = null;
         meta = null;
         totalSize = 0;
+        encodeNanos = 0;
     }
 
     @Override
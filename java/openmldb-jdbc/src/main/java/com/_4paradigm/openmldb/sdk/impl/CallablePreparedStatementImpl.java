@@ -22,6 +22,9 @@ import com._4paradigm.openmldb.common.codec.CodecUtil;
 import com._4paradigm.openmldb.common.codec.FlexibleRowBuilder;
 import com._4paradigm.openmldb.jdbc.CallablePreparedStatement;
 import com._4paradigm.openmldb.sdk.QueryFuture;
+import com._4paradigm.openmldb.sdk.metrics.StatementMetrics;
+import com._4paradigm.openmldb.sdk.trace.ActiveSpan;
+import com._4paradigm.openmldb.sdk.trace.Tracer;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -35,7 +38,17 @@ public class CallablePreparedStatementImpl extends CallablePreparedStatement {
     private String routerValue = "";
 
     public CallablePreparedStatementImpl(Deployment deployment, SQLRouter router) throws SQLException {
-        super(deployment, router);
+        this(deployment, router, StatementMetrics.NOOP);
+    }
+
+    public CallablePreparedStatementImpl(Deployment deployment, SQLRouter router, StatementMetrics metrics)
+            throws SQLException {
+        this(deployment, router, metrics, Tracer.DISABLED);
+    }
+
+    public CallablePreparedStatementImpl(Deployment deployment, SQLRouter router, StatementMetrics metrics,
+                                         Tracer tracer) throws SQLException {
+        super(deployment, router, metrics, tracer);
         rowBuilder = new FlexibleRowBuilder(deployment.getInputMetaData());
         routerCol = deployment.getRouterCol();
     }
@@ -44,57 +57,121 @@ public class CallablePreparedStatementImpl extends CallablePreparedStatement {
     public ResultSet executeQuery() throws SQLException {
         checkClosed();
         checkExecutorClosed();
-        if (!rowBuilder.build()) {
-            throw new SQLException("failed to encode data");
-        }
-        ByteBuffer buf = rowBuilder.getValue();
-        Status status = new Status();
-        com._4paradigm.openmldb.ResultSet resultSet = router.CallProcedure(db, deploymentName,
-                buf.array(), buf.capacity(), routerValue, status);
-        if (status.getCode() != 0 || resultSet == null) {
-            String msg = status.ToString();
+        long start = System.nanoTime();
+        metrics.inflight.increment();
+        ActiveSpan span = tracer.start(db, deploymentName, false);
+        String error = null;
+        try {
+            if (!rowBuilder.build()) {
+                throw new SQLException("failed to encode data");
+            }
+            ByteBuffer buf = rowBuilder.getValue();
+            long encoded = System.nanoTime();
+            metrics.encode.record(encoded - start);
+            Status status = new Status();
+            com._4paradigm.openmldb.ResultSet resultSet;
+            if (span == null) {
+                resultSet = router.CallProcedure(db, deploymentName, buf.array(), buf.capacity(), routerValue, status);
+            } else {
+                span.encode(encoded - start);
+                resultSet = router.CallProcedure(db, deploymentName, buf.array(), buf.capacity(), routerValue,
+                        span.getNativeTrace(), status);
+            }
+            long called = System.nanoTime();
+            metrics.jni.record(called - encoded);
+            if (span != null) {
+                span.jni(called - encoded);
+            }
+            if (status.getCode() != 0 || resultSet == null) {
+                String msg = status.ToString();
+                status.delete();
+                if (resultSet != null) {
+                    resultSet.delete();
+                }
+                throw new SQLException("call procedure fail, msg: " + msg);
+            }
             status.delete();
-            if (resultSet != null) {
-                resultSet.delete();
+            int totalRows = resultSet.Size();
+            int dataLength = resultSet.GetDataLength();
+            ByteBuffer dataBuf = ByteBuffer.allocate(dataLength).order(ByteOrder.LITTLE_ENDIAN);
+            resultSet.CopyTo(dataBuf.array());
+            resultSet.delete();
+            ResultSet rs = new CallableDirectResultSet(dataBuf, totalRows, deployment.getOutputSchema(), deployment.getOutputMetaData());
+            long decoded = System.nanoTime() - called;
+            metrics.decode.record(decoded);
+            if (span != null) {
+                span.decode(decoded);
+            }
+            clearParameters();
+            if (closeOnComplete) {
+                closed = true;
+            }
+            return rs;
+        } catch (SQLException e) {
+            metrics.errors.increment();
+            error = e.getMessage();
+            throw e;
+        } finally {
+            metrics.inflight.decrement();
+            metrics.latency.record(System.nanoTime() - start);
+            if (span != null) {
+                span.end(error);
             }
-            throw new SQLException("call procedure fail, msg: " + msg);
-        }
-        status.delete();
-        int totalRows = resultSet.Size();
-        int dataLength = resultSet.GetDataLength();
-        ByteBuffer dataBuf = ByteBuffer.allocate(dataLength).order(ByteOrder.LITTLE_ENDIAN);
-        resultSet.CopyTo(dataBuf.array());
-        resultSet.delete();
-        ResultSet rs = new CallableDirectResultSet(dataBuf, totalRows, deployment.getOutputSchema(), deployment.getOutputMetaData());
-        clearParameters();
-        if (closeOnComplete) {
-            closed = true;
         }
-        return rs;
     }
 
     @Override
     public QueryFuture executeQueryAsync(long timeOut, TimeUnit unit) throws SQLException {
         checkClosed();
         checkExecutorClosed();
-        if (!rowBuilder.build()) {
-            throw new SQLException("failed to encode data");
-        }
-        ByteBuffer buf = rowBuilder.getValue();
-        Status status = new Status();
-        com._4paradigm.openmldb.QueryFuture queryFuture = router.CallProcedure(db, deploymentName,
-                unit.toMillis(timeOut), buf.array(), buf.capacity(), routerValue, status);
-        if (status.getCode() != 0 || queryFuture == null) {
-            String msg = status.ToString();
+        long start = System.nanoTime();
+        metrics.inflight.increment();
+        ActiveSpan span = tracer.start(db, deploymentName, true);
+        try {
+            if (!rowBuilder.build()) {
+                throw new SQLException("failed to encode data");
+            }
+            ByteBuffer buf = rowBuilder.getValue();
+            long encoded = System.nanoTime();
+            metrics.encode.record(encoded - start);
+            Status status = new Status();
+            com._4paradigm.openmldb.QueryFuture queryFuture;
+            if (span == null) {
+                queryFuture = router.CallProcedure(db, deploymentName,
+                        unit.toMillis(timeOut), buf.array(), buf.capacity(), routerValue, status);
+            } else {
+                span.encode(encoded - start);
+                queryFuture = router.CallProcedure(db, deploymentName,
+                        unit.toMillis(timeOut), buf.array(), buf.capacity(), routerValue, span.getNativeTrace(),
+                        status);
+            }
+            long called = System.nanoTime();
+            metrics.jni.record(called - encoded);
+            if (span != null) {
+                span.jni(called - encoded);
+            }
+            if (status.getCode() != 0 || queryFuture == null) {
+                String msg = status.ToString();
+                status.delete();
+                if (queryFuture != null) {
+                    queryFuture.delete();
+                }
+                throw new SQLException("call procedure fail, msg: " + msg);
+            }
             status.delete();
-            if (queryFuture != null) {
-                queryFuture.delete();
+            clearParameters();
+            // the future finishes the metrics of this request in get()
+            return new QueryFuture(queryFuture, deployment.getOutputSchema(), deployment.getOutputMetaData(),
+                    metrics, start, span);
+        } catch (SQLException e) {
+            metrics.errors.increment();
+            metrics.inflight.decrement();
+            metrics.latency.record(System.nanoTime() - start);
+            if (span != null) {
+                span.end(e.getMessage());
             }
-            throw new SQLException("call procedure fail, msg: " + msg);
+            throw e;
         }
-        status.delete();
-        clearParameters();
-        return new QueryFuture(queryFuture, deployment.getOutputSchema(), deployment.getOutputMetaData());
     }
 
     @Override
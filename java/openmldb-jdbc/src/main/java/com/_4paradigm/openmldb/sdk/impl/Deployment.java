@@ -17,36 +17,59 @@
 package com._4paradigm.openmldb.sdk.impl;
 
 import com._4paradigm.openmldb.common.codec.CodecMetaData;
+import com._4paradigm.openmldb.proto.Common.ColumnDesc;
 import com._4paradigm.openmldb.sdk.Common;
 import com._4paradigm.openmldb.sdk.Schema;
 import com._4paradigm.openmldb.sdk.ProcedureInfo;
 
+import java.util.List;
+
 public class Deployment {
 
-    private CodecMetaData inputMetaData;
-    private CodecMetaData outputMetaData;
+    private List<ColumnDesc> inputSchema;
+    private List<ColumnDesc> outputSchema;
+    // built on first use, most deployments loaded by a client may never be requested
+    private volatile CodecMetaData inputMetaData;
+    private volatile CodecMetaData outputMetaData;
     private ProcedureInfo proInfo;
 
     public Deployment(com._4paradigm.openmldb.proto.SQLProcedure.ProcedureInfo info) throws Exception {
         proInfo = Common.convertProcedureInfo(info);
-        inputMetaData = new CodecMetaData(info.getInputSchemaList(), false);
-        outputMetaData = new CodecMetaData(info.getOutputSchemaList(), true);
+        inputSchema = info.getInputSchemaList();
+        outputSchema = info.getOutputSchemaList();
     }
 
     public Deployment(ProcedureInfo procedureInfo) throws Exception {
         proInfo = procedureInfo;
-        inputMetaData = new CodecMetaData(Common.convert2ProtoSchema(procedureInfo.getInputSchema()), false);
-        outputMetaData = new CodecMetaData(Common.convert2ProtoSchema(procedureInfo.getOutputSchema()), true);
+        inputSchema = Common.convert2ProtoSchema(procedureInfo.getInputSchema());
+        outputSchema = Common.convert2ProtoSchema(procedureInfo.getOutputSchema());
+    }
+
+    private static CodecMetaData buildMetaData(List<ColumnDesc> schema, boolean addTsIdx) {
+        try {
+            return new CodecMetaData(schema, addTsIdx);
+        } catch (Exception e) {
+            throw new IllegalStateException("fail to build codec meta data: " + e.getMessage(), e);
+        }
     }
 
     public CodecMetaData getInputMetaData() {
-        return inputMetaData;
+        CodecMetaData metaData = inputMetaData;
+        if (metaData == null) {
+            metaData = buildMetaData(inputSchema, false);
+            inputMetaData = metaData;
+        }
+        return metaData;
     }
 
     public CodecMetaData getOutputMetaData() {
-        return outputMetaData;
+        CodecMetaData metaData = outputMetaData;
+        if (metaData == null) {
+            metaData = buildMetaData(outputSchema, true);
+            outputMetaData = metaData;
+        }
+        return metaData;
     }
-
     public int getRouterCol() {
         return proInfo.getRouterCol();
     }
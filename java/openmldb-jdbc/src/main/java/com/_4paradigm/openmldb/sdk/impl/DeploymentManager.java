@@ -21,15 +21,28 @@ import com._4paradigm.openmldb.sdk.SqlException;
 import org.apache.curator.framework.recipes.cache.NodeCache;
 import org.apache.curator.framework.recipes.cache.NodeCacheListener;
 import com._4paradigm.openmldb.proto.SQLProcedure;
-import com._4paradigm.openmldb.proto.Type;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.xerial.snappy.Snappy;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Deployments known by this client, synced with zk when the table notify node changes.
+ *
+ * <p>A refresh only reads the stat of each deployment node, and replaces the entries whose node was created or
+ * changed since the last refresh. The data of an entry is read and parsed when the deployment is got for the first
+ * time, so a deploy doesn't make every client parse all deployments again.
+ */
 public class DeploymentManager {
+    private static final Logger logger = LoggerFactory.getLogger(DeploymentManager.class);
+    // version of the deployments which are not loaded from zk
+    private static final long NO_ZK_VERSION = -1;
 
-    private Map<AbstractMap.SimpleImmutableEntry<String, String>, Deployment> deployments = new ConcurrentHashMap<>();
+    // the key is the name of deployment node, db.deployment
+    private final Map<String, DeploymentEntry> deployments = new ConcurrentHashMap<>();
     private ZKClient zkClient;
     private NodeCache nodeCache;
     private String spPath;
@@ -54,48 +67,96 @@ public class DeploymentManager {
         }
     }
 
-    public void parseAllDeployment() throws Exception {
+    private static String key(String db, String name) {
+        return db + "." + name;
+    }
+
+    /**
+     * Sync the entries with the deployment nodes in zk. The version of a node is its mzxid, which changes when the
+     * node is recreated or updated.
+     */
+    public synchronized void parseAllDeployment() throws Exception {
         if (!zkClient.checkExists(spPath)) {
             return;
         }
         List<String> children = zkClient.getChildren(spPath);
-        Set<AbstractMap.SimpleImmutableEntry<String, String>> curDeployments = new HashSet<>();
-        for (String path : children) {
-            byte[] bytes = zkClient.getClient().getData().forPath(spPath + "/" + path);
-            byte[] data = Snappy.uncompress(bytes);
-            SQLProcedure.ProcedureInfo procedureInfo = SQLProcedure.ProcedureInfo.parseFrom(data);
-            Deployment deployment = getDeployment(procedureInfo.getDbName(), procedureInfo.getSpName());
-            if (deployment != null) {
-                if (deployment.getSQL().equals(procedureInfo.getSql())) {
-                    continue;
-                }
+        int changed = 0;
+        for (String child : children) {
+            String path = spPath + "/" + child;
+            Stat stat = zkClient.getClient().checkExists().forPath(path);
+            if (stat == null) {
+                // dropped after getChildren
+                continue;
             }
-            deployment = new Deployment(procedureInfo);
-            AbstractMap.SimpleImmutableEntry<String, String> key =
-                    new AbstractMap.SimpleImmutableEntry<>(procedureInfo.getDbName(), procedureInfo.getSpName());
-            addDeployment(key, deployment);
-            curDeployments.add(key);
-        }
-        if (deployments.size() > children.size()) {
-            Iterator<AbstractMap.SimpleImmutableEntry<String, String>> iterator = deployments.keySet().iterator();
-            while (iterator.hasNext()) {
-                AbstractMap.SimpleImmutableEntry<String, String> key = iterator.next();
-                if (!curDeployments.contains(key)) {
-                    iterator.remove();
-                }
+            DeploymentEntry entry = deployments.get(child);
+            if (entry != null && entry.version == stat.getMzxid()) {
+                continue;
             }
+            deployments.put(child, new DeploymentEntry(path, stat.getMzxid()));
+            changed++;
+        }
+        int total = deployments.size();
+        deployments.keySet().retainAll(new HashSet<>(children));
+        if (changed > 0 || total != deployments.size()) {
+            logger.info("refresh deployments, {} changed, {} removed, {} in total", changed,
+                    total - deployments.size(), deployments.size());
         }
     }
 
+    /**
+     * @return null if the deployment is unknown or fails to load, the caller can get it from the nameserver then
+     */
     public Deployment getDeployment(String db, String name) {
-        return deployments.get(new AbstractMap.SimpleImmutableEntry<>(db, name));
+        String key = key(db, name);
+        DeploymentEntry entry = deployments.get(key);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return entry.get();
+        } catch (Exception e) {
+            logger.warn("fail to load deployment {} from {}: {}", key, entry.path, e.getMessage());
+            deployments.remove(key, entry);
+            return null;
+        }
     }
 
     public void addDeployment(String db, String name, Deployment deployment) {
-        addDeployment(new AbstractMap.SimpleImmutableEntry<>(db, name), deployment);
+        deployments.put(key(db, name), new DeploymentEntry(deployment));
     }
 
-    public void addDeployment(AbstractMap.SimpleImmutableEntry<String, String> key, Deployment deployment) {
-        deployments.put(key, deployment);
+    private class DeploymentEntry {
+        private final String path;
+        private volatile long version;
+        private volatile Deployment deployment;
+
+        DeploymentEntry(String path, long version) {
+            this.path = path;
+            this.version = version;
+        }
+
+        DeploymentEntry(Deployment deployment) {
+            this.path = null;
+            this.version = NO_ZK_VERSION;
+            this.deployment = deployment;
+        }
+
+        Deployment get() throws Exception {
+            Deployment result = deployment;
+            if (result != null) {
+                return result;
+            }
+            synchronized (this) {
+                if (deployment == null) {
+                    Stat stat = new Stat();
+                    byte[] bytes = zkClient.getClient().getData().storingStatIn(stat).forPath(path);
+                    byte[] data = Snappy.uncompress(bytes);
+                    deployment = new Deployment(SQLProcedure.ProcedureInfo.parseFrom(data));
+                    // the node may be changed after the stat in refresh, the data read is the latest
+                    version = stat.getMzxid();
+                }
+                return deployment;
+            }
+        }
     }
 }
@@ -22,6 +22,7 @@ import com._4paradigm.openmldb.common.codec.CodecUtil;
 import com._4paradigm.openmldb.common.codec.FlexibleRowBuilder;
 import com._4paradigm.openmldb.jdbc.PreparedStatement;
 import com._4paradigm.openmldb.jdbc.SQLInsertMetaData;
+import com._4paradigm.openmldb.sdk.metrics.StatementMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,25 +35,30 @@ import java.util.*;
 
 public class InsertPreparedStatementImpl extends PreparedStatement {
     private static final Logger logger = LoggerFactory.getLogger(InsertPreparedStatementImpl.class);
+    // the max encoded bytes of the rows sent by one ExecuteInsertBatch
+    private static final int MAX_BATCH_BYTES = 8 * 1024 * 1024;
 
     private SQLRouter router;
     private FlexibleRowBuilder rowBuilder;
     private InsertPreparedStatementMeta cache;
+    private StatementMetrics metrics;
 
     private Set<Integer> indexCol;
-    private Map<Integer, List<Integer>> indexMap;
     private Map<Integer, String> indexValue;
-    private Map<Integer, String> defaultIndexValue;
     private List<AbstractMap.SimpleImmutableEntry<ByteBuffer, ByteBuffer>> batchValues;
 
     public InsertPreparedStatementImpl(InsertPreparedStatementMeta cache, SQLRouter router) throws SQLException {
+        this(cache, router, StatementMetrics.NOOP);
+    }
+
+    public InsertPreparedStatementImpl(InsertPreparedStatementMeta cache, SQLRouter router, StatementMetrics metrics)
+            throws SQLException {
         this.router = router;
+        this.metrics = metrics;
         rowBuilder = new FlexibleRowBuilder(cache.getCodecMeta());
         this.cache = cache;
         indexCol = cache.getIndexPos();
-        indexMap = cache.getIndexMap();
         indexValue = new HashMap<>();
-        defaultIndexValue = cache.getDefaultIndexValue();
         batchValues = new ArrayList<>();
     }
 
@@ -220,42 +226,7 @@ public class InsertPreparedStatementImpl extends PreparedStatement {
     }
 
     private ByteBuffer buildDimension() throws SQLException {
-        int totalLen = 0;
-        Map<Integer, Integer> lenMap = new HashMap<>();
-        for (Map.Entry<Integer, List<Integer>> entry : indexMap.entrySet()) {
-            totalLen += 4; // encode the size of idx(int)
-            totalLen += 4; // encode the value size
-            int curLen = entry.getValue().size() - 1;
-            for (Integer pos : entry.getValue()) {
-                if (indexValue.containsKey(pos)) {
-                    curLen += indexValue.get(pos).getBytes(CodecUtil.CHARSET).length;
-                } else if (defaultIndexValue.containsKey(pos)) {
-                    curLen += defaultIndexValue.get(pos).getBytes(CodecUtil.CHARSET).length;
-                } else {
-                    throw new SQLException("cannot get index value. pos is " + pos);
-                }
-            }
-            totalLen += curLen;
-            lenMap.put(entry.getKey(), curLen);
-        }
-        ByteBuffer dimensionValue = ByteBuffer.allocate(totalLen).order(ByteOrder.LITTLE_ENDIAN);
-        for (Map.Entry<Integer, List<Integer>> entry : indexMap.entrySet()) {
-            Integer indexPos = entry.getKey();
-            dimensionValue.putInt(indexPos);
-            dimensionValue.putInt(lenMap.get(indexPos));
-            for (int i = 0; i < entry.getValue().size(); i++) {
-                int pos = entry.getValue().get(i);
-                if (i > 0) {
-                    dimensionValue.put((byte)'|');
-                }
-                if (indexValue.containsKey(pos)) {
-                    dimensionValue.put(indexValue.get(pos).getBytes(CodecUtil.CHARSET));
-                } else {
-                    dimensionValue.put(defaultIndexValue.get(pos).getBytes(CodecUtil.CHARSET));
-                }
-            }
-        }
-        return dimensionValue;
+        return cache.buildDimension(indexValue);
     }
 
     private ByteBuffer buildRow() throws SQLException {
@@ -313,13 +284,30 @@ public class InsertPreparedStatementImpl extends PreparedStatement {
         if (!batchValues.isEmpty()) {
             throw new SQLException("please use executeBatch");
         }
-        ByteBuffer dimensions = buildDimension();
-        ByteBuffer value = buildRow();
+        long start = System.nanoTime();
+        metrics.inflight.increment();
+        boolean ok = false;
         Status status = new Status();
-        // actually only one row
-        boolean ok = router.ExecuteInsert(cache.getDatabase(), cache.getName(),
-                cache.getTid(), cache.getPartitionNum(),
-                dimensions.array(), dimensions.capacity(), value.array(), value.capacity(), cache.isPutIfAbsent(), status);
+        try {
+            ByteBuffer dimensions = buildDimension();
+            ByteBuffer value = buildRow();
+            long encoded = System.nanoTime();
+            metrics.encode.record(encoded - start);
+            // actually only one row
+            ok = router.ExecuteInsert(cache.getDatabase(), cache.getName(),
+                    cache.getTid(), cache.getPartitionNum(),
+                    dimensions.array(), dimensions.capacity(), value.array(), value.capacity(), cache.isPutIfAbsent(), status);
+            metrics.jni.record(System.nanoTime() - encoded);
+        } catch (SQLException e) {
+            status.delete();
+            throw e;
+        } finally {
+            if (!ok) {
+                metrics.errors.increment();
+            }
+            metrics.inflight.decrement();
+            metrics.latency.record(System.nanoTime() - start);
+        }
         // cleanup rows even if insert failed
         // we can't execute() again without set new row, so we must clean up here
         clearParameters();
@@ -341,7 +329,9 @@ public class InsertPreparedStatementImpl extends PreparedStatement {
         if (closed) {
             throw new SQLException("InsertPreparedStatement closed");
         }
+        long start = System.nanoTime();
         batchValues.add(new AbstractMap.SimpleImmutableEntry<>(buildDimension(), buildRow()));
+        metrics.encode.record(System.nanoTime() - start);
         clearParameters();
     }
 
@@ -374,23 +364,85 @@ public class InsertPreparedStatementImpl extends PreparedStatement {
         if (closed) {
             throw new SQLException("InsertPreparedStatement closed");
         }
-        int[] result = new int[batchValues.size()];
+        int[] result = executeEncodedBatch(batchValues);
+        clearParameters();
+        batchValues.clear();
+        return result;
+    }
+
+    /**
+     * Insert rows which are already encoded, e.g. by {@link InsertPreparedStatementMeta#buildDimension(Map)} and a
+     * {@link FlexibleRowBuilder} created from {@link InsertPreparedStatementMeta#getCodecMeta()}.
+     * It doesn't touch the parameters or the batch of this statement, so it can be called by another thread while
+     * the caller is encoding the next rows.
+     *
+     * Rows are sent to the tablets in batches of at most 8MB, the router reports the status of each row in a batch.
+     *
+     * @param values pairs of (dimensions, row)
+     * @return result code for each row, 0 is ok, -1 is failed
+     * @throws SQLException if the statement is closed
+     */
+    public int[] executeEncodedBatch(List<AbstractMap.SimpleImmutableEntry<ByteBuffer, ByteBuffer>> values)
+            throws SQLException {
+        if (closed) {
+            throw new SQLException("InsertPreparedStatement closed");
+        }
+        int[] result = new int[values.size()];
         Status status = new Status();
-        for (int i = 0; i < batchValues.size(); i++) {
-            AbstractMap.SimpleImmutableEntry<ByteBuffer, ByteBuffer> pair = batchValues.get(i);
-            boolean ok = router.ExecuteInsert(cache.getDatabase(), cache.getName(),
-                    cache.getTid(), cache.getPartitionNum(),
-                    pair.getKey().array(), pair.getKey().capacity(),
-                    pair.getValue().array(), pair.getValue().capacity(), cache.isPutIfAbsent(), status);
-            if (!ok) {
-                // TODO(hw): may lost log, e.g. openmldb-batch online import in yarn mode?
-                logger.warn(status.ToString());
+        long start = System.nanoTime();
+        metrics.inflight.increment();
+        try {
+            int begin = 0;
+            while (begin < values.size()) {
+                // rows in [begin, end) are sent together, the tablet puts the rows of one partition by one rpc
+                int end = begin;
+                int dimensionLen = 0;
+                int valueLen = 0;
+                while (end < values.size()) {
+                    AbstractMap.SimpleImmutableEntry<ByteBuffer, ByteBuffer> pair = values.get(end);
+                    int rowDimensionLen = Integer.BYTES + pair.getKey().capacity();
+                    int rowValueLen = Integer.BYTES + pair.getValue().capacity();
+                    if (end > begin && dimensionLen + valueLen + rowDimensionLen + rowValueLen > MAX_BATCH_BYTES) {
+                        break;
+                    }
+                    dimensionLen += rowDimensionLen;
+                    valueLen += rowValueLen;
+                    end++;
+                }
+                ByteBuffer dimensions = ByteBuffer.allocate(dimensionLen).order(ByteOrder.LITTLE_ENDIAN);
+                ByteBuffer rows = ByteBuffer.allocate(valueLen).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = begin; i < end; i++) {
+                    AbstractMap.SimpleImmutableEntry<ByteBuffer, ByteBuffer> pair = values.get(i);
+                    dimensions.putInt(pair.getKey().capacity());
+                    dimensions.put(pair.getKey().array(), 0, pair.getKey().capacity());
+                    rows.putInt(pair.getValue().capacity());
+                    rows.put(pair.getValue().array(), 0, pair.getValue().capacity());
+                }
+                byte[] failedRows = new byte[end - begin];
+                long callStart = System.nanoTime();
+                boolean ok = router.ExecuteInsertBatch(cache.getDatabase(), cache.getName(),
+                        cache.getTid(), cache.getPartitionNum(), dimensions.array(), dimensionLen,
+                        rows.array(), valueLen, end - begin, cache.isPutIfAbsent(), failedRows, status);
+                metrics.jni.record(System.nanoTime() - callStart);
+                if (!ok) {
+                    // TODO(hw): may lost log, e.g. openmldb-batch online import in yarn mode?
+                    logger.warn(status.ToString());
+                    metrics.errors.increment();
+                }
+                for (int i = begin; i < end; i++) {
+                    result[i] = failedRows[i - begin] == 0 ? 0 : -1;
+                }
+                begin = end;
             }
-            result[i] = ok ? 0 : -1;
+        } finally {
+            metrics.inflight.decrement();
+            metrics.latency.record(System.nanoTime() - start);
         }
         status.delete();
-        clearParameters();
-        batchValues.clear();
         return result;
     }
+
+    public InsertPreparedStatementMeta getMeta() {
+        return cache;
+    }
 }
@@ -9,6 +9,8 @@ import com._4paradigm.openmldb.proto.NS;
 import com._4paradigm.openmldb.sdk.Common;
 import com._4paradigm.openmldb.sdk.Schema;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
@@ -34,6 +36,31 @@ public class InsertPreparedStatementMeta {
     private boolean putIfAbsent;
 
     public InsertPreparedStatementMeta(String sql, NS.TableInfo tableInfo, SQLInsertRow insertRow) {
+        init(sql, tableInfo);
+        DefaultValueContainer value = insertRow.GetDefaultValue();
+        buildDefaultValue(value);
+        value.delete();
+        VectorUint32 idxArray = insertRow.GetHoleIdx();
+        buildHoleIdx(idxArray);
+        idxArray.delete();
+        putIfAbsent = insertRow.IsPutIfAbsent();
+    }
+
+    /**
+     * Create the meta without the parsed insert row, all columns are placeholders and have no default value.
+     * It needs no native library, e.g. for benchmarks of encoding.
+     *
+     * @param sql the insert sql
+     * @param tableInfo the table to insert
+     */
+    public InsertPreparedStatementMeta(String sql, NS.TableInfo tableInfo) {
+        init(sql, tableInfo);
+        for (int i = 0; i < tableInfo.getColumnDescCount(); i++) {
+            holeIdx.add(i);
+        }
+    }
+
+    private void init(String sql, NS.TableInfo tableInfo) {
         this.sql = sql;
         try {
             schema = Common.convertSchema(tableInfo.getColumnDescList());
@@ -46,13 +73,6 @@ public class InsertPreparedStatementMeta {
         tid = tableInfo.getTid();
         partitionNum = tableInfo.getTablePartitionCount();
         buildIndex(tableInfo);
-        DefaultValueContainer value = insertRow.GetDefaultValue();
-        buildDefaultValue(value);
-        value.delete();
-        VectorUint32 idxArray = insertRow.GetHoleIdx();
-        buildHoleIdx(idxArray);
-        idxArray.delete();
-        putIfAbsent = insertRow.IsPutIfAbsent();
     }
 
     private void buildIndex(NS.TableInfo tableInfo) {
@@ -202,11 +222,11 @@ public class InsertPreparedStatementMeta {
         return holeIdx.get(idx);
     }
 
-    List<Integer> getHoleIdx() {
+    public List<Integer> getHoleIdx() {
         return holeIdx;
     }
 
-    Set<Integer> getIndexPos() {
+    public Set<Integer> getIndexPos() {
         return indexPos;
     }
 
@@ -218,6 +238,53 @@ public class InsertPreparedStatementMeta {
         return defaultIndexValue;
     }
 
+    /**
+     * Encode the dimensions of one row.
+     *
+     * @param indexValue string values of the index columns, key is the schema index. Null should be
+     *                   {@link #NONETOKEN} and empty string should be {@link #EMPTY_STRING}
+     * @return the encoded dimensions
+     * @throws SQLException if some index column has no value and no default value
+     */
+    public ByteBuffer buildDimension(Map<Integer, String> indexValue) throws SQLException {
+        int totalLen = 0;
+        Map<Integer, Integer> lenMap = new HashMap<>();
+        for (Map.Entry<Integer, List<Integer>> entry : indexMap.entrySet()) {
+            totalLen += 4; // encode the size of idx(int)
+            totalLen += 4; // encode the value size
+            int curLen = entry.getValue().size() - 1;
+            for (Integer pos : entry.getValue()) {
+                if (indexValue.containsKey(pos)) {
+                    curLen += indexValue.get(pos).getBytes(CodecUtil.CHARSET).length;
+                } else if (defaultIndexValue.containsKey(pos)) {
+                    curLen += defaultIndexValue.get(pos).getBytes(CodecUtil.CHARSET).length;
+                } else {
+                    throw new SQLException("cannot get index value. pos is " + pos);
+                }
+            }
+            totalLen += curLen;
+            lenMap.put(entry.getKey(), curLen);
+        }
+        ByteBuffer dimensionValue = ByteBuffer.allocate(totalLen).order(ByteOrder.LITTLE_ENDIAN);
+        for (Map.Entry<Integer, List<Integer>> entry : indexMap.entrySet()) {
+            Integer indexPos = entry.getKey();
+            dimensionValue.putInt(indexPos);
+            dimensionValue.putInt(lenMap.get(indexPos));
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                int pos = entry.getValue().get(i);
+                if (i > 0) {
+                    dimensionValue.put((byte)'|');
+                }
+                if (indexValue.containsKey(pos)) {
+                    dimensionValue.put(indexValue.get(pos).getBytes(CodecUtil.CHARSET));
+                } else {
+                    dimensionValue.put(defaultIndexValue.get(pos).getBytes(CodecUtil.CHARSET));
+                }
+            }
+        }
+        return dimensionValue;
+    }
+
     public boolean isPutIfAbsent() {
         return putIfAbsent;
     }
@@ -41,6 +41,11 @@ import com._4paradigm.openmldb.common.zk.ZKConfig;
 import com._4paradigm.openmldb.jdbc.CallablePreparedStatement;
 import com._4paradigm.openmldb.proto.NS;
 import com._4paradigm.openmldb.sdk.*;
+import com._4paradigm.openmldb.sdk.metrics.HdrMetricsRegistry;
+import com._4paradigm.openmldb.sdk.metrics.MetricsRegistry;
+import com._4paradigm.openmldb.sdk.metrics.NoopMetricsRegistry;
+import com._4paradigm.openmldb.sdk.metrics.StatementMetrics;
+import com._4paradigm.openmldb.sdk.trace.Tracer;
 import com._4paradigm.openmldb.sql_router_sdk;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,6 +68,12 @@ public class SqlClusterExecutor implements SqlExecutor {
     private SQLRouter sqlRouter;
     private DeploymentManager deploymentManager;
     private InsertPreparedStatementCache insertCache;
+    private MetricsRegistry metrics;
+    private MetricsRegistry.Counter insertCacheHit;
+    private MetricsRegistry.Counter insertCacheMiss;
+    private MetricsRegistry.Counter deploymentCacheHit;
+    private MetricsRegistry.Counter deploymentCacheMiss;
+    private Tracer tracer;
 
     public SqlClusterExecutor(SdkOption option, String libraryPath) throws SqlException {
         initJavaSdkLibrary(libraryPath);
@@ -95,6 +106,30 @@ public class SqlClusterExecutor implements SqlExecutor {
         }
         deploymentManager = new DeploymentManager(zkClient);
         insertCache = new InsertPreparedStatementCache(option.getMaxSqlCacheSize(), zkClient);
+        initMetrics(option);
+        tracer = Tracer.create(option.getTraceSampleRatio(), option.getSpanExporter());
+    }
+
+    private void initMetrics(SdkOption option) {
+        if (option.getMetricsRegistry() != null) {
+            metrics = option.getMetricsRegistry();
+        } else if (option.isEnableMetrics()) {
+            metrics = new HdrMetricsRegistry();
+        } else {
+            metrics = NoopMetricsRegistry.INSTANCE;
+        }
+        insertCacheHit = metrics.counter(StatementMetrics.CACHE + "hit", "insert");
+        insertCacheMiss = metrics.counter(StatementMetrics.CACHE + "miss", "insert");
+        deploymentCacheHit = metrics.counter(StatementMetrics.CACHE + "hit", "deployment");
+        deploymentCacheMiss = metrics.counter(StatementMetrics.CACHE + "miss", "deployment");
+    }
+
+    /**
+     * The registry of client side metrics, it's a {@link HdrMetricsRegistry} if {@link SdkOption#isEnableMetrics()}
+     * and no custom registry is set.
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return metrics;
     }
 
     public SqlClusterExecutor(SdkOption option) throws SqlException {
@@ -188,7 +223,10 @@ public class SqlClusterExecutor implements SqlExecutor {
     @Override
     public PreparedStatement getInsertPreparedStmt(String db, String sql) throws SQLException {
         InsertPreparedStatementMeta meta = insertCache.get(db, sql);
-        if (meta == null) {
+        if (meta != null) {
+            insertCacheHit.increment();
+        } else {
+            insertCacheMiss.increment();
             Status status = new Status();
             SQLInsertRow row = sqlRouter.GetInsertRow(db, sql, status);
             if (!status.IsOK()) {
@@ -206,7 +244,8 @@ public class SqlClusterExecutor implements SqlExecutor {
             row.delete();
             insertCache.put(db, sql, meta);
         }
-        return new InsertPreparedStatementImpl(meta, this.sqlRouter);
+        return new InsertPreparedStatementImpl(meta, this.sqlRouter,
+                StatementMetrics.ofTable(metrics, meta.getDatabase(), meta.getName()));
     }
 
     @Override
@@ -234,7 +273,10 @@ public class SqlClusterExecutor implements SqlExecutor {
     @Override
     public CallablePreparedStatement getCallablePreparedStmt(String db, String deploymentName) throws SQLException {
         Deployment deployment = deploymentManager.getDeployment(db, deploymentName);
-        if (deployment == null) {
+        if (deployment != null) {
+            deploymentCacheHit.increment();
+        } else {
+            deploymentCacheMiss.increment();
             try {
                 ProcedureInfo procedureInfo = showProcedure(db, deploymentName);
                 deployment = new Deployment(procedureInfo);
@@ -243,14 +285,18 @@ public class SqlClusterExecutor implements SqlExecutor {
                 throw new SQLException("deployment does not exist. db name " + db + " deployment name " + deploymentName);
             }
         }
-        return new CallablePreparedStatementImpl(deployment, this.sqlRouter);
+        return new CallablePreparedStatementImpl(deployment, this.sqlRouter,
+                StatementMetrics.ofDeployment(metrics, db, deploymentName), tracer);
     }
 
     @Override
     public CallablePreparedStatement getCallablePreparedStmtBatch(String db, String deploymentName)
             throws SQLException {
         Deployment deployment = deploymentManager.getDeployment(db, deploymentName);
-        if (deployment == null) {
+        if (deployment != null) {
+            deploymentCacheHit.increment();
+        } else {
+            deploymentCacheMiss.increment();
             try {
                 ProcedureInfo procedureInfo = showProcedure(db, deploymentName);
                 deployment = new Deployment(procedureInfo);
@@ -259,7 +305,8 @@ public class SqlClusterExecutor implements SqlExecutor {
                 throw new SQLException("deployment does not exist. db name " + db + " deployment name " + deploymentName);
             }
         }
-        return new BatchCallablePreparedStatementImpl(deployment, this.sqlRouter);
+        return new BatchCallablePreparedStatementImpl(deployment, this.sqlRouter,
+                StatementMetrics.ofDeployment(metrics, db, deploymentName));
     }
 
     @Override
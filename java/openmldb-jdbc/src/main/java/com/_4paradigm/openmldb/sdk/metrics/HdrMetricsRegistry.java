@@ -0,0 +1,160 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.sdk.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The built-in registry. Timers record microseconds into HdrHistogram {@link Recorder}s, which are wait-free for the
+ * recording threads, and accumulate into a histogram when {@link #snapshot()} is called.
+ */
+public class HdrMetricsRegistry implements MetricsRegistry {
+    // max trackable latency, larger values are clamped
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<String, HdrTimer> timers = new ConcurrentHashMap<>();
+    private final Map<String, HdrCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, HdrGauge> gauges = new ConcurrentHashMap<>();
+
+    private static String key(String name, String target) {
+        return name + "{" + target + "}";
+    }
+
+    @Override
+    public HdrTimer timer(String name, String target) {
+        String key = key(name, target);
+        HdrTimer meter = timers.get(key);
+        return meter != null ? meter : timers.computeIfAbsent(key, k -> new HdrTimer());
+    }
+
+    @Override
+    public HdrCounter counter(String name, String target) {
+        String key = key(name, target);
+        HdrCounter meter = counters.get(key);
+        return meter != null ? meter : counters.computeIfAbsent(key, k -> new HdrCounter());
+    }
+
+    @Override
+    public HdrGauge gauge(String name, String target) {
+        String key = key(name, target);
+        HdrGauge meter = gauges.get(key);
+        return meter != null ? meter : gauges.computeIfAbsent(key, k -> new HdrGauge());
+    }
+
+    /**
+     * Values of all meters, keyed by {@code name{target}}. A timer is reported as a map of count, mean, p50, p90,
+     * p99, p999 and max in microseconds, counters and gauges as their current value.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        for (Map.Entry<String, HdrTimer> entry : timers.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().summary());
+        }
+        for (Map.Entry<String, HdrCounter> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        for (Map.Entry<String, HdrGauge> entry : gauges.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    /**
+     * Reset timers and counters, e.g. after each report interval. Gauges are kept because they are current values.
+     */
+    public void reset() {
+        timers.values().forEach(HdrTimer::reset);
+        counters.values().forEach(HdrCounter::reset);
+    }
+
+    public static class HdrTimer implements Timer {
+        private final Recorder recorder = new Recorder(3);
+        private final Histogram total = new Histogram(3);
+
+        @Override
+        public void record(long nanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+            recorder.recordValue(Math.min(Math.max(micros, 0), MAX_MICROS));
+        }
+
+        public synchronized Histogram getHistogram() {
+            total.add(recorder.getIntervalHistogram());
+            return total.copy();
+        }
+
+        synchronized Map<String, Object> summary() {
+            Histogram histogram = getHistogram();
+            Map<String, Object> summary = new TreeMap<>();
+            summary.put("count", histogram.getTotalCount());
+            summary.put("mean", histogram.getMean());
+            summary.put("p50", histogram.getValueAtPercentile(50));
+            summary.put("p90", histogram.getValueAtPercentile(90));
+            summary.put("p99", histogram.getValueAtPercentile(99));
+            summary.put("p999", histogram.getValueAtPercentile(99.9));
+            summary.put("max", histogram.getMaxValue());
+            return summary;
+        }
+
+        synchronized void reset() {
+            recorder.reset();
+            total.reset();
+        }
+    }
+
+    public static class HdrCounter implements Counter {
+        private final LongAdder value = new LongAdder();
+
+        @Override
+        public void increment() {
+            value.increment();
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        void reset() {
+            value.reset();
+        }
+    }
+
+    public static class HdrGauge implements Gauge {
+        private final AtomicLong value = new AtomicLong();
+
+        @Override
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        @Override
+        public void decrement() {
+            value.decrementAndGet();
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.sdk.metrics;
+
+/**
+ * Metrics registry used by the sdk. Implement it to bridge the sdk metrics into an existing metrics system, e.g.
+ * micrometer or dropwizard, and set it by {@link com._4paradigm.openmldb.sdk.SdkOption#setMetricsRegistry}.
+ *
+ * <p>Metrics are identified by a name and a target, the target is {@code db.deployment} or {@code db.table}, or the
+ * cache name for cache metrics. The sdk gets the meters when a statement is created and keeps them, so the lookup
+ * doesn't need to be fast, but the meters are updated concurrently on the request path and must be cheap and
+ * thread-safe.
+ */
+public interface MetricsRegistry {
+
+    Timer timer(String name, String target);
+
+    Counter counter(String name, String target);
+
+    Gauge gauge(String name, String target);
+
+    interface Timer {
+        void record(long nanos);
+    }
+
+    interface Counter {
+        void increment();
+    }
+
+    /**
+     * A value which can go up and down, e.g. the number of in-flight requests.
+     */
+    interface Gauge {
+        void increment();
+
+        void decrement();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.sdk.metrics;
+
+/**
+ * The default registry when metrics are disabled, all meters do nothing.
+ */
+public final class NoopMetricsRegistry implements MetricsRegistry {
+    public static final NoopMetricsRegistry INSTANCE = new NoopMetricsRegistry();
+
+    private static final Timer NOOP_TIMER = nanos -> { };
+    private static final Counter NOOP_COUNTER = () -> { };
+    private static final Gauge NOOP_GAUGE = new Gauge() {
+        @Override
+        public void increment() {
+        }
+
+        @Override
+        public void decrement() {
+        }
+    };
+
+    private NoopMetricsRegistry() {
+    }
+
+    @Override
+    public Timer timer(String name, String target) {
+        return NOOP_TIMER;
+    }
+
+    @Override
+    public Counter counter(String name, String target) {
+        return NOOP_COUNTER;
+    }
+
+    @Override
+    public Gauge gauge(String name, String target) {
+        return NOOP_GAUGE;
+    }
+}
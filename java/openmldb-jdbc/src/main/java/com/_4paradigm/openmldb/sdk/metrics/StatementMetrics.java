@@ -0,0 +1,67 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.sdk.metrics;
+
+/**
+ * Meters of one deployment or table, created once per statement so that the request path only updates them.
+ *
+ * <ul>
+ *     <li>{@code latency}: the whole execute call, or from executeQueryAsync to the end of QueryFuture#get</li>
+ *     <li>{@code encode}: encoding the request rows and dimensions in java</li>
+ *     <li>{@code jni}: native calls, which include the rpc for sync requests</li>
+ *     <li>{@code wait}: blocking in QueryFuture#get for async requests</li>
+ *     <li>{@code decode}: copying the result out of the native result set</li>
+ *     <li>{@code inflight}: requests being executed, async requests count until their rpc completes</li>
+ *     <li>{@code errors}: failed requests</li>
+ * </ul>
+ * All metric names are prefixed by {@code openmldb.sdk.deployment.} or {@code openmldb.sdk.table.}. Lookups of the
+ * sdk caches are counted by {@code openmldb.sdk.cache.hit} and {@code openmldb.sdk.cache.miss}, the target is the
+ * cache name.
+ */
+public final class StatementMetrics {
+    public static final String DEPLOYMENT = "openmldb.sdk.deployment.";
+    public static final String TABLE = "openmldb.sdk.table.";
+    public static final String CACHE = "openmldb.sdk.cache.";
+
+    public static final StatementMetrics NOOP = new StatementMetrics(NoopMetricsRegistry.INSTANCE, DEPLOYMENT, "");
+
+    public final MetricsRegistry.Timer latency;
+    public final MetricsRegistry.Timer encode;
+    public final MetricsRegistry.Timer jni;
+    public final MetricsRegistry.Timer waiting;
+    public final MetricsRegistry.Timer decode;
+    public final MetricsRegistry.Gauge inflight;
+    public final MetricsRegistry.Counter errors;
+
+    private StatementMetrics(MetricsRegistry registry, String prefix, String target) {
+        latency = registry.timer(prefix + "latency", target);
+        encode = registry.timer(prefix + "encode", target);
+        jni = registry.timer(prefix + "jni", target);
+        waiting = registry.timer(prefix + "wait", target);
+        decode = registry.timer(prefix + "decode", target);
+        inflight = registry.gauge(prefix + "inflight", target);
+        errors = registry.counter(prefix + "errors", target);
+    }
+
+    public static StatementMetrics ofDeployment(MetricsRegistry registry, String db, String deployment) {
+        return new StatementMetrics(registry, DEPLOYMENT, db + "." + deployment);
+    }
+
+    public static StatementMetrics ofTable(MetricsRegistry registry, String db, String table) {
+        return new StatementMetrics(registry, TABLE, db + "." + table);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.sdk.trace;
+
+import com._4paradigm.openmldb.RequestTrace;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A span being recorded. It owns a native {@link RequestTrace} which carries the trace id to the tablet and gets
+ * the native timing back, the native object is released in {@link #end(String)}.
+ */
+public class ActiveSpan {
+    private final TraceSpan span;
+    private final Tracer tracer;
+    private final long startNanos;
+    private RequestTrace nativeTrace;
+
+    ActiveSpan(TraceSpan span, Tracer tracer) {
+        this.span = span;
+        this.tracer = tracer;
+        this.startNanos = System.nanoTime();
+        nativeTrace = new RequestTrace();
+        nativeTrace.setTrace_id(span.getTraceId());
+    }
+
+    public RequestTrace getNativeTrace() {
+        return nativeTrace;
+    }
+
+    public TraceSpan getSpan() {
+        return span;
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    public void encode(long nanos) {
+        span.setEncodeUs(span.getEncodeUs() + toMicros(nanos));
+    }
+
+    public void jni(long nanos) {
+        span.setJniUs(span.getJniUs() + toMicros(nanos));
+    }
+
+    public void waiting(long nanos) {
+        span.setWaitUs(span.getWaitUs() + toMicros(nanos));
+    }
+
+    public void decode(long nanos) {
+        span.setDecodeUs(span.getDecodeUs() + toMicros(nanos));
+    }
+
+    /**
+     * Finish the span and export it, the native trace must be filled before, by the traced call or
+     * QueryFuture.GetTrace.
+     *
+     * @param error null if the request succeeded
+     */
+    public void end(String error) {
+        if (nativeTrace == null) {
+            return;
+        }
+        span.setTotalUs(toMicros(System.nanoTime() - startNanos));
+        span.setError(error);
+        span.setEndpoint(nativeTrace.getEndpoint());
+        span.setRouterUs(nativeTrace.getRouter_us());
+        span.setRpcUs(nativeTrace.getRpc_us());
+        span.setNetworkUs(nativeTrace.getNetwork_us());
+        span.setCompileCacheHit(nativeTrace.getCompile_cache_hit());
+        span.setCompileUs(nativeTrace.getCompile_us());
+        span.setTabletDecodeUs(nativeTrace.getTablet_decode_us());
+        span.setRunUs(nativeTrace.getRun_us());
+        span.setTabletEncodeUs(nativeTrace.getTablet_encode_us());
+        span.setTabletTotalUs(nativeTrace.getTablet_total_us());
+        nativeTrace.delete();
+        nativeTrace = null;
+        tracer.export(span);
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.sdk.trace;
+
+/**
+ * Receives finished spans of traced requests. Set one by {@link com._4paradigm.openmldb.sdk.SdkOption#setSpanExporter},
+ * or register an implementation in {@code META-INF/services/com._4paradigm.openmldb.sdk.trace.SpanExporter}, and
+ * spans are logged if neither is found.
+ *
+ * <p>It's called in the thread which executes or gets the request, so it should hand the span off quickly, e.g.
+ * put it into a queue of the tracing system.
+ */
+public interface SpanExporter {
+    void exportSpan(TraceSpan span);
+}
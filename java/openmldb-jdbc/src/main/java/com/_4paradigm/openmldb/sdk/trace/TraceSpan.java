@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.sdk.trace;
+
+import lombok.Data;
+
+/**
+ * Time of each stage of a traced deployment request, all durations are in microseconds.
+ *
+ * <p>The sdk measures encode, jni, wait and decode in java. router, rpc and network are measured by the native
+ * router, and the tablet fields are returned by the tablet which served the request. jni includes the native router
+ * and the rpc for sync requests, for async requests the rpc is mostly covered by wait.
+ */
+@Data
+public class TraceSpan {
+    private String traceId;
+    private String db;
+    private String deployment;
+    private boolean async;
+    private long startTimeMillis;
+    private long totalUs;
+    private String error;
+
+    // sdk
+    private long encodeUs;
+    private long jniUs;
+    private long waitUs;
+    private long decodeUs;
+
+    // native router
+    private String endpoint;
+    private long routerUs;
+    private long rpcUs;
+    private long networkUs;
+
+    // tablet
+    private boolean compileCacheHit;
+    private long compileUs;
+    private long tabletDecodeUs;
+    private long runUs;
+    private long tabletEncodeUs;
+    private long tabletTotalUs;
+}
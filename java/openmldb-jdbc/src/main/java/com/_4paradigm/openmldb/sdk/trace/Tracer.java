@@ -0,0 +1,84 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.sdk.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples deployment requests to trace and exports the finished spans.
+ */
+public final class Tracer {
+    private static final Logger logger = LoggerFactory.getLogger(Tracer.class);
+
+    public static final Tracer DISABLED = new Tracer(0, null);
+
+    private final double sampleRatio;
+    private final SpanExporter exporter;
+
+    public Tracer(double sampleRatio, SpanExporter exporter) {
+        this.sampleRatio = sampleRatio;
+        this.exporter = exporter;
+    }
+
+    /**
+     * @param sampleRatio ratio of requests to trace, tracing is disabled if it's not positive
+     * @param exporter    null to load the exporter by {@link ServiceLoader}, or log the spans if no one is registered
+     */
+    public static Tracer create(double sampleRatio, SpanExporter exporter) {
+        if (sampleRatio <= 0) {
+            return DISABLED;
+        }
+        if (exporter == null) {
+            Iterator<SpanExporter> it = ServiceLoader.load(SpanExporter.class).iterator();
+            exporter = it.hasNext() ? it.next() : new LoggingSpanExporter();
+        }
+        logger.info("trace {} of deployment requests by {}", sampleRatio, exporter.getClass().getName());
+        return new Tracer(sampleRatio, exporter);
+    }
+
+    /**
+     * Start a span if this request is sampled.
+     *
+     * @return null if the request is not traced
+     */
+    public ActiveSpan start(String db, String deployment, boolean async) {
+        if (sampleRatio <= 0 || (sampleRatio < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRatio)) {
+            return null;
+        }
+        TraceSpan span = new TraceSpan();
+        span.setTraceId(String.format("%016x", ThreadLocalRandom.current().nextLong()));
+        span.setDb(db);
+        span.setDeployment(deployment);
+        span.setAsync(async);
+        span.setStartTimeMillis(System.currentTimeMillis());
+        return new ActiveSpan(span, this);
+    }
+
+    void export(TraceSpan span) {
+        try {
+            exporter.exportSpan(span);
+        } catch (Exception e) {
+            // tracing must not fail the request
+            logger.warn("fail to export span {}", span.getTraceId(), e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.sdk.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class HdrMetricsRegistryTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSnapshot() {
+        HdrMetricsRegistry registry = new HdrMetricsRegistry();
+        StatementMetrics metrics = StatementMetrics.ofDeployment(registry, "db1", "d1");
+        for (int i = 1; i <= 100; i++) {
+            metrics.latency.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        metrics.inflight.increment();
+        metrics.inflight.increment();
+        metrics.inflight.decrement();
+        metrics.errors.increment();
+        // same meter for the same name and target
+        Assert.assertSame(StatementMetrics.ofDeployment(registry, "db1", "d1").latency, metrics.latency);
+
+        Map<String, Object> snapshot = registry.snapshot();
+        Map<String, Object> latency = (Map<String, Object>) snapshot.get("openmldb.sdk.deployment.latency{db1.d1}");
+        Assert.assertEquals(latency.get("count"), 100L);
+        Assert.assertEquals(latency.get("p50"), 50L);
+        Assert.assertEquals(latency.get("max"), 100L);
+        Assert.assertEquals(snapshot.get("openmldb.sdk.deployment.inflight{db1.d1}"), 1L);
+        Assert.assertEquals(snapshot.get("openmldb.sdk.deployment.errors{db1.d1}"), 1L);
+
+        // snapshot doesn't drop the values recorded before
+        metrics.latency.record(TimeUnit.MICROSECONDS.toNanos(200));
+        latency = (Map<String, Object>) registry.snapshot().get("openmldb.sdk.deployment.latency{db1.d1}");
+        Assert.assertEquals(latency.get("count"), 101L);
+
+        registry.reset();
+        snapshot = registry.snapshot();
+        latency = (Map<String, Object>) snapshot.get("openmldb.sdk.deployment.latency{db1.d1}");
+        Assert.assertEquals(latency.get("count"), 0L);
+        Assert.assertEquals(snapshot.get("openmldb.sdk.deployment.errors{db1.d1}"), 0L);
+        Assert.assertEquals(snapshot.get("openmldb.sdk.deployment.inflight{db1.d1}"), 1L);
+    }
+}
@@ -37,8 +37,9 @@ public class OpenmldbConfig implements Serializable {
 
     /* write */
     // single: insert when read one row
-    // batch: insert when commit(after read a whole partition)
+    // batch: insert asynchronously every writerBatchSize rows, and the rest when commit
     private String writerType = "single";
+    private int writerBatchSize = 10000;
     private int insertMemoryUsageLimit = 0;
     private boolean putIfAbsent = false;
 
@@ -77,6 +78,11 @@ public class OpenmldbConfig implements Serializable {
         this.writerType = string;
     }
 
+    public void setWriterBatchSize(int int1) {
+        Preconditions.checkArgument(int1 > 0, "writerBatchSize must be > 0");
+        this.writerBatchSize = int1;
+    }
+
     public void setInsertMemoryUsageLimit(int int1) {
         Preconditions.checkArgument(int1 >= 0, "insert_memory_usage_limit must be >= 0");
         this.insertMemoryUsageLimit = int1;
@@ -90,6 +96,10 @@ public class OpenmldbConfig implements Serializable {
         return this.writerType.equals("batch");
     }
 
+    public int getWriterBatchSize() {
+        return this.writerBatchSize;
+    }
+
     public boolean putIfAbsent() {
         return this.putIfAbsent;
     }
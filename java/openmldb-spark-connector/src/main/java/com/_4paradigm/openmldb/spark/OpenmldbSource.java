@@ -66,6 +66,9 @@ public class OpenmldbSource implements TableProvider, DataSourceRegister {
         if (options.containsKey("writerType")) {
             config.setWriterType(options.get("writerType"));
         }
+        if (options.containsKey("writerBatchSize")) {
+            config.setWriterBatchSize(Integer.parseInt(options.get("writerBatchSize")));
+        }
         if (options.containsKey("putIfAbsent")) {
             config.setPutIfAbsent(Boolean.valueOf(options.get("putIfAbsent")));
         }
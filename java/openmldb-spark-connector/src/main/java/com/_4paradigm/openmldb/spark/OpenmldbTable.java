@@ -16,11 +16,11 @@
 
 package com._4paradigm.openmldb.spark;
 
+import com._4paradigm.openmldb.proto.NS;
 import com._4paradigm.openmldb.sdk.Column;
 import com._4paradigm.openmldb.sdk.Schema;
 import com._4paradigm.openmldb.sdk.SdkOption;
 import com._4paradigm.openmldb.sdk.SqlException;
-import com._4paradigm.openmldb.sdk.SqlExecutor;
 import com._4paradigm.openmldb.sdk.impl.SqlClusterExecutor;
 import com._4paradigm.openmldb.spark.read.OpenmldbScanBuilder;
 import com._4paradigm.openmldb.spark.write.OpenmldbWriteBuilder;
@@ -44,7 +44,7 @@ import java.util.Set;
 
 public class OpenmldbTable implements SupportsWrite, SupportsRead {
     private OpenmldbConfig config;
-    private SqlExecutor executor;
+    private SqlClusterExecutor executor;
 
     private Set<TableCapability> capabilities;
 
@@ -126,6 +126,10 @@ public class OpenmldbTable implements SupportsWrite, SupportsRead {
 
     @Override
     public ScanBuilder newScanBuilder(CaseInsensitiveStringMap caseInsensitiveStringMap) {
-        return new OpenmldbScanBuilder(config);
+        NS.TableInfo tableInfo = executor.getTableInfo(config.getDB(), config.getTable());
+        if (tableInfo == null || tableInfo.getName().isEmpty()) {
+            throw new IllegalArgumentException("table " + config.getDB() + "." + config.getTable() + " not found");
+        }
+        return new OpenmldbScanBuilder(config, schema(), tableInfo);
     }
 }
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.spark.read;
+
+import com._4paradigm.openmldb.common.codec.CodecUtil;
+import com._4paradigm.openmldb.proto.Common;
+import com._4paradigm.openmldb.proto.NS;
+import org.apache.spark.sql.sources.EqualTo;
+import org.apache.spark.sql.sources.Filter;
+import org.apache.spark.sql.sources.GreaterThan;
+import org.apache.spark.sql.sources.GreaterThanOrEqual;
+import org.apache.spark.sql.sources.In;
+import org.apache.spark.sql.sources.LessThan;
+import org.apache.spark.sql.sources.LessThanOrEqual;
+
+import java.io.Serializable;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index lookup converted from the pushed filters: equality filters on all key columns of an index become point
+ * lookups of the keys, and range filters on the ts column of the index become the scan range (et, st].
+ * The filters are still evaluated by spark after scan, so the range can be a bit wider than the filters.
+ */
+public class IndexLookup implements Serializable {
+    // too many keys is not better than a full scan
+    public static final int MAX_KEYS = 1000;
+    // the same as InsertPreparedStatementMeta.EMPTY_STRING, the key of empty string in dimensions
+    private static final String EMPTY_STRING = "!@#$%";
+
+    private final String indexName;
+    private final List<String> keys;
+    // scan ts in (et, st]
+    private final long st;
+    private final long et;
+    private final List<Filter> pushedFilters;
+
+    private IndexLookup(String indexName, List<String> keys, long st, long et, List<Filter> pushedFilters) {
+        this.indexName = indexName;
+        this.keys = keys;
+        this.st = st;
+        this.et = et;
+        this.pushedFilters = pushedFilters;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public long getSt() {
+        return st;
+    }
+
+    public long getEt() {
+        return et;
+    }
+
+    public boolean isEmptyRange() {
+        return st <= et;
+    }
+
+    public Filter[] getPushedFilters() {
+        return pushedFilters.toArray(new Filter[0]);
+    }
+
+    /**
+     * @return the lookup on the index which has the most key columns covered, or null if no index is covered
+     */
+    public static IndexLookup plan(NS.TableInfo tableInfo, Filter[] filters) {
+        // column -> candidate values of it, from EqualTo or In
+        Map<String, List<Object>> eqValues = new HashMap<>();
+        Map<String, List<Filter>> eqFilters = new HashMap<>();
+        for (Filter filter : filters) {
+            if (filter instanceof EqualTo && ((EqualTo) filter).value() != null) {
+                EqualTo eq = (EqualTo) filter;
+                addEq(eqValues, eqFilters, eq.attribute(), filter, new Object[]{eq.value()});
+            } else if (filter instanceof In) {
+                In in = (In) filter;
+                addEq(eqValues, eqFilters, in.attribute(), filter, in.values());
+            }
+        }
+        Common.ColumnKey best = null;
+        for (Common.ColumnKey key : tableInfo.getColumnKeyList()) {
+            if (key.getFlag() != 0 || key.getColNameCount() == 0) {
+                continue;
+            }
+            boolean covered = true;
+            for (String col : key.getColNameList()) {
+                if (!eqValues.containsKey(col)) {
+                    covered = false;
+                    break;
+                }
+            }
+            if (covered && (best == null || key.getColNameCount() > best.getColNameCount())) {
+                best = key;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+
+        List<Filter> pushed = new ArrayList<>();
+        // the combined keys, cartesian product of the values of key columns, joined by '|'
+        List<String> keys = new ArrayList<>();
+        keys.add("");
+        for (int i = 0; i < best.getColNameCount(); i++) {
+            String col = best.getColName(i);
+            Set<String> values = new LinkedHashSet<>();
+            for (Object value : eqValues.get(col)) {
+                String str = keyString(value);
+                if (str == null) {
+                    // unsupported type, can't lookup by this index
+                    return null;
+                }
+                values.add(str);
+            }
+            if (keys.size() * values.size() > MAX_KEYS) {
+                return null;
+            }
+            List<String> next = new ArrayList<>();
+            for (String prefix : keys) {
+                for (String value : values) {
+                    next.add(i == 0 ? value : prefix + "|" + value);
+                }
+            }
+            keys = next;
+            pushed.addAll(eqFilters.get(col));
+        }
+
+        long st = Long.MAX_VALUE;
+        long et = 0;
+        if (best.hasTsName() && !best.getTsName().isEmpty()) {
+            String tsCol = best.getTsName();
+            for (Filter filter : filters) {
+                Long value = null;
+                if (filter instanceof GreaterThan && ((GreaterThan) filter).attribute().equals(tsCol)) {
+                    value = tsMillis(((GreaterThan) filter).value());
+                    if (value != null) {
+                        et = Math.max(et, value - 1);
+                    }
+                } else if (filter instanceof GreaterThanOrEqual
+                        && ((GreaterThanOrEqual) filter).attribute().equals(tsCol)) {
+                    value = tsMillis(((GreaterThanOrEqual) filter).value());
+                    if (value != null) {
+                        et = Math.max(et, value - 1);
+                    }
+                } else if (filter instanceof LessThan && ((LessThan) filter).attribute().equals(tsCol)) {
+                    value = tsMillis(((LessThan) filter).value());
+                    if (value != null) {
+                        st = Math.min(st, value);
+                    }
+                } else if (filter instanceof LessThanOrEqual
+                        && ((LessThanOrEqual) filter).attribute().equals(tsCol)) {
+                    value = tsMillis(((LessThanOrEqual) filter).value());
+                    if (value != null) {
+                        st = Math.min(st, value);
+                    }
+                }
+                if (value != null) {
+                    pushed.add(filter);
+                }
+            }
+        }
+        return new IndexLookup(best.getIndexName(), keys, st, et, pushed);
+    }
+
+    private static void addEq(Map<String, List<Object>> eqValues, Map<String, List<Filter>> eqFilters, String col,
+                              Filter filter, Object[] values) {
+        List<Object> candidates = new ArrayList<>();
+        for (Object value : values) {
+            if (value != null) {
+                candidates.add(value);
+            }
+        }
+        List<Object> old = eqValues.get(col);
+        if (old != null) {
+            // col = a and col in (a, b), only the intersection can match
+            candidates.retainAll(old);
+        }
+        eqValues.put(col, candidates);
+        eqFilters.computeIfAbsent(col, k -> new ArrayList<>()).add(filter);
+    }
+
+    // the same string as the dimension built when inserting, null if unsupported
+    private static String keyString(Object value) {
+        if (value instanceof String) {
+            String str = (String) value;
+            return str.isEmpty() ? EMPTY_STRING : str;
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Boolean) {
+            return String.valueOf(value);
+        } else if (value instanceof Date) {
+            return String.valueOf(CodecUtil.dateToDateInt((Date) value));
+        } else if (value instanceof LocalDate) {
+            return String.valueOf(CodecUtil.dateToDateInt(Date.valueOf((LocalDate) value)));
+        } else if (value instanceof Timestamp || value instanceof Instant) {
+            return String.valueOf(tsMillis(value));
+        }
+        return null;
+    }
+
+    private static Long tsMillis(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).getTime();
+        } else if (value instanceof Instant) {
+            return ((Instant) value).toEpochMilli();
+        } else if (value instanceof Long || value instanceof Integer) {
+            return ((Number) value).longValue();
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexLookup{index=" + indexName + ", keys=" + keys.size() + ", st=" + st + ", et=" + et + "}";
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.spark.read;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MurmurHash64A with the seed of openmldb, the same as base::hash64 in c++, to route a key to its partition.
+ */
+public class MurmurHash {
+    private static final int SEED = 0xe17a1465;
+
+    private MurmurHash() {}
+
+    public static long hash64(final byte[] data, int length, int seed) {
+        final long m = 0xc6a4a7935bd1e995L;
+        final int r = 47;
+
+        long h = (seed & 0xffffffffL) ^ (length * m);
+
+        int length8 = length / 8;
+
+        for (int i = 0; i < length8; i++) {
+            final int i8 = i * 8;
+            long k = ((long) data[i8 + 0] & 0xff) + (((long) data[i8 + 1] & 0xff) << 8)
+                    + (((long) data[i8 + 2] & 0xff) << 16) + (((long) data[i8 + 3] & 0xff) << 24)
+                    + (((long) data[i8 + 4] & 0xff) << 32) + (((long) data[i8 + 5] & 0xff) << 40)
+                    + (((long) data[i8 + 6] & 0xff) << 48) + (((long) data[i8 + 7] & 0xff) << 56);
+
+            k *= m;
+            k ^= k >>> r;
+            k *= m;
+
+            h ^= k;
+            h *= m;
+        }
+
+        switch (length % 8) {
+            case 7: h ^= (long) (data[(length & ~7) + 6] & 0xff) << 48;
+            case 6: h ^= (long) (data[(length & ~7) + 5] & 0xff) << 40;
+            case 5: h ^= (long) (data[(length & ~7) + 4] & 0xff) << 32;
+            case 4: h ^= (long) (data[(length & ~7) + 3] & 0xff) << 24;
+            case 3: h ^= (long) (data[(length & ~7) + 2] & 0xff) << 16;
+            case 2: h ^= (long) (data[(length & ~7) + 1] & 0xff) << 8;
+            case 1: h ^= data[length & ~7] & 0xff;
+                h *= m;
+        }
+
+        h ^= h >>> r;
+        h *= m;
+        h ^= h >>> r;
+
+        return h;
+    }
+
+    /**
+     * The partition of the key, the same as tablets and the importer, base::hash64 negates the negative hash.
+     */
+    public static int partition(String key, int partitionNum) {
+        if (partitionNum <= 1) {
+            return 0;
+        }
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        return (int) Math.abs(hash64(bytes, bytes.length, SEED) % partitionNum);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.spark.read;
+
+import java.util.List;
+
+/**
+ * The keys of an index lookup which belong to one table partition(pid), scan ts in (et, st] of each key.
+ */
+public class OpenmldbLookupPartition extends OpenmldbPartition {
+    private final String indexName;
+    private final List<String> keys;
+    private final long st;
+    private final long et;
+
+    public OpenmldbLookupPartition(int tid, int pid, String endpoint, String indexName, List<String> keys, long st,
+                                   long et) {
+        super(tid, pid, endpoint);
+        this.indexName = indexName;
+        this.keys = keys;
+        this.st = st;
+        this.et = et;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public long getSt() {
+        return st;
+    }
+
+    public long getEt() {
+        return et;
+    }
+
+    @Override
+    public String toString() {
+        return "OpenmldbLookupPartition{tid=" + getTid() + ", pid=" + getPid() + ", endpoint=" + getEndpoint()
+                + ", index=" + indexName + ", keys=" + keys.size() + ", st=" + st + ", et=" + et + "}";
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.spark.read;
+
+import org.apache.spark.sql.connector.read.InputPartition;
+
+/**
+ * One table partition(pid) of the online table, read from the leader tablet of it.
+ */
+public class OpenmldbPartition implements InputPartition {
+    private final int tid;
+    private final int pid;
+    private final String endpoint;
+
+    public OpenmldbPartition(int tid, int pid, String endpoint) {
+        this.tid = tid;
+        this.pid = pid;
+        this.endpoint = endpoint;
+    }
+
+    public int getTid() {
+        return tid;
+    }
+
+    public int getPid() {
+        return pid;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public String[] preferredLocations() {
+        // prefer the executor on the same host with the tablet
+        int idx = endpoint.lastIndexOf(':');
+        return new String[]{idx > 0 ? endpoint.substring(0, idx) : endpoint};
+    }
+
+    @Override
+    public String toString() {
+        return "OpenmldbPartition{tid=" + tid + ", pid=" + pid + ", endpoint=" + endpoint + "}";
+    }
+}
@@ -22,16 +22,25 @@ import org.apache.spark.sql.catalyst.InternalRow;
 import org.apache.spark.sql.connector.read.InputPartition;
 import org.apache.spark.sql.connector.read.PartitionReader;
 import org.apache.spark.sql.connector.read.PartitionReaderFactory;
+import org.apache.spark.sql.types.StructType;
 
 public class OpenmldbPartitionReaderFactory implements PartitionReaderFactory {
     private final OpenmldbConfig config;
+    // serialized NS.TableInfo, to avoid getting it in every reader
+    private final byte[] tableInfo;
+    private final StructType schema;
 
-    public OpenmldbPartitionReaderFactory(OpenmldbConfig config) {
+    public OpenmldbPartitionReaderFactory(OpenmldbConfig config, byte[] tableInfo, StructType schema) {
         this.config = config;
+        this.tableInfo = tableInfo;
+        this.schema = schema;
     }
 
     @Override
     public PartitionReader<InternalRow> createReader(InputPartition inputPartition) {
-        return new OpenmldbPartitionReader(config);
+        if (inputPartition instanceof OpenmldbLookupPartition) {
+            return new OpenmldbLookupReader(config, (OpenmldbLookupPartition) inputPartition, tableInfo, schema);
+        }
+        return new OpenmldbPartitionReader(config, (OpenmldbPartition) inputPartition, tableInfo, schema);
     }
 }
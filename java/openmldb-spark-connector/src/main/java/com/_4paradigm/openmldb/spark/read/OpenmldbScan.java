@@ -17,6 +17,7 @@
 
 package com._4paradigm.openmldb.spark.read;
 
+import com._4paradigm.openmldb.proto.NS;
 import com._4paradigm.openmldb.spark.OpenmldbConfig;
 import org.apache.spark.sql.connector.read.Batch;
 import org.apache.spark.sql.connector.read.InputPartition;
@@ -24,23 +25,73 @@ import org.apache.spark.sql.connector.read.PartitionReaderFactory;
 import org.apache.spark.sql.connector.read.Scan;
 import org.apache.spark.sql.types.StructType;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class OpenmldbScan implements Scan, Batch {
     private final OpenmldbConfig config;
+    private final StructType schema;
+    private final NS.TableInfo tableInfo;
+    private final IndexLookup lookup;
 
-    public OpenmldbScan(OpenmldbConfig config) {
+    public OpenmldbScan(OpenmldbConfig config, StructType schema, NS.TableInfo tableInfo, IndexLookup lookup) {
         this.config = config;
+        this.schema = schema;
+        this.tableInfo = tableInfo;
+        this.lookup = lookup;
     }
 
     @Override
     public StructType readSchema() {
-        // TODO: No need to set and it is set in OpenmldbTable
-        return null;
+        return schema;
+    }
+
+    @Override
+    public String description() {
+        return "OpenmldbScan " + tableInfo.getDb() + "." + tableInfo.getName() + (lookup == null ? "" : " " + lookup);
     }
 
     @Override
     public InputPartition[] planInputPartitions() {
-        // TODO: Need to pass the partition info
-        return new InputPartition[]{new SimplePartition()};
+        int partitionNum = tableInfo.getTablePartitionCount();
+        if (lookup == null) {
+            // full scan, one input partition per table partition
+            InputPartition[] partitions = new InputPartition[partitionNum];
+            for (int i = 0; i < partitionNum; i++) {
+                NS.TablePartition partition = tableInfo.getTablePartition(i);
+                partitions[i] = new OpenmldbPartition(tableInfo.getTid(), partition.getPid(), leaderOf(partition));
+            }
+            return partitions;
+        }
+        if (lookup.isEmptyRange()) {
+            return new InputPartition[0];
+        }
+        // index lookup, only the partitions which have the keys
+        List<List<String>> keysOfPid = new ArrayList<>(partitionNum);
+        for (int i = 0; i < partitionNum; i++) {
+            keysOfPid.add(new ArrayList<>());
+        }
+        for (String key : lookup.getKeys()) {
+            keysOfPid.get(MurmurHash.partition(key, partitionNum)).add(key);
+        }
+        List<InputPartition> partitions = new ArrayList<>();
+        for (NS.TablePartition partition : tableInfo.getTablePartitionList()) {
+            List<String> keys = keysOfPid.get(partition.getPid());
+            if (!keys.isEmpty()) {
+                partitions.add(new OpenmldbLookupPartition(tableInfo.getTid(), partition.getPid(),
+                        leaderOf(partition), lookup.getIndexName(), keys, lookup.getSt(), lookup.getEt()));
+            }
+        }
+        return partitions.toArray(new InputPartition[0]);
+    }
+
+    private String leaderOf(NS.TablePartition partition) {
+        for (NS.PartitionMeta meta : partition.getPartitionMetaList()) {
+            if (meta.getIsLeader() && meta.getIsAlive()) {
+                return meta.getEndpoint();
+            }
+        }
+        throw new IllegalStateException("no alive leader of " + tableInfo.getName() + " pid " + partition.getPid());
     }
 
     @Override
@@ -50,6 +101,6 @@ public class OpenmldbScan implements Scan, Batch {
 
     @Override
     public PartitionReaderFactory createReaderFactory() {
-        return new OpenmldbPartitionReaderFactory(config);
+        return new OpenmldbPartitionReaderFactory(config, tableInfo.toByteArray(), schema);
     }
 }
@@ -17,19 +17,46 @@
 
 package com._4paradigm.openmldb.spark.read;
 
+import com._4paradigm.openmldb.proto.NS;
 import com._4paradigm.openmldb.spark.OpenmldbConfig;
 import org.apache.spark.sql.connector.read.Scan;
 import org.apache.spark.sql.connector.read.ScanBuilder;
+import org.apache.spark.sql.connector.read.SupportsPushDownFilters;
+import org.apache.spark.sql.connector.read.SupportsPushDownRequiredColumns;
+import org.apache.spark.sql.sources.Filter;
+import org.apache.spark.sql.types.StructType;
 
-public class OpenmldbScanBuilder implements ScanBuilder {
+public class OpenmldbScanBuilder implements ScanBuilder, SupportsPushDownFilters, SupportsPushDownRequiredColumns {
     private final OpenmldbConfig config;
+    private final NS.TableInfo tableInfo;
+    private StructType schema;
+    private IndexLookup lookup = null;
 
-    public OpenmldbScanBuilder(OpenmldbConfig config) {
+    public OpenmldbScanBuilder(OpenmldbConfig config, StructType schema, NS.TableInfo tableInfo) {
         this.config = config;
+        this.schema = schema;
+        this.tableInfo = tableInfo;
+    }
+
+    @Override
+    public Filter[] pushFilters(Filter[] filters) {
+        lookup = IndexLookup.plan(tableInfo, filters);
+        // lookup only narrows the rows to read, spark still needs to evaluate all filters after scan
+        return filters;
+    }
+
+    @Override
+    public Filter[] pushedFilters() {
+        return lookup == null ? new Filter[0] : lookup.getPushedFilters();
+    }
+
+    @Override
+    public void pruneColumns(StructType requiredSchema) {
+        this.schema = requiredSchema;
     }
 
     @Override
     public Scan build() {
-        return new OpenmldbScan(config);
+        return new OpenmldbScan(config, schema, tableInfo, lookup);
     }
 }
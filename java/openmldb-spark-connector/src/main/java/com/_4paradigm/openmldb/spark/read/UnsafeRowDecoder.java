@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.spark.read;
+
+import com._4paradigm.openmldb.common.codec.CodecMetaData;
+import com._4paradigm.openmldb.common.codec.RowView;
+import com._4paradigm.openmldb.proto.Common;
+import com._4paradigm.openmldb.proto.NS;
+import com._4paradigm.openmldb.proto.Type;
+import org.apache.spark.sql.catalyst.expressions.UnsafeRow;
+import org.apache.spark.sql.catalyst.expressions.codegen.UnsafeRowWriter;
+import org.apache.spark.sql.catalyst.util.DateTimeUtils;
+import org.apache.spark.sql.types.StructType;
+import org.apache.spark.unsafe.types.UTF8String;
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decode openmldb row bytes to spark UnsafeRow, without the jdbc result set.
+ * Only the columns in the read schema are decoded, in the order of the read schema.
+ * The row may be encoded in an older schema version (before adding columns), the absent columns are null.
+ * Not thread safe, and the returned row is reused by the next decode.
+ */
+public class UnsafeRowDecoder {
+    // schema version -> view of the row in this version
+    private final Map<Integer, RowView> views = new HashMap<>();
+    private final List<Common.ColumnDesc> schema;
+    // output field idx -> table column idx
+    private final int[] projection;
+    private final boolean snappy;
+    private final UnsafeRowWriter writer;
+
+    public UnsafeRowDecoder(NS.TableInfo tableInfo, StructType readSchema) throws Exception {
+        schema = new ArrayList<>(tableInfo.getColumnDescList());
+        schema.addAll(tableInfo.getAddedColumnDescList());
+        Map<String, Integer> nameToIdx = new HashMap<>();
+        for (int i = 0; i < schema.size(); i++) {
+            nameToIdx.put(schema.get(i).getName(), i);
+        }
+        projection = new int[readSchema.size()];
+        for (int i = 0; i < readSchema.size(); i++) {
+            Integer idx = nameToIdx.get(readSchema.fields()[i].name());
+            if (idx == null) {
+                throw new IllegalArgumentException("column " + readSchema.fields()[i].name() + " not found in table "
+                        + tableInfo.getName());
+            }
+            projection[i] = idx;
+        }
+        snappy = tableInfo.getCompressType() == Type.CompressType.kSnappy;
+        // version 1 is the base schema, without added columns
+        views.put(1, newView(1, tableInfo.getColumnDescCount()));
+        for (Common.VersionPair pair : tableInfo.getSchemaVersionsList()) {
+            views.put(pair.getId(), newView(pair.getId(), pair.getFieldCount()));
+        }
+        writer = new UnsafeRowWriter(projection.length);
+    }
+
+    private RowView newView(int version, int fieldCount) throws Exception {
+        return new RowView(new CodecMetaData(schema.subList(0, fieldCount), version, true));
+    }
+
+    /**
+     * @param buf    the buffer contains the row, won't be modified
+     * @param offset the start of the row in buf
+     * @param length the length of the row
+     */
+    public UnsafeRow decode(ByteBuffer buf, int offset, int length) throws Exception {
+        ByteBuffer row;
+        if (snappy) {
+            byte[] compressed = new byte[length];
+            ByteBuffer dup = buf.duplicate();
+            dup.position(offset);
+            dup.get(compressed);
+            row = ByteBuffer.wrap(Snappy.uncompress(compressed));
+        } else {
+            ByteBuffer dup = buf.duplicate();
+            dup.position(offset);
+            dup.limit(offset + length);
+            row = dup.slice();
+        }
+        row.order(ByteOrder.LITTLE_ENDIAN);
+        int version = RowView.getSchemaVersion(row);
+        RowView view = views.get(version);
+        if (view == null) {
+            throw new IOException("unknown schema version " + version + ", table may be altered, please retry");
+        }
+        if (!view.reset(row, row.remaining())) {
+            throw new IOException("invalid row, size " + row.remaining());
+        }
+        int fieldCount = view.getSchema().size();
+        writer.reset();
+        writer.zeroOutNullBytes();
+        for (int i = 0; i < projection.length; i++) {
+            int col = projection[i];
+            if (col >= fieldCount || view.isNull(col)) {
+                writer.setNullAt(i);
+                continue;
+            }
+            Type.DataType type = schema.get(col).getDataType();
+            switch (type) {
+                case kBool:
+                    writer.write(i, view.getBool(col));
+                    break;
+                case kSmallInt:
+                    writer.write(i, view.getSmallInt(col));
+                    break;
+                case kInt:
+                    writer.write(i, view.getInt(col));
+                    break;
+                case kBigInt:
+                    writer.write(i, view.getBigInt(col));
+                    break;
+                case kFloat:
+                    writer.write(i, view.getFloat(col));
+                    break;
+                case kDouble:
+                    writer.write(i, view.getDouble(col));
+                    break;
+                case kVarchar:
+                case kString:
+                    writer.write(i, UTF8String.fromString(view.getString(col)));
+                    break;
+                case kDate: {
+                    Date date = view.getDate(col);
+                    writer.write(i, DateTimeUtils.fromJavaDate(date));
+                    break;
+                }
+                case kTimestamp: {
+                    // spark TimestampType is us
+                    Timestamp ts = view.getTimestamp(col);
+                    writer.write(i, ts.getTime() * 1000L);
+                    break;
+                }
+                default:
+                    throw new IOException("unsupported data type " + type);
+            }
+        }
+        return writer.getRow();
+    }
+}
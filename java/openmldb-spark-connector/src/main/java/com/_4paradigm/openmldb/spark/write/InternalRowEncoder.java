@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.spark.write;
+
+import com._4paradigm.openmldb.common.codec.CodecUtil;
+import com._4paradigm.openmldb.common.codec.FlexibleRowBuilder;
+import com._4paradigm.openmldb.sdk.Schema;
+import com._4paradigm.openmldb.sdk.impl.InsertPreparedStatementMeta;
+import com._4paradigm.openmldb.spark.OpenmldbTable;
+import com.google.common.base.Preconditions;
+import org.apache.spark.sql.catalyst.InternalRow;
+
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encode spark InternalRow to openmldb (dimensions, row) pair directly, without the jdbc setters.
+ * Column types are resolved once when creating, not per row. Not thread safe, one encoder per writer.
+ */
+public class InternalRowEncoder {
+    private final InsertPreparedStatementMeta meta;
+    private final FlexibleRowBuilder rowBuilder;
+    // indexed by the field idx of InternalRow
+    private final int[] schemaIdx;
+    private final int[] sqlTypes;
+    private final boolean[] nullable;
+    private final boolean[] isIndexCol;
+    private final Map<Integer, String> indexValue = new HashMap<>();
+
+    public InternalRowEncoder(InsertPreparedStatementMeta meta) {
+        Schema schema = meta.getSchema();
+        List<Integer> holeIdx = meta.getHoleIdx();
+        // insert stmt is 'insert into t values(?,?...)', all columns are placeholders, no default value to fill
+        Preconditions.checkState(holeIdx.size() == schema.size() && meta.getDefaultValue().isEmpty(),
+                "all columns should be placeholders");
+        this.meta = meta;
+        this.rowBuilder = new FlexibleRowBuilder(meta.getCodecMeta());
+        int size = holeIdx.size();
+        schemaIdx = new int[size];
+        sqlTypes = new int[size];
+        nullable = new boolean[size];
+        isIndexCol = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            int idx = holeIdx.get(i);
+            schemaIdx[i] = idx;
+            sqlTypes[i] = schema.getColumnType(idx);
+            nullable[i] = schema.isNullable(idx);
+            isIndexCol[i] = meta.getIndexPos().contains(idx);
+        }
+    }
+
+    public int numFields() {
+        return sqlTypes.length;
+    }
+
+    public AbstractMap.SimpleImmutableEntry<ByteBuffer, ByteBuffer> encode(InternalRow record) throws SQLException {
+        Preconditions.checkState(record.numFields() == sqlTypes.length);
+        rowBuilder.clear();
+        indexValue.clear();
+        for (int i = 0; i < sqlTypes.length; i++) {
+            int idx = schemaIdx[i];
+            if (record.isNullAt(i)) {
+                if (!nullable[i]) {
+                    throw new SQLException("this column not allow null, pos is " + i);
+                }
+                check(rowBuilder.setNULL(idx), i);
+                if (isIndexCol[i]) {
+                    indexValue.put(idx, InsertPreparedStatementMeta.NONETOKEN);
+                }
+                continue;
+            }
+            String key = null;
+            switch (sqlTypes[i]) {
+                case Types.BOOLEAN: {
+                    boolean v = record.getBoolean(i);
+                    check(rowBuilder.setBool(idx, v), i);
+                    key = isIndexCol[i] ? String.valueOf(v) : null;
+                    break;
+                }
+                case Types.SMALLINT: {
+                    short v = record.getShort(i);
+                    check(rowBuilder.setSmallInt(idx, v), i);
+                    key = isIndexCol[i] ? String.valueOf(v) : null;
+                    break;
+                }
+                case Types.INTEGER: {
+                    int v = record.getInt(i);
+                    check(rowBuilder.setInt(idx, v), i);
+                    key = isIndexCol[i] ? String.valueOf(v) : null;
+                    break;
+                }
+                case Types.BIGINT: {
+                    long v = record.getLong(i);
+                    check(rowBuilder.setBigInt(idx, v), i);
+                    key = isIndexCol[i] ? String.valueOf(v) : null;
+                    break;
+                }
+                case Types.FLOAT:
+                    check(rowBuilder.setFloat(idx, record.getFloat(i)), i);
+                    break;
+                case Types.DOUBLE:
+                    check(rowBuilder.setDouble(idx, record.getDouble(i)), i);
+                    break;
+                case Types.VARCHAR: {
+                    String v = record.getUTF8String(i).toString();
+                    check(rowBuilder.setString(idx, v), i);
+                    if (isIndexCol[i]) {
+                        key = v.isEmpty() ? InsertPreparedStatementMeta.EMPTY_STRING : v;
+                    }
+                    break;
+                }
+                case Types.DATE: {
+                    // spark DateType is the number of days since epoch
+                    Date v = new Date(record.getInt(i) * 86400000L);
+                    check(rowBuilder.setDate(idx, v), i);
+                    key = isIndexCol[i] ? String.valueOf(CodecUtil.dateToDateInt(v)) : null;
+                    break;
+                }
+                case Types.TIMESTAMP: {
+                    // spark TimestampType is us, openmldb timestamp is ms
+                    long ms = record.getLong(i) / 1000;
+                    check(rowBuilder.setTimestamp(idx, new Timestamp(ms)), i);
+                    key = isIndexCol[i] ? String.valueOf(ms) : null;
+                    break;
+                }
+                default:
+                    throw new SQLException("unsupported sql type " + sqlTypes[i]);
+            }
+            if (key != null) {
+                indexValue.put(idx, key);
+            }
+        }
+        if (!rowBuilder.build()) {
+            throw new SQLException("encode row failed");
+        }
+        return new AbstractMap.SimpleImmutableEntry<>(meta.buildDimension(indexValue), rowBuilder.getValue());
+    }
+
+    private static void check(boolean ok, int pos) throws SQLException {
+        if (!ok) {
+            throw new SQLException("set value failed. pos is " + pos);
+        }
+    }
+
+    public String readable(InternalRow record) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < record.numFields() && i < sqlTypes.length; i++) {
+            sb.append(record.get(i, OpenmldbTable.sdkTypeToSparkType(sqlTypes[i]))).append(",");
+        }
+        return sb.toString();
+    }
+}
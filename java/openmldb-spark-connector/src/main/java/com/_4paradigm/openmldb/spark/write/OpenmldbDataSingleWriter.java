@@ -21,21 +21,21 @@ import com._4paradigm.openmldb.spark.OpenmldbConfig;
 
 import com._4paradigm.openmldb.sdk.Schema;
 import com._4paradigm.openmldb.sdk.SqlException;
+import com._4paradigm.openmldb.sdk.impl.InsertPreparedStatementImpl;
 import com._4paradigm.openmldb.sdk.impl.SqlClusterExecutor;
-import com.google.common.base.Preconditions;
 import org.apache.spark.sql.catalyst.InternalRow;
 import org.apache.spark.sql.connector.write.DataWriter;
 import org.apache.spark.sql.connector.write.WriterCommitMessage;
 
 import java.io.IOException;
-import java.sql.PreparedStatement;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.Collections;
 
 public class OpenmldbDataSingleWriter implements DataWriter<InternalRow> {
     private final int partitionId;
     private final long taskId;
-    private PreparedStatement preparedStatement = null;
+    private InsertPreparedStatementImpl preparedStatement = null;
+    private InternalRowEncoder encoder = null;
 
     public OpenmldbDataSingleWriter(OpenmldbConfig config, int partitionId, long taskId) {
         try {
@@ -52,7 +52,9 @@ public class OpenmldbDataSingleWriter implements DataWriter<InternalRow> {
                 insert.append(",?");
             }
             insert.append(");");
-            preparedStatement = executor.getInsertPreparedStmt(dbName, insert.toString());
+            preparedStatement = (InsertPreparedStatementImpl) executor.getInsertPreparedStmt(dbName,
+                    insert.toString());
+            encoder = new InternalRowEncoder(preparedStatement.getMeta());
         } catch (SQLException | SqlException e) {
             e.printStackTrace();
             throw new RuntimeException("create openmldb writer failed", e);
@@ -66,19 +68,16 @@ public class OpenmldbDataSingleWriter implements DataWriter<InternalRow> {
     public void write(InternalRow record) throws IOException {
         try {
             // record to openmldb row
-            ResultSetMetaData metaData = preparedStatement.getMetaData();
-            Preconditions.checkState(record.numFields() == metaData.getColumnCount());
-            OpenmldbDataWriter.addRow(record, preparedStatement);
-            
             // you can cache failed rows and throw exception when commit/close,
             // but it still may interrupt other writers(pending or slow writers)
 
             // check return for put result
-            if(!preparedStatement.execute()) {
+            int[] rc = preparedStatement.executeEncodedBatch(Collections.singletonList(encoder.encode(record)));
+            if (rc[0] < 0) {
                 throw new IOException("execute failed");
             }
         } catch (Exception e) {
-            throw new IOException("write row to openmldb failed on " + OpenmldbDataWriter.readable(record, preparedStatement), e);
+            throw new IOException("write row to openmldb failed on " + encoder.readable(record), e);
         }
     }
 
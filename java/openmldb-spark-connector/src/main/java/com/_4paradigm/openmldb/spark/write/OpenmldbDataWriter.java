@@ -20,27 +20,38 @@ package com._4paradigm.openmldb.spark.write;
 import com._4paradigm.openmldb.spark.OpenmldbConfig;
 
 import com._4paradigm.openmldb.sdk.Schema;
-import com._4paradigm.openmldb.sdk.SdkOption;
 import com._4paradigm.openmldb.sdk.SqlException;
+import com._4paradigm.openmldb.sdk.impl.InsertPreparedStatementImpl;
 import com._4paradigm.openmldb.sdk.impl.SqlClusterExecutor;
-import com._4paradigm.openmldb.spark.OpenmldbTable;
-import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.spark.sql.catalyst.InternalRow;
 import org.apache.spark.sql.connector.write.DataWriter;
 import org.apache.spark.sql.connector.write.WriterCommitMessage;
 
 import java.io.IOException;
-import java.sql.Date;
-import java.sql.PreparedStatement;
-import java.sql.ResultSetMetaData;
+import java.nio.ByteBuffer;
 import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.sql.Types;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class OpenmldbDataWriter implements DataWriter<InternalRow> {
     private final int partitionId;
     private final long taskId;
-    private PreparedStatement preparedStatement = null;
+    private final int batchSize;
+    private InsertPreparedStatementImpl preparedStatement = null;
+    private InternalRowEncoder encoder = null;
+
+    // rows are encoded in the task thread, and inserted in the flush thread.
+    // At most one flush is in flight, so the writer buffers no more than 2 * batchSize rows.
+    private List<AbstractMap.SimpleImmutableEntry<ByteBuffer, ByteBuffer>> buffer;
+    private final ExecutorService flushExecutor;
+    private Future<?> pendingFlush = null;
+    private long flushedRows = 0;
 
     public OpenmldbDataWriter(OpenmldbConfig config, int partitionId, long taskId) {
         try {
@@ -57,7 +68,9 @@ public class OpenmldbDataWriter implements DataWriter<InternalRow> {
                 insert.append(",?");
             }
             insert.append(");");
-            preparedStatement = executor.getInsertPreparedStmt(dbName, insert.toString());
+            preparedStatement = (InsertPreparedStatementImpl) executor.getInsertPreparedStmt(dbName,
+                    insert.toString());
+            encoder = new InternalRowEncoder(preparedStatement.getMeta());
         } catch (SQLException | SqlException e) {
             e.printStackTrace();
             throw new RuntimeException("create openmldb data writer failed", e);
@@ -65,107 +78,82 @@ public class OpenmldbDataWriter implements DataWriter<InternalRow> {
 
         this.partitionId = partitionId;
         this.taskId = taskId;
+        this.batchSize = config.getWriterBatchSize();
+        this.buffer = new ArrayList<>(batchSize);
+        this.flushExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setDaemon(true)
+                .setNameFormat("openmldb-writer-" + partitionId + "-" + taskId).build());
     }
 
     @Override
     public void write(InternalRow record) throws IOException {
         try {
-            // record to openmldb row
-            ResultSetMetaData metaData = preparedStatement.getMetaData();
-            Preconditions.checkState(record.numFields() == metaData.getColumnCount());
-            addRow(record, preparedStatement);
-            preparedStatement.addBatch();
+            buffer.add(encoder.encode(record));
         } catch (Exception e) {
-            throw new IOException("convert to openmldb row failed on " + readable(record, preparedStatement), e);
+            throw new IOException("convert to openmldb row failed on " + encoder.readable(record), e);
+        }
+        if (buffer.size() >= batchSize) {
+            flushAsync();
         }
     }
 
-    static void addRow(InternalRow record, PreparedStatement preparedStatement) throws SQLException {
-        // idx in preparedStatement starts from 1
-        ResultSetMetaData metaData = preparedStatement.getMetaData();
-        for (int i = 0; i < record.numFields(); i++) {
-            // sqlType
-            int type = metaData.getColumnType(i + 1);
-            if (record.isNullAt(i)) {
-                preparedStatement.setNull(i + 1, type);
-                continue;
-            }
-            switch (type) {
-                case Types.BOOLEAN:
-                    preparedStatement.setBoolean(i + 1, record.getBoolean(i));
-                    break;
-                case Types.SMALLINT:
-                    preparedStatement.setShort(i + 1, record.getShort(i));
-                    break;
-                case Types.INTEGER:
-                    preparedStatement.setInt(i + 1, record.getInt(i));
-                    break;
-                case Types.BIGINT:
-                    preparedStatement.setLong(i + 1, record.getLong(i));
-                    break;
-                case Types.FLOAT:
-                    preparedStatement.setFloat(i + 1, record.getFloat(i));
-                    break;
-                case Types.DOUBLE:
-                    preparedStatement.setDouble(i + 1, record.getDouble(i));
-                    break;
-                case Types.VARCHAR:
-                    preparedStatement.setString(i + 1, record.getString(i));
-                    break;
-                case Types.DATE:
-                    // the new Date() parameter is the number of milliseconds elapsed since January 1, 1970 00:00:00 GMT
-                    // where record.getInt(i) gets the number of days elapsed, and 86400000 is the number of milliseconds in a day.
-                    preparedStatement.setDate(i + 1, new Date(record.getInt(i) * 86400000l));
-                    break;
-                case Types.TIMESTAMP:
-                    // record.getLong(spark sql TimestampType) gets us timestamp, and sql timestamp unit is ms
-                    preparedStatement.setTimestamp(i + 1, new Timestamp(record.getLong(i) / 1000));
-                    break;
-                default:
-                    throw new RuntimeException("unsupported sql type " + type);
+    private void flushAsync() throws IOException {
+        // wait for the previous flush, to keep the order of batches and limit the memory
+        waitPendingFlush();
+        final List<AbstractMap.SimpleImmutableEntry<ByteBuffer, ByteBuffer>> rows = buffer;
+        final long offset = flushedRows;
+        buffer = new ArrayList<>(batchSize);
+        flushedRows += rows.size();
+        pendingFlush = flushExecutor.submit(() -> {
+            int[] rc = preparedStatement.executeEncodedBatch(rows);
+            for (int i = 0; i < rc.length; i++) {
+                int code = rc[i];
+                if (code < 0) {
+                    throw new SQLException("insert failed on " + (offset + i) + ", result code " + code);
+                }
             }
-        }
+            return null;
+        });
     }
 
-    static String readable(InternalRow record, PreparedStatement preparedStatement) {
+    private void waitPendingFlush() throws IOException {
+        if (pendingFlush == null) {
+            return;
+        }
         try {
-            ResultSetMetaData metaData = preparedStatement.getMetaData();
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < record.numFields(); i++) {
-                sb.append(record.get(i, OpenmldbTable.sdkTypeToSparkType(metaData.getColumnType(i + 1)))).append(",");
-            }
-            return sb.toString();
-        } catch (SQLException e) {
-            return "readable error: " + e.getMessage();
+            pendingFlush.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted when writing to openmldb", e);
+        } catch (ExecutionException e) {
+            throw new IOException("write to openmldb error", e.getCause());
+        } finally {
+            pendingFlush = null;
         }
     }
 
     @Override
     public WriterCommitMessage commit() throws IOException {
-        try {
-            int[] rc = preparedStatement.executeBatch();
-            for(int i = 0; i < rc.length; i++) {
-                int code = rc[i];
-                if (code < 0) {
-                    throw new SQLException("insert failed on " + i + ", result code " + code);
-                } 
-            }
-            preparedStatement.close();
-        } catch (SQLException e) {
-            e.printStackTrace();
-            throw new IOException("commit(write to openmldb) error", e);
+        if (!buffer.isEmpty()) {
+            flushAsync();
         }
+        waitPendingFlush();
         // TODO(hw): need to return new WriterCommitMessageImpl(partitionId, taskId); ?
         return null;
     }
 
     @Override
     public void abort() throws IOException {
-        // no transaction, no abort
+        // no transaction, no abort. Drop the rows which are not sent.
+        buffer.clear();
+        if (pendingFlush != null) {
+            pendingFlush.cancel(true);
+            pendingFlush = null;
+        }
     }
 
     @Override
     public void close() throws IOException {
+        flushExecutor.shutdownNow();
         try {
             preparedStatement.close();
         } catch (SQLException e) {
@@ -0,0 +1,77 @@
+package com._4paradigm.openmldb.spark.read
+
+import com._4paradigm.openmldb.proto.{NS, Tablet}
+import com._4paradigm.openmldb.spark.OpenmldbConfig
+import com.baidu.brpc.client.BrpcProxy
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.connector.read.PartitionReader
+import org.apache.spark.sql.types.StructType
+
+import java.io.IOException
+import java.nio.{ByteBuffer, ByteOrder}
+
+/**
+ * Read the keys of an index lookup in one table partition by the tablet scan rpc, ts in (et, st] of each key.
+ */
+class OpenmldbLookupReader(config: OpenmldbConfig, partition: OpenmldbLookupPartition, tableInfoBytes: Array[Byte],
+                           schema: StructType) extends PartitionReader[InternalRow] {
+  private val tableInfo = NS.TableInfo.parseFrom(tableInfoBytes)
+  private val decoder = new UnsafeRowDecoder(tableInfo, schema)
+
+  private val rpcClient = OpenmldbPartitionReader.createRpcClient(config, partition.getEndpoint)
+  private val tablet = BrpcProxy.getProxy(rpcClient, classOf[TabletService])
+
+  private val keys = partition.getKeys.iterator()
+  private var key: String = _
+  // pairs of the current page: [block size(4) | ts(8) | value]
+  private var pairs: ByteBuffer = _
+  private var finished = true
+  // the next page starts from st, skip the rows of ts == st which have been read
+  private var st = partition.getSt
+  private var skip = 0
+  private var current: InternalRow = _
+
+  override def next(): Boolean = {
+    while (pairs == null || pairs.remaining() < 12) {
+      if (finished) {
+        if (!keys.hasNext) {
+          return false
+        }
+        key = keys.next()
+        st = partition.getSt
+        skip = 0
+      }
+      fetch()
+    }
+    val blockSize = pairs.getInt()
+    val ts = pairs.getLong()
+    val valueSize = blockSize - 8
+    current = decoder.decode(pairs, pairs.position(), valueSize)
+    pairs.position(pairs.position() + valueSize)
+    if (ts == st) {
+      skip += 1
+    } else {
+      st = ts
+      skip = 1
+    }
+    true
+  }
+
+  private def fetch(): Unit = {
+    val request = Tablet.ScanRequest.newBuilder().setTid(partition.getTid).setPid(partition.getPid)
+      .setIdxName(partition.getIndexName).setPk(key).setSt(st).setEt(partition.getEt)
+      .setSkipRecordNum(skip).setLimit(OpenmldbPartitionReader.PAGE_LIMIT).build()
+    val response = tablet.scan(request)
+    if (response.getCode != 0) {
+      throw new IOException(s"scan key $key in $partition failed, code ${response.getCode}, msg ${response.getMsg}")
+    }
+    pairs = response.getPairs.asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN)
+    finished = response.getIsFinish
+  }
+
+  override def get(): InternalRow = current
+
+  override def close(): Unit = {
+    rpcClient.stop()
+  }
+}
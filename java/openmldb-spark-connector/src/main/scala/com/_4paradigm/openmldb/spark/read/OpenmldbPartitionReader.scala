@@ -1,57 +1,88 @@
 package com._4paradigm.openmldb.spark.read
 
+import com._4paradigm.openmldb.proto.{NS, Tablet}
 import com._4paradigm.openmldb.spark.OpenmldbConfig
-import com._4paradigm.openmldb.sdk.{Schema, SdkOption}
-import com._4paradigm.openmldb.sdk.impl.SqlClusterExecutor
+import com.baidu.brpc.client.{BrpcProxy, RpcClient, RpcClientOptions}
 import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.connector.read.PartitionReader
-import org.apache.spark.unsafe.types.UTF8String
+import org.apache.spark.sql.types.StructType
 
-import java.sql.Types
+import java.io.IOException
+import java.nio.{ByteBuffer, ByteOrder}
 
-class OpenmldbPartitionReader(config: OpenmldbConfig) extends PartitionReader[InternalRow] {
-  val executor = new SqlClusterExecutor(config.getSdkOption)
-  val dbName: String = config.getDB
-  val tableName: String = config.getTable
+/**
+ * Read one table partition by the tablet traverse rpc, page by page. The rows are decoded to UnsafeRow directly.
+ */
+class OpenmldbPartitionReader(config: OpenmldbConfig, partition: OpenmldbPartition, tableInfoBytes: Array[Byte],
+                              schema: StructType) extends PartitionReader[InternalRow] {
 
-  val schema: Schema = executor.getTableSchema(dbName, tableName)
-  executor.executeSQL(dbName, "SET @@execute_mode='online'")
-  val resultSet = executor.executeSQL(dbName, s"SELECT * FROM ${tableName}")
+  private val tableInfo = NS.TableInfo.parseFrom(tableInfoBytes)
+  private val decoder = new UnsafeRowDecoder(tableInfo, schema)
 
-  override def next(): Boolean = {
-    resultSet.next()
-  }
+  private val rpcClient = OpenmldbPartitionReader.createRpcClient(config, partition.getEndpoint)
+  private val tablet = BrpcProxy.getProxy(rpcClient, classOf[TabletService])
 
-  override def get(): InternalRow = {
-    val rowData = 0.until(schema.getColumnList.size()).map(index => {
-      val columnSqlType = schema.getColumnList.get(index).getSqlType
-      val columnValue = columnSqlType match {
-        case Types.BOOLEAN => resultSet.getBoolean(index + 1)
-        case Types.SMALLINT => resultSet.getShort(index + 1)
-        case Types.INTEGER => resultSet.getInt(index + 1)
-        case Types.BIGINT => resultSet.getLong(index + 1)
-        case Types.FLOAT => resultSet.getFloat(index + 1)
-        case Types.DOUBLE => resultSet.getDouble(index + 1)
-        // Convert java string to UnsafeRow string
-        case Types.VARCHAR => UTF8String.fromString(resultSet.getString(index + 1))
-        // TODO: Convert date to UnsafeRow int
-        case Types.DATE => resultSet.getDate(index + 1).getTime.asInstanceOf[Int]
-        case Types.TIMESTAMP => resultSet.getTimestamp(index + 1).getTime
-        case _ => throw new Exception(s"Unsupported sql type ${columnSqlType}")
-      }
+  // pairs of the current page: [total size(4) | pk size(4) | ts(8) | pk | value]
+  private var pairs: ByteBuffer = _
+  private var finished = false
+  private var lastPk: String = _
+  private var lastTs = 0L
+  private var tsPos = 0
+  private var current: InternalRow = _
 
-      if (columnSqlType == null) {
-        // TODO: Should not pass null to InternalRow
-        columnValue
-      } else {
-        columnValue
+  override def next(): Boolean = {
+    while (pairs == null || pairs.remaining() < 16) {
+      if (finished) {
+        return false
       }
-    })
+      fetch()
+    }
+    val totalSize = pairs.getInt()
+    val pkSize = pairs.getInt()
+    val valueSize = totalSize - pkSize - 8
+    val valueOffset = pairs.position() + 8 + pkSize
+    current = decoder.decode(pairs, valueOffset, valueSize)
+    pairs.position(valueOffset + valueSize)
+    true
+  }
 
-    InternalRow(rowData.toList:_*)
+  private def fetch(): Unit = {
+    val builder = Tablet.TraverseRequest.newBuilder().setTid(partition.getTid).setPid(partition.getPid)
+      .setLimit(OpenmldbPartitionReader.PAGE_LIMIT)
+    if (lastPk != null) {
+      builder.setPk(lastPk).setTs(lastTs).setTsPos(tsPos)
+    }
+    val response = tablet.traverse(builder.build())
+    if (response.getCode != 0) {
+      throw new IOException(s"traverse $partition failed, code ${response.getCode}, msg ${response.getMsg}")
+    }
+    pairs = response.getPairs.asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN)
+    finished = response.getIsFinish
+    lastPk = response.getPk
+    lastTs = response.getTs
+    tsPos = response.getTsPos
   }
 
+  override def get(): InternalRow = current
+
   override def close(): Unit = {
-    executor.close()
+    rpcClient.stop()
+  }
+}
+
+object OpenmldbPartitionReader {
+  // rows per rpc, the same as tablet flag traverse_cnt_limit
+  val PAGE_LIMIT = 1000
+
+  def createRpcClient(config: OpenmldbConfig, endpoint: String): RpcClient = {
+    val options = new RpcClientOptions()
+    val timeout = config.getSdkOption.getRequestTimeout
+    if (timeout > 0) {
+      options.setReadTimeoutMillis(timeout.toInt)
+    }
+    options.setGlobalThreadPoolSharing(true)
+    options.setMaxTryTimes(1)
+    // Must list://
+    new RpcClient("list://" + endpoint, options)
   }
 }
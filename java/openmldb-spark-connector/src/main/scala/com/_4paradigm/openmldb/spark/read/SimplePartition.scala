@@ -1,6 +0,0 @@
-package com._4paradigm.openmldb.spark.read
-
-import org.apache.spark.sql.connector.read.InputPartition
-
-class SimplePartition() extends InputPartition
-
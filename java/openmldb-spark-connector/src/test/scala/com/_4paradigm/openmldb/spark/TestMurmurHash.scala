@@ -0,0 +1,59 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.spark
+
+import com._4paradigm.openmldb.spark.read.MurmurHash
+import org.scalatest.FunSuite
+
+import java.nio.charset.StandardCharsets
+
+class TestMurmurHash extends FunSuite {
+
+  // key -> pids of 2, 3, 7 and 8 partitions, got by base::hash64(key) % pid_num in c++
+  private val expectedPids = Seq(
+    "key1" -> Seq(0, 0, 6, 6),
+    "key2" -> Seq(0, 2, 3, 2),
+    "key3" -> Seq(0, 0, 6, 4),
+    "hello" -> Seq(1, 2, 5, 3),
+    "openmldb" -> Seq(0, 1, 4, 6),
+    "abcdefgh" -> Seq(1, 2, 0, 5),
+    "abcdefghij" -> Seq(0, 0, 3, 4),
+    "1|2" -> Seq(1, 0, 2, 1),
+    "中文" -> Seq(1, 0, 0, 1),
+    "k" -> Seq(1, 0, 0, 3))
+
+  test("Test partition is the same as c++") {
+    for ((key, pids) <- expectedPids) {
+      assert(Seq(2, 3, 7, 8).map(MurmurHash.partition(key, _)) == pids, s"key $key")
+    }
+  }
+
+  test("Test partition of keys with negative raw hash") {
+    val negativeKeys = expectedPids.map(_._1).filter { key =>
+      val bytes = key.getBytes(StandardCharsets.UTF_8)
+      MurmurHash.hash64(bytes, bytes.length, 0xe17a1465) < 0
+    }
+    assert(negativeKeys.nonEmpty)
+    for (key <- negativeKeys) {
+      assert(MurmurHash.partition(key, 8) == expectedPids.toMap.apply(key)(3), s"key $key")
+    }
+  }
+
+  test("Test single partition") {
+    assert(MurmurHash.partition("key1", 1) == 0)
+  }
+}
@@ -60,5 +60,28 @@ class TestRead extends FunSuite {
     assert(row.getFloat(3) == 4.0)
     assert(row.getDouble(4) == 5.0)
     assert(row.getString(5).equals("foo"))
+
+    // multi partitions, each table partition is read by one spark partition
+    val multiTable = "spark_read_multi_test"
+    executor.executeDDL(db, s"drop table $multiTable")
+    executor.executeDDL(db, s"create table $multiTable(c1 string, c2 int, c3 timestamp, c4 date, " +
+      "index(key=c1, ts=c3)) options(partitionnum=4, replicanum=1)")
+    for (i <- 0 until 100) {
+      executor.executeSQL(db, s"insert into $multiTable values('key$i', $i, ${1000L * i}, '2022-01-01')")
+    }
+    val multiDf = spark.read.format("openmldb").options(options + ("table" -> multiTable)).load()
+    assert(multiDf.rdd.getNumPartitions == 4)
+    val rows = multiDf.collect().sortBy(_.getInt(1))
+    assert(rows.length == 100)
+    assert(rows(10).getString(0).equals("key10"))
+    assert(rows(10).getTimestamp(2).getTime == 10000L)
+    assert(rows(10).getDate(3).toString.equals("2022-01-01"))
+
+    // index lookup by the filters on key and ts, and only read the required columns
+    val lookupDf = multiDf.filter("c1 in ('key10', 'key20', 'key30') and c3 >= cast(20 as timestamp)")
+      .select("c2")
+    val lookupRows = lookupDf.collect().map(_.getInt(0)).sorted
+    assert(lookupRows.sameElements(Array(20, 30)))
+    assert(lookupDf.rdd.getNumPartitions <= 3)
   }
 }
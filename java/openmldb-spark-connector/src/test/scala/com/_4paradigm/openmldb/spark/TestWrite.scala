@@ -68,6 +68,10 @@ class TestWrite extends FunSuite {
       .format("openmldb")
       .options(options).mode("append").save()
 
+    // batch writer, flush every 1 row to test the async flush
+    df.write.format("openmldb").options(options ++ Map("writerType" -> "batch", "writerBatchSize" -> "1"))
+      .mode("append").save()
+
     // If no schema, it determines the columns as string types. And the DataFrameWriter can't do smart type conversion
     val df1 = sess.read.option("header", "true").option("nullValue", "null")
       // spark timestampFormat is DateTime, so in test.csv, the value of c9 can't be long int.
@@ -27,6 +27,7 @@ import com._4paradigm.openmldb.common.codec.RowView;
 
 import io.netty.buffer.ByteBuf;
 import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.parquet.hadoop.ParquetWriter;
 import com.google.common.base.Preconditions;
 import lombok.extern.slf4j.Slf4j;
 
@@ -35,6 +36,7 @@ public class DataParser {
     private final ByteBuf data;
     private final long count;
     private final RowView rowView;
+    private long readCount = 0;
 
     public DataParser(ByteBuf data, final long count, List<ColumnDesc> schema) throws Exception {
         this.data = data;
@@ -64,21 +66,28 @@ public class DataParser {
         return sb.toString();
     }
 
+    // returns false if all rows are read
+    private boolean nextRow() {
+        if (readCount >= count) {
+            return false;
+        }
+        int start = data.readerIndex();
+        data.readerIndex(start + 2); // skip 2 bytes
+        int rowSize = data.readIntLE();
+        log.debug("read row size: {}", rowSize);
+        // netty is big endian, but we use little endian
+        ByteBuffer row = data.nioBuffer(start, rowSize).order(ByteOrder.LITTLE_ENDIAN);
+        Preconditions.checkState(rowView.reset(row, rowSize), "reset row view failed");
+        data.readerIndex(start + rowSize);
+        readCount++;
+        return true;
+    }
+
     public void writeAll(BufferedWriter bufferedWriter) {
         try {
-            long readCount = 0;
-            while (readCount < count) {
-                int start = data.readerIndex();
-                data.readerIndex(start + 2); // skip 2 bytes
-                int rowSize = data.readIntLE();
-                log.debug("read row size: {}", rowSize);
-                // netty is big endian, but we use little endian
-                ByteBuffer row = data.nioBuffer(start, rowSize).order(ByteOrder.LITTLE_ENDIAN);
-                Preconditions.checkState(rowView.reset(row, rowSize), "reset row view failed");
-                data.readerIndex(start + rowSize);
+            while (nextRow()) {
                 bufferedWriter.write(rowToString(rowView));
                 bufferedWriter.write("\n");
-                readCount++;
             }
             Preconditions.checkState(readCount == count,
                     String.format("read count not match, read: %d, expect: %d", readCount, count));
@@ -88,4 +97,17 @@ public class DataParser {
             throw new RuntimeException("data parse failed", e);
         }
     }
+
+    // write the row view to parquet writer, no string conversion
+    public void writeAll(ParquetWriter<RowView> parquetWriter) {
+        try {
+            while (nextRow()) {
+                parquetWriter.write(rowView);
+            }
+            Preconditions.checkState(readCount == count,
+                    String.format("read count not match, read: %d, expect: %d", readCount, count));
+        } catch (IOException e) {
+            throw new RuntimeException("data write failed", e);
+        }
+    }
 }
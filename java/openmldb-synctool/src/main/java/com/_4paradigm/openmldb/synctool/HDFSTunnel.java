@@ -20,12 +20,16 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 import com._4paradigm.openmldb.proto.Common.ColumnDesc;
+import com._4paradigm.openmldb.proto.DataSync;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -33,7 +37,9 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import com.google.common.base.Preconditions;
 import io.netty.buffer.ByteBuf;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 class HDFSTunnel {
 
     private static HDFSTunnel instance;
@@ -55,6 +61,9 @@ class HDFSTunnel {
     private FileSystem fileSystem;
     // <tid, sinkPath>
     private Map<Integer, String> sourceMap = new ConcurrentHashMap<>();
+    // <tid, writer>, only for parquet sink
+    private Map<Integer, ParquetTableWriter> parquetWriters = new ConcurrentHashMap<>();
+    private boolean parquetSink;
 
     private void init(Properties prop) throws Exception {
         String confDir = SyncToolConfig.HADOOP_CONF_DIR;
@@ -67,10 +76,26 @@ class HDFSTunnel {
             configuration.set("fs.hdfs.impl", "org.apache.hadoop.hdfs.DistributedFileSystem");
         }
         fileSystem = FileSystem.get(configuration);
+        parquetSink = SyncToolConfig.SINK_FORMAT.equals("parquet");
+    }
+
+    public boolean isParquetSink() {
+        return parquetSink;
     }
 
     public boolean recoverTunnel(int tid, String sinkPath) {
-        return createTunnel(tid, null, sinkPath);
+        if (!createTunnel(tid, null, sinkPath)) {
+            return false;
+        }
+        if (parquetSink) {
+            try {
+                parquetWriters.get(tid).cleanInProgressFiles();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return false;
+            }
+        }
+        return true;
     }
 
     // for hdfs, sourcePath is useless, write to hdfs sinkPath
@@ -91,14 +116,27 @@ class HDFSTunnel {
             sinkPath += "/";
         }
         sourceMap.put(tid, sinkPath);
+        if (parquetSink) {
+            parquetWriters.put(tid, new ParquetTableWriter(fileSystem, sinkPath, SyncToolConfig.PARQUET_ROLL_SIZE,
+                    TimeUnit.SECONDS.toMillis(SyncToolConfig.PARQUET_ROLL_INTERVAL)));
+        }
         return true;
     }
 
     public void closeTunnel(int tid) {
         sourceMap.remove(tid);
+        ParquetTableWriter writer = parquetWriters.remove(tid);
+        if (writer != null) {
+            // the tasks are removed, no progress to persist, but keep the data already written
+            try {
+                writer.commit();
+            } catch (IOException e) {
+                log.warn("commit parquet file failed when close tunnel {}", tid, e);
+            }
+        }
     }
 
-    // not thread safe
+    // thread safe, each call writes a new file
     public void writeData(int tid, ByteBuf data, long count, List<ColumnDesc> columnDescList) {
         try {
             DataParser parser = new DataParser(data, count, columnDescList);
@@ -116,4 +154,55 @@ class HDFSTunnel {
         }
     }
 
+    // write to the long-lived parquet file of the table, returns the points which are committed(durable) by this write
+    public Map<Integer, ParquetTableWriter.PendingPoint> writeParquet(int tid, int pid, long version,
+            DataSync.SyncPoint nextPoint, ByteBuf data, long count, List<ColumnDesc> columnDescList)
+            throws ParquetTableWriter.DiscardedException {
+        ParquetTableWriter writer = Preconditions.checkNotNull(parquetWriters.get(tid), "no parquet writer for tid " + tid);
+        try {
+            return writer.write(pid, version, nextPoint, data, count, columnDescList);
+        } catch (ParquetTableWriter.DiscardedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("write parquet to hdfs failed", e);
+        }
+    }
+
+    // returns true if the point is pending, should be persisted after the file committed
+    public boolean advanceParquet(int tid, int pid, long version, DataSync.SyncPoint nextPoint) {
+        ParquetTableWriter writer = Preconditions.checkNotNull(parquetWriters.get(tid), "no parquet writer for tid " + tid);
+        return writer.advanceIfPending(pid, version, nextPoint);
+    }
+
+    // commit the parquet file of the table now, e.g. the sync task is finished
+    public Map<Integer, ParquetTableWriter.PendingPoint> flushParquet(int tid) throws IOException {
+        ParquetTableWriter writer = parquetWriters.get(tid);
+        if (writer == null) {
+            return new HashMap<>();
+        }
+        return writer.commit();
+    }
+
+    // <tid, <pid, committed point>>, the dropped files of failed rolls are passed to onDiscarded
+    public Map<Integer, Map<Integer, ParquetTableWriter.PendingPoint>> rollExpiredParquet(
+            BiConsumer<Integer, ParquetTableWriter.DiscardedException> onDiscarded) {
+        Map<Integer, Map<Integer, ParquetTableWriter.PendingPoint>> committed = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Integer, ParquetTableWriter> entry : parquetWriters.entrySet()) {
+            try {
+                Map<Integer, ParquetTableWriter.PendingPoint> points = entry.getValue().rollIfExpired(now);
+                if (!points.isEmpty()) {
+                    committed.put(entry.getKey(), points);
+                }
+            } catch (ParquetTableWriter.DiscardedException e) {
+                // the points of the dropped file won't be persisted, the tasks should send the data again
+                log.warn("roll parquet file failed, tid {}", entry.getKey(), e);
+                onDiscarded.accept(entry.getKey(), e);
+            } catch (IOException e) {
+                log.warn("roll parquet file failed, tid {}", entry.getKey(), e);
+            }
+        }
+        return committed;
+    }
+
 }
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4paradigm.openmldb.synctool;
+
+import com._4paradigm.openmldb.common.codec.RowView;
+import com._4paradigm.openmldb.proto.Common.ColumnDesc;
+import com._4paradigm.openmldb.proto.DataSync;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+
+import com.google.common.base.Preconditions;
+import io.netty.buffer.ByteBuf;
+import lombok.extern.slf4j.Slf4j;
+
+// One long-lived parquet writer for one table, all partitions of the table write to the same file. The file is written
+// as a hidden in-progress file and renamed when it rolls(by size or time), only the data in renamed files is durable.
+// So the sync points of the data in the in-progress file are kept as pending, and returned when the file is committed,
+// the caller should persist them then.
+@ThreadSafe
+@Slf4j
+class ParquetTableWriter {
+    public static final String IN_PROGRESS_SUFFIX = ".parquet.inprogress";
+
+    // the progress version of sync task and the sync point after the data
+    public static class PendingPoint {
+        public final long version;
+        public final DataSync.SyncPoint point;
+
+        PendingPoint(long version, DataSync.SyncPoint point) {
+            this.version = version;
+            this.point = point;
+        }
+    }
+
+    // The in-progress file is dropped cuz of a failure, the data of the partitions in it is lost, their tasks should go
+    // back to the persisted points. The points committed before the failure are durable and should be persisted.
+    public static class DiscardedException extends IOException {
+        public final Set<Integer> pids;
+        public final Map<Integer, PendingPoint> committed = new HashMap<>();
+
+        DiscardedException(String message, Set<Integer> pids, Throwable cause) {
+            super(message, cause);
+            this.pids = pids;
+        }
+    }
+
+    private final FileSystem fileSystem;
+    private final Configuration conf;
+    // ends with /
+    private final String sinkPath;
+    private final long rollSize;
+    private final long rollIntervalMs;
+
+    @GuardedBy("this")
+    private List<ColumnDesc> schema;
+    @GuardedBy("this")
+    private ParquetWriter<RowView> writer;
+    @GuardedBy("this")
+    private String fileName;
+    @GuardedBy("this")
+    private long openTime;
+    // <pid, pending point>, the points of data in the in-progress file
+    @GuardedBy("this")
+    private Map<Integer, PendingPoint> pendingPoints = new HashMap<>();
+
+    ParquetTableWriter(FileSystem fileSystem, String sinkPath, long rollSize, long rollIntervalMs) {
+        this.fileSystem = fileSystem;
+        this.conf = fileSystem.getConf();
+        this.sinkPath = sinkPath;
+        this.rollSize = rollSize;
+        this.rollIntervalMs = rollIntervalMs;
+    }
+
+    // the in-progress files are written by the crashed sync tool, the sync points of them were not persisted, data
+    // collectors will send the data again, so just delete them
+    public void cleanInProgressFiles() throws IOException {
+        for (FileStatus status : fileSystem.listStatus(new Path(sinkPath))) {
+            String name = status.getPath().getName();
+            if (name.startsWith(".") && name.endsWith(IN_PROGRESS_SUFFIX)) {
+                log.info("delete in-progress file {}", status.getPath());
+                fileSystem.delete(status.getPath(), false);
+            }
+        }
+    }
+
+    // returns the committed points if the file rolled, may be empty
+    public synchronized Map<Integer, PendingPoint> write(int pid, long version, DataSync.SyncPoint nextPoint,
+            ByteBuf data, long count, List<ColumnDesc> newSchema) throws Exception {
+        Map<Integer, PendingPoint> committed = new HashMap<>();
+        try {
+            // schema changed, rows should be written in a new file
+            if (writer != null && !schema.equals(newSchema)) {
+                log.info("schema changed, roll file {}", fileName);
+                committed.putAll(commit());
+            }
+            try {
+                if (writer == null) {
+                    open(newSchema);
+                }
+                DataParser parser = new DataParser(data, count, schema);
+                parser.writeAll(writer);
+            } catch (Exception e) {
+                // the rows written before the failure can't be removed from the file, drop the whole file, or they'll
+                // be written again when the data collector resends them
+                throw abort(e, pid);
+            }
+            pendingPoints.put(pid, new PendingPoint(version, nextPoint));
+            if (writer.getDataSize() >= rollSize) {
+                // later commit has the newer points
+                committed.putAll(commit());
+            }
+        } catch (DiscardedException e) {
+            e.committed.putAll(committed);
+            throw e;
+        }
+        return committed;
+    }
+
+    // no data but the sync point changed, returns false if no pending data of the partition, the point can be persisted
+    // directly
+    public synchronized boolean advanceIfPending(int pid, long version, DataSync.SyncPoint nextPoint) {
+        if (!pendingPoints.containsKey(pid)) {
+            return false;
+        }
+        pendingPoints.put(pid, new PendingPoint(version, nextPoint));
+        return true;
+    }
+
+    public synchronized Map<Integer, PendingPoint> rollIfExpired(long now) throws IOException {
+        if (writer != null && openTime + rollIntervalMs <= now) {
+            return commit();
+        }
+        return new HashMap<>();
+    }
+
+    // close the in-progress file and make it visible, the pending points are returned only if the file is committed
+    public synchronized Map<Integer, PendingPoint> commit() throws IOException {
+        if (writer != null) {
+            Path finished = new Path(sinkPath + fileName);
+            try {
+                writer.close();
+                writer = null;
+                Preconditions.checkState(fileSystem.rename(inProgressPath(), finished),
+                        "rename " + inProgressPath() + " to " + finished + " failed");
+            } catch (Exception e) {
+                throw abort(e, -1);
+            }
+            log.info("commit parquet file {}, partitions {}", finished, pendingPoints.keySet());
+        }
+        Map<Integer, PendingPoint> committed = pendingPoints;
+        pendingPoints = new HashMap<>();
+        return committed;
+    }
+
+    // drop the in-progress file and the pending points, failedPid is the partition being written, -1 if none
+    private DiscardedException abort(Exception cause, int failedPid) {
+        Set<Integer> pids = new HashSet<>(pendingPoints.keySet());
+        if (failedPid >= 0) {
+            pids.add(failedPid);
+        }
+        pendingPoints = new HashMap<>();
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (Exception e) {
+                log.warn("close parquet writer of dropped file {} failed", fileName, e);
+            }
+            writer = null;
+        }
+        if (fileName != null) {
+            try {
+                fileSystem.delete(inProgressPath(), false);
+            } catch (IOException e) {
+                // it'll be deleted in the next startup
+                log.warn("delete dropped file {} failed", inProgressPath(), e);
+            }
+        }
+        log.error("drop parquet file {}, partitions {}", fileName, pids, cause);
+        return new DiscardedException("parquet file " + fileName + " dropped, partitions " + pids, pids, cause);
+    }
+
+    private Path inProgressPath() {
+        return new Path(sinkPath + "." + fileName + IN_PROGRESS_SUFFIX);
+    }
+
+    private void open(List<ColumnDesc> newSchema) throws IOException {
+        schema = newSchema;
+        fileName = UUID.randomUUID().toString() + ".parquet";
+        Path inProgress = inProgressPath();
+        writer = new Builder(inProgress, schema)
+                .withConf(conf)
+                .withWriteMode(ParquetFileWriter.Mode.CREATE)
+                .withCompressionCodec(CompressionCodecName.SNAPPY)
+                .build();
+        openTime = System.currentTimeMillis();
+        log.info("open parquet file {}", inProgress);
+    }
+
+    private static class Builder extends ParquetWriter.Builder<RowView, Builder> {
+        private final List<ColumnDesc> schema;
+
+        Builder(Path path, List<ColumnDesc> schema) {
+            super(path);
+            this.schema = schema;
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<RowView> getWriteSupport(Configuration conf) {
+            return new RowViewWriteSupport(schema);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4paradigm.openmldb.synctool;
+
+import com._4paradigm.openmldb.common.codec.RowView;
+import com._4paradigm.openmldb.proto.Common.ColumnDesc;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+import org.apache.parquet.schema.Types;
+
+// write the row in RowView to parquet directly, no string formatting
+class RowViewWriteSupport extends WriteSupport<RowView> {
+    private final List<ColumnDesc> schema;
+    private final MessageType messageType;
+    private RecordConsumer recordConsumer;
+
+    RowViewWriteSupport(List<ColumnDesc> schema) {
+        this.schema = schema;
+        this.messageType = convertSchema(schema);
+    }
+
+    // spark-readable types: timestamp is TIMESTAMP(MILLIS), date is DATE(days since epoch)
+    static MessageType convertSchema(List<ColumnDesc> schema) {
+        Types.MessageTypeBuilder builder = Types.buildMessage();
+        for (ColumnDesc col : schema) {
+            Type.Repetition repetition = col.getNotNull() ? Type.Repetition.REQUIRED : Type.Repetition.OPTIONAL;
+            switch (col.getDataType()) {
+                case kBool:
+                    builder.primitive(PrimitiveTypeName.BOOLEAN, repetition).named(col.getName());
+                    break;
+                case kSmallInt:
+                    builder.primitive(PrimitiveTypeName.INT32, repetition)
+                            .as(LogicalTypeAnnotation.intType(16, true)).named(col.getName());
+                    break;
+                case kInt:
+                    builder.primitive(PrimitiveTypeName.INT32, repetition).named(col.getName());
+                    break;
+                case kBigInt:
+                    builder.primitive(PrimitiveTypeName.INT64, repetition).named(col.getName());
+                    break;
+                case kFloat:
+                    builder.primitive(PrimitiveTypeName.FLOAT, repetition).named(col.getName());
+                    break;
+                case kDouble:
+                    builder.primitive(PrimitiveTypeName.DOUBLE, repetition).named(col.getName());
+                    break;
+                case kDate:
+                    builder.primitive(PrimitiveTypeName.INT32, repetition)
+                            .as(LogicalTypeAnnotation.dateType()).named(col.getName());
+                    break;
+                case kTimestamp:
+                    builder.primitive(PrimitiveTypeName.INT64, repetition)
+                            .as(LogicalTypeAnnotation.timestampType(true, LogicalTypeAnnotation.TimeUnit.MILLIS))
+                            .named(col.getName());
+                    break;
+                case kString:
+                case kVarchar:
+                    builder.primitive(PrimitiveTypeName.BINARY, repetition)
+                            .as(LogicalTypeAnnotation.stringType()).named(col.getName());
+                    break;
+                default:
+                    throw new IllegalArgumentException("unsupported type " + col.getDataType() + " of " + col.getName());
+            }
+        }
+        return builder.named("openmldb_schema");
+    }
+
+    @Override
+    public WriteContext init(Configuration configuration) {
+        return new WriteContext(messageType, new HashMap<>());
+    }
+
+    @Override
+    public void prepareForWrite(RecordConsumer recordConsumer) {
+        this.recordConsumer = recordConsumer;
+    }
+
+    @Override
+    public void write(RowView row) {
+        recordConsumer.startMessage();
+        try {
+            for (int i = 0; i < schema.size(); i++) {
+                ColumnDesc col = schema.get(i);
+                Object value = row.getValue(i, col.getDataType());
+                // null field is just skipped
+                if (value == null) {
+                    continue;
+                }
+                recordConsumer.startField(col.getName(), i);
+                writeValue(col, value);
+                recordConsumer.endField(col.getName(), i);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("write row to parquet failed", e);
+        }
+        recordConsumer.endMessage();
+    }
+
+    private void writeValue(ColumnDesc col, Object value) {
+        switch (col.getDataType()) {
+            case kBool:
+                recordConsumer.addBoolean((Boolean) value);
+                break;
+            case kSmallInt:
+                recordConsumer.addInteger((Short) value);
+                break;
+            case kInt:
+                recordConsumer.addInteger((Integer) value);
+                break;
+            case kBigInt:
+                recordConsumer.addLong((Long) value);
+                break;
+            case kFloat:
+                recordConsumer.addFloat((Float) value);
+                break;
+            case kDouble:
+                recordConsumer.addDouble((Double) value);
+                break;
+            case kDate:
+                recordConsumer.addInteger((int) ((Date) value).toLocalDate().toEpochDay());
+                break;
+            case kTimestamp:
+                recordConsumer.addLong(((Timestamp) value).getTime());
+                break;
+            case kString:
+            case kVarchar:
+                recordConsumer.addBinary(Binary.fromString((String) value));
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported type " + col.getDataType());
+        }
+    }
+}
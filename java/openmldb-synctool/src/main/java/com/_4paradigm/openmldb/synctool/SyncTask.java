@@ -28,6 +28,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -47,6 +50,34 @@ public class SyncTask {
     private DataSync.AddSyncTaskRequest progress;
     @GuardedBy("this")
     private Long count = 0L;
+    // increased when progress updated, to avoid persisting an older sync point after a newer one
+    @GuardedBy("this")
+    private long progressVersion = 0;
+    @GuardedBy("this")
+    private long persistedVersion = 0;
+    // the sync point in progress file, the task goes back to it if write failed
+    @GuardedBy("this")
+    private DataSync.SyncPoint persistedPoint;
+    // the sync point of the data held by the sink, durable or pending in an in-progress file, the task goes back to
+    // it if write failed, the data before it won't be written again
+    @GuardedBy("this")
+    private DataSync.SyncPoint writtenPoint;
+
+    // the write stage of SendData, runs in the shared write executor, writes of one task are chained in order
+    public interface WriteStage {
+        void run() throws Exception;
+
+        // the stage won't run, release the resources it holds
+        default void drop() {
+        }
+    }
+
+    private final Semaphore writeSlots = new Semaphore(Math.max(1, SyncToolConfig.MAX_PENDING_WRITES));
+    @GuardedBy("this")
+    private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+    // increased when write failed, the pending writes of old epoch are dropped
+    @GuardedBy("this")
+    private long writeEpoch = 0;
 
     @Getter
     private AtomicLong lastUpdateTime;
@@ -68,6 +99,8 @@ public class SyncTask {
 
     public SyncTask(DataSync.AddSyncTaskRequest request, String dataCollector) {
         this.progress = request;
+        this.persistedPoint = request.getSyncPoint();
+        this.writtenPoint = request.getSyncPoint();
         this.dataCollector = dataCollector;
         // the path to save progress in local filesystem
         // <tid>/<pid>.progress
@@ -95,8 +128,12 @@ public class SyncTask {
     }
 
     private void saveProgressInFile() throws IOException {
+        saveProgressInFile(progress);
+    }
+
+    private void saveProgressInFile(DataSync.AddSyncTaskRequest savedProgress) throws IOException {
         FileOutputStream output = new FileOutputStream(progressPath);
-        progress.writeDelimitedTo(output);
+        savedProgress.writeDelimitedTo(output);
         output.close();
     }
 
@@ -125,9 +162,22 @@ public class SyncTask {
         }
     }
 
+    // the version which the next updateProgress will get
+    public synchronized long nextProgressVersion() {
+        return progressVersion + 1;
+    }
+
     public synchronized void updateProgress(DataSync.SendDataRequest request)
             throws IgnorableException {
+        updateProgress(request, true);
+    }
+
+    // If the data is not durable yet(e.g. in an in-progress parquet file), persist is false, only update the progress
+    // in memory, and call persistCommittedPoint when the data is durable.
+    public synchronized void updateProgress(DataSync.SendDataRequest request, boolean persist)
+            throws IgnorableException {
         preCheck(request);
+        progressVersion++;
         // even count == 0, point can be changed, so we use sync point to check if we
         // need to update
         DataSync.SyncPoint oldPoint = progress.getSyncPoint();
@@ -135,7 +185,11 @@ public class SyncTask {
             progress = progress.toBuilder().setSyncPoint(request.getNextPoint()).build();
             count += request.getCount();
             try {
-                saveProgressInFile();
+                if (persist) {
+                    saveProgressInFile();
+                    persistedVersion = progressVersion;
+                    persistedPoint = progress.getSyncPoint();
+                }
             } catch (IOException e) {
                 // can't handle this exception
                 // after preCheck, RUNNING->FAILED
@@ -153,6 +207,93 @@ public class SyncTask {
                 lastUpdateTime.get());
     }
 
+    // the data before point is durable, persist it if it's newer than the persisted one
+    public synchronized void persistCommittedPoint(long version, DataSync.SyncPoint point) {
+        // finished task has moved the progress file, don't create it again
+        if (version <= persistedVersion || status == Status.SUCCESS) {
+            return;
+        }
+        try {
+            saveProgressInFile(progress.toBuilder().setSyncPoint(point).build());
+            persistedVersion = version;
+            persistedPoint = point;
+        } catch (IOException e) {
+            status = Status.FAILED;
+            throw new RuntimeException("committed point persist failed, mark this task as unalive, check it manually. "
+                    + "point " + TextFormat.shortDebugString(point), e);
+        }
+    }
+
+    public void acquireWriteSlot() throws InterruptedException {
+        writeSlots.acquire();
+    }
+
+    public void releaseWriteSlot() {
+        writeSlots.release();
+    }
+
+    // call after acquireWriteSlot, the slot is released when the write finished, nextPoint is the sync point after the
+    // data of stage
+    public synchronized void submitWrite(WriteStage stage, DataSync.SyncPoint nextPoint, Executor executor) {
+        long epoch = writeEpoch;
+        lastWrite = lastWrite.thenRunAsync(() -> {
+            try {
+                if (epoch != currentWriteEpoch()) {
+                    log.warn("drop the pending write of a failed epoch, task {}", extraInfo());
+                    stage.drop();
+                    return;
+                }
+                stage.run();
+                onWritten(epoch, nextPoint);
+            } catch (Exception e) {
+                onWriteFailed(epoch, e);
+            } finally {
+                releaseWriteSlot();
+            }
+        }, executor);
+    }
+
+    // completes when all submitted writes are done, the stages never complete exceptionally
+    public synchronized CompletableFuture<Void> writesDone() {
+        return lastWrite;
+    }
+
+    private synchronized long currentWriteEpoch() {
+        return writeEpoch;
+    }
+
+    private synchronized void onWritten(long epoch, DataSync.SyncPoint nextPoint) {
+        if (epoch == writeEpoch) {
+            writtenPoint = nextPoint;
+        }
+    }
+
+    // The data collector has moved on, go back to the written point, so the next SendData fails in preCheck and the
+    // task will be reassigned from the written point. The data before it is in the sink already, even if it's pending.
+    private synchronized void onWriteFailed(long epoch, Exception e) {
+        log.error("write failed, task {}, back to the written point {}", extraInfo(),
+                TextFormat.shortDebugString(writtenPoint), e);
+        if (epoch != writeEpoch) {
+            return;
+        }
+        writeEpoch++;
+        progress = progress.toBuilder().setSyncPoint(writtenPoint).build();
+    }
+
+    // The sink dropped the data which is not persisted, go back to the persisted point like a failed write. The
+    // pending writes are dropped, they're after the lost data.
+    public synchronized void discardUnpersisted() {
+        log.error("unpersisted data is dropped, task {}, back to the persisted point {}", extraInfo(),
+                TextFormat.shortDebugString(persistedPoint));
+        writeEpoch++;
+        writtenPoint = persistedPoint;
+        progress = progress.toBuilder().setSyncPoint(persistedPoint).build();
+    }
+
+    public synchronized boolean isAllPersisted() {
+        return persistedVersion == progressVersion;
+    }
+
     // message Task is only for show
     public synchronized DataSync.Task buildTaskPB() {
         return DataSync.Task.newBuilder()
@@ -65,6 +65,9 @@ public class SyncTool {
         if (rpcServer != null) {
             rpcServer.shutdown();
         }
+        if (syncToolService != null) {
+            syncToolService.close();
+        }
     }
 
     public static void main(String[] args) {
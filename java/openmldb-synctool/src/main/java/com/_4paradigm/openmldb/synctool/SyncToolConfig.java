@@ -34,6 +34,10 @@ public class SyncToolConfig {
     public static int PORT;
     public static int WORKER_THREAD;
     public static int IO_THREAD;
+    // threads to write synced data to sink, shared by all sync tasks
+    public static int WRITE_THREAD;
+    // max pending writes of one sync task, SendData will block if exceeded
+    public static int MAX_PENDING_WRITES;
     // public static int CHANNEL_KEEP_ALIVE_TIME;
     public static String ZK_CLUSTER;
     public static String ZK_ROOT_PATH;
@@ -44,6 +48,10 @@ public class SyncToolConfig {
     public static String SYNC_TASK_PROGRESS_PATH;
 
     public static String HADOOP_CONF_DIR;
+    // csv or parquet
+    public static String SINK_FORMAT;
+    public static long PARQUET_ROLL_SIZE; // bytes
+    public static int PARQUET_ROLL_INTERVAL; // seconds
 
     public static String DATA_CACHE_PATH;
     public static int FLINK_SLOTS;
@@ -80,6 +88,10 @@ public class SyncToolConfig {
         }
         WORKER_THREAD = Integer.parseInt(prop.getProperty("server.worker_threads", "16"));
         IO_THREAD = Integer.parseInt(prop.getProperty("server.io_threads", "4"));
+        WRITE_THREAD = Integer.parseInt(prop.getProperty("sink.write_threads", "16"));
+        MAX_PENDING_WRITES = Integer.parseInt(prop.getProperty("sink.max_pending_writes", "4"));
+        Preconditions.checkArgument(WRITE_THREAD > 0 && MAX_PENDING_WRITES > 0,
+                "sink.write_threads and sink.max_pending_writes should be positive");
 
         ZK_CLUSTER = prop.getProperty("zookeeper.cluster", "");
         if (ZK_CLUSTER.isEmpty()) {
@@ -102,6 +114,12 @@ public class SyncToolConfig {
                     "hadoop.conf.dir should not be empty, set in system env or synctool.properties");
         }
 
+        SINK_FORMAT = prop.getProperty("sink.format", "csv").toLowerCase();
+        Preconditions.checkArgument(SINK_FORMAT.equals("csv") || SINK_FORMAT.equals("parquet"),
+                "sink.format should be csv or parquet");
+        PARQUET_ROLL_SIZE = Long.parseLong(prop.getProperty("sink.parquet.roll_size", "134217728"));
+        PARQUET_ROLL_INTERVAL = Integer.parseInt(prop.getProperty("sink.parquet.roll_interval", "300"));
+
         // TODO(hw): just for flink tunnel, not used now
         DATA_CACHE_PATH = prop.getProperty("data.cache_path", "");
         // Preconditions.checkArgument(!DATA_CACHE_PATH.isEmpty(), "data.cache_path
@@ -42,12 +42,13 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -73,12 +74,16 @@ public class SyncToolImpl implements SyncToolInterface {
     private String zkCollectorPath;
     private ScheduledExecutorService executor;
 
-    // holds all sync tasks <tid, <pid, SyncTask>>, big lock
-    // guard by itself
-    private Map<Integer, Map<Integer, SyncTask>> syncTasks = Collections.synchronizedMap(new HashMap<>());
+    // holds all sync tasks <tid, <pid, SyncTask>>, SendData reads it without lock, creating and cleaning the tasks of
+    // one table are guarded by itself
+    private Map<Integer, Map<Integer, SyncTask>> syncTasks = new ConcurrentHashMap<>();
     // <tid, <db, table>>, we need to know db and table name for each tid to get
     // table info(to find data collector, to get the latest schema)
-    private Map<Integer, Pair<String, String>> tid2dbtable = Collections.synchronizedMap(new HashMap<>());
+    private Map<Integer, Pair<String, String>> tid2dbtable = new ConcurrentHashMap<>();
+    // <tid, schema>, avoid getting table info for every SendData
+    private final Map<Integer, CachedSchema> schemaCache = new ConcurrentHashMap<>();
+    // shared by all sync tasks, the writes of one task are run in order
+    private final ExecutorService writeExecutor;
 
     public SyncToolImpl(String endpoint) throws SqlException, InterruptedException {
         this.endpoint = endpoint;
@@ -99,6 +104,7 @@ public class SyncToolImpl implements SyncToolInterface {
 
         // a background thread to check sync task status and reassign tasks
         executor = Executors.newScheduledThreadPool(1);
+        writeExecutor = Executors.newFixedThreadPool(SyncToolConfig.WRITE_THREAD);
     }
 
     public void init() {
@@ -152,6 +158,11 @@ public class SyncToolImpl implements SyncToolInterface {
                     }
                 }
             }
+            // roll parquet files by time, persist the committed points outside the syncTasks lock
+            if (HDFSTunnel.getInstance().isParquetSink()) {
+                HDFSTunnel.getInstance().rollExpiredParquet(this::discardUnpersisted)
+                        .forEach(this::persistCommittedPoints);
+            }
             // reassign tasks outside the lock
             for (SyncTask task : reassignTasks) {
                 // choose another data collector if the current one is down or partition leader
@@ -219,7 +230,7 @@ public class SyncToolImpl implements SyncToolInterface {
                 int tid = entry.getKey();
                 Preconditions.checkState(
                         !syncTasks.containsKey(tid), "tid already in syncTasks, sth wrong, tid: " + tid);
-                syncTasks.put(tid, new HashMap<>());
+                syncTasks.put(tid, new ConcurrentHashMap<>());
                 // recover all pid task
                 log.info("recover sync task for tid: {}, pid size {}", tid, entry.getValue().size());
                 for (Path file : entry.getValue()) {
@@ -311,7 +322,7 @@ public class SyncToolImpl implements SyncToolInterface {
                     respBuilder.setCode(-1).setMsg("sync task already exists(creating or created)");
                     return respBuilder.build();
                 }
-                syncTasks.put(tid, new HashMap<>());
+                syncTasks.put(tid, new ConcurrentHashMap<>());
                 log.info(
                         "creating sync tasks for table {}.{}({})", request.getDb(), request.getName(), tid);
             }
@@ -370,6 +381,7 @@ public class SyncToolImpl implements SyncToolInterface {
     private void cleanEnv(int tid) {
         synchronized (syncTasks) {
             syncTasks.remove(tid);
+            schemaCache.remove(tid);
             Path tidProcess = Paths.get(SyncToolConfig.SYNC_TASK_PROGRESS_PATH + '/' + tid);
             if (Files.exists(tidProcess)) {
                 try {
@@ -386,6 +398,22 @@ public class SyncToolImpl implements SyncToolInterface {
         }
     }
 
+    // stop the background threads, the writes of all tasks share the write executor, so it's shut down with the
+    // service rather than a task. Pending writes are finished, their points can be persisted.
+    public void close() {
+        executor.shutdownNow();
+        writeExecutor.shutdown();
+        try {
+            if (!writeExecutor.awaitTermination(SyncToolConfig.TASK_CHECK_PERIOD, TimeUnit.SECONDS)) {
+                log.warn("pending writes are not finished in {}s, drop them", SyncToolConfig.TASK_CHECK_PERIOD);
+                writeExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writeExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private Pair<String, String> findDataCollectorInHost(int tid, int pid) throws Exception {
         Pair<String, String> pair = tid2dbtable.get(tid);
         Preconditions.checkState(pair != null, "can't find tid in tid2dbtable, tid: " + tid);
@@ -510,55 +538,67 @@ public class SyncToolImpl implements SyncToolInterface {
         DataSync.SendDataResponse.Builder respBuilder = DataSync.SendDataResponse.newBuilder();
         respBuilder.getResponseBuilder().setCode(0);
         try {
-            SyncTask task;
-            synchronized (syncTasks) {
-                if (!syncTasks.containsKey(request.getTid())) {
-                    // we may receive many invalid send data request, just log it, no need to print
-                    // stack
-                    throw new IgnorableException("can't find sync task, tid: " + request.getTid());
-                }
-                Map<Integer, SyncTask> tasksForTid = syncTasks.get(request.getTid());
-                if (!tasksForTid.containsKey(request.getPid())) {
-                    throw new IgnorableException(
-                            "can't find sync task, tid: " + request.getTid() + ", pid: " + request.getPid());
-                }
-                task = tasksForTid.get(request.getPid());
+            // no global lock, requests of different partitions are handled concurrently
+            Map<Integer, SyncTask> tasksForTid = syncTasks.get(request.getTid());
+            if (tasksForTid == null) {
+                // we may receive many invalid send data request, just log it, no need to print
+                // stack
+                throw new IgnorableException("can't find sync task, tid: " + request.getTid());
             }
-            synchronized (task) {
-                // precheck, but still may fail cuz syncTasks table has created before tunnel
-                // created, we can't avoid this(although we delay the first sync on data
-                // collector, but it's not a guarantee)
-                task.preCheck(request);
-                // store data, store to file or else. data collector don't need to read them
-                // again, so update the sync point
-                if (request.getCount() != 0) {
-                    ByteBuf data = RpcContext.getContext().getRequestBinaryAttachment();
-                    Preconditions.checkState(data != null, "attachment data is null");
-                    log.info("store data, tid: {}, pid: {}, count: {}, size: {}", request.getTid(),
-                            request.getPid(), request.getCount(), data.readableBytes());
-                    Pair<String, String> pair = tid2dbtable.get(request.getTid());
-                    // get the newest schema, to avoid schema change
-                    // not getTableSchema, because it's not good to RowView
-                    NS.TableInfo tableInfo = router.getTableInfo(pair.getLeft(), pair.getRight());
-
-                    // write to hdfs
-                    HDFSTunnel.getInstance().writeData(
-                            tableInfo.getTid(), data, request.getCount(), tableInfo.getColumnDescList());
-                    // for flink, write to local file, flink monitor the file and read it
-                    // saveToCache(genCacheDir(tableInfo.getTid()), data, request.getCount(),
-                    // tableInfo.getColumnDescList());
+            SyncTask task = tasksForTid.get(request.getPid());
+            if (task == null) {
+                throw new IgnorableException(
+                        "can't find sync task, tid: " + request.getTid() + ", pid: " + request.getPid());
+            }
+            ByteBuf data = null;
+            if (request.getCount() != 0) {
+                data = RpcContext.getContext().getRequestBinaryAttachment();
+                Preconditions.checkState(data != null, "attachment data is null");
+            }
+            // too many pending writes, block the data collector
+            task.acquireWriteSlot();
+            SyncTask.WriteStage stage = null;
+            boolean submitted = false;
+            try {
+                synchronized (task) {
+                    // precheck, but still may fail cuz syncTasks table has created before tunnel
+                    // created, we can't avoid this(although we delay the first sync on data
+                    // collector, but it's not a guarantee)
+                    task.preCheck(request);
+                    stage = buildWriteStage(task, request, data);
+                    // update the sync point in memory, so the data collector can send the next data. The write stage
+                    // persists the sync point after the data is durable. If the write failed, the task goes back to
+                    // the persisted point, data collector will be reassigned from it.
+                    task.updateProgress(request, false);
+                    task.submitWrite(stage, request.getNextPoint(), writeExecutor);
+                    submitted = true;
+                }
+            } finally {
+                if (!submitted) {
+                    if (stage != null) {
+                        stage.drop();
+                    }
+                    task.releaseWriteSlot();
                 }
-                // TODO(hw): what if sync tool shutdown here? already store data, but progress
-                // is not updated
-
-                // If store failed, don't update sync point, and no need to do other things.
-                // Outdated tasks will be find by taskCheck.
-                task.updateProgress(request);
             }
 
             if (request.hasFinished() && request.getFinished()) {
                 // if data collector send finished, it's removed the task in itself already
-                log.info("sync task {}-{} finished, bak and remove it", request.getTid(), request.getPid());
+                log.info("sync task {}-{} finished, wait for writes, bak and remove it", request.getTid(),
+                        request.getPid());
+                task.writesDone().join();
+                if (HDFSTunnel.getInstance().isParquetSink()) {
+                    // make the data of the finished task durable before closing it
+                    try {
+                        persistCommittedPoints(request.getTid(),
+                                HDFSTunnel.getInstance().flushParquet(request.getTid()));
+                    } catch (ParquetTableWriter.DiscardedException e) {
+                        discardUnpersisted(request.getTid(), e);
+                        throw e;
+                    }
+                }
+                Preconditions.checkState(task.isAllPersisted(),
+                        "some data of finished task is not persisted, task will be reassigned");
                 task.close();
             }
         } catch (Exception e) {
@@ -572,6 +612,140 @@ public class SyncToolImpl implements SyncToolInterface {
         return respBuilder.build();
     }
 
+    // call with task lock, after preCheck
+    private SyncTask.WriteStage buildWriteStage(SyncTask task, DataSync.SendDataRequest request, ByteBuf data)
+            throws Exception {
+        int tid = request.getTid();
+        int pid = request.getPid();
+        long count = request.getCount();
+        long version = task.nextProgressVersion();
+        DataSync.SyncPoint nextPoint = request.getNextPoint();
+        boolean parquetSink = HDFSTunnel.getInstance().isParquetSink();
+        if (count == 0) {
+            // even no data, the point should be persisted after the previous data, so it's a write stage too
+            return () -> {
+                // parquet: persist now if no pending data of this partition
+                if (!parquetSink || !HDFSTunnel.getInstance().advanceParquet(tid, pid, version, nextPoint)) {
+                    task.persistCommittedPoint(version, nextPoint);
+                }
+            };
+        }
+        log.info("store data, tid: {}, pid: {}, count: {}, size: {}", tid, pid, count, data.readableBytes());
+        // get the schema of the rows, to avoid schema change
+        // not getTableSchema, because it's not good to RowView
+        List<ColumnDesc> schema = getSchema(tid, data, count);
+        // the attachment is released after rpc, hold it until written
+        ByteBuf retained = data.retain();
+        return new SyncTask.WriteStage() {
+            @Override
+            public void run() throws Exception {
+                try {
+                    if (parquetSink) {
+                        // write to the long-lived parquet file of the table, the file may roll and commit
+                        try {
+                            persistCommittedPoints(tid, HDFSTunnel.getInstance().writeParquet(tid, pid, version,
+                                    nextPoint, retained, count, schema));
+                        } catch (ParquetTableWriter.DiscardedException e) {
+                            discardUnpersisted(tid, e);
+                            throw e;
+                        }
+                    } else {
+                        // write to hdfs, the file is durable after closed
+                        HDFSTunnel.getInstance().writeData(tid, retained, count, schema);
+                        task.persistCommittedPoint(version, nextPoint);
+                    }
+                    // for flink, write to local file, flink monitor the file and read it
+                    // saveToCache(genCacheDir(tid), data, count, schema);
+                } finally {
+                    retained.release();
+                }
+            }
+
+            @Override
+            public void drop() {
+                retained.release();
+            }
+        };
+    }
+
+    // the cached schema is refreshed only when rows have a newer schema version than it
+    private List<ColumnDesc> getSchema(int tid, ByteBuf data, long count) throws SQLException {
+        int rowVersion = maxSchemaVersion(data, count);
+        CachedSchema cached = schemaCache.get(tid);
+        if (cached == null || cached.version < rowVersion) {
+            Pair<String, String> pair = tid2dbtable.get(tid);
+            Preconditions.checkState(pair != null, "can't find tid in tid2dbtable, tid: " + tid);
+            NS.TableInfo tableInfo = router.getTableInfo(pair.getLeft(), pair.getRight());
+            int version = 1;
+            if (tableInfo.getSchemaVersionsCount() > 0) {
+                version = tableInfo.getSchemaVersions(tableInfo.getSchemaVersionsCount() - 1).getId();
+            }
+            cached = new CachedSchema(version, tableInfo.getColumnDescList());
+            schemaCache.put(tid, cached);
+            log.info("refresh schema of tid {}, version {}, row version {}", tid, version, rowVersion);
+        }
+        return cached.schema;
+    }
+
+    // row header: 1 byte format version, 1 byte schema version, 4 bytes row size(little endian)
+    private static int maxSchemaVersion(ByteBuf data, long count) {
+        int version = 0;
+        int offset = data.readerIndex();
+        for (long i = 0; i < count && offset + 6 <= data.writerIndex(); i++) {
+            version = Math.max(version, data.getByte(offset + 1));
+            offset += data.getIntLE(offset + 2);
+        }
+        return version;
+    }
+
+    private static class CachedSchema {
+        final int version;
+        final List<ColumnDesc> schema;
+
+        CachedSchema(int version, List<ColumnDesc> schema) {
+            this.version = version;
+            this.schema = schema;
+        }
+    }
+
+    private void persistCommittedPoints(int tid, Map<Integer, ParquetTableWriter.PendingPoint> committed) {
+        if (committed.isEmpty()) {
+            return;
+        }
+        Map<Integer, SyncTask> tasksForTid = syncTasks.get(tid);
+        if (tasksForTid == null) {
+            log.warn("tid {} is removed, skip persisting committed points", tid);
+            return;
+        }
+        for (Map.Entry<Integer, ParquetTableWriter.PendingPoint> entry : committed.entrySet()) {
+            SyncTask task = tasksForTid.get(entry.getKey());
+            if (task == null) {
+                log.warn("task {}-{} is removed, skip persisting committed point", tid, entry.getKey());
+                continue;
+            }
+            try {
+                task.persistCommittedPoint(entry.getValue().version, entry.getValue().point);
+            } catch (Exception e) {
+                log.error("persist committed point failed, task {}", task.extraInfo(), e);
+            }
+        }
+    }
+
+    // the file is dropped, persist the points committed before it, and the tasks of the lost data go back
+    private void discardUnpersisted(int tid, ParquetTableWriter.DiscardedException e) {
+        persistCommittedPoints(tid, e.committed);
+        Map<Integer, SyncTask> tasksForTid = syncTasks.get(tid);
+        if (tasksForTid == null) {
+            return;
+        }
+        for (int pid : e.pids) {
+            SyncTask task = tasksForTid.get(pid);
+            if (task != null) {
+                task.discardUnpersisted();
+            }
+        }
+    }
+
     public void saveToCache(
             String cacheDir, ByteBuf data, final long count, List<ColumnDesc> schema) {
         Preconditions.checkArgument(!schema.isEmpty(), "schema is empty");
@@ -207,7 +207,20 @@ public class TaskManagerClient {
             String errorMessage = "Fail to request, code: " + response.getCode() + ", error: " + response.getMsg();
             throw new Exception(errorMessage);
         }
-        return response.getOutput();
+        StringBuilder output = new StringBuilder(response.getOutput());
+        // Fetch the rest pages of large result
+        while (response.getHasMore()) {
+            TaskManager.FetchJobResultRequest fetchRequest = TaskManager.FetchJobResultRequest.newBuilder()
+                    .setResultId(response.getResultId())
+                    .build();
+            response = taskManagerInterface.FetchJobResult(fetchRequest);
+            if (response.getCode() != 0) {
+                String errorMessage = "Fail to request, code: " + response.getCode() + ", error: " + response.getMsg();
+                throw new Exception(errorMessage);
+            }
+            output.append(response.getOutput());
+        }
+        return output.toString();
     }
     
     /**
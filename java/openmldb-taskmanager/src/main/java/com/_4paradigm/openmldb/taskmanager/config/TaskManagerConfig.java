@@ -157,6 +157,14 @@ public class TaskManagerConfig {
         return getInt("job.tracker.interval");
     }
 
+    public static int getSparkSessionPoolSize() {
+        return getInt("spark.session.pool.size");
+    }
+
+    public static int getSparkSessionPoolTimeout() {
+        return getInt("spark.session.pool.timeout");
+    }
+
     public static String getSparkDefaultConf() {
         return getString("spark.default.conf");
     }
@@ -190,6 +198,18 @@ public class TaskManagerConfig {
         return getLong("batch.job.result.max.wait.time");
     }
 
+    public static int getBatchJobResultChannelPort() {
+        return getInt("batch.job.result.channel.port");
+    }
+
+    public static int getBatchJobResultPageRows() {
+        return getInt("batch.job.result.page.rows");
+    }
+
+    public static long getBatchJobResultTtl() {
+        return getLong("batch.job.result.ttl");
+    }
+
 
     public static String getK8sHadoopConfigmapName() {
         return getString("k8s.hadoop.configmap");
@@ -431,6 +451,28 @@ public class TaskManagerConfig {
             throw new ConfigException("job.tracker.interval", "should be larger than 0");
         }
 
+        // 0 means launching a new Spark application for each job
+        if (props.getProperty("spark.session.pool.size") == null) {
+            props.setProperty("spark.session.pool.size", "0");
+        }
+
+        if (getSparkSessionPoolSize() < 0) {
+            throw new ConfigException("spark.session.pool.size", "should not be negative");
+        }
+
+        if (getSparkSessionPoolSize() > 0 && isK8s()) {
+            throw new ConfigException("spark.session.pool.size", "is unsupported in k8s mode");
+        }
+
+        // seconds, 0 means waiting for the sql in session forever
+        if (props.getProperty("spark.session.pool.timeout") == null) {
+            props.setProperty("spark.session.pool.timeout", "3600");
+        }
+
+        if (getSparkSessionPoolTimeout() < 0) {
+            throw new ConfigException("spark.session.pool.timeout", "should not be negative");
+        }
+
         if (props.getProperty("spark.default.conf") == null) {
             props.setProperty("spark.default.conf", "");
         }
@@ -519,6 +561,31 @@ public class TaskManagerConfig {
             props.setProperty("batch.job.result.max.wait.time", "600000");
         }
 
+        // 0 means a random free port
+        if (props.getProperty("batch.job.result.channel.port") == null) {
+            props.setProperty("batch.job.result.channel.port", "0");
+        }
+
+        if (getBatchJobResultChannelPort() < 0) {
+            throw new ConfigException("batch.job.result.channel.port", "should not be negative");
+        }
+
+        if (props.getProperty("batch.job.result.page.rows") == null) {
+            props.setProperty("batch.job.result.page.rows", "100000");
+        }
+
+        if (getBatchJobResultPageRows() <= 0) {
+            throw new ConfigException("batch.job.result.page.rows", "should be larger than 0");
+        }
+
+        if (props.getProperty("batch.job.result.ttl") == null) {
+            props.setProperty("batch.job.result.ttl", "1800000");
+        }
+
+        if (getBatchJobResultTtl() <= 0) {
+            throw new ConfigException("batch.job.result.ttl", "should be larger than 0");
+        }
+
         if (props.getProperty("k8s.hadoop.configmap") == null) {
             props.setProperty("k8s.hadoop.configmap", "hadoop-config");
         }
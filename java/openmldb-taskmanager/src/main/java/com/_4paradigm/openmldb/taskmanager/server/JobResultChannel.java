@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.taskmanager.server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The socket server which receives the job result streamed by offline jobs.
+ * Each connection starts with [magic(4)|result id(4)] and follows frames of [type(1)|length(4)|payload]. Row
+ * batches are appended to the spill file of the result by JobResultSaver, END and FINISH frames are acked after the
+ * data has been written, so the sender knows when it's safe to finish.
+ * The protocol should be the same with com._4paradigm.openmldb.batch.utils.JobResultChannelWriter.
+ */
+@Slf4j
+public class JobResultChannel {
+    public static final int MAGIC = 0x4f524553;
+    public static final byte FRAME_ROWS = 1;
+    public static final byte FRAME_END = 2;
+    public static final byte FRAME_FINISH = 3;
+    public static final byte ACK_OK = 0;
+    public static final byte ACK_FAILED = 1;
+
+    private final JobResultSaver saver;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connectionPool;
+    private final Thread acceptThread;
+
+    public JobResultChannel(JobResultSaver saver, String host, int port) throws IOException {
+        this.saver = saver;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(host, port));
+        this.connectionPool = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "job-result-channel-connection");
+            t.setDaemon(true);
+            return t;
+        });
+        this.acceptThread = new Thread(this::acceptLoop, "job-result-channel-accept");
+        this.acceptThread.setDaemon(true);
+    }
+
+    public void start() {
+        acceptThread.start();
+        log.info("job result channel listens on port {}", getPort());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void close() throws IOException {
+        serverSocket.close();
+        connectionPool.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionPool.submit(() -> handleConnection(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("accept job result connection failed", e);
+                }
+            }
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        int resultId = -1;
+        try (Socket s = socket;
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), 64 * 1024));
+                DataOutputStream out = new DataOutputStream(s.getOutputStream())) {
+            if (in.readInt() != MAGIC) {
+                log.warn("invalid job result connection from {}", s.getRemoteSocketAddress());
+                return;
+            }
+            resultId = in.readInt();
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    // connection closed by sender
+                    return;
+                }
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                if (type == FRAME_ROWS) {
+                    saver.appendRows(resultId, payload);
+                } else if (type == FRAME_END) {
+                    out.writeByte(saver.flushRows(resultId) ? ACK_OK : ACK_FAILED);
+                    out.flush();
+                } else if (type == FRAME_FINISH) {
+                    out.writeByte(saver.finishResult(resultId, payload) ? ACK_OK : ACK_FAILED);
+                    out.flush();
+                } else {
+                    log.warn("unknown frame type {} of result {}", type, resultId);
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("receive job result failed, result id " + resultId, e);
+        }
+    }
+}
@@ -20,213 +20,435 @@ import com._4paradigm.openmldb.taskmanager.config.TaskManagerConfig;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVPrinter;
-import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.csv.QuoteMode;
 import org.apache.commons.io.FileUtils;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
-import java.util.Iterator;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Should be thread-safe
  * We'll save job result in TaskManagerConfig.JOB_LOG_PATH/tmp_result, not
  * offline storage path,
  * cuz we just want result restored in local file system.
+ * Row batches received by JobResultChannel are appended to one spill file per result id, and read back page by
+ * page, so the whole result is never held in memory.
+ * Results are registered in a concurrent map and each result has its own lock and completion future, so saving or
+ * reading one result never blocks the others. Finished results which are not read in
+ * batch.job.result.ttl are removed in background.
  */
 @Slf4j
 public class JobResultSaver {
-    // false: unused, true: using
-    // 0: unused, 1: saving, 2: finished but still in use
-    private List<Integer> idStatus;
+    public enum ResultState {
+        SAVING, FINISHED, READING
+    }
+
+    // result id -> slot of the saving or reading result
+    private final Map<Integer, ResultSlot> slots = new ConcurrentHashMap<>();
+    private final AtomicInteger nextResultId = new AtomicInteger(0);
+
+    // metrics
+    private final AtomicLong createdNum = new AtomicLong(0);
+    private final AtomicLong readNum = new AtomicLong(0);
+    private final AtomicLong discardedNum = new AtomicLong(0);
+    private final AtomicLong expiredNum = new AtomicLong(0);
+    private final AtomicLong receivedRowBatchNum = new AtomicLong(0);
+    private final AtomicLong receivedBytes = new AtomicLong(0);
+
+    private final ScheduledExecutorService cleaner;
 
     public JobResultSaver() {
-        idStatus = Collections.synchronizedList(new ArrayList<>(Collections.nCopies(128, 0)));
+        // The result ids are not reused after restart, the spill files left are useless
+        FileUtils.deleteQuietly(new File(getTmpResultDir()));
+
+        cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-result-cleaner");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1000, Math.min(TaskManagerConfig.getBatchJobResultTtl() / 2, 60000));
+        cleaner.scheduleWithFixedDelay(this::cleanExpiredResults, interval, interval, TimeUnit.MILLISECONDS);
     }
 
     /**
      * Generate unique id for job result, != spark job id
-     * We generate id before submit the spark job, so don't worry about saveFile for
-     * result id when result id status==0
+     * We generate id before submit the spark job, so don't worry about appendRows for
+     * result id when result is not registered
      */
     public int genResultId() {
-        int id;
-        // atomic
-        synchronized (idStatus) {
-            id = idStatus.indexOf(0);
-            if (id == -1) {
-                throw new RuntimeException("too much running jobs to save job result, reject this spark job");
+        while (true) {
+            // keep the id non-negative, -1 is used to reset by http
+            int id = nextResultId.getAndUpdate(i -> i == Integer.MAX_VALUE ? 0 : i + 1);
+            if (slots.putIfAbsent(id, new ResultSlot(id)) == null) {
+                createdNum.incrementAndGet();
+                return id;
             }
-            idStatus.set(id, 1);
-        }
-        return id;
-    }
-
-    public String genUniqueFileName() {
-        String file;
-        synchronized (this) {
-            file = UUID.randomUUID().toString();
         }
-        return String.format("%s.csv", file);
     }
 
-    public boolean saveFile(int resultId, String jsonData) {
-        // No need to wait, cuz id status must have been changed by genResultId before.
+    /**
+     * Append a row batch of the result to its spill file, the batch is kept in the channel format.
+     */
+    public void appendRows(int resultId, byte[] batch) throws IOException {
+        // No need to wait, cuz the slot must have been registered by genResultId before.
         // It's a check.
-        if (log.isDebugEnabled()) {
-            log.debug("save result " + resultId + ", data " + jsonData);
-        }
-        int status = idStatus.get(resultId);
-        if (status != 1) {
-            throw new RuntimeException(
-                    String.format("why send to not running save job %d(status %d)", resultId, status));
+        ResultSlot slot = slots.get(resultId);
+        if (slot == null) {
+            throw new RuntimeException(String.format("why send to not running save job %d", resultId));
         }
-        if (jsonData.isEmpty()) {
-            synchronized (idStatus) {
-                idStatus.set(resultId, 2);
-                idStatus.notifyAll();
+        synchronized (slot) {
+            if (slot.state != ResultState.SAVING) {
+                throw new RuntimeException(
+                        String.format("why send to not running save job %d(state %s)", resultId, slot.state));
             }
-            log.info("saved all result of result " + resultId);
-            return true;
+            slot.append(batch);
         }
-        // save to <log path>/tmp_result/<result_id>/<unique file name>
-        String savePath = String.format("%s/tmp_result/%d", TaskManagerConfig.getJobLogPath(), resultId);
-        synchronized (this) {
-            File saveP = new File(savePath);
-            if (!saveP.exists()) {
-                boolean res = saveP.mkdirs();
-                log.info("create save path " + savePath + ", status " + res);
-            }
+        receivedRowBatchNum.incrementAndGet();
+        receivedBytes.addAndGet(batch.length);
+    }
+
+    /**
+     * Make sure the appended rows are written to the spill file.
+     */
+    public boolean flushRows(int resultId) {
+        ResultSlot slot = slots.get(resultId);
+        if (slot == null) {
+            return false;
         }
-        String fileFullPath = String.format("%s/%s", savePath, genUniqueFileName());
-        File resultFile = new File(fileFullPath);
-        try {
-            if (!resultFile.createNewFile()) {
-                throw new RuntimeException("job result file already exsits before creating, file name is not unique? "
-                        + fileFullPath);
+        synchronized (slot) {
+            try {
+                slot.flush();
+                return true;
+            } catch (IOException e) {
+                log.error("flush result to file failed, result id " + resultId, e);
+                return false;
             }
-        } catch (IOException e) {
-            log.error("create file failed, path " + fileFullPath, e);
-            return false;
         }
+    }
 
-        try (FileWriter wr = new FileWriter(fileFullPath)) {
-            wr.write(jsonData);
-            wr.flush();
-        } catch (IOException e) {
-            // Write failed, we'll lost a part of result, but it's ok for show sync job
-            // output. So we just log it, and response the http request.
-            log.error("write result to file failed, path " + fileFullPath, e);
+    /**
+     * All partitions are sent, mark the result as finished and wake up the reader.
+     *
+     * @param schema the column names in the channel format
+     */
+    public boolean finishResult(int resultId, byte[] schema) throws IOException {
+        List<String> columnNames = new ArrayList<>();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(schema));
+        int columnNum = in.readInt();
+        for (int i = 0; i < columnNum; i++) {
+            columnNames.add(readValue(in));
+        }
+        ResultSlot slot = slots.get(resultId);
+        if (slot == null) {
+            log.warn("finish unknown result {}, it may be expired or discarded", resultId);
             return false;
         }
+        synchronized (slot) {
+            try {
+                slot.closeWriter();
+            } catch (IOException e) {
+                log.error("close result file failed, result id " + resultId, e);
+                return false;
+            }
+            slot.columnNames = columnNames;
+            if (slot.state == ResultState.SAVING) {
+                slot.state = ResultState.FINISHED;
+            }
+            slot.touch();
+        }
+        slot.finished.complete(null);
+        log.info("saved all result of result " + resultId);
         return true;
     }
 
     // if exception, reset manually by http
     public String readResult(int resultId, long timeoutMs) throws InterruptedException, IOException {
-        long timeoutExpiredMs = System.currentTimeMillis() + timeoutMs;
-        // wait for idStatus[resultId] == 2
-        synchronized (idStatus) {
-            while (System.currentTimeMillis() < timeoutExpiredMs && idStatus.get(resultId) != 2) {
-                idStatus.wait();
-            }
+        ResultSlot slot = slots.get(resultId);
+        if (slot == null) {
+            throw new IOException("result " + resultId + " not found, it may be expired or discarded");
         }
-        if (idStatus.get(resultId) != 2) {
+        try {
+            slot.finished.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
             log.warn("read result timeout, result saving may be still running, try read anyway, id " + resultId);
+        } catch (ExecutionException | CancellationException e) {
+            throw new IOException("result " + resultId + " is discarded", e);
         }
-        String output = "";
-        // all finished, read csv from savePath
-        String savePath = String.format("%s/tmp_result/%d", TaskManagerConfig.getJobLogPath(), resultId);
-        File saveP = new File(savePath);
-        // If saveP not exists, means no real result saved. But it may use a uncleaned
-        // path, whether read result succeed or not, we should delete it.
-        if (saveP.exists()) {
-            output = printFilesTostr(savePath);
-            FileUtils.forceDelete(saveP);
-        } else {
-            log.info("empty result for " + resultId + ", show empty string");
-        }
-        // reset id
-        synchronized (idStatus) {
-            idStatus.set(resultId, 0);
-            idStatus.notifyAll();
-        }
-        return output;
+        return readPage(resultId);
     }
 
-    public String printFilesTostr(String fileDir) {
-        try (StringWriter stringWriter = new StringWriter();
-                Stream<Path> paths = Files.walk(Paths.get(fileDir))) {
-            List<String> csvFiles = paths.filter(Files::isRegularFile).map(f -> f.toString())
-                    .filter(f -> f.endsWith(".csv"))
-                    .collect(Collectors.toList());
-            if (csvFiles.isEmpty()) {
-                return "no valid result file, may use the uncleaned result path, clean it by me";
+    /**
+     * Read the next page of result as csv, the header is printed in the first page. The spill file is deleted and the
+     * result id is released after the last page.
+     */
+    public String readPage(int resultId) throws IOException {
+        ResultSlot slot = slots.get(resultId);
+        if (slot == null) {
+            throw new IOException("result " + resultId + " not found, it may be expired or discarded");
+        }
+        String output;
+        boolean finished;
+        synchronized (slot) {
+            slot.state = ResultState.READING;
+            slot.touch();
+            StringWriter stringWriter = new StringWriter();
+            try {
+                finished = slot.readPage(stringWriter, TaskManagerConfig.getBatchJobResultPageRows());
+                output = stringWriter.toString();
+            } catch (IOException e) {
+                log.warn("read result met exception, result id " + resultId + ", " + e.getMessage());
+                finished = true;
+                output = "read met exception, check the taskmanager log";
+            }
+        }
+        if (finished) {
+            // If no spill file, means no real result saved.
+            if (output.isEmpty()) {
+                log.info("empty result for " + resultId + ", show empty string");
             }
-            // print the header the first file
-            printFile(csvFiles.get(0), stringWriter, true);
-            for (int i = 1; i < csvFiles.size(); i++) {
-                printFile(csvFiles.get(i), stringWriter, false);
+            if (release(resultId)) {
+                readNum.incrementAndGet();
             }
-            return stringWriter.toString();
-        } catch (Exception e) {
-            log.warn("read result met exception when read " + fileDir + ", " + e.getMessage());
-            e.printStackTrace();
-            return "read met exception, check the taskmanager log";
         }
+        return output;
     }
 
-    // CSVPrinter can't do pretty print
-    private void printFile(String file, StringWriter stringWriter, boolean printHeader) {
-        // QuoteMode.MINIMAL is more simillary to spark dataframe output? or None?
-        CSVFormat.Builder baseFormat = CSVFormat.Builder.create(CSVFormat.DEFAULT).setEscape('\\')
-        .setQuoteMode(QuoteMode.MINIMAL).setNullString("null");
-        // DEFAULT header is null, skip print header by printer ctor(we don't want)
-        CSVFormat printFormat = baseFormat.build();
-        // to auto parse header
-        CSVFormat parseFormat = baseFormat.setHeader().build();
+    /**
+     * If the result still has unread pages.
+     */
+    public boolean hasMoreResult(int resultId) {
+        ResultSlot slot = slots.get(resultId);
+        return slot != null && slot.state == ResultState.READING;
+    }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(file));
-                CSVParser parser = new CSVParser(br, parseFormat);
-                CSVPrinter csvPrinter = new CSVPrinter(stringWriter, printFormat)) {
-            // When create the CSVPrinter, we don't know the header, so it won't print header by header is null in format.
-            // And we get header by parser, it'll parse header automatically by setHeader(), so we print it manually
-            if (printHeader) {
-                csvPrinter.printRecord(parser.getHeaderNames());
-            }
+    /**
+     * Discard the result which will never be read, e.g. the job failed.
+     */
+    public void discardResult(int resultId) {
+        if (release(resultId)) {
+            discardedNum.incrementAndGet();
+            log.info("discard result " + resultId);
+        }
+    }
 
-            Iterator<CSVRecord> iter = parser.iterator();
-            while (iter.hasNext()) {
-                csvPrinter.printRecord(iter.next());
+    private boolean release(int resultId) {
+        ResultSlot slot = slots.remove(resultId);
+        if (slot == null) {
+            return false;
+        }
+        synchronized (slot) {
+            slot.delete();
+        }
+        // wake up the reader if it's still waiting
+        slot.finished.cancel(false);
+        return true;
+    }
+
+    /**
+     * Remove the results which are finished or being read but not accessed for a long time, the reader may have
+     * given up. The saving results are released by their submitter.
+     */
+    private void cleanExpiredResults() {
+        try {
+            long expireTime = System.currentTimeMillis() - TaskManagerConfig.getBatchJobResultTtl();
+            for (ResultSlot slot : slots.values()) {
+                if (slot.state != ResultState.SAVING && slot.lastAccessMs < expireTime) {
+                    if (release(slot.id)) {
+                        expiredNum.incrementAndGet();
+                        log.warn("result {} is not read in ttl, remove it", slot.id);
+                    }
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("job result saver metrics: {}", getMetrics());
             }
         } catch (Exception e) {
-            log.warn("error when print result file " + file + ", ignore it");
-            e.printStackTrace();
+            log.warn("clean expired results failed", e);
         }
     }
 
-    // To reset the idStatus and remove tmp result dir
+    /**
+     * Get the metrics of saved results, counters are accumulated since TaskManager starts.
+     */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        long saving = slots.values().stream().filter(slot -> slot.state == ResultState.SAVING).count();
+        metrics.put("active_results", (long) slots.size());
+        metrics.put("saving_results", saving);
+        metrics.put("created_results", createdNum.get());
+        metrics.put("read_results", readNum.get());
+        metrics.put("discarded_results", discardedNum.get());
+        metrics.put("expired_results", expiredNum.get());
+        metrics.put("received_row_batches", receivedRowBatchNum.get());
+        metrics.put("received_bytes", receivedBytes.get());
+        return metrics;
+    }
+
+    private static String readValue(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String getTmpResultDir() {
+        return String.format("%s/tmp_result", TaskManagerConfig.getJobLogPath());
+    }
+
+    // To release all results and remove tmp result dir
     public void reset() throws IOException {
-        synchronized (idStatus) {
-            Collections.fill(idStatus, 0);
+        for (Integer resultId : new ArrayList<>(slots.keySet())) {
+            release(resultId);
         }
-        String tmpResultDir = String.format("%s/tmp_result", TaskManagerConfig.getJobLogPath());
+        String tmpResultDir = getTmpResultDir();
         // delete anyway
         FileUtils.forceDelete(new File(tmpResultDir));
     }
+
+    /**
+     * The slot of one result. The spill file is a sequence of [length(4)|row batch]. Should be used with the lock of
+     * itself, except the completion future and the fields read by the cleaner.
+     */
+    private static class ResultSlot {
+        private final int id;
+        private final File file;
+        private final CompletableFuture<Void> finished = new CompletableFuture<>();
+        private volatile ResultState state = ResultState.SAVING;
+        private volatile long lastAccessMs = System.currentTimeMillis();
+        private DataOutputStream writer;
+        private DataInputStream reader;
+        // finished writing, late batches will be dropped
+        private boolean writeClosed = false;
+        private List<String> columnNames;
+
+        ResultSlot(int id) {
+            this.id = id;
+            file = new File(getTmpResultDir(), String.format("%d.data", id));
+        }
+
+        void touch() {
+            lastAccessMs = System.currentTimeMillis();
+        }
+
+        void append(byte[] batch) throws IOException {
+            if (writeClosed) {
+                log.warn("result file {} is closed for writing, drop a batch", file);
+                return;
+            }
+            if (writer == null) {
+                File dir = file.getParentFile();
+                if (!dir.exists()) {
+                    boolean res = dir.mkdirs();
+                    log.info("create save path " + dir + ", status " + res);
+                }
+                writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, false), 64 * 1024));
+            }
+            writer.writeInt(batch.length);
+            writer.write(batch);
+        }
+
+        void flush() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        void closeWriter() throws IOException {
+            writeClosed = true;
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+        }
+
+        /**
+         * Print rows of batches to the writer until no less than pageRows rows are printed.
+         *
+         * @return true if all rows have been read
+         */
+        boolean readPage(StringWriter stringWriter, int pageRows) throws IOException {
+            // QuoteMode.MINIMAL is more simillary to spark dataframe output? or None?
+            CSVFormat printFormat = CSVFormat.Builder.create(CSVFormat.DEFAULT).setEscape('\\')
+                    .setQuoteMode(QuoteMode.MINIMAL).setNullString("null").build();
+            CSVPrinter csvPrinter = new CSVPrinter(stringWriter, printFormat);
+            if (reader == null) {
+                // read anyway if reading timeout
+                closeWriter();
+                if (!file.exists()) {
+                    return true;
+                }
+                reader = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+                if (columnNames != null) {
+                    csvPrinter.printRecord(columnNames);
+                }
+            }
+            int printedRows = 0;
+            List<String> values = new ArrayList<>();
+            while (printedRows < pageRows) {
+                int length;
+                try {
+                    length = reader.readInt();
+                } catch (EOFException e) {
+                    csvPrinter.flush();
+                    return true;
+                }
+                byte[] batch = new byte[length];
+                reader.readFully(batch);
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(batch));
+                int rowNum = in.readInt();
+                int columnNum = in.readInt();
+                for (int i = 0; i < rowNum; i++) {
+                    values.clear();
+                    for (int j = 0; j < columnNum; j++) {
+                        values.add(readValue(in));
+                    }
+                    csvPrinter.printRecord(values);
+                }
+                printedRows += rowNum;
+            }
+            csvPrinter.flush();
+            return false;
+        }
+
+        void delete() {
+            try {
+                closeWriter();
+                if (reader != null) {
+                    reader.close();
+                    reader = null;
+                }
+            } catch (IOException e) {
+                log.warn("close result file failed, " + file, e);
+            }
+            FileUtils.deleteQuietly(file);
+        }
+    }
 }
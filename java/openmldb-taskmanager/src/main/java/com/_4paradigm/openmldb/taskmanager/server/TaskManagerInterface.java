@@ -67,4 +67,7 @@ public interface TaskManagerInterface {
 
     @BrpcMeta(serviceName = "openmldb.taskmanager.TaskManagerServer", methodName = "SaveJobResult")
     TaskManager.SaveJobResultResponse SaveJobResult(TaskManager.SaveJobResultRequest request);
+
+    @BrpcMeta(serviceName = "openmldb.taskmanager.TaskManagerServer", methodName = "FetchJobResult")
+    TaskManager.RunBatchSqlResponse FetchJobResult(TaskManager.FetchJobResultRequest request);
 }
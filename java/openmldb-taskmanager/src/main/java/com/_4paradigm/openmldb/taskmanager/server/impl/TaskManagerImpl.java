@@ -26,9 +26,11 @@ import com._4paradigm.openmldb.taskmanager.OpenmldbBatchjobManager;
 import com._4paradigm.openmldb.taskmanager.config.ConfigException;
 import com._4paradigm.openmldb.taskmanager.config.TaskManagerConfig;
 import com._4paradigm.openmldb.taskmanager.dao.JobInfo;
+import com._4paradigm.openmldb.taskmanager.server.JobResultChannel;
 import com._4paradigm.openmldb.taskmanager.server.JobResultSaver;
 import com._4paradigm.openmldb.taskmanager.server.StatusCode;
 import com._4paradigm.openmldb.taskmanager.server.TaskManagerInterface;
+import com._4paradigm.openmldb.taskmanager.spark.SparkSessionPool;
 import com._4paradigm.openmldb.taskmanager.udf.ExternalFunctionManager;
 import com._4paradigm.openmldb.taskmanager.util.VersionUtil;
 import com._4paradigm.openmldb.taskmanager.utils.VersionCli;
@@ -52,6 +54,8 @@ public class TaskManagerImpl implements TaskManagerInterface {
 
     private volatile JobResultSaver jobResultSaver;
 
+    private volatile JobResultChannel jobResultChannel;
+
     /**
      * Constructor of TaskManagerImpl.
      *
@@ -59,9 +63,27 @@ public class TaskManagerImpl implements TaskManagerInterface {
      * @throws ConfigException
      */
     public TaskManagerImpl() throws InterruptedException, ConfigException {
+        TaskManagerConfig.parse();
+
         jobResultSaver = new JobResultSaver();
 
-        TaskManagerConfig.parse();
+        try {
+            jobResultChannel = new JobResultChannel(jobResultSaver, TaskManagerConfig.getServerHost(),
+                    TaskManagerConfig.getBatchJobResultChannelPort());
+            jobResultChannel.start();
+        } catch (IOException e) {
+            throw new ConfigException("batch.job.result.channel.port",
+                    "fail to start result channel, " + e.getMessage());
+        }
+
+        if (TaskManagerConfig.getSparkSessionPoolSize() > 0) {
+            try {
+                SparkSessionPool.start(getResultChannelAddress());
+            } catch (IOException e) {
+                throw new ConfigException("spark.session.pool.size",
+                        "fail to start spark session pool, " + e.getMessage());
+            }
+        }
 
         initExternalFunction();
     }
@@ -213,18 +235,20 @@ public class TaskManagerImpl implements TaskManagerInterface {
         }
     }
 
+    private String getResultChannelAddress() {
+        return String.format("%s:%d", TaskManagerConfig.getServerHost(), jobResultChannel.getPort());
+    }
+
     @Override
     public TaskManager.RunBatchSqlResponse RunBatchSql(TaskManager.RunBatchSqlRequest request) {
+        int resultId = -1;
         try {
             Map<String, String> confMap = new HashMap<>(request.getConfMap());
             // add conf about SaveJobResult
             // HOST can't be 0.0.0.0 if distributed or spark is not local
-            confMap.put("spark.openmldb.savejobresult.http",
-                    String.format("http://%s:%d/openmldb.taskmanager.TaskManagerServer/SaveJobResult",
-                            TaskManagerConfig.getServerHost(), TaskManagerConfig.getServerPort()));
+            confMap.put("spark.openmldb.savejobresult.channel", getResultChannelAddress());
             // we can't get spark job id here, so we use JobResultSaver id, != spark job id
-            // if too much running jobs to save result, throw exception
-            int resultId = jobResultSaver.genResultId();
+            resultId = jobResultSaver.genResultId();
             confMap.put("spark.openmldb.savejobresult.resultid", String.valueOf(resultId));
             JobInfo jobInfo = OpenmldbBatchjobManager.runBatchSql(request.getSql(), confMap,
                     request.getDefaultDb());
@@ -237,14 +261,18 @@ public class TaskManagerImpl implements TaskManagerInterface {
                 // TODO: Test for K8S backend
                 String output = jobResultSaver.readResult(resultId, TaskManagerConfig.getBatchJobResultMaxWaitTime());
                 return TaskManager.RunBatchSqlResponse.newBuilder().setCode(StatusCode.SUCCESS).setOutput(output)
-                        .build();
+                        .setResultId(resultId).setHasMore(jobResultSaver.hasMoreResult(resultId)).build();
             } else {
+                jobResultSaver.discardResult(resultId);
                 String errorMsg = String.format("The job %d fail and use 'SHOW JOBLOG %d' for more info", jobId, jobId);
                 return TaskManager.RunBatchSqlResponse.newBuilder().setCode(StatusCode.FAILED).setMsg(errorMsg)
                         .build();
             }
         } catch (Exception e) {
             e.printStackTrace();
+            if (resultId != -1) {
+                jobResultSaver.discardResult(resultId);
+            }
             return TaskManager.RunBatchSqlResponse.newBuilder().setCode(StatusCode.FAILED).setMsg(e.getMessage())
                     .build();
         }
@@ -462,13 +490,31 @@ public class TaskManagerImpl implements TaskManagerInterface {
                         .setMsg("reset job result saver failed, " + e.getMessage()).build();
             }
         }
-        // log if save failed
-        if (!jobResultSaver.saveFile(request.getResultId(), request.getJsonData())) {
-            log.error("save job result failed(write to local file) for resultId: {}", request.getResultId());
-            return TaskManager.SaveJobResultResponse.newBuilder().setCode(StatusCode.FAILED)
-                    .setMsg("save job result failed(write to local file)").build();
+        if (request.getResultId() == -1 && request.getJsonData().equals("metrics")) {
+            return TaskManager.SaveJobResultResponse.newBuilder().setCode(StatusCode.SUCCESS)
+                    .setMsg(jobResultSaver.getMetrics().toString()).build();
+        }
+        // job result is streamed by JobResultChannel, only reset and metrics are supported by http
+        return TaskManager.SaveJobResultResponse.newBuilder().setCode(StatusCode.FAILED)
+                .setMsg("save job result by http is unsupported, use the result channel").build();
+    }
+
+    @Override
+    public TaskManager.RunBatchSqlResponse FetchJobResult(TaskManager.FetchJobResultRequest request) {
+        int resultId = request.getResultId();
+        try {
+            if (!jobResultSaver.hasMoreResult(resultId)) {
+                return TaskManager.RunBatchSqlResponse.newBuilder().setCode(StatusCode.FAILED)
+                        .setMsg("no more result for result id " + resultId).build();
+            }
+            String output = jobResultSaver.readPage(resultId);
+            return TaskManager.RunBatchSqlResponse.newBuilder().setCode(StatusCode.SUCCESS).setOutput(output)
+                    .setResultId(resultId).setHasMore(jobResultSaver.hasMoreResult(resultId)).build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return TaskManager.RunBatchSqlResponse.newBuilder().setCode(StatusCode.FAILED).setMsg(e.getMessage())
+                    .build();
         }
-        return TaskManager.SaveJobResultResponse.newBuilder().setCode(StatusCode.SUCCESS).setMsg("ok").build();
     }
 
 }
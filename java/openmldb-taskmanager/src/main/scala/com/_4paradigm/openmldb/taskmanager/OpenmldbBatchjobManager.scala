@@ -19,7 +19,7 @@ package com._4paradigm.openmldb.taskmanager
 import com._4paradigm.openmldb.taskmanager.config.TaskManagerConfig
 import com._4paradigm.openmldb.taskmanager.dao.JobInfo
 import com._4paradigm.openmldb.taskmanager.k8s.K8sJobManager
-import com._4paradigm.openmldb.taskmanager.spark.SparkJobManager
+import com._4paradigm.openmldb.taskmanager.spark.{SparkJobManager, SparkSessionPool}
 import com._4paradigm.openmldb.taskmanager.util.SqlFileUtil
 import org.slf4j.LoggerFactory
 import scala.collection.JavaConverters._
@@ -52,6 +52,21 @@ object OpenmldbBatchjobManager {
     val jobType = "RunBatchSql"
     val mainClass = "com._4paradigm.openmldb.batchjob.RunBatchSql"
 
+    // The warm session can not change its Spark config, so only dispatch the job without user config. The user of
+    // OpenMLDB is added by the client for every offline query, and the session switches to it for each request.
+    val onlyResultConf = sparkConf.asScala.keys.forall(key => key.startsWith("spark.openmldb.savejobresult.") ||
+      key == "spark.openmldb.user" || key == "spark.openmldb.password")
+    if (SparkSessionPool.isStarted && onlyResultConf) {
+      val resultId = sparkConf.get("spark.openmldb.savejobresult.resultid").toInt
+      val user = sparkConf.getOrDefault("spark.openmldb.user", "")
+      val password = sparkConf.getOrDefault("spark.openmldb.password", "")
+      val sessionJobInfo = SparkSessionPool.runBatchSql(sql, defaultDb, resultId, user, password)
+      if (sessionJobInfo.nonEmpty) {
+        return sessionJobInfo.get
+      }
+      logger.info("No idle spark session, launch a new Spark application to run sql")
+    }
+
     val tempSqlFile = SqlFileUtil.createTempSqlFile(sql)
     val args = List(tempSqlFile.getAbsolutePath)
 
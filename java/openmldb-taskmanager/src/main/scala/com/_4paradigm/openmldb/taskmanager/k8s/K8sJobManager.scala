@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory
 import java.io.{File, FileOutputStream}
 import java.nio.file.Paths
 import java.util.Calendar
+import java.util.concurrent.CountDownLatch
 import scala.collection.mutable
 
 
@@ -121,10 +122,8 @@ object K8sJobManager {
     manager.waitAndWatch(jobInfo: JobInfo)
     
     if (blocking) {
-      while (JobInfoManager.getJob(jobInfo.getId).get.isFinished) {
-        // TODO: Make this configurable
-        Thread.sleep(3000L)
-      }
+      // Wait for the final state event of the driver pod
+      manager.awaitJobFinished()
     }
 
     jobInfo
@@ -142,6 +141,13 @@ class K8sJobManager(val namespace:String = "default",
   val client = new DefaultKubernetesClient(k8sConfig)
   var podLogWatch: LogWatch = null
 
+  // Released once the watched job reaches final state
+  private val jobFinishedLatch = new CountDownLatch(1)
+
+  def awaitJobFinished(): Unit = {
+    jobFinishedLatch.await()
+  }
+
   def listAllPods(): Unit = {
     // List Pods in the specified namespace
     val pods = client.pods().inNamespace(namespace).list().getItems
@@ -293,6 +299,7 @@ class K8sJobManager(val namespace:String = "default",
 
     client.pods().inNamespace(namespace).withName(podName).watch(new Watcher[Pod] {
       override def eventReceived(action: Watcher.Action, resource: Pod): Unit = {
+        val lastState = jobInfo.getState
         // handle pod status change event
         if (resource.getStatus.getPhase.equals("Succeeded")) {
           jobInfo.setState("finished")
@@ -309,6 +316,11 @@ class K8sJobManager(val namespace:String = "default",
             s"but not update job state")
         }
 
+        // Pod events are also received for unrelated changes, only sync when job state changes
+        if (jobInfo.getState.equals(lastState)) {
+          return
+        }
+
         logger.info("Job(id=%d) state change to %s".format(jobInfo.getId, jobInfo.getState))
 
         if (jobInfo.isFinished) {
@@ -317,8 +329,12 @@ class K8sJobManager(val namespace:String = "default",
           jobInfo.setEndTime(endTime)
 
           // TODO: Get error message to set
+        }
+
+        jobInfo.sync()
 
-          jobInfo.sync()
+        if (jobInfo.isFinished) {
+          jobFinishedLatch.countDown()
         }
 
       }
@@ -330,6 +346,15 @@ class K8sJobManager(val namespace:String = "default",
          } else {
            println("Pod watch closed normally")
          }
+         // No more events will be received, the job can not reach final state without them
+         if (!jobInfo.isFinished) {
+           logger.warn(s"Pod watch of job ${jobInfo.getId} closed before the job finished, set job state to failed")
+           jobInfo.setState("failed")
+           jobInfo.setEndTime(new java.sql.Timestamp(Calendar.getInstance.getTime().getTime()))
+           jobInfo.sync()
+         }
+         // Do not block the waiting submitter
+         jobFinishedLatch.countDown()
       }
 
     })
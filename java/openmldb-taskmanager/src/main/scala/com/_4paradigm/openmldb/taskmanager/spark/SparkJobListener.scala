@@ -21,15 +21,30 @@ import org.apache.spark.launcher.SparkAppHandle
 import org.slf4j.LoggerFactory
 
 import java.util.Calendar
+import java.util.concurrent.CountDownLatch
 
 class SparkJobListener(jobInfo: JobInfo) extends SparkAppHandle.Listener{
 
   private val logger = LoggerFactory.getLogger(this.getClass)
 
+  // Released once the application reaches final state
+  private val finalStateLatch = new CountDownLatch(1)
+
+  /**
+   * Block until the application reaches final state and the job info has been synced.
+   */
+  def awaitFinalState(): Unit = {
+    finalStateLatch.await()
+  }
+
   override def stateChanged(handle: SparkAppHandle): Unit = {
     val state = handle.getState
 
-    // TODO: Sync job info with system table
+    // The launcher may notify the same state more than once, only sync when something changes
+    if (state.toString.equals(jobInfo.getState) && !isAppIdChanged(handle)) {
+      return
+    }
+
     // Set state
     jobInfo.setState(state.toString)
     logger.info("Job(id=%d) state change to %s".format(jobInfo.getId, state))
@@ -53,10 +68,22 @@ class SparkJobListener(jobInfo: JobInfo) extends SparkAppHandle.Listener{
     }
 
     jobInfo.sync()
+
+    if (state.isFinal) {
+      finalStateLatch.countDown()
+    }
   }
 
   override def infoChanged(handle: SparkAppHandle): Unit = {
-    // TODO: Check if we can update applicationId from callback
+    // The application id is reported by info event, sync it before the next state change
+    if (isAppIdChanged(handle) && !handle.getState.isFinal) {
+      jobInfo.setApplicationId(handle.getAppId)
+      jobInfo.sync()
+    }
+  }
+
+  private def isAppIdChanged(handle: SparkAppHandle): Boolean = {
+    handle.getAppId != null && !handle.getAppId.equals(jobInfo.getApplicationId)
   }
 
 }
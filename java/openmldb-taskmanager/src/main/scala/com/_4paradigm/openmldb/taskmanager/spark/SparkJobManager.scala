@@ -171,13 +171,12 @@ object SparkJobManager {
     ExternalFunctionManager.getAllLibraryFilePaths().forEach(filePath => launcher.addFile(filePath))
 
     // Submit Spark application and watch state with custom listener
-    val sparkAppHandler = launcher.startApplication(new SparkJobListener(jobInfo))
+    val listener = new SparkJobListener(jobInfo)
+    launcher.startApplication(listener)
 
     if (blocking) {
-      while (!sparkAppHandler.getState().isFinal()) {
-        // TODO: Make this configurable
-        Thread.sleep(3000L)
-      }
+      // Wait for the final state callback instead of polling the handle
+      listener.awaitFinalState()
     }
 
     jobInfo
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.taskmanager.spark
+
+import com._4paradigm.openmldb.batchjob.util.SessionProtocol
+import com._4paradigm.openmldb.batchjob.util.SessionProtocol.SessionRequest
+import com._4paradigm.openmldb.taskmanager.JobInfoManager
+import com._4paradigm.openmldb.taskmanager.config.TaskManagerConfig
+import com._4paradigm.openmldb.taskmanager.dao.JobInfo
+import com._4paradigm.openmldb.taskmanager.yarn.YarnClientUtil
+import org.slf4j.LoggerFactory
+
+import java.io.{BufferedInputStream, BufferedOutputStream, DataInputStream, DataOutputStream, IOException}
+import java.net.{InetSocketAddress, ServerSocket, Socket, SocketTimeoutException}
+import java.util.Calendar
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * The pool of long-lived Spark applications which run RunSessionServer.
+ *
+ * The session servers dial the dispatcher socket of TaskManager after their Spark driver and OpenMLDB session are
+ * ready, then the batch sql is dispatched to an idle one instead of launching a new Spark application. A broken
+ * session is replaced by a new one, so the pool keeps its size.
+ */
+object SparkSessionPool {
+  private val logger = LoggerFactory.getLogger(this.getClass)
+
+  private val mainClass = "com._4paradigm.openmldb.batchjob.RunSessionServer"
+
+  private class PooledSession(val sessionId: Int, val appId: String, socket: Socket) {
+    val in = new DataInputStream(new BufferedInputStream(socket.getInputStream))
+    val out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream))
+
+    // 0 means no timeout
+    def setReadTimeout(timeoutMs: Int): Unit = socket.setSoTimeout(timeoutMs)
+
+    def close(): Unit = {
+      try {
+        socket.close()
+      } catch {
+        case e: IOException => logger.warn(s"Fail to close session $sessionId, " + e.getMessage)
+      }
+    }
+  }
+
+  private val idleSessions = new LinkedBlockingQueue[PooledSession]()
+  private val nextSessionId = new AtomicInteger(0)
+  @volatile private var serverSocket: ServerSocket = _
+  @volatile private var resultChannel: String = _
+
+  def isStarted: Boolean = serverSocket != null
+
+  def idleSessionNum: Int = idleSessions.size()
+
+  /**
+   * Start the dispatcher and launch the session servers.
+   *
+   * @param resultChannelAddress the host:port of job result channel
+   */
+  @throws[IOException]
+  def start(resultChannelAddress: String): Unit = this.synchronized {
+    if (isStarted) {
+      return
+    }
+    resultChannel = resultChannelAddress
+    serverSocket = new ServerSocket()
+    serverSocket.bind(new InetSocketAddress(TaskManagerConfig.getServerHost, 0))
+
+    val acceptThread = new Thread(() => acceptLoop(), "spark-session-dispatcher")
+    acceptThread.setDaemon(true)
+    acceptThread.start()
+
+    for (_ <- 0 until TaskManagerConfig.getSparkSessionPoolSize) {
+      launchSession()
+    }
+    logger.info(s"Start spark session pool with size ${TaskManagerConfig.getSparkSessionPoolSize}, dispatcher port " +
+      serverSocket.getLocalPort)
+  }
+
+  def stop(): Unit = this.synchronized {
+    if (serverSocket != null) {
+      serverSocket.close()
+      serverSocket = null
+    }
+    // Closing the connection makes session server exit
+    var session = idleSessions.poll()
+    while (session != null) {
+      session.close()
+      session = idleSessions.poll()
+    }
+  }
+
+  private def launchSession(): Unit = {
+    val sessionId = nextSessionId.getAndIncrement()
+    val sparkConf = Map(
+      "spark.openmldb.session.dispatcher" -> s"${TaskManagerConfig.getServerHost}:${serverSocket.getLocalPort}",
+      "spark.openmldb.session.id" -> sessionId.toString,
+      "spark.openmldb.savejobresult.channel" -> resultChannel)
+    try {
+      SparkJobManager.submitSparkJob("SessionServer", mainClass, sparkConf = sparkConf)
+    } catch {
+      case e: Exception => logger.error(s"Fail to launch spark session $sessionId", e)
+    }
+  }
+
+  private def acceptLoop(): Unit = {
+    val server = serverSocket
+    while (server != null && !server.isClosed) {
+      try {
+        val socket = server.accept()
+        val in = new DataInputStream(new BufferedInputStream(socket.getInputStream))
+        val (sessionId, appId) = SessionProtocol.readHandshake(in)
+        logger.info(s"Spark session $sessionId($appId) is ready")
+        idleSessions.put(new PooledSession(sessionId, appId, socket))
+      } catch {
+        case e: Exception =>
+          if (!server.isClosed) {
+            logger.warn("Fail to accept spark session, " + e.getMessage)
+          }
+      }
+    }
+  }
+
+  /**
+   * Run the batch sql in an idle session and save result with the result id. The sql fails if it doesn't finish in
+   * spark.session.pool.timeout, and the session is replaced.
+   *
+   * @param user the user of OpenMLDB to run the sql, empty means the user of TaskManager
+   * @return the finished job info, or None if there is no idle session and the caller should launch a new application
+   */
+  def runBatchSql(sql: String, defaultDb: String, resultId: Int, user: String = "",
+                  password: String = ""): Option[JobInfo] = {
+    val session = idleSessions.poll()
+    if (session == null) {
+      return None
+    }
+
+    try {
+      SessionProtocol.writeRequest(session.out, SessionRequest(sql, defaultDb, resultId, user, password))
+    } catch {
+      case e: IOException =>
+        // The session has exited when idle, the sql is not sent and can be dispatched to another one
+        replaceBrokenSession(session, e)
+        return runBatchSql(sql, defaultDb, resultId, user, password)
+    }
+
+    val jobInfo = JobInfoManager.createJobInfo("RunBatchSql", List(sql))
+    jobInfo.setApplicationId(session.appId)
+    jobInfo.setState("RUNNING")
+    jobInfo.sync()
+    logger.info(s"Run job ${jobInfo.getId} in spark session ${session.sessionId}")
+
+    try {
+      session.setReadTimeout(TaskManagerConfig.getSparkSessionPoolTimeout * 1000)
+      val (status, message) = SessionProtocol.readResponse(session.in)
+      if (status == SessionProtocol.STATUS_OK) {
+        jobInfo.setState("FINISHED")
+      } else {
+        jobInfo.setState("FAILED")
+        jobInfo.setError(message)
+      }
+      idleSessions.put(session)
+    } catch {
+      case e: SocketTimeoutException =>
+        // The session is still running the sql, kill it, the result stream is incomplete
+        jobInfo.setState("FAILED")
+        jobInfo.setError(s"Timeout after ${TaskManagerConfig.getSparkSessionPoolTimeout}s in spark session " +
+          session.sessionId)
+        killSession(session)
+        replaceBrokenSession(session, e)
+      case e: IOException =>
+        jobInfo.setState("FAILED")
+        jobInfo.setError(s"Spark session ${session.sessionId} is broken, " + e.getMessage)
+        replaceBrokenSession(session, e)
+    }
+
+    jobInfo.setEndTime(new java.sql.Timestamp(Calendar.getInstance.getTime().getTime()))
+    jobInfo.sync()
+    Some(jobInfo)
+  }
+
+  // The session exits when it finds the connection closed, but it's busy with the sql, so kill the yarn application.
+  // Other applications exit after the sql.
+  private def killSession(session: PooledSession): Unit = {
+    if (TaskManagerConfig.isYarn && session.appId != null) {
+      try {
+        YarnClientUtil.killYarnJob(session.appId)
+      } catch {
+        case e: Exception => logger.warn(s"Fail to kill spark session ${session.sessionId}(${session.appId}), " +
+          e.getMessage)
+      }
+    }
+  }
+
+  private def replaceBrokenSession(session: PooledSession, e: IOException): Unit = {
+    logger.warn(s"Spark session ${session.sessionId} is broken, launch a new one, " + e.getMessage)
+    session.close()
+    if (isStarted) {
+      launchSession()
+    }
+  }
+
+}
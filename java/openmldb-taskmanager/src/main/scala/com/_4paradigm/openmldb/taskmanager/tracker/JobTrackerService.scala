@@ -13,13 +13,8 @@ object JobTrackerService {
 
     for (job <- unfinishedJobs) {
       if (job.isYarnClusterJob && job.getApplicationId.nonEmpty) {
-        logger.info("Start tracker thread to track job: " + job)
-
-        // Get submitted yarn jobs
-        val trackerThread = new YarnJobTrackerThread(job)
-
-        // Start thread to track state
-        trackerThread.start()
+        // Track state of submitted yarn jobs with the shared tracker
+        YarnJobTracker.track(job)
       } else {
         // Can not track local job, yarn-client job or job without application id, set state as LOST
         logger.info("Unable to track job state: " + job)
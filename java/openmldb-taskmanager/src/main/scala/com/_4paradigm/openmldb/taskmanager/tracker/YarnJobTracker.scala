@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.taskmanager.tracker
+
+import com._4paradigm.openmldb.taskmanager.config.TaskManagerConfig
+import com._4paradigm.openmldb.taskmanager.dao.JobInfo
+import com._4paradigm.openmldb.taskmanager.yarn.YarnClientUtil
+import org.apache.hadoop.yarn.client.api.YarnClient
+import org.apache.spark.launcher.SparkAppHandle.State
+import org.slf4j.LoggerFactory
+
+import java.util.{Calendar, Collections}
+import java.util.concurrent.{ConcurrentHashMap, Executors, ScheduledExecutorService, TimeUnit}
+import scala.collection.JavaConverters.collectionAsScalaIterableConverter
+
+/**
+ * Track the state of submitted yarn-cluster jobs.
+ *
+ * All tracked jobs share one scheduler thread and one yarn client. Each round lists the spark applications in one
+ * request, syncs the jobs whose state changed and stops tracking the ones which reach final state.
+ */
+object YarnJobTracker {
+  private val logger = LoggerFactory.getLogger(this.getClass)
+
+  private val SparkAppType = "SPARK"
+
+  // Job id -> job info of the unfinished jobs
+  private val trackedJobs = new ConcurrentHashMap[Int, JobInfo]()
+
+  private lazy val yarnClient: YarnClient = YarnClientUtil.createYarnClient()
+
+  private lazy val scheduler: ScheduledExecutorService = {
+    val executor = Executors.newSingleThreadScheduledExecutor((runnable: Runnable) => {
+      val thread = new Thread(runnable, "yarn-job-tracker")
+      thread.setDaemon(true)
+      thread
+    })
+    val interval = TaskManagerConfig.getJobTrackerInterval.toLong
+    executor.scheduleWithFixedDelay(() => pollAll(), interval, interval, TimeUnit.SECONDS)
+    executor
+  }
+
+  def track(job: JobInfo): Unit = {
+    logger.info("Start to track job: " + job)
+    trackedJobs.put(job.getId, job)
+    // Start the scheduler with the first tracked job
+    scheduler
+  }
+
+  def trackedJobNum: Int = trackedJobs.size()
+
+  private def pollAll(): Unit = {
+    if (trackedJobs.isEmpty) {
+      return
+    }
+    // One request for all tracked jobs, the applications which are unknown to yarn are lost
+    val appStates = try {
+      yarnClient.getApplications(Collections.singleton(SparkAppType)).asScala
+        .map(report => report.getApplicationId.toString -> report.getYarnApplicationState.toString.toLowerCase())
+        .toMap
+    } catch {
+      // Keep tracking and retry in next round
+      case e: Exception =>
+        logger.warn(s"Fail to list yarn applications, get error $e")
+        return
+    }
+
+    for (job <- trackedJobs.values().asScala) {
+      try {
+        sync(job, appStates.getOrElse(job.getApplicationId, State.LOST.toString.toLowerCase()))
+      } catch {
+        // The error of one job should not stop the others
+        case e: Exception => logger.warn(s"Fail to sync yarn state of job ${job.getId}, get error $e")
+      }
+    }
+  }
+
+  private def sync(job: JobInfo, currentState: String): Unit = {
+    val isFinal = JobInfo.FINAL_STATE.contains(currentState)
+    if (!currentState.equalsIgnoreCase(job.getState)) {
+      logger.info("Job(id=%d) state change to %s".format(job.getId, currentState))
+      job.setState(currentState)
+      if (isFinal && job.getEndTime == null) {
+        job.setEndTime(new java.sql.Timestamp(Calendar.getInstance.getTime().getTime()))
+      }
+      job.sync()
+    }
+
+    if (isFinal) {
+      trackedJobs.remove(job.getId)
+    }
+  }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com._4paradigm.openmldb.taskmanager.server
+
+import com._4paradigm.openmldb.taskmanager.config.TaskManagerConfig
+import org.scalatest.FunSuite
+
+import java.io.{ByteArrayOutputStream, DataInputStream, DataOutputStream}
+import java.net.Socket
+import java.nio.charset.StandardCharsets
+
+class TestJobResultSaver extends FunSuite {
+
+  private def writeValue(out: DataOutputStream, value: String): Unit = {
+    if (value == null) {
+      out.writeInt(-1)
+    } else {
+      val bytes = value.getBytes(StandardCharsets.UTF_8)
+      out.writeInt(bytes.length)
+      out.write(bytes)
+    }
+  }
+
+  private def encode(rows: Seq[Seq[String]]): Array[Byte] = {
+    val buffer = new ByteArrayOutputStream()
+    val out = new DataOutputStream(buffer)
+    out.writeInt(rows.size)
+    out.writeInt(rows.head.size)
+    rows.foreach(_.foreach(writeValue(out, _)))
+    out.flush()
+    buffer.toByteArray
+  }
+
+  private def send(port: Int, resultId: Int, frameType: Byte, payloads: Seq[Array[Byte]]): Byte = {
+    val socket = new Socket("127.0.0.1", port)
+    try {
+      val out = new DataOutputStream(socket.getOutputStream)
+      val in = new DataInputStream(socket.getInputStream)
+      out.writeInt(JobResultChannel.MAGIC)
+      out.writeInt(resultId)
+      payloads.foreach(payload => {
+        out.writeByte(JobResultChannel.FRAME_ROWS)
+        out.writeInt(payload.length)
+        out.write(payload)
+      })
+      out.writeByte(frameType)
+      if (frameType == JobResultChannel.FRAME_FINISH) {
+        val schema = new ByteArrayOutputStream()
+        val schemaOut = new DataOutputStream(schema)
+        schemaOut.writeInt(2)
+        writeValue(schemaOut, "c1")
+        writeValue(schemaOut, "c2")
+        schemaOut.flush()
+        out.writeInt(schema.size())
+        out.write(schema.toByteArray)
+      } else {
+        out.writeInt(0)
+      }
+      out.flush()
+      in.readByte()
+    } finally {
+      socket.close()
+    }
+  }
+
+  test("Test stream result by channel and read by pages") {
+    TaskManagerConfig.parse()
+    TaskManagerConfig.getProps.setProperty("batch.job.result.page.rows", "2")
+
+    val saver = new JobResultSaver()
+    val channel = new JobResultChannel(saver, "127.0.0.1", 0)
+    channel.start()
+    try {
+      val resultId = saver.genResultId()
+      val partition1 = Seq(encode(Seq(Seq("1", "a"), Seq("2", null))), encode(Seq(Seq("3", "c,d"))))
+      assert(send(channel.getPort, resultId, JobResultChannel.FRAME_END, partition1) == JobResultChannel.ACK_OK)
+      assert(send(channel.getPort, resultId, JobResultChannel.FRAME_FINISH, Seq()) == JobResultChannel.ACK_OK)
+
+      val firstPage = saver.readResult(resultId, 10000)
+      assert(firstPage == "c1,c2\r\n1,a\r\n2,null\r\n")
+      assert(saver.hasMoreResult(resultId))
+
+      val secondPage = saver.readPage(resultId)
+      assert(secondPage == "3,\"c,d\"\r\n")
+      assert(!saver.hasMoreResult(resultId))
+    } finally {
+      TaskManagerConfig.getProps.setProperty("batch.job.result.page.rows", "100000")
+      channel.close()
+    }
+  }
+
+  test("Test read empty result") {
+    TaskManagerConfig.parse()
+
+    val saver = new JobResultSaver()
+    val channel = new JobResultChannel(saver, "127.0.0.1", 0)
+    channel.start()
+    try {
+      val resultId = saver.genResultId()
+      assert(send(channel.getPort, resultId, JobResultChannel.FRAME_FINISH, Seq()) == JobResultChannel.ACK_OK)
+      assert(saver.readResult(resultId, 10000).isEmpty)
+      assert(!saver.hasMoreResult(resultId))
+    } finally {
+      channel.close()
+    }
+  }
+
+  test("Test register unbounded results and discard") {
+    TaskManagerConfig.parse()
+
+    val saver = new JobResultSaver()
+    // More than the old fixed slot number
+    val resultIds = (0 until 500).map(_ => saver.genResultId())
+    assert(resultIds.distinct.size == 500)
+    assert(saver.getMetrics.get("saving_results") == 500L)
+
+    resultIds.foreach(saver.discardResult)
+    assert(saver.getMetrics.get("active_results") == 0L)
+    assert(saver.getMetrics.get("discarded_results") == 500L)
+
+    // The reader of a discarded result fails instead of waiting until timeout
+    val resultId = saver.genResultId()
+    saver.discardResult(resultId)
+    assertThrows[java.io.IOException] {
+      saver.readResult(resultId, 10000)
+    }
+  }
+
+}
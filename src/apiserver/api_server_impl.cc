@@ -1255,6 +1255,9 @@ JsonWriter& operator&(JsonWriter& ar, std::shared_ptr<::openmldb::nameserver::Ta
     if (info->has_key_entry_max_height()) {
         ar.Member("key_entry_max_height") & info->key_entry_max_height();
     }
+    if (info->has_compact_key_entry()) {
+        ar.Member("compact_key_entry") & info->compact_key_entry();
+    }
 
     ar.Member("column_desc") & info->column_desc();
 
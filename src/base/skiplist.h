@@ -362,6 +362,9 @@ class Skiplist {
     // delete the iterator after it's used
     Iterator* NewIterator() { return new Iterator(this); }
 
+    // the value slot of the head node, which holds no data and is free for the owner of the list
+    V& GetHeadValue() { return head_->GetValue(); }
+
  private:
     Node<K, V>* NewNode(const K& key, V& value, uint8_t height) {  // NOLINT
         Node<K, V>* node = new Node<K, V>(key, value, height);
@@ -239,6 +239,41 @@ base::Status TabletClient::Put(uint32_t tid, uint32_t pid, uint64_t time, const
     return {response.code(), response.msg()};
 }
 
+base::Status TabletClient::PutBatch(uint32_t tid, uint32_t pid, uint64_t time, const std::vector<base::Slice>& values,
+            std::vector<::google::protobuf::RepeatedPtrField<::openmldb::api::Dimension>>* dimensions,
+            uint32_t* written_cnt, int memory_usage_limit, bool put_if_absent) {
+    *written_cnt = 0;
+    if (values.size() != dimensions->size()) {
+        return {base::ReturnCode::kError, absl::StrCat("values size ", values.size(), " mismatch dimensions size ",
+                                                       dimensions->size())};
+    }
+    ::openmldb::api::PutBatchRequest request;
+    if (memory_usage_limit < 0 || memory_usage_limit > 100) {
+        return {base::ReturnCode::kError, absl::StrCat("invalid memory_usage_limit ", memory_usage_limit)};
+    } else if (memory_usage_limit > 0) {
+        request.set_memory_limit(memory_usage_limit);
+    }
+    request.set_tid(tid);
+    request.set_pid(pid);
+    request.set_put_if_absent(put_if_absent);
+    request.mutable_rows()->Reserve(values.size());
+    for (size_t i = 0; i < values.size(); i++) {
+        auto row = request.add_rows();
+        row->set_time(time);
+        row->set_value(values[i].data(), values[i].size());
+        row->mutable_dimensions()->Swap(&(*dimensions)[i]);
+    }
+    ::openmldb::api::PutBatchResponse response;
+    auto st = client_.SendRequestSt(&::openmldb::api::TabletServer_Stub::PutBatch,
+            &request, &response, FLAGS_request_timeout_ms, 1);
+    if (!st.OK()) {
+        *written_cnt = values.size();
+        return st;
+    }
+    *written_cnt = response.put_cnt() + response.ignored_cnt();
+    return {response.code(), response.msg()};
+}
+
 base::Status TabletClient::Put(uint32_t tid, uint32_t pid, const std::string& pk, uint64_t time,
         const std::string& value) {
     ::openmldb::api::PutRequest request;
@@ -1138,7 +1173,7 @@ bool TabletClient::Scan(const ::openmldb::api::ScanRequest& request, brpc::Contr
 
 bool TabletClient::CallProcedure(const std::string& db, const std::string& sp_name, const base::Slice& row,
                                  brpc::Controller* cntl, openmldb::api::QueryResponse* response, bool is_debug,
-                                 uint64_t timeout_ms) {
+                                 uint64_t timeout_ms, const std::string& trace_id) {
     if (cntl == NULL || response == NULL) return false;
     ::openmldb::api::QueryRequest request;
     request.set_sp_name(sp_name);
@@ -1148,6 +1183,9 @@ bool TabletClient::CallProcedure(const std::string& db, const std::string& sp_na
     request.set_is_procedure(true);
     request.set_row_size(row.size());
     request.set_row_slices(1);
+    if (!trace_id.empty()) {
+        request.set_trace_id(trace_id);
+    }
     cntl->set_timeout_ms(timeout_ms);
     auto& io_buf = cntl->request_attachment();
     if (!codec::EncodeRpcRow(reinterpret_cast<const int8_t*>(row.data()), row.size(), &io_buf)) {
@@ -1303,7 +1341,8 @@ bool TabletClient::DropProcedure(const std::string& db_name, const std::string&
 
 bool TabletClient::CallProcedure(const std::string& db, const std::string& sp_name, const base::Slice& row,
                                  uint64_t timeout_ms, bool is_debug,
-                                 openmldb::RpcCallback<openmldb::api::QueryResponse>* callback) {
+                                 openmldb::RpcCallback<openmldb::api::QueryResponse>* callback,
+                                 const std::string& trace_id) {
     if (callback == nullptr) {
         return false;
     }
@@ -1315,6 +1354,9 @@ bool TabletClient::CallProcedure(const std::string& db, const std::string& sp_na
     request.set_is_procedure(true);
     request.set_row_size(row.size());
     request.set_row_slices(1);
+    if (!trace_id.empty()) {
+        request.set_trace_id(trace_id);
+    }
     auto& io_buf = callback->GetController()->request_attachment();
     if (!codec::EncodeRpcRow(reinterpret_cast<const int8_t*>(row.data()), row.size(), &io_buf)) {
         LOG(WARNING) << "Encode row buf failed";
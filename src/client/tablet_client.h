@@ -83,6 +83,13 @@ class TabletClient : public Client {
             ::google::protobuf::RepeatedPtrField<::openmldb::api::Dimension>* dimensions,
             int memory_usage_limit = 0, bool put_if_absent = false);
 
+    // put many rows of one partition in one rpc, values[i] is put with (*dimensions)[i]. written_cnt is the number of
+    // leading rows which are in the table, put or ignored by put_if_absent, even if the status is not ok. It's all
+    // rows if the rpc failed, cuz we don't know how many rows the tablet has put
+    base::Status PutBatch(uint32_t tid, uint32_t pid, uint64_t time, const std::vector<base::Slice>& values,
+            std::vector<::google::protobuf::RepeatedPtrField<::openmldb::api::Dimension>>* dimensions,
+            uint32_t* written_cnt, int memory_usage_limit = 0, bool put_if_absent = false);
+
     bool Get(uint32_t tid, uint32_t pid, const std::string& pk, uint64_t time, std::string& value,  // NOLINT
              uint64_t& ts,                                                                          // NOLINT
              std::string& msg);  // NOLINT
@@ -219,9 +226,10 @@ class TabletClient : public Client {
 
     base::Status CreateProcedure(const openmldb::api::CreateProcedureRequest& sp_request);
 
+    // the tablet returns the time of each stage in response if trace_id is not empty
     bool CallProcedure(const std::string& db, const std::string& sp_name, const base::Slice& row,
                        brpc::Controller* cntl, openmldb::api::QueryResponse* response, bool is_debug,
-                       uint64_t timeout_ms);
+                       uint64_t timeout_ms, const std::string& trace_id = "");
 
     bool CallSQLBatchRequestProcedure(const std::string& db, const std::string& sp_name,
                                       std::shared_ptr<::openmldb::sdk::SQLRequestRowBatch>, brpc::Controller* cntl,
@@ -248,7 +256,8 @@ class TabletClient : public Client {
     bool DropFunction(const ::openmldb::common::ExternalFun& fun, std::string* msg);
 
     bool CallProcedure(const std::string& db, const std::string& sp_name, const base::Slice& row, uint64_t timeout_ms,
-                       bool is_debug, openmldb::RpcCallback<openmldb::api::QueryResponse>* callback);
+                       bool is_debug, openmldb::RpcCallback<openmldb::api::QueryResponse>* callback,
+                       const std::string& trace_id = "");
 
     bool CallSQLBatchRequestProcedure(const std::string& db, const std::string& sp_name,
                                       std::shared_ptr<::openmldb::sdk::SQLRequestRowBatch> row_batch, bool is_debug,
@@ -103,13 +103,29 @@ namespace openmldb::client {
     auto st = client_.SendRequestSt(&::openmldb::taskmanager::TaskManagerServer_Stub::RunBatchSql, &request, &response,
                                     job_timeout, 1);
 
-    if (st.OK()) {
-        if (response.code() == 0) {
-            *output = response.output();
-        }
+    if (!st.OK()) {
+        return st;
+    }
+    if (response.code() != 0) {
         return {response.code(), response.msg()};
     }
-    return st;
+    *output = response.output();
+    // large result is paged, fetch the rest pages
+    while (response.has_more()) {
+        ::openmldb::taskmanager::FetchJobResultRequest fetch_request;
+        fetch_request.set_result_id(response.result_id());
+        response.Clear();
+        st = client_.SendRequestSt(&::openmldb::taskmanager::TaskManagerServer_Stub::FetchJobResult, &fetch_request,
+                                   &response, job_timeout, 1);
+        if (!st.OK()) {
+            return st;
+        }
+        if (response.code() != 0) {
+            return {response.code(), response.msg()};
+        }
+        output->append(response.output());
+    }
+    return {response.code(), response.msg()};
 }
 
 ::openmldb::base::Status TaskManagerClient::RunBatchAndShow(const std::string& sql,
@@ -753,7 +753,7 @@ int PackRecords(std::shared_ptr<log::LogReader> reader, uint64_t start_offset, F
     while (true) {
         status = reader->ReadNextRecord(&record, &buffer);
         if (status.ok()) {
-            if (!entry.ParseFromString(record.ToString())) {
+            if (!entry.ParseFromArray(record.data(), record.size())) {
                 LOG(ERROR) << "parse log entry failed, skip it. " << base::DebugString(record.ToString());
                 continue;
             }
@@ -87,9 +87,14 @@ DEFINE_uint32(preview_limit_max_num, 1000, "config the max num of preview limit"
 DEFINE_uint32(preview_default_limit, 100, "config the default limit of preview");
 // binlog configuration
 DEFINE_int32(binlog_single_file_max_size, 1024 * 4, "the max size of single binlog file");
-DEFINE_int32(binlog_sync_batch_size, 32, "the batch size of sync binlog");
-DEFINE_bool(binlog_notify_on_put, false, "config the sync log to follower strategy");
+DEFINE_int32(binlog_sync_batch_size, 1024, "the max entry count in one batch of sync binlog");
+DEFINE_int32(binlog_sync_batch_bytes, 1024 * 1024, "the max bytes of entries in one batch of sync binlog");
+DEFINE_uint32(binlog_group_commit_max_size, 1024 * 1024,
+              "the max bytes of the concurrent appends written to binlog in one group commit");
+DEFINE_bool(binlog_sync_on_commit, false, "sync binlog to disk after every group commit");
+DEFINE_bool(binlog_notify_on_put, false, "notify the replicate nodes to sync log after every binlog commit");
 DEFINE_bool(binlog_enable_crc, false, "enable crc");
+DEFINE_bool(log_reader_mmap, true, "read the binlog and snapshot files by mmap when recovering and replicating");
 DEFINE_int32(binlog_coffee_time, 1000, "config the coffee time. unit is milliseconds");
 DEFINE_int32(binlog_sync_wait_time, 100, "config the sync log wait time. unit is milliseconds");
 DEFINE_int32(binlog_sync_to_disk_interval, 20000,
@@ -129,6 +134,10 @@ DEFINE_int32(retry_send_file_wait_time_ms, 3000, "conf the wait time when retry
 DEFINE_int32(stream_close_wait_time_ms, 1000, "the wait time before close stream. unit is milliseconds");
 DEFINE_uint32(stream_block_size, 1 * 1204 * 1024, "config the write/read block size in streaming");
 DEFINE_int32(stream_bandwidth_limit, 10 * 1204 * 1024, "the limit bandwidth. Byte/Second");
+DEFINE_string(stream_compression, "off",
+              "the compression of the blocks on the wire when sending files, can be off, snappy. "
+              "the receiver must support it");
+DEFINE_uint32(stream_parallel_num, 4, "the max number of files sent concurrently to a tablet");
 
 // if set 23, the task will execute 23:00 every day
 DEFINE_int32(make_snapshot_time, 23, "config the time to make snapshot");
@@ -140,6 +149,9 @@ DEFINE_uint32(make_snapshot_offline_interval, 60 * 60 * 24,
               "config tablet self makesnapshot when how long time do not "
               "makesnapshot from ns. unit is second");
 DEFINE_string(snapshot_compression, "off", "Type of snapshot compression, can be off, snappy, zlib");
+DEFINE_uint32(snapshot_max_delta_num, 0,
+              "config the max delta snapshots made after a full snapshot of memory table, "
+              "the deltas are compacted into a full snapshot when reaching it. 0 means disable delta snapshot");
 DEFINE_int32(snapshot_pool_size, 1, "the size of tablet thread pool for making snapshot");
 
 DEFINE_uint32(load_index_max_wait_time, 120 * 60 * 1000,
@@ -163,6 +175,7 @@ DEFINE_uint32(max_col_display_length, 256, "config the max length of column disp
 DEFINE_uint32(load_table_batch, 30, "set laod table batch size");
 DEFINE_uint32(load_table_thread_num, 3, "set load tabale thread pool size");
 DEFINE_uint32(load_table_queue_size, 1000, "set load tabale queue size");
+DEFINE_uint32(load_table_insert_thread_num, 3, "set the thread num of inserting rows for one table when loading");
 
 // multiple data center
 DEFINE_uint32(get_replica_status_interval, 10000,
@@ -36,6 +36,7 @@
 
 DECLARE_bool(binlog_enable_crc);
 DECLARE_int32(binlog_name_length);
+DECLARE_bool(log_reader_mmap);
 DECLARE_string(snapshot_compression);
 
 namespace openmldb {
@@ -594,7 +595,7 @@ int LogReader::OpenSeqFile(const std::string& path) {
         sf_ = NULL;
     }
     PDLOG(INFO, "open log file %s", path.c_str());
-    sf_ = ::openmldb::log::NewSeqFile(path, fd);
+    sf_ = FLAGS_log_reader_mmap ? NewMmapSeqFile(path, fd) : NewSeqFile(path, fd);
     return 0;
 }
 
@@ -21,6 +21,7 @@
 #include <sys/types.h>
 #include <unistd.h>
 
+#include <algorithm>
 #include <iostream>
 #include <vector>
 
@@ -410,6 +411,57 @@ TEST_F(LogWRTest, TestInit) {
     ASSERT_EQ(compressed_, reader.GetCompressed());
 }
 
+TEST_F(LogWRTest, TestMmapRead) {
+    std::string log_dir = "/tmp/" + GenRand() + "/";
+    ::openmldb::base::MkdirRecur(log_dir);
+    std::string fname = "test.log";
+    std::string full_path = GetWritePath(log_dir + "/" + fname);
+    FILE* fd_w = fopen(full_path.c_str(), "ab+");
+    ASSERT_TRUE(fd_w != NULL);
+    WritableFile* wf = NewWritableFile(fname, fd_w);
+    Writer writer(FLAGS_snapshot_compression, wf);
+    std::vector<std::string> values;
+    for (int i = 0; i < 100; i++) {
+        values.push_back(std::string(i * 97 % 10000 + 1, 'a' + i % 26));
+    }
+    // the uncompressed file is read while it's growing
+    uint32_t first_part = compressed_ ? values.size() : values.size() / 2;
+    for (uint32_t i = 0; i < first_part; i++) {
+        ASSERT_TRUE(writer.AddRecord(values[i]).ok());
+    }
+    if (compressed_) {
+        writer.EndLog();
+    }
+    FILE* fd_r = fopen(full_path.c_str(), "rb");
+    ASSERT_TRUE(fd_r != NULL);
+    SequentialFile* rf = NewMmapSeqFile(fname, fd_r);
+    Reader reader(rf, NULL, true, 0, compressed_);
+    std::string scratch;
+    Slice value;
+    for (uint32_t i = 0; i < first_part; i++) {
+        ASSERT_TRUE(reader.ReadRecord(&value, &scratch).ok());
+        ASSERT_EQ(values[i], value.ToString());
+    }
+    if (compressed_) {
+        ASSERT_TRUE(reader.ReadRecord(&value, &scratch).IsEof());
+    } else {
+        ASSERT_TRUE(reader.ReadRecord(&value, &scratch).IsWaitRecord());
+        for (uint32_t i = first_part; i < values.size(); i++) {
+            ASSERT_TRUE(writer.AddRecord(values[i]).ok());
+        }
+        // the reader goes back to the last block after waiting, so the records of that block are read again
+        std::vector<std::string> records;
+        while (reader.ReadRecord(&value, &scratch).ok()) {
+            records.push_back(value.ToString());
+        }
+        uint32_t second_part = values.size() - first_part;
+        ASSERT_GE(records.size(), second_part);
+        ASSERT_TRUE(std::equal(values.begin() + first_part, values.end(), records.end() - second_part));
+    }
+    delete rf;
+    delete wf;
+}
+
 }  // namespace log
 }  // namespace openmldb
 
@@ -50,7 +50,9 @@ class Writer {
 
     ~Writer();
 
-    Status AddRecord(const Slice& slice);
+    // the uncompressed record is flushed to the file if flush is true, otherwise it
+    // may stay in the buffer of file until the next flush
+    Status AddRecord(const Slice& slice, bool flush = true);
     Status EndLog();
 
     inline CompressType GetCompressType() { return compress_type_; }
@@ -80,7 +82,7 @@ class Writer {
     Status CompressRecord();
     Status AppendInternal(WritableFile* wf, int leftover);
 
-    Status EmitPhysicalRecord(RecordType type, const char* ptr, size_t length);
+    Status EmitPhysicalRecord(RecordType type, const char* ptr, size_t length, bool flush = true);
 
     // No copying allowed
     Writer(const Writer&);
@@ -97,7 +99,9 @@ struct WriteHandle {
         lw_ = new Writer(compress_type, wf_, dest_length);
     }
 
-    Status Write(const ::openmldb::base::Slice& slice) { return lw_->AddRecord(slice); }
+    Status Write(const ::openmldb::base::Slice& slice, bool flush = true) { return lw_->AddRecord(slice, flush); }
+
+    Status Flush() { return wf_->Flush(); }
 
     Status Sync() { return wf_->Sync(); }
 
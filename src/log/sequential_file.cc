@@ -22,6 +22,11 @@
 
 #include <errno.h>
 #include <stdio.h>
+#include <sys/mman.h>
+#include <sys/stat.h>
+#include <unistd.h>
+
+#include <algorithm>
 
 #include "base/glog_wrapper.h"
 #include "base/slice.h"
@@ -91,7 +96,141 @@ class PosixSequentialFile : public SequentialFile {
     }
 };
 
+// Reads the file through a shared read-only mapping, so Read returns the data in
+// place instead of copying it into scratch. The file may still be appended by a
+// writer, the mapping is extended when a read goes past the known size.
+class MmapSequentialFile : public SequentialFile {
+ private:
+    // the mapping of a growing file is reserved in this granularity
+    static constexpr uint64_t kMapGranularity = 64 * 1024 * 1024;
+    // the range ahead of the read position that is advised to be read in
+    static constexpr uint64_t kReadAheadSize = 4 * 1024 * 1024;
+
+    std::string filename_;
+    FILE* file_;
+    int fd_;
+    char* base_;
+    uint64_t map_size_;
+    // the file size known by the last fstat, never read beyond it
+    uint64_t file_size_;
+    uint64_t pos_;
+    uint64_t advised_end_;
+    uint64_t released_end_;
+    uint64_t page_size_;
+
+    Status Refresh() {
+        struct stat st;
+        if (fstat(fd_, &st) != 0) {
+            return Status::IOError(filename_, strerror(errno));
+        }
+        uint64_t size = static_cast<uint64_t>(st.st_size);
+        if (size > map_size_) {
+            uint64_t map_size = (size + kMapGranularity - 1) / kMapGranularity * kMapGranularity;
+            void* addr = mmap(NULL, map_size, PROT_READ, MAP_SHARED, fd_, 0);
+            if (addr == MAP_FAILED) {
+                return Status::IOError(filename_, strerror(errno));
+            }
+            madvise(addr, map_size, MADV_SEQUENTIAL);
+            Unmap();
+            base_ = reinterpret_cast<char*>(addr);
+            map_size_ = map_size;
+            advised_end_ = 0;
+            released_end_ = 0;
+        }
+        file_size_ = size;
+        return Status::OK();
+    }
+
+    void Unmap() {
+        if (base_ != NULL) {
+            munmap(base_, map_size_);
+            base_ = NULL;
+            map_size_ = 0;
+        }
+    }
+
+    // Ask the kernel to read the next range in, and drop the pages far behind the
+    // read position from the mapping. The dropped pages stay in the page cache.
+    void Advise() {
+        if (base_ == NULL) {
+            return;
+        }
+        if (pos_ + kReadAheadSize / 2 > advised_end_ && advised_end_ < file_size_) {
+            uint64_t start = std::max(advised_end_, pos_) / page_size_ * page_size_;
+            uint64_t end = std::min(pos_ + kReadAheadSize, file_size_);
+            if (end > start) {
+                madvise(base_ + start, end - start, MADV_WILLNEED);
+            }
+            advised_end_ = end;
+        }
+        if (pos_ > released_end_ + 2 * kReadAheadSize) {
+            uint64_t end = (pos_ - kReadAheadSize) / page_size_ * page_size_;
+            if (end > released_end_) {
+                madvise(base_ + released_end_, end - released_end_, MADV_DONTNEED);
+                released_end_ = end;
+            }
+        }
+    }
+
+ public:
+    MmapSequentialFile(const std::string& fname, FILE* f)
+        : filename_(fname),
+          file_(f),
+          fd_(fileno(f)),
+          base_(NULL),
+          map_size_(0),
+          file_size_(0),
+          pos_(0),
+          advised_end_(0),
+          released_end_(0),
+          page_size_(sysconf(_SC_PAGESIZE)) {}
+
+    virtual ~MmapSequentialFile() {
+        Unmap();
+        fclose(file_);
+    }
+
+    virtual Status Read(size_t n, Slice* result, char* scratch) {
+        if (pos_ + n > file_size_) {
+            Status s = Refresh();
+            if (!s.ok()) {
+                *result = Slice(scratch, 0);
+                return s;
+            }
+        }
+        if (pos_ >= file_size_) {
+            *result = Slice(scratch, 0);
+            return Status::OK();
+        }
+        size_t r = std::min(static_cast<uint64_t>(n), file_size_ - pos_);
+        *result = Slice(base_ + pos_, r);
+        pos_ += r;
+        Advise();
+        return Status::OK();
+    }
+
+    virtual Status Skip(uint64_t n) {
+        pos_ += n;
+        return Status::OK();
+    }
+
+    virtual Status Tell(uint64_t* pos) {
+        if (pos == NULL) {
+            return Status::InvalidArgument("invalid pos arg");
+        }
+        *pos = pos_;
+        return Status::OK();
+    }
+
+    virtual Status Seek(uint64_t pos) {
+        pos_ = pos;
+        return Status::OK();
+    }
+};
+
 SequentialFile* NewSeqFile(const std::string& fname, FILE* f) { return new PosixSequentialFile(fname, f); }
 
+SequentialFile* NewMmapSeqFile(const std::string& fname, FILE* f) { return new MmapSequentialFile(fname, f); }
+
 }  // namespace log
 }  // namespace openmldb
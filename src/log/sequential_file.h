@@ -66,6 +66,10 @@ class SequentialFile {
 
 SequentialFile* NewSeqFile(const std::string& fname, FILE* f);
 
+// The returned file reads by mmap, the result of Read points into the mapping
+// and stays valid until the next Read, Skip or Seek.
+SequentialFile* NewMmapSeqFile(const std::string& fname, FILE* f);
+
 }  // namespace log
 }  // namespace openmldb
 #endif  // SRC_LOG_SEQUENTIAL_FILE_H_
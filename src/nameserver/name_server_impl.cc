@@ -2200,6 +2200,9 @@ base::Status NameServerImpl::CreateTableOnTablet(const std::shared_ptr<::openmld
     if (table_info->has_key_entry_max_height()) {
         table_meta.set_key_entry_max_height(table_info->key_entry_max_height());
     }
+    if (table_info->compact_key_entry()) {
+        table_meta.set_compact_key_entry(true);
+    }
     for (int idx = 0; idx < table_info->column_desc_size(); idx++) {
         table_meta.add_column_desc()->CopyFrom(table_info->column_desc(idx));
     }
@@ -35,6 +35,9 @@
 
 DECLARE_int32(binlog_single_file_max_size);
 DECLARE_int32(binlog_name_length);
+DECLARE_uint32(binlog_group_commit_max_size);
+DECLARE_bool(binlog_sync_on_commit);
+DECLARE_bool(binlog_notify_on_put);
 DECLARE_string(zk_cluster);
 
 namespace openmldb {
@@ -206,7 +209,7 @@ bool LogReplicator::Recover() {
             PDLOG(WARNING, "fail to get offset from file %s", full_path.c_str());
             continue;
         }
-        ok = entry.ParseFromString(record.ToString());
+        ok = entry.ParseFromArray(record.data(), record.size());
         if (!ok) {
             PDLOG(WARNING, "fail to parse log entry %s ", ::openmldb::base::DebugString(record.ToString()).c_str());
             return false;
@@ -434,32 +437,108 @@ bool LogReplicator::DelAllReplicateNode() {
 }
 
 bool LogReplicator::AppendEntry(LogEntry& entry, ::google::protobuf::Closure* done) {
-    std::lock_guard<std::mutex> lock(wmu_);
-    if (wh_ == NULL || wh_->GetSize() / (1024 * 1024) > (uint32_t)FLAGS_binlog_single_file_max_size) {
-        bool ok = RollWLogFile();
-        if (!ok) {
-            return false;
+    return Append(&entry, 1, done);
+}
+
+bool LogReplicator::AppendEntries(std::vector<LogEntry>* entries, ::google::protobuf::Closure* done) {
+    return Append(entries->data(), entries->size(), done);
+}
+
+bool LogReplicator::Append(LogEntry* entries, size_t cnt, ::google::protobuf::Closure* done) {
+    AppendTask task(entries, cnt, done);
+    std::unique_lock<bthread::Mutex> lock(append_mu_);
+    append_queue_.push_back(&task);
+    while (!task.finished && append_queue_.front() != &task) {
+        append_cv_.wait(lock);
+    }
+    if (task.finished) {
+        return task.ok;
+    }
+    // the front task commits the tasks queued behind it too, so the concurrent appends
+    // share one write and one flush
+    std::vector<AppendTask*> group;
+    uint64_t group_size = 0;
+    for (auto* cur : append_queue_) {
+        if (!group.empty() && group_size >= FLAGS_binlog_group_commit_max_size) {
+            break;
+        }
+        for (size_t i = 0; i < cur->cnt; i++) {
+            group_size += cur->entries[i].ByteSizeLong();
         }
+        group.push_back(cur);
     }
+    lock.unlock();
+    {
+        std::lock_guard<std::mutex> wlock(wmu_);
+        CommitGroup(group);
+    }
+    if (FLAGS_binlog_notify_on_put) {
+        // lock mu_ so a replicate node that is about to wait does not miss the notification
+        std::lock_guard<bthread::Mutex> node_lock(mu_);
+        cv_.notify_all();
+    }
+    lock.lock();
+    for (size_t i = 0; i < group.size(); i++) {
+        group[i]->finished = true;
+        append_queue_.pop_front();
+    }
+    append_cv_.notify_all();
+    return task.ok;
+}
+
+void LogReplicator::CommitGroup(const std::vector<AppendTask*>& group) {
     uint64_t cur_offset = log_offset_.load(std::memory_order_relaxed);
-    entry.set_log_index(1 + cur_offset);
+    size_t committed = 0;
     std::string buffer;
-    entry.SerializeToString(&buffer);
-    ::openmldb::base::Slice slice(buffer);
-    ::openmldb::log::Status status = wh_->Write(slice);
-    if (!status.ok()) {
-        PDLOG(WARNING, "fail to write replication log in dir %s for %s", path_.c_str(), status.ToString().c_str());
-        return false;
+    for (auto* task : group) {
+        bool ok = true;
+        for (size_t i = 0; ok && i < task->cnt; i++) {
+            if (wh_ == NULL || wh_->GetSize() / (1024 * 1024) > (uint32_t)FLAGS_binlog_single_file_max_size) {
+                // the new log part starts after the entries written to the current one
+                log_offset_.store(cur_offset, std::memory_order_relaxed);
+                if (!RollWLogFile()) {
+                    ok = false;
+                    break;
+                }
+            }
+            LogEntry& entry = task->entries[i];
+            entry.set_log_index(cur_offset + 1);
+            buffer.clear();
+            entry.SerializeToString(&buffer);
+            ::openmldb::base::Slice slice(buffer);
+            ::openmldb::log::Status status = wh_->Write(slice, false);
+            if (!status.ok()) {
+                PDLOG(WARNING, "fail to write replication log in dir %s for %s", path_.c_str(),
+                      status.ToString().c_str());
+                ok = false;
+                break;
+            }
+            cur_offset++;
+        }
+        if (!ok) {
+            break;
+        }
+        committed++;
+    }
+    if (wh_ != NULL) {
+        ::openmldb::log::Status status = FLAGS_binlog_sync_on_commit ? wh_->Sync() : wh_->Flush();
+        if (!status.ok()) {
+            PDLOG(WARNING, "fail to flush replication log in dir %s for %s", path_.c_str(), status.ToString().c_str());
+            return;
+        }
     }
-    log_offset_.fetch_add(1, std::memory_order_relaxed);
+    log_offset_.store(cur_offset, std::memory_order_relaxed);
     if (local_endpoints_.empty()) {  // if local replica are dead, leader direct
                                      // sync to remote replica
-        follower_offset_.store(cur_offset + 1, std::memory_order_relaxed);
+        follower_offset_.store(cur_offset, std::memory_order_relaxed);
     }
-    if (done) {
-        done->Run();
+    // the tasks are done in the log order under wmu_
+    for (size_t i = 0; i < committed; i++) {
+        group[i]->ok = true;
+        if (group[i]->done) {
+            group[i]->done->Run();
+        }
     }
-    return true;
 }
 
 bool LogReplicator::RollWLogFile() {
@@ -19,6 +19,7 @@
 
 #include <atomic>
 #include <condition_variable>  // NOLINT
+#include <deque>
 #include <map>
 #include <memory>
 #include <mutex>  // NOLINT
@@ -63,9 +64,14 @@ class LogReplicator {
     // the slave node receives master log entries
     bool ApplyEntry(const ::openmldb::api::LogEntry& entry);
 
-    // the master node append entry
+    // the master node append entry. the concurrent appends are committed as a group,
+    // done runs in the log order under the write lock after the entry is written
     bool AppendEntry(::openmldb::api::LogEntry& entry, ::google::protobuf::Closure* done = nullptr);  // NOLINT
 
+    // the master node append entries in one commit, the log index of each entry is set
+    // in order. done runs once after all the entries are written
+    bool AppendEntries(std::vector<::openmldb::api::LogEntry>* entries, ::google::protobuf::Closure* done = nullptr);
+
     //  data to slave nodes
     void Notify();
     // recover logs meta
@@ -113,8 +119,23 @@ class LogReplicator {
     uint64_t GetSnapshotLastOffset() { return snapshot_last_offset_.load(std::memory_order_relaxed); }
 
  private:
+    struct AppendTask {
+        AppendTask(LogEntry* entries, size_t cnt, ::google::protobuf::Closure* done)
+            : entries(entries), cnt(cnt), done(done), ok(false), finished(false) {}
+        LogEntry* entries;
+        size_t cnt;
+        ::google::protobuf::Closure* done;
+        bool ok;
+        bool finished;
+    };
+
     bool OpenSeqFile(const std::string& path, SequentialFile** sf);
 
+    bool Append(LogEntry* entries, size_t cnt, ::google::protobuf::Closure* done);
+
+    // write the entries of the tasks to binlog with one flush. it must be called with wmu_ held
+    void CommitGroup(const std::vector<AppendTask*>& group);
+
  private:
     // the replicator root data path
     uint32_t tid_;
@@ -141,6 +162,11 @@ class LogReplicator {
     std::atomic<uint64_t> snapshot_last_offset_;
 
     std::mutex wmu_;
+
+    // the appends waiting for group commit, the task at the front leads the next group
+    bthread::Mutex append_mu_;
+    bthread::ConditionVariable append_cv_;
+    std::deque<AppendTask*> append_queue_;
 };
 
 }  // namespace replica
@@ -25,7 +25,9 @@
 #include <unistd.h>
 
 #include <filesystem>
+#include <thread>  // NOLINT
 #include <utility>
+#include <vector>
 
 #include "base/glog_wrapper.h"
 #include "base/status.h"
@@ -223,6 +225,70 @@ TEST_F(LogReplicatorTest, LogReader) {
     }
 }
 
+class LogIndexClosure : public Closure {
+ public:
+    LogIndexClosure(const ::openmldb::api::LogEntry* entry, std::vector<uint64_t>* indexes)
+        : entry_(entry), indexes_(indexes) {}
+    void Run() override { indexes_->push_back(entry_->log_index()); }
+
+ private:
+    const ::openmldb::api::LogEntry* entry_;
+    std::vector<uint64_t>* indexes_;
+};
+
+TEST_F(LogReplicatorTest, ConcurrentAppend) {
+    std::map<std::string, std::string> map;
+    std::filesystem::path folder = std::filesystem::temp_directory_path() / GenRand();
+    absl::Cleanup clean = [&folder]() { std::filesystem::remove_all(folder); };
+    LogReplicator replicator(1, 1, folder, map, kLeaderNode);
+    ASSERT_TRUE(replicator.Init());
+    int thread_num = 8;
+    int num = 1000;
+    // the closures are run in the log order under the write lock
+    std::vector<uint64_t> indexes;
+    std::atomic<int> failed_cnt(0);
+    std::vector<std::thread> threads;
+    for (int t = 0; t < thread_num; t++) {
+        threads.emplace_back([&, t]() {
+            for (int i = 0; i < num; i++) {
+                ::openmldb::api::LogEntry entry;
+                entry.set_term(1);
+                entry.set_pk(absl::StrCat("key", t));
+                entry.set_value(std::to_string(i));
+                entry.set_ts(9527);
+                LogIndexClosure closure(&entry, &indexes);
+                if (!replicator.AppendEntry(entry, &closure)) {
+                    failed_cnt++;
+                }
+            }
+        });
+    }
+    for (auto& thread : threads) {
+        thread.join();
+    }
+    ASSERT_EQ(0, failed_cnt.load());
+    uint64_t total = thread_num * num;
+    ASSERT_EQ(total, replicator.GetOffset());
+    ASSERT_EQ(total, indexes.size());
+    for (uint64_t i = 0; i < total; i++) {
+        ASSERT_EQ(i + 1, indexes[i]);
+    }
+    LogReader reader(replicator.GetLogPart(), replicator.GetLogPath(), false);
+    reader.SetOffset(0);
+    std::map<std::string, int> next_value;
+    ::openmldb::api::LogEntry entry;
+    std::string buffer;
+    ::openmldb::base::Slice record;
+    for (uint64_t i = 0; i < total; i++) {
+        buffer.clear();
+        ASSERT_TRUE(reader.ReadNextRecord(&record, &buffer).ok());
+        ASSERT_TRUE(entry.ParseFromArray(record.data(), record.size()));
+        ASSERT_EQ(i + 1, entry.log_index());
+        // the entries of one thread keep their order
+        ASSERT_EQ(std::to_string(next_value[entry.pk()]++), entry.value());
+    }
+}
+
 TEST_F(LogReplicatorTest, LeaderAndFollowerMulti) {
     brpc::ServerOptions options;
     brpc::Server server0;
@@ -24,6 +24,7 @@
 #include "base/strings.h"
 
 DECLARE_int32(binlog_sync_batch_size);
+DECLARE_int32(binlog_sync_batch_bytes);
 DECLARE_int32(binlog_sync_wait_time);
 DECLARE_int32(binlog_coffee_time);
 DECLARE_int32(binlog_match_logoffset_interval);
@@ -136,6 +137,10 @@ void ReplicateNode::SyncData() {
         }
         if (ret == 1) {
             coffee_time = FLAGS_binlog_coffee_time;
+        } else if (ret == 2) {
+            // the tail of binlog is not readable yet, wait for the next commit rather than the coffee time
+            std::unique_lock<bthread::Mutex> lock(*mu_);
+            cv_->wait_for(lock, FLAGS_binlog_sync_wait_time * 1000);
         }
     }
     PDLOG(INFO, "replicate log to endpoint %s for table #tid %u #pid %u exist", endpoint_.c_str(), tid_, pid_);
@@ -183,6 +188,7 @@ int ReplicateNode::SyncData(uint64_t log_offset) {
     uint64_t sync_log_offset = last_sync_offset_;
     bool request_from_cache = false;
     bool need_wait = false;
+    bool wait_commit = false;
     if (cache_.size() > 0) {
         request_from_cache = true;
         request = cache_[0];
@@ -208,13 +214,14 @@ int ReplicateNode::SyncData(uint64_t log_offset) {
         }
         uint32_t batchSize = log_offset - last_sync_offset_;
         batchSize = std::min(batchSize, (uint32_t)FLAGS_binlog_sync_batch_size);
+        uint64_t batch_bytes = 0;
         for (uint64_t i = 0; i < batchSize;) {
             std::string buffer;
             ::openmldb::base::Slice record;
             ::openmldb::log::Status status = log_reader_.ReadNextRecord(&record, &buffer);
             if (status.ok()) {
                 ::openmldb::api::LogEntry* entry = request.add_entries();
-                if (!entry->ParseFromString(record.ToString())) {
+                if (!entry->ParseFromArray(record.data(), record.size())) {
                     PDLOG(WARNING, "bad protobuf format %s size %ld. tid %u pid %u",
                           ::openmldb::base::DebugString(record.ToString()).c_str(), record.ToString().size(), tid_,
                           pid_);
@@ -244,9 +251,14 @@ int ReplicateNode::SyncData(uint64_t log_offset) {
                     break;
                 }
                 sync_log_offset = entry->log_index();
+                batch_bytes += record.size();
+                if (batch_bytes >= static_cast<uint64_t>(FLAGS_binlog_sync_batch_bytes)) {
+                    go_back_cnt_ = 0;
+                    break;
+                }
             } else if (status.IsWaitRecord()) {
-                DEBUGLOG("got a coffee time for[%s]", endpoint_.c_str());
-                need_wait = true;
+                DEBUGLOG("wait for the next commit for[%s]", endpoint_.c_str());
+                wait_commit = true;
                 break;
             } else if (status.IsInvalidRecord()) {
                 DEBUGLOG("fail to get record. %s. tid %u pid %u", status.ToString().c_str(), tid_, pid_);
@@ -293,6 +305,9 @@ int ReplicateNode::SyncData(uint64_t log_offset) {
     if (need_wait) {
         return 1;
     }
+    if (wait_commit) {
+        return 2;
+    }
     return 0;
 }
 
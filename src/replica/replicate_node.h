@@ -51,6 +51,7 @@ class ReplicateNode {
     // sync data to follower node
     void SyncData();
 
+    // return 0 if ok, 1 if it should wait for the coffee time, 2 if the tail of binlog is not readable yet
     int SyncData(uint64_t log_offset);
 
     void SetLastSyncOffset(uint64_t offset);
@@ -17,6 +17,7 @@
 #ifndef SRC_SDK_QUERY_FUTURE_IMPL_H_
 #define SRC_SDK_QUERY_FUTURE_IMPL_H_
 
+#include <algorithm>
 #include <memory>
 #include "proto/tablet.pb.h"
 #include "rpc/rpc_client.h"
@@ -27,6 +28,25 @@
 namespace openmldb {
 namespace sdk {
 
+// fill the rpc time and the tablet time in response into trace, router_us is filled by the caller
+inline void FillRequestTrace(const brpc::Controller& cntl, const openmldb::api::QueryResponse& response,
+                             RequestTrace* trace) {
+    trace->endpoint = butil::endpoint2str(cntl.remote_side()).c_str();
+    trace->rpc_us = cntl.latency_us();
+    if (!response.has_trace()) {
+        trace->network_us = trace->rpc_us;
+        return;
+    }
+    const auto& tablet_trace = response.trace();
+    trace->compile_cache_hit = tablet_trace.compile_cache_hit();
+    trace->compile_us = tablet_trace.compile_us();
+    trace->tablet_decode_us = tablet_trace.decode_us();
+    trace->run_us = tablet_trace.run_us();
+    trace->tablet_encode_us = tablet_trace.encode_us();
+    trace->tablet_total_us = tablet_trace.total_us();
+    trace->network_us = std::max<int64_t>(trace->rpc_us - trace->tablet_total_us, 0);
+}
+
 class QueryFutureImpl : public QueryFuture {
  public:
     explicit QueryFutureImpl(openmldb::RpcCallback<openmldb::api::QueryResponse>* callback) : callback_(callback) {
@@ -69,6 +89,15 @@ class QueryFutureImpl : public QueryFuture {
         return false;
     }
 
+    bool GetTrace(RequestTrace* trace) const override {
+        if (trace == nullptr || !callback_ || !callback_->GetResponse() || !callback_->GetController() ||
+            !callback_->IsDone()) {
+            return false;
+        }
+        FillRequestTrace(*callback_->GetController(), *callback_->GetResponse(), trace);
+        return true;
+    }
+
  private:
     openmldb::RpcCallback<openmldb::api::QueryResponse>* callback_;
 };
@@ -1499,6 +1499,170 @@ bool SQLClusterRouter::ExecuteInsert(const std::string& db, const std::string& n
     return true;
 }
 
+bool SQLClusterRouter::ExecuteInsertBatch(const std::string& db, const std::string& name, int tid, int partition_num,
+                                          hybridse::sdk::ByteArrayPtr dimensions, int dimensions_len,
+                                          hybridse::sdk::ByteArrayPtr values, int values_len, int row_cnt,
+                                          bool put_if_absent, hybridse::sdk::ByteArrayPtr failed_rows,
+                                          hybridse::sdk::Status* status) {
+    RET_FALSE_IF_NULL_AND_WARN(status, "output status is nullptr");
+    if (failed_rows == nullptr || row_cnt <= 0) {
+        *status = {StatusCode::kCmdError, "invalid parameter"};
+        return false;
+    }
+    // a row is failed until all of its partitions are written
+    std::fill(failed_rows, failed_rows + row_cnt, 1);
+    if (dimensions == nullptr || dimensions_len <= 0 || values == nullptr || values_len <= 0 || partition_num <= 0) {
+        *status = {StatusCode::kCmdError, "invalid parameter"};
+        return false;
+    }
+    std::vector<std::shared_ptr<::openmldb::catalog::TabletAccessor>> tablets;
+    bool ret = cluster_sdk_->GetTablet(db, name, &tablets);
+    if (!ret || tablets.empty()) {
+        status->msg = "fail to get table " + name + " tablet";
+        return false;
+    }
+    // calls fn(idx, key, pid) for each dimension of the row
+    auto for_each_dimension = [partition_num](const base::Slice& row_dims, auto&& fn) {
+        const char* buf = row_dims.data();
+        size_t pos = 0;
+        while (pos < row_dims.size()) {
+            int idx = *(reinterpret_cast<const int*>(buf + pos));
+            pos += sizeof(int);
+            int key_len = *(reinterpret_cast<const int*>(buf + pos));
+            pos += sizeof(int);
+            base::Slice key(buf + pos, key_len);
+            pos += key_len;
+            fn(idx, key, static_cast<uint32_t>(::openmldb::base::hash64(key.data(), key.size()) % partition_num));
+        }
+    };
+    struct PartitionRows {
+        std::vector<base::Slice> values;
+        std::vector<::google::protobuf::RepeatedPtrField<::openmldb::api::Dimension>> dimensions;
+        // the index of each row in the batch, ascending
+        std::vector<int> row_idx;
+        // the leading rows which are in the table
+        uint32_t written_cnt = 0;
+        // the leading rows which are inserted
+        uint32_t ok_cnt = 0;
+    };
+    std::map<uint32_t, PartitionRows> rows_map;
+    // the value and dimension bytes of each row, to revert the failed rows
+    std::vector<base::Slice> row_values;
+    std::vector<base::Slice> row_dims;
+    row_values.reserve(row_cnt);
+    row_dims.reserve(row_cnt);
+    int dim_pos = 0;
+    int value_pos = 0;
+    for (int i = 0; i < row_cnt; i++) {
+        if (dim_pos + static_cast<int>(sizeof(int)) > dimensions_len ||
+            value_pos + static_cast<int>(sizeof(int)) > values_len) {
+            *status = {StatusCode::kCmdError, absl::StrCat("invalid encoded rows, row ", i, " is out of range")};
+            return false;
+        }
+        int row_dim_len = *(reinterpret_cast<int*>(dimensions + dim_pos));
+        dim_pos += sizeof(int);
+        int row_len = *(reinterpret_cast<int*>(values + value_pos));
+        value_pos += sizeof(int);
+        if (row_dim_len <= 0 || row_len <= 0 || dim_pos + row_dim_len > dimensions_len ||
+            value_pos + row_len > values_len) {
+            *status = {StatusCode::kCmdError, absl::StrCat("invalid encoded rows, bad length of row ", i)};
+            return false;
+        }
+        const base::Slice& row_value = row_values.emplace_back(values + value_pos, row_len);
+        value_pos += row_len;
+        row_dims.emplace_back(dimensions + dim_pos, row_dim_len);
+        dim_pos += row_dim_len;
+        for_each_dimension(row_dims.back(), [&rows_map, &row_value, i](int idx, const base::Slice& key, uint32_t pid) {
+            auto& rows = rows_map[pid];
+            // a row has several dimensions in the same pid, only add the row once
+            if (rows.row_idx.empty() || rows.row_idx.back() != i) {
+                rows.values.push_back(row_value);
+                rows.dimensions.emplace_back();
+                rows.row_idx.push_back(i);
+            }
+            auto dim = rows.dimensions.back().Add();
+            dim->set_idx(idx);
+            dim->set_key(key.data(), key.size());
+        });
+    }
+    // try all partitions, so the rows of the succeeded partitions are inserted
+    std::fill(failed_rows, failed_rows + row_cnt, 0);
+    uint64_t cur_ts = ::baidu::common::timer::get_micros() / 1000;
+    std::string err_msg;
+    for (auto& kv : rows_map) {
+        uint32_t pid = kv.first;
+        auto& rows = kv.second;
+        std::shared_ptr<::openmldb::client::TabletClient> client;
+        if (pid < tablets.size() && tablets[pid]) {
+            client = tablets[pid]->GetClient();
+        }
+        if (!client) {
+            err_msg = absl::StrCat("fail to get tablet client. pid ", pid);
+            LOG(WARNING) << err_msg;
+        } else {
+            DLOG(INFO) << "put batch to endpoint " << client->GetEndpoint() << " with rows " << rows.values.size();
+            auto ret = client->PutBatch(tid, pid, cur_ts, rows.values, &rows.dimensions, &rows.written_cnt,
+                                        insert_memory_usage_limit_.load(std::memory_order_relaxed), put_if_absent);
+            if (ret.OK()) {
+                rows.ok_cnt = rows.values.size();
+            } else {
+                // the tablet stops at the bad row, the rows before it are inserted. Other errors(e.g. binlog) fail
+                // the rows which are in the table too
+                if (ret.GetCode() == base::ReturnCode::kPutFailed ||
+                    ret.GetCode() == base::ReturnCode::kInvalidDimensionParameter) {
+                    rows.ok_cnt = rows.written_cnt;
+                }
+                err_msg = absl::StrCat("tid ", tid, " pid ", pid, ": ", ret.GetMsg());
+                LOG(WARNING) << "INSERT batch failed, " << err_msg;
+            }
+        }
+        for (size_t i = rows.ok_cnt; i < rows.row_idx.size(); i++) {
+            failed_rows[rows.row_idx[i]] = 1;
+        }
+    }
+    if (err_msg.empty()) {
+        return true;
+    }
+    // revert the failed rows in the partitions which have written them, like ExecuteInsert
+    auto table_info = cluster_sdk_->GetTableInfo(db, name);
+    int failed_cnt = 0;
+    bool reverted = table_info != nullptr;
+    for (int i = 0; i < row_cnt; i++) {
+        if (!failed_rows[i]) {
+            continue;
+        }
+        failed_cnt++;
+        if (!table_info) {
+            continue;
+        }
+        std::map<uint32_t, std::vector<std::pair<std::string, uint32_t>>> written_dims;
+        for_each_dimension(row_dims[i], [&rows_map, &written_dims, i](int idx, const base::Slice& key, uint32_t pid) {
+            const auto& rows = rows_map[pid];
+            size_t pos = std::lower_bound(rows.row_idx.begin(), rows.row_idx.end(), i) - rows.row_idx.begin();
+            if (pos < rows.written_cnt) {
+                written_dims[pid].emplace_back(key.ToString(), idx);
+            }
+        });
+        if (!written_dims.empty() &&
+            !RevertPut(*table_info, written_dims.rbegin()->first, written_dims, cur_ts, row_values[i], tablets)
+                 .IsOK()) {
+            reverted = false;
+        }
+    }
+    if (reverted) {
+        SET_STATUS_AND_WARN(status, StatusCode::kCmdError,
+                            absl::StrCat("INSERT batch failed, ", failed_cnt, " of ", row_cnt, " rows failed, ",
+                                         err_msg));
+    } else {
+        SET_STATUS_AND_WARN(status, StatusCode::kCmdError,
+                            absl::StrCat("INSERT batch failed, ", failed_cnt, " of ", row_cnt, " rows failed, ",
+                                         err_msg, ". Note that data might have been partially inserted. "
+                                         "You are encouraged to perform DELETE to remove any partially "
+                                         "inserted data before trying INSERT again."));
+    }
+    return false;
+}
+
 bool SQLClusterRouter::GetSQLPlan(const std::string& sql, ::hybridse::node::NodeManager* nm,
                                   ::hybridse::node::PlanNodeList* plan) {
     if (nm == NULL || plan == NULL) return false;
@@ -1541,7 +1705,7 @@ std::shared_ptr<hybridse::sdk::ResultSet> SQLClusterRouter::CallProcedure(const
         SET_STATUS_AND_WARN(status, StatusCode::kCmdError, "make sure the request row is built before execute sql");
         return nullptr;
     }
-    return CallProcedure(db, sp_name, base::Slice(row->GetRow()), "", status);
+    return CallProcedure(db, sp_name, base::Slice(row->GetRow()), "", nullptr, status);
 }
 
 std::shared_ptr<hybridse::sdk::ResultSet> SQLClusterRouter::CallProcedure(const std::string& db,
@@ -1549,19 +1713,30 @@ std::shared_ptr<hybridse::sdk::ResultSet> SQLClusterRouter::CallProcedure(const
                                                                           hybridse::sdk::ByteArrayPtr buf, int len,
                                                                           const std::string& router_col,
                                                                           hybridse::sdk::Status* status) {
+    return CallProcedure(db, sp_name, buf, len, router_col, nullptr, status);
+}
+
+std::shared_ptr<hybridse::sdk::ResultSet> SQLClusterRouter::CallProcedure(const std::string& db,
+                                                                          const std::string& sp_name,
+                                                                          hybridse::sdk::ByteArrayPtr buf, int len,
+                                                                          const std::string& router_col,
+                                                                          RequestTrace* trace,
+                                                                          hybridse::sdk::Status* status) {
     if (buf == nullptr || len == 0) {
         SET_STATUS_AND_WARN(status, StatusCode::kCmdError, "invalid request row data");
         return nullptr;
     }
-    return CallProcedure(db, sp_name, base::Slice(buf, len), router_col, status);
+    return CallProcedure(db, sp_name, base::Slice(buf, len), router_col, trace, status);
 }
 
 std::shared_ptr<hybridse::sdk::ResultSet> SQLClusterRouter::CallProcedure(const std::string& db,
                                                                           const std::string& sp_name,
                                                                           const base::Slice& row,
                                                                           const std::string& router_col,
+                                                                          RequestTrace* trace,
                                                                           hybridse::sdk::Status* status) {
     RET_IF_NULL_AND_WARN(status, "output status is nullptr");
+    uint64_t start_us = ::baidu::common::timer::get_micros();
     auto tablet = GetTablet(db, sp_name, router_col, status);
     if (!tablet) {
         SET_STATUS_AND_WARN(status, StatusCode::kCmdError, "cannot get tablet");
@@ -1570,8 +1745,16 @@ std::shared_ptr<hybridse::sdk::ResultSet> SQLClusterRouter::CallProcedure(const
 
     auto cntl = std::make_shared<::brpc::Controller>();
     auto response = std::make_shared<::openmldb::api::QueryResponse>();
+    std::string trace_id;
+    if (trace != nullptr) {
+        trace_id = trace->trace_id;
+        trace->router_us = ::baidu::common::timer::get_micros() - start_us;
+    }
     bool ok = tablet->CallProcedure(db, sp_name, row, cntl.get(), response.get(), options_->enable_debug,
-                                    options_->request_timeout);
+                                    options_->request_timeout, trace_id);
+    if (trace != nullptr) {
+        FillRequestTrace(*cntl, *response, trace);
+    }
     if (!ok || response->code() != ::openmldb::base::kOk) {
         RPC_STATUS_AND_WARN(status, cntl, response, "CallProcedure failed");
         return nullptr;
@@ -2344,25 +2527,33 @@ std::shared_ptr<openmldb::sdk::QueryFuture> SQLClusterRouter::CallProcedure(cons
         SET_STATUS_AND_WARN(status, StatusCode::kCmdError, "make sure the request row is built before execute sql");
         return {};
     }
-    return CallProcedure(db, sp_name, timeout_ms, base::Slice(row->GetRow()), "", status);
+    return CallProcedure(db, sp_name, timeout_ms, base::Slice(row->GetRow()), "", nullptr, status);
 }
 
 std::shared_ptr<openmldb::sdk::QueryFuture> SQLClusterRouter::CallProcedure(
     const std::string& db, const std::string& sp_name, int64_t timeout_ms, hybridse::sdk::ByteArrayPtr buf, int len,
     const std::string& router_col, hybridse::sdk::Status* status) {
+    return CallProcedure(db, sp_name, timeout_ms, buf, len, router_col, nullptr, status);
+}
+
+std::shared_ptr<openmldb::sdk::QueryFuture> SQLClusterRouter::CallProcedure(
+    const std::string& db, const std::string& sp_name, int64_t timeout_ms, hybridse::sdk::ByteArrayPtr buf, int len,
+    const std::string& router_col, RequestTrace* trace, hybridse::sdk::Status* status) {
     if (buf == nullptr || len == 0) {
         SET_STATUS_AND_WARN(status, StatusCode::kCmdError, "invalid request row data");
         return nullptr;
     }
-    return CallProcedure(db, sp_name, timeout_ms, base::Slice(buf, len), router_col, status);
+    return CallProcedure(db, sp_name, timeout_ms, base::Slice(buf, len), router_col, trace, status);
 }
 
 std::shared_ptr<openmldb::sdk::QueryFuture> SQLClusterRouter::CallProcedure(const std::string& db,
                                                                             const std::string& sp_name,
                                                                             int64_t timeout_ms, const base::Slice& row,
                                                                             const std::string& router_col,
+                                                                            RequestTrace* trace,
                                                                             hybridse::sdk::Status* status) {
     RET_IF_NULL_AND_WARN(status, "output status is nullptr");
+    uint64_t start_us = ::baidu::common::timer::get_micros();
     auto tablet = GetTablet(db, sp_name, router_col, status);
     if (!tablet) {
         return {};
@@ -2372,7 +2563,12 @@ std::shared_ptr<openmldb::sdk::QueryFuture> SQLClusterRouter::CallProcedure(cons
     auto* callback = new openmldb::RpcCallback<openmldb::api::QueryResponse>(response, cntl);
 
     std::shared_ptr<openmldb::sdk::QueryFutureImpl> future = std::make_shared<openmldb::sdk::QueryFutureImpl>(callback);
-    bool ok = tablet->CallProcedure(db, sp_name, row, timeout_ms, options_->enable_debug, callback);
+    std::string trace_id;
+    if (trace != nullptr) {
+        trace_id = trace->trace_id;
+        trace->router_us = ::baidu::common::timer::get_micros() - start_us;
+    }
+    bool ok = tablet->CallProcedure(db, sp_name, row, timeout_ms, options_->enable_debug, callback, trace_id);
     if (!ok) {
         // async rpc
         SET_STATUS_AND_WARN(status, StatusCode::kConnError, "CallProcedure failed(stub is null)");
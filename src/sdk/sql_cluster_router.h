@@ -92,6 +92,11 @@ class SQLClusterRouter : public SQLRouter {
                 hybridse::sdk::ByteArrayPtr dimension, int dimension_len,
                 hybridse::sdk::ByteArrayPtr value, int len, bool put_if_absent, hybridse::sdk::Status* status) override;
 
+    bool ExecuteInsertBatch(const std::string& db, const std::string& name, int tid, int partition_num,
+                hybridse::sdk::ByteArrayPtr dimensions, int dimensions_len,
+                hybridse::sdk::ByteArrayPtr values, int values_len, int row_cnt, bool put_if_absent,
+                hybridse::sdk::ByteArrayPtr failed_rows, hybridse::sdk::Status* status) override;
+
     bool ExecuteDelete(std::shared_ptr<SQLDeleteRow> row, hybridse::sdk::Status* status) override;
 
     std::shared_ptr<TableReader> GetTableReader() override;
@@ -164,6 +169,10 @@ class SQLClusterRouter : public SQLRouter {
             hybridse::sdk::ByteArrayPtr buf, int len, const std::string& router_col,
             hybridse::sdk::Status* status) override;
 
+    std::shared_ptr<hybridse::sdk::ResultSet> CallProcedure(const std::string& db, const std::string& sp_name,
+            hybridse::sdk::ByteArrayPtr buf, int len, const std::string& router_col, RequestTrace* trace,
+            hybridse::sdk::Status* status) override;
+
     std::shared_ptr<hybridse::sdk::ResultSet> CallSQLBatchRequestProcedure(
         const std::string& db, const std::string& sp_name, std::shared_ptr<SQLRequestRowBatch> row_batch,
         hybridse::sdk::Status* status) override;
@@ -189,6 +198,10 @@ class SQLClusterRouter : public SQLRouter {
             int64_t timeout_ms, hybridse::sdk::ByteArrayPtr buf, int len,
             const std::string& router_col, hybridse::sdk::Status* status) override;
 
+    std::shared_ptr<openmldb::sdk::QueryFuture> CallProcedure(const std::string& db, const std::string& sp_name,
+            int64_t timeout_ms, hybridse::sdk::ByteArrayPtr buf, int len,
+            const std::string& router_col, RequestTrace* trace, hybridse::sdk::Status* status) override;
+
     std::shared_ptr<openmldb::sdk::QueryFuture> CallSQLBatchRequestProcedure(
         const std::string& db, const std::string& sp_name, int64_t timeout_ms,
         std::shared_ptr<SQLRequestRowBatch> row_batch, hybridse::sdk::Status* status) override;
@@ -421,11 +434,12 @@ class SQLClusterRouter : public SQLRouter {
                           const TableStatusMap& statuses, std::string* msg);
 
     std::shared_ptr<hybridse::sdk::ResultSet> CallProcedure(const std::string& db, const std::string& sp_name,
-            const base::Slice& row, const std::string& router_col, hybridse::sdk::Status* status);
+            const base::Slice& row, const std::string& router_col, RequestTrace* trace,
+            hybridse::sdk::Status* status);
 
     std::shared_ptr<openmldb::sdk::QueryFuture> CallProcedure(const std::string& db, const std::string& sp_name,
             int64_t timeout_ms, const base::Slice& row,
-            const std::string& router_col, hybridse::sdk::Status* status);
+            const std::string& router_col, RequestTrace* trace, hybridse::sdk::Status* status);
 
     absl::StatusOr<bool> GetUser(const std::string& name, UserInfo* user_info);
     hybridse::sdk::Status AddUser(const std::string& name, const std::string& password);
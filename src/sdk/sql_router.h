@@ -69,6 +69,26 @@ struct DAGNode {
     friend std::ostream& operator<<(std::ostream& os, const DAGNode& obj);
 };
 
+/// Time of each stage of a traced deployment request, in microseconds.
+/// router_us, rpc_us and network_us are measured by the client, the others are returned by the tablet.
+/// Signed integers are used so that they are mapped to java long by swig.
+struct RequestTrace {
+    std::string trace_id;
+    std::string endpoint;
+    // choosing the tablet
+    int64_t router_us = 0;
+    // rpc round trip, includes the tablet time
+    int64_t rpc_us = 0;
+    // rpc_us - tablet_total_us
+    int64_t network_us = 0;
+    bool compile_cache_hit = false;
+    int64_t compile_us = 0;
+    int64_t tablet_decode_us = 0;
+    int64_t run_us = 0;
+    int64_t tablet_encode_us = 0;
+    int64_t tablet_total_us = 0;
+};
+
 class QueryFuture {
  public:
     QueryFuture() {}
@@ -76,6 +96,8 @@ class QueryFuture {
 
     virtual std::shared_ptr<hybridse::sdk::ResultSet> GetResultSet(hybridse::sdk::Status* status) = 0;
     virtual bool IsDone() const = 0;
+    /// Fill the rpc and tablet time of a traced request after GetResultSet, return false if it's not traced
+    virtual bool GetTrace(RequestTrace* trace) const { return false; }
 };
 
 class SQLRouter {
@@ -105,6 +127,16 @@ class SQLRouter {
                 hybridse::sdk::ByteArrayPtr dimension, int dimension_len,
                 hybridse::sdk::ByteArrayPtr value, int len, bool put_if_absent, hybridse::sdk::Status* status) = 0;
 
+    // insert row_cnt encoded rows, dimensions and values are the concatenation of [int32 len][bytes] of each row,
+    // the dimension bytes of a row are in the same format as ExecuteInsert. Rows are grouped by partition and each
+    // partition is written by one PutBatch rpc. All partitions are tried even if one fails, a row failed in some
+    // partitions is reverted in the others like ExecuteInsert. failed_rows has row_cnt bytes, failed_rows[i] is set to
+    // 0 if row i is inserted, otherwise 1. Returns true if all rows are inserted
+    virtual bool ExecuteInsertBatch(const std::string& db, const std::string& name, int tid, int partition_num,
+                hybridse::sdk::ByteArrayPtr dimensions, int dimensions_len,
+                hybridse::sdk::ByteArrayPtr values, int values_len, int row_cnt, bool put_if_absent,
+                hybridse::sdk::ByteArrayPtr failed_rows, hybridse::sdk::Status* status) = 0;
+
     virtual bool ExecuteDelete(std::shared_ptr<openmldb::sdk::SQLDeleteRow> row, hybridse::sdk::Status* status) = 0;
 
     virtual std::shared_ptr<openmldb::sdk::TableReader> GetTableReader() = 0;
@@ -164,6 +196,11 @@ class SQLRouter {
             hybridse::sdk::ByteArrayPtr buf, int len, const std::string& router_col,
             hybridse::sdk::Status* status) = 0;
 
+    /// Call a deployment and trace it by trace->trace_id, the time of each stage is filled into trace
+    virtual std::shared_ptr<hybridse::sdk::ResultSet> CallProcedure(const std::string& db, const std::string& sp_name,
+            hybridse::sdk::ByteArrayPtr buf, int len, const std::string& router_col, RequestTrace* trace,
+            hybridse::sdk::Status* status) = 0;
+
     virtual std::shared_ptr<hybridse::sdk::ResultSet> CallSQLBatchRequestProcedure(
         const std::string& db, const std::string& sp_name, std::shared_ptr<openmldb::sdk::SQLRequestRowBatch> row_batch,
         hybridse::sdk::Status* status) = 0;
@@ -186,6 +223,11 @@ class SQLRouter {
             int64_t timeout_ms, hybridse::sdk::ByteArrayPtr buf, int len,
             const std::string& router_col, hybridse::sdk::Status* status) = 0;
 
+    /// Async version of the traced call, router_us is filled into trace and the rest by QueryFuture::GetTrace
+    virtual std::shared_ptr<openmldb::sdk::QueryFuture> CallProcedure(const std::string& db, const std::string& sp_name,
+            int64_t timeout_ms, hybridse::sdk::ByteArrayPtr buf, int len,
+            const std::string& router_col, RequestTrace* trace, hybridse::sdk::Status* status) = 0;
+
     virtual std::shared_ptr<openmldb::sdk::QueryFuture> CallSQLBatchRequestProcedure(
         const std::string& db, const std::string& sp_name, int64_t timeout_ms,
         std::shared_ptr<openmldb::sdk::SQLRequestRowBatch> row_batch, hybridse::sdk::Status* status) = 0;
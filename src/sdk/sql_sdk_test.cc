@@ -519,6 +519,18 @@ TEST_F(SQLSDKQueryTest, RequestProcedureTest) {
     ASSERT_EQ(rs->GetInt32Unsafe(1), 23);
     ASSERT_EQ(rs->GetInt64Unsafe(2), 67);
     ASSERT_FALSE(rs->Next());
+    // call procedure with trace
+    std::string row_buf = request_row->GetRow();
+    RequestTrace trace;
+    trace.trace_id = "request_procedure_test";
+    rs = router->CallProcedure(db, sp_name, const_cast<char*>(row_buf.data()), row_buf.size(), "", &trace, &status);
+    if (!rs) FAIL() << "call procedure with trace failed";
+    ASSERT_EQ(rs->Size(), 1);
+    ASSERT_TRUE(trace.compile_cache_hit);
+    ASSERT_FALSE(trace.endpoint.empty());
+    ASSERT_GT(trace.rpc_us, 0);
+    ASSERT_GE(trace.rpc_us, trace.tablet_total_us);
+    ASSERT_GE(trace.tablet_total_us, trace.run_us);
     // show procedure
     std::string msg;
     auto sp_info = router->ShowProcedure(db, sp_name, &status);
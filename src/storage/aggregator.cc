@@ -29,7 +29,6 @@
 #include "common/timer.h"
 #include "storage/table.h"
 
-DECLARE_bool(binlog_notify_on_put);
 namespace openmldb {
 namespace storage {
 
@@ -236,9 +235,6 @@ bool Aggregator::DeleteData(const std::string& key, const std::optional<uint64_t
                 key.c_str(), aggr_table_->GetName().c_str());
         return false;
     }
-    if (FLAGS_binlog_notify_on_put) {
-        aggr_replicator_->Notify();
-    }
     return true;
 }
 
@@ -512,7 +508,7 @@ bool Aggregator::Init(std::shared_ptr<LogReplicator> base_replicator) {
             continue;
         }
 
-        bool ok = entry.ParseFromString(record.ToString());
+        bool ok = entry.ParseFromArray(record.data(), record.size());
         if (!ok) {
             PDLOG(WARNING, "parse binlog failed");
             continue;
@@ -650,9 +646,6 @@ bool Aggregator::FlushAggrBuffer(const std::string& key, const std::string& filt
     entry.set_ts(time);
     entry.set_term(aggr_replicator_->GetLeaderTerm());
     aggr_replicator_->AppendEntry(entry);
-    if (FLAGS_binlog_notify_on_put) {
-        aggr_replicator_->Notify();
-    }
     return true;
 }
 
@@ -29,9 +29,14 @@
 #include "gflags/gflags.h"
 #include "log/log_writer.h"
 #include "log/status.h"
+#include "storage/table_loader.h"
 
 DECLARE_uint64(gc_on_table_recover_count);
 DECLARE_int32(binlog_name_length);
+DECLARE_uint32(load_table_batch);
+DECLARE_uint32(load_table_thread_num);
+DECLARE_uint32(load_table_queue_size);
+DECLARE_uint32(load_table_insert_thread_num);
 
 namespace openmldb {
 namespace storage {
@@ -44,10 +49,12 @@ bool Binlog::RecoverFromBinlog(std::shared_ptr<Table> table, uint64_t offset, ui
     PDLOG(INFO, "start recover table tid %u, pid %u from binlog with start offset %lu", tid, pid, offset);
     ::openmldb::log::LogReader log_reader(log_part_, log_path_, false);
     log_reader.SetOffset(offset);
-    ::openmldb::api::LogEntry entry;
-    uint64_t cur_offset = offset;
+    // the records are decoded and applied by the loader, the entries before offset are skipped there
+    TableLoader loader(table, FLAGS_load_table_thread_num, FLAGS_load_table_insert_thread_num, FLAGS_load_table_batch,
+                       FLAGS_load_table_queue_size);
+    loader.SetStartOffset(offset);
     std::string buffer;
-    uint64_t succ_cnt = 0;
+    uint64_t read_cnt = 0;
     uint64_t failed_cnt = 0;
     uint64_t consumed = ::baidu::common::timer::now_time();
     int last_log_index = log_reader.GetLogIndex();
@@ -63,13 +70,10 @@ bool Binlog::RecoverFromBinlog(std::shared_ptr<Table> table, uint64_t offset, ui
                 log_reader.RollRLogFile();
                 PDLOG(WARNING,
                       "read new binlog file. tid[%u] pid[%u] cur_log_index[%d] "
-                      "end_log_index[%d] cur_offset[%lu]",
-                      tid, pid, cur_log_index, end_log_index, cur_offset);
+                      "end_log_index[%d] read_cnt[%lu]",
+                      tid, pid, cur_log_index, end_log_index, read_cnt);
                 continue;
             }
-            consumed = ::baidu::common::timer::now_time() - consumed;
-            PDLOG(INFO, "table tid %u pid %u completed, succ_cnt %lu, failed_cnt %lu, consumed %us",
-                  tid, pid, succ_cnt, failed_cnt, consumed);
             reach_end_log = false;
             break;
         }
@@ -85,39 +89,18 @@ bool Binlog::RecoverFromBinlog(std::shared_ptr<Table> table, uint64_t offset, ui
             failed_cnt++;
             continue;
         }
-        bool ok = entry.ParseFromString(record.ToString());
-        if (!ok) {
-            PDLOG(WARNING, "fail parse record for tid %u, pid %u with value %s", tid, pid,
-                  ::openmldb::base::DebugString(record.ToString()).c_str());
-            failed_cnt++;
-            continue;
-        }
-
-        if (cur_offset >= entry.log_index()) {
-            DEBUGLOG("offset %lu has been made snapshot", entry.log_index());
-            continue;
-        }
-
-        if (cur_offset + 1 != entry.log_index()) {
-            PDLOG(WARNING, "missing log entry cur_offset %lu , new entry offset %lu for tid %u, pid %u",
-                  cur_offset, entry.log_index(), tid, pid);
-        }
-        if (entry.has_method_type() && entry.method_type() == ::openmldb::api::MethodType::kDelete) {
-            table->Delete(entry);
-        } else {
-            table->Put(entry);
-        }
-        cur_offset = entry.log_index();
-        succ_cnt++;
-        if (succ_cnt % 100000 == 0) {
-            PDLOG(INFO, "[Recover] load data from binlog succ_cnt %lu, failed_cnt %lu for tid %u, pid %u",
-                  succ_cnt, failed_cnt, tid, pid);
-        }
-        if (succ_cnt % FLAGS_gc_on_table_recover_count == 0) {
+        loader.Add(record);
+        read_cnt++;
+        if (read_cnt % FLAGS_gc_on_table_recover_count == 0) {
             table->SchedGc();
         }
     }
-    latest_offset = cur_offset;
+    loader.Wait();
+    failed_cnt += loader.GetFailedCnt();
+    consumed = ::baidu::common::timer::now_time() - consumed;
+    PDLOG(INFO, "table tid %u pid %u completed, succ_cnt %lu, failed_cnt %lu, consumed %us", tid, pid,
+          loader.GetSuccCnt(), failed_cnt, consumed);
+    latest_offset = loader.GetOffset();
     if (!reach_end_log) {
         int log_index = log_reader.GetLogIndex();
         if (log_index < 0) {
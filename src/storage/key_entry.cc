@@ -14,13 +14,423 @@
  * limitations under the License.
  */
 
-#include "base/glog_wrapper.h"
 #include "storage/key_entry.h"
+
+#include <algorithm>
+
+#include "base/glog_wrapper.h"
 #include "storage/record.h"
 
 namespace openmldb {
 namespace storage {
 
+constexpr uint32_t MIN_TIME_CHUNK_SIZE = 4;
+constexpr uint32_t MAX_TIME_CHUNK_SIZE = 512;
+
+TimeChunks::~TimeChunks() {
+    TimeChunk* chunk = newest.load(std::memory_order_relaxed);
+    while (chunk != nullptr) {
+        TimeChunk* older = chunk->older.load(std::memory_order_relaxed);
+        delete chunk;
+        chunk = older;
+    }
+    for (auto retired_chunk : retired) {
+        delete retired_chunk;
+    }
+}
+
+void TimeChunkCursor::SkipRemoved() {
+    while (chunk != nullptr) {
+        int64_t begin = chunk->begin.load(std::memory_order_acquire);
+        while (idx >= begin && chunk->slots[idx].Removed()) {
+            idx--;
+        }
+        if (idx >= begin) {
+            return;
+        }
+        chunk = chunk->older.load(std::memory_order_acquire);
+        idx = chunk == nullptr ? -1 : static_cast<int64_t>(chunk->size.load(std::memory_order_acquire)) - 1;
+    }
+}
+
+void TimeChunkCursor::SeekToFirst(TimeChunks* chunks) {
+    chunk = chunks->newest.load(std::memory_order_acquire);
+    idx = chunk == nullptr ? -1 : static_cast<int64_t>(chunk->size.load(std::memory_order_acquire)) - 1;
+    SkipRemoved();
+}
+
+void TimeChunkCursor::Seek(TimeChunks* chunks, uint64_t ts) {
+    chunk = chunks->newest.load(std::memory_order_acquire);
+    while (chunk != nullptr) {
+        int64_t lo = chunk->begin.load(std::memory_order_acquire);
+        int64_t hi = static_cast<int64_t>(chunk->size.load(std::memory_order_acquire)) - 1;
+        if (lo <= hi && chunk->slots[lo].ts <= ts) {
+            // the slots are in ascending time order, find the last one whose time is not greater than ts
+            while (lo < hi) {
+                int64_t mid = lo + (hi - lo + 1) / 2;
+                if (chunk->slots[mid].ts <= ts) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            idx = lo;
+            SkipRemoved();
+            return;
+        }
+        chunk = chunk->older.load(std::memory_order_acquire);
+    }
+    idx = -1;
+}
+
+void TimeChunkCursor::SeekToLast(TimeChunks* chunks) {
+    std::vector<TimeChunk*> chain;
+    for (TimeChunk* cur = chunks->newest.load(std::memory_order_acquire); cur != nullptr;
+         cur = cur->older.load(std::memory_order_acquire)) {
+        chain.push_back(cur);
+    }
+    for (auto it = chain.rbegin(); it != chain.rend(); ++it) {
+        TimeChunk* cur = *it;
+        int64_t size = cur->size.load(std::memory_order_acquire);
+        for (int64_t pos = cur->begin.load(std::memory_order_acquire); pos < size; pos++) {
+            if (!cur->slots[pos].Removed()) {
+                chunk = cur;
+                idx = pos;
+                return;
+            }
+        }
+    }
+    chunk = nullptr;
+    idx = -1;
+}
+
+void TimeEntries::Iterator::Pick() {
+    if (!chunk_it_.Valid()) {
+        on_chunk_ = false;
+    } else if (!list_it_.Valid()) {
+        on_chunk_ = true;
+    } else {
+        on_chunk_ = chunk_it_.Slot().ts >= list_it_.GetKey();
+    }
+}
+
+void TimeEntries::Iterator::Next() {
+    if (on_chunk_) {
+        chunk_it_.Next();
+    } else {
+        list_it_.Next();
+    }
+    Pick();
+}
+
+void TimeEntries::Iterator::Seek(const uint64_t& ts) {
+    list_it_.Seek(ts);
+    if (chunks_ != nullptr) {
+        chunk_it_.Seek(chunks_, ts);
+    }
+    Pick();
+}
+
+void TimeEntries::Iterator::SeekToFirst() {
+    list_it_.SeekToFirst();
+    if (chunks_ != nullptr) {
+        chunk_it_.SeekToFirst(chunks_);
+    }
+    Pick();
+}
+
+void TimeEntries::Iterator::SeekToLast() {
+    list_it_.SeekToLast();
+    if (chunks_ == nullptr) {
+        on_chunk_ = false;
+        return;
+    }
+    if (list_it_.Valid() && list_->IsEmpty()) {
+        // the last node is the head of the list after it's split to empty
+        list_it_.Next();
+    }
+    chunk_it_.SeekToLast(chunks_);
+    if (!chunk_it_.Valid()) {
+        on_chunk_ = false;
+    } else if (!list_it_.Valid() || chunk_it_.Slot().ts < list_it_.GetKey()) {
+        on_chunk_ = true;
+        // move the list iterator over the last node, so Next makes the iterator invalid
+        if (list_it_.Valid()) {
+            list_it_.Next();
+        }
+    } else {
+        on_chunk_ = false;
+        chunk_it_ = TimeChunkCursor();
+    }
+}
+
+uint8_t TimeEntries::Insert(const uint64_t& ts, DataBlock*& row) {
+    if (Chunks() != nullptr && Append(ts, row)) {
+        // count the row as a node with height 1 in idx byte size
+        return 1;
+    }
+    return list_.Insert(ts, row);
+}
+
+bool TimeEntries::Append(uint64_t ts, DataBlock* row) {
+    TimeChunks* chunks = Chunks();
+    uint64_t rows = chunks->rows.load(std::memory_order_relaxed);
+    if (rows > 0 && ts < chunks->last_ts) {
+        return false;
+    }
+    TimeChunk* chunk = chunks->newest.load(std::memory_order_relaxed);
+    if (rows == 0 && chunk != nullptr) {
+        // only the removed slots are left, start from a new chunk to keep the slots in time order
+        Reclaim();
+        chunks->newest.store(nullptr, std::memory_order_release);
+        Retire(chunk);
+        chunk = nullptr;
+    }
+    uint32_t size = chunk == nullptr ? 0 : chunk->size.load(std::memory_order_relaxed);
+    if (chunk == nullptr || size == chunk->capacity) {
+        uint32_t cap = chunk == nullptr ? MIN_TIME_CHUNK_SIZE : std::min(chunk->capacity * 2, MAX_TIME_CHUNK_SIZE);
+        TimeChunk* new_chunk = new TimeChunk(cap);
+        new_chunk->slots[0].ts = ts;
+        new_chunk->slots[0].row.store(reinterpret_cast<uintptr_t>(row), std::memory_order_relaxed);
+        new_chunk->size.store(1, std::memory_order_relaxed);
+        new_chunk->older.store(chunk, std::memory_order_relaxed);
+        chunks->newest.store(new_chunk, std::memory_order_release);
+    } else {
+        chunk->slots[size].ts = ts;
+        chunk->slots[size].row.store(reinterpret_cast<uintptr_t>(row), std::memory_order_relaxed);
+        chunk->size.store(size + 1, std::memory_order_release);
+    }
+    if (rows == 0) {
+        chunks->oldest_ts.store(ts, std::memory_order_relaxed);
+    }
+    chunks->last_ts = ts;
+    chunks->rows.fetch_add(1, std::memory_order_release);
+    return true;
+}
+
+base::Node<uint64_t, DataBlock*>* TimeEntries::Remove(const uint64_t& ts) {
+    TimeChunks* chunks = Chunks();
+    base::Node<uint64_t, DataBlock*>* node = list_.Remove(ts);
+    if (node != nullptr || chunks == nullptr) {
+        return node;
+    }
+    TimeChunkCursor cursor;
+    cursor.Seek(chunks, ts);
+    if (!cursor.Valid() || cursor.Slot().ts != ts) {
+        return nullptr;
+    }
+    TimeSlot& slot = cursor.chunk->slots[cursor.idx];
+    DataBlock* row = slot.Row();
+    slot.row.fetch_or(TimeSlot::REMOVED_MASK, std::memory_order_release);
+    chunks->rows.fetch_sub(1, std::memory_order_relaxed);
+    node = new base::Node<uint64_t, DataBlock*>(ts, row, 1);
+    node->SetNextNoBarrier(0, nullptr);
+    return node;
+}
+
+base::Node<uint64_t, DataBlock*>* TimeEntries::Split(const uint64_t& ts) {
+    TimeChunks* chunks = Chunks();
+    base::Node<uint64_t, DataBlock*>* node = list_.Split(ts);
+    if (chunks == nullptr) {
+        return node;
+    }
+    TimeChunkCursor cursor;
+    cursor.Seek(chunks, ts);
+    if (!cursor.Valid()) {
+        return node;
+    }
+    return CutChunks(cursor, node);
+}
+
+base::Node<uint64_t, DataBlock*>* TimeEntries::SplitByPos(uint64_t pos) {
+    TimeChunks* chunks = Chunks();
+    if (chunks == nullptr) {
+        return list_.SplitByPos(pos);
+    }
+    Iterator it(&list_, chunks);
+    it.SeekToFirst();
+    uint64_t list_pos = 0;
+    for (uint64_t idx = 0; idx < pos; idx++) {
+        if (!it.Valid()) {
+            return nullptr;
+        }
+        if (!it.on_chunk_) {
+            list_pos++;
+        }
+        it.Next();
+    }
+    if (!it.Valid()) {
+        return nullptr;
+    }
+    return SplitAt(&it, list_pos);
+}
+
+base::Node<uint64_t, DataBlock*>* TimeEntries::SplitByKeyOrPos(const uint64_t& ts, uint64_t pos) {
+    TimeChunks* chunks = Chunks();
+    if (chunks == nullptr) {
+        return list_.SplitByKeyOrPos(ts, pos);
+    }
+    Iterator it(&list_, chunks);
+    it.SeekToFirst();
+    uint64_t list_pos = 0;
+    for (uint64_t idx = 0; idx < pos; idx++) {
+        if (!it.Valid()) {
+            return nullptr;
+        }
+        if (it.GetKey() <= ts) {
+            return Split(ts);
+        }
+        if (!it.on_chunk_) {
+            list_pos++;
+        }
+        it.Next();
+    }
+    if (!it.Valid()) {
+        return nullptr;
+    }
+    return SplitAt(&it, list_pos);
+}
+
+base::Node<uint64_t, DataBlock*>* TimeEntries::SplitByKeyAndPos(const uint64_t& ts, uint64_t pos) {
+    TimeChunks* chunks = Chunks();
+    if (chunks == nullptr) {
+        return list_.SplitByKeyAndPos(ts, pos);
+    }
+    Iterator it(&list_, chunks);
+    it.SeekToFirst();
+    uint64_t list_pos = 0;
+    bool find_key = false;
+    for (uint64_t idx = 0; idx < pos; idx++) {
+        if (!it.Valid()) {
+            return nullptr;
+        }
+        if (it.GetKey() <= ts) {
+            find_key = true;
+        }
+        if (!it.on_chunk_) {
+            list_pos++;
+        }
+        it.Next();
+    }
+    if (!it.Valid()) {
+        return nullptr;
+    }
+    if (find_key) {
+        return SplitAt(&it, list_pos);
+    }
+    return Split(ts);
+}
+
+bool TimeEntries::IsEmpty() {
+    TimeChunks* chunks = Chunks();
+    return list_.IsEmpty() && (chunks == nullptr || chunks->rows.load(std::memory_order_relaxed) == 0);
+}
+
+bool TimeEntries::GetLastTime(uint64_t* ts) {
+    TimeChunks* chunks = Chunks();
+    bool found = false;
+    bool has_chunk_rows = chunks != nullptr && chunks->rows.load(std::memory_order_acquire) > 0;
+    // the last node is the head of the list after it's split to empty, skip it if the chunks have rows
+    if (auto node = list_.GetLast(); node != nullptr && (!has_chunk_rows || !list_.IsEmpty())) {
+        *ts = node->GetKey();
+        found = true;
+    }
+    if (has_chunk_rows) {
+        uint64_t oldest_ts = chunks->oldest_ts.load(std::memory_order_relaxed);
+        if (!found || oldest_ts < *ts) {
+            *ts = oldest_ts;
+        }
+        found = true;
+    }
+    return found;
+}
+
+base::Node<uint64_t, DataBlock*>* TimeEntries::SplitAt(Iterator* it, uint64_t list_pos) {
+    base::Node<uint64_t, DataBlock*>* node = list_.SplitByPos(list_pos);
+    if (!it->chunk_it_.Valid()) {
+        return node;
+    }
+    return CutChunks(it->chunk_it_, node);
+}
+
+base::Node<uint64_t, DataBlock*>* TimeEntries::CutChunks(const TimeChunkCursor& cursor,
+                                                         base::Node<uint64_t, DataBlock*>* rest) {
+    TimeChunks* chunks = Chunks();
+    Reclaim();
+    base::Node<uint64_t, DataBlock*>* head = nullptr;
+    base::Node<uint64_t, DataBlock*>* tail = nullptr;
+    uint64_t cnt = 0;
+    auto collect = [&](TimeChunk* chunk, int64_t from) {
+        int64_t begin = chunk->begin.load(std::memory_order_relaxed);
+        for (int64_t pos = from; pos >= begin; pos--) {
+            const TimeSlot& slot = chunk->slots[pos];
+            if (slot.Removed()) {
+                continue;
+            }
+            DataBlock* row = slot.Row();
+            auto node = new base::Node<uint64_t, DataBlock*>(slot.ts, row, 1);
+            node->SetNextNoBarrier(0, nullptr);
+            if (tail == nullptr) {
+                head = node;
+            } else {
+                tail->SetNextNoBarrier(0, node);
+            }
+            tail = node;
+            cnt++;
+        }
+    };
+    TimeChunk* chunk = cursor.chunk;
+    collect(chunk, cursor.idx);
+    TimeChunk* older = chunk->older.load(std::memory_order_relaxed);
+    for (TimeChunk* cur = older; cur != nullptr; cur = cur->older.load(std::memory_order_relaxed)) {
+        collect(cur, static_cast<int64_t>(cur->size.load(std::memory_order_relaxed)) - 1);
+    }
+    if (older != nullptr) {
+        chunk->older.store(nullptr, std::memory_order_release);
+        Retire(older);
+    }
+    uint32_t new_begin = cursor.idx + 1;
+    chunk->begin.store(new_begin, std::memory_order_release);
+    TimeChunk* newest = chunks->newest.load(std::memory_order_relaxed);
+    if (new_begin < chunk->size.load(std::memory_order_relaxed)) {
+        chunks->oldest_ts.store(chunk->slots[new_begin].ts, std::memory_order_relaxed);
+    } else if (chunk != newest) {
+        // no slot is alive in the chunk, detach it from the newer one
+        TimeChunk* newer = newest;
+        while (newer->older.load(std::memory_order_relaxed) != chunk) {
+            newer = newer->older.load(std::memory_order_relaxed);
+        }
+        newer->older.store(nullptr, std::memory_order_release);
+        Retire(chunk);
+        chunks->oldest_ts.store(newer->slots[newer->begin.load(std::memory_order_relaxed)].ts,
+                               std::memory_order_relaxed);
+    }
+    chunks->rows.fetch_sub(cnt, std::memory_order_relaxed);
+    if (tail == nullptr) {
+        return rest;
+    }
+    tail->SetNextNoBarrier(0, rest);
+    return head;
+}
+
+void TimeEntries::Retire(TimeChunk* chunk) {
+    for (TimeChunk* cur = chunk; cur != nullptr; cur = cur->older.load(std::memory_order_relaxed)) {
+        Chunks()->retired.push_back(cur);
+    }
+}
+
+void TimeEntries::Reclaim() {
+    TimeChunks* chunks = Chunks();
+    // the chunks retired by the last split may be read by the iterators which are created before it
+    if (chunks->retired.empty() || chunks->refs->load(std::memory_order_acquire) > 0) {
+        return;
+    }
+    for (auto chunk : chunks->retired) {
+        delete chunk;
+    }
+    chunks->retired.clear();
+}
+
 void KeyEntry::Release(uint32_t idx, StatisticsInfo* statistics_info) {
     if (entries.IsEmpty()) {
         return;
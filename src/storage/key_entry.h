@@ -17,8 +17,11 @@
 #ifndef SRC_STORAGE_KEY_ENTRY_H_
 #define SRC_STORAGE_KEY_ENTRY_H_
 
+#include <atomic>
 #include <cstring>
 #include <memory>
+#include <vector>
+
 #include "base/skiplist.h"
 
 namespace openmldb {
@@ -72,13 +75,146 @@ struct TimeComparator {
 };
 
 static const TimeComparator tcmp;
-using TimeEntries = base::Skiplist<uint64_t, DataBlock*, TimeComparator>;
+using TimeList = base::Skiplist<uint64_t, DataBlock*, TimeComparator>;
 struct StatisticsInfo;
 
+struct TimeSlot {
+    static constexpr uintptr_t REMOVED_MASK = 1;
+
+    DataBlock* Row() const {
+        return reinterpret_cast<DataBlock*>(row.load(std::memory_order_acquire) & ~REMOVED_MASK);
+    }
+    bool Removed() const { return (row.load(std::memory_order_acquire) & REMOVED_MASK) != 0; }
+
+    uint64_t ts;
+    // the lowest bit is set when the row is removed, the pointer is kept for the running iterators
+    std::atomic<uintptr_t> row;
+};
+
+// an append only array of rows in ascending time order. the slots in [begin, size) are alive
+struct TimeChunk {
+    explicit TimeChunk(uint32_t cap) : capacity(cap), begin(0), size(0), older(nullptr), slots(new TimeSlot[cap]) {}
+    ~TimeChunk() { delete[] slots; }
+
+    const uint32_t capacity;
+    std::atomic<uint32_t> begin;
+    std::atomic<uint32_t> size;
+    std::atomic<TimeChunk*> older;
+    TimeSlot* slots;
+};
+
+// the chunks of a key, linked from the newest to the oldest
+struct TimeChunks {
+    explicit TimeChunks(std::atomic<uint64_t>* key_refs)
+        : newest(nullptr), rows(0), last_ts(0), oldest_ts(0), retired(), refs(key_refs) {}
+    ~TimeChunks();
+
+    std::atomic<TimeChunk*> newest;
+    std::atomic<uint64_t> rows;
+    uint64_t last_ts;
+    std::atomic<uint64_t> oldest_ts;
+    // detached chunks which may be still read by iterators
+    std::vector<TimeChunk*> retired;
+    std::atomic<uint64_t>* refs;
+};
+
+struct TimeChunkCursor {
+    TimeChunk* chunk = nullptr;
+    int64_t idx = -1;
+
+    bool Valid() const { return chunk != nullptr; }
+    const TimeSlot& Slot() const { return chunk->slots[idx]; }
+    void Next() {
+        idx--;
+        SkipRemoved();
+    }
+    void SeekToFirst(TimeChunks* chunks);
+    // seek to the newest row whose time is not greater than ts
+    void Seek(TimeChunks* chunks, uint64_t ts);
+    void SeekToLast(TimeChunks* chunks);
+    void SkipRemoved();
+};
+
+// TimeEntries keeps the rows of a key in descending time order. With compact layout, the rows which arrive
+// in time order are appended to TimeChunks without per row nodes, and the out of order rows fall back to the
+// skiplist. The split functions return the removed rows as a node list for both layouts, so the callers free
+// them in the same way.
+// The chunks are kept in the unused value of the skiplist head node, so TimeEntries is as large as the skiplist
+// and the KeyEntry of the default layout doesn't pay for the compact one
+class TimeEntries {
+ public:
+    TimeEntries(uint8_t max_height, uint8_t branch, const TimeComparator& cmp, bool compact,
+                std::atomic<uint64_t>* refs)
+        : list_(max_height, branch, cmp) {
+        if (compact) {
+            list_.GetHeadValue() = reinterpret_cast<DataBlock*>(new TimeChunks(refs));
+        }
+    }
+    ~TimeEntries() { delete Chunks(); }
+    TimeEntries(const TimeEntries&) = delete;
+    TimeEntries& operator=(const TimeEntries&) = delete;
+
+    class Iterator {
+     public:
+        Iterator(TimeList* list, TimeChunks* chunks)
+            : list_(list), list_it_(list), chunk_it_(), chunks_(chunks), on_chunk_(false) {}
+        ~Iterator() {}
+
+        bool Valid() const { return on_chunk_ ? chunk_it_.Valid() : list_it_.Valid(); }
+        void Next();
+        const uint64_t& GetKey() const { return on_chunk_ ? chunk_it_.Slot().ts : list_it_.GetKey(); }
+        DataBlock* GetValue() { return on_chunk_ ? chunk_it_.Slot().Row() : list_it_.GetValue(); }
+        void Seek(const uint64_t& ts);
+        void SeekToFirst();
+        void SeekToLast();
+
+     private:
+        friend class TimeEntries;
+        void Pick();
+
+        TimeList* const list_;
+        TimeList::Iterator list_it_;
+        TimeChunkCursor chunk_it_;
+        TimeChunks* const chunks_;
+        bool on_chunk_;
+    };
+
+    // Insert need external synchronized
+    uint8_t Insert(const uint64_t& ts, DataBlock*& row);  // NOLINT
+    // Remove and split need external synchronized
+    base::Node<uint64_t, DataBlock*>* Remove(const uint64_t& ts);
+    base::Node<uint64_t, DataBlock*>* Split(const uint64_t& ts);
+    base::Node<uint64_t, DataBlock*>* SplitByPos(uint64_t pos);
+    base::Node<uint64_t, DataBlock*>* SplitByKeyOrPos(const uint64_t& ts, uint64_t pos);
+    base::Node<uint64_t, DataBlock*>* SplitByKeyAndPos(const uint64_t& ts, uint64_t pos);
+    bool IsEmpty();
+    // get the oldest time, it may be older than the real one after some rows are removed
+    bool GetLastTime(uint64_t* ts);
+    bool IsCompact() { return Chunks() != nullptr; }
+
+    // delete the iterator after it's used
+    Iterator* NewIterator() { return new Iterator(&list_, Chunks()); }
+
+ private:
+    bool Append(uint64_t ts, DataBlock* row);
+    // split the list after list_pos nodes and cut the chunks from the chunk cursor of it
+    base::Node<uint64_t, DataBlock*>* SplitAt(Iterator* it, uint64_t list_pos);
+    // cut the rows from cursor to the oldest one, and link them before rest
+    base::Node<uint64_t, DataBlock*>* CutChunks(const TimeChunkCursor& cursor, base::Node<uint64_t, DataBlock*>* rest);
+    // the chunk and the older ones are freed later when no iterator reads the key
+    void Retire(TimeChunk* chunk);
+    void Reclaim();
+    // nullptr if the layout is not compact
+    TimeChunks* Chunks() { return reinterpret_cast<TimeChunks*>(list_.GetHeadValue()); }
+
+    TimeList list_;
+};
+
 class KeyEntry {
  public:
-    KeyEntry() : entries(12, 4, tcmp), refs_(0), count_(0) {}
-    explicit KeyEntry(uint8_t height) : entries(height, 4, tcmp), refs_(0), count_(0) {}
+    KeyEntry() : entries(12, 4, tcmp, false, &refs_), refs_(0), count_(0) {}
+    explicit KeyEntry(uint8_t height) : entries(height, 4, tcmp, false, &refs_), refs_(0), count_(0) {}
+    KeyEntry(uint8_t height, bool compact) : entries(height, 4, tcmp, compact, &refs_), refs_(0), count_(0) {}
 
     void Release(uint32_t idx, StatisticsInfo* statistics_info);
 
@@ -93,6 +93,7 @@ bool MemTable::Init() {
         table_meta_->key_entry_max_height() > 0) {
         global_key_entry_max_height = table_meta_->key_entry_max_height();
     }
+    bool compact_key_entry = table_meta_->compact_key_entry();
     auto inner_indexs = table_index_.GetAllInnerIndex();
     for (uint32_t i = 0; i < inner_indexs->size(); i++) {
         const std::vector<uint32_t>& ts_vec = inner_indexs->at(i)->GetTsIdx();
@@ -106,14 +107,15 @@ bool MemTable::Init() {
         Segment** seg_arr = new Segment*[seg_cnt_];
         if (!ts_vec.empty()) {
             for (uint32_t j = 0; j < seg_cnt_; j++) {
-                seg_arr[j] = new Segment(cur_key_entry_max_height, ts_vec);
-                PDLOG(INFO, "init %u, %u segment. height %u, ts col num %u. tid %u pid %u", i, j,
-                      cur_key_entry_max_height, ts_vec.size(), id_, pid_);
+                seg_arr[j] = new Segment(cur_key_entry_max_height, ts_vec, compact_key_entry);
+                PDLOG(INFO, "init %u, %u segment. height %u, ts col num %u, compact %d. tid %u pid %u", i, j,
+                      cur_key_entry_max_height, ts_vec.size(), compact_key_entry, id_, pid_);
             }
         } else {
             for (uint32_t j = 0; j < seg_cnt_; j++) {
-                seg_arr[j] = new Segment(cur_key_entry_max_height);
-                PDLOG(INFO, "init %u, %u segment. height %u tid %u pid %u", i, j, cur_key_entry_max_height, id_, pid_);
+                seg_arr[j] = new Segment(cur_key_entry_max_height, compact_key_entry);
+                PDLOG(INFO, "init %u, %u segment. height %u, compact %d. tid %u pid %u", i, j,
+                      cur_key_entry_max_height, compact_key_entry, id_, pid_);
             }
         }
         segments_[i] = seg_arr;
@@ -624,7 +626,7 @@ bool MemTable::AddIndexToTable(const std::shared_ptr<IndexDef>& index_def) {
     uint32_t inner_id = index_def->GetInnerPos();
     Segment** seg_arr = new Segment*[seg_cnt_];
     for (uint32_t j = 0; j < seg_cnt_; j++) {
-        seg_arr[j] = new Segment(FLAGS_absolute_default_skiplist_height, ts_vec);
+        seg_arr[j] = new Segment(FLAGS_absolute_default_skiplist_height, ts_vec, GetTableMeta()->compact_key_entry());
         PDLOG(INFO, "init %u, %u segment. height %u, ts col num %u. tid %u pid %u", inner_id, j,
                 FLAGS_absolute_default_skiplist_height, ts_vec.size(), id_, pid_);
     }
@@ -30,8 +30,6 @@
 #include "base/hash.h"
 #include "base/slice.h"
 #include "base/strings.h"
-#include "base/taskpool.hpp"
-#include "boost/bind.hpp"
 #include "common/thread_pool.h"
 #include "common/timer.h"
 #include "gflags/gflags.h"
@@ -40,6 +38,7 @@
 #include "log/sequential_file.h"
 #include "proto/tablet.pb.h"
 #include "schema/index_util.h"
+#include "storage/table_loader.h"
 
 DECLARE_uint64(gc_on_table_recover_count);
 DECLARE_int32(binlog_name_length);
@@ -47,7 +46,10 @@ DECLARE_uint32(make_snapshot_max_deleted_keys);
 DECLARE_uint32(load_table_batch);
 DECLARE_uint32(load_table_thread_num);
 DECLARE_uint32(load_table_queue_size);
+DECLARE_uint32(load_table_insert_thread_num);
 DECLARE_string(snapshot_compression);
+DECLARE_uint32(snapshot_max_delta_num);
+DECLARE_bool(log_reader_mmap);
 
 namespace openmldb {
 namespace storage {
@@ -90,24 +92,23 @@ std::shared_ptr<DataReader> DataReader::CreateDataReader(const std::string& snap
 
 bool DataReader::Init() {
     uint64_t snapshot_offset = 0;
-    if (read_type_ == DataReaderType::kSnapshot || read_type_ == DataReaderType::kSnapshotAndBinlog) {
+    if (read_type_ == DataReaderType::kSnapshot || read_type_ == DataReaderType::kSnapshotAndBinlog ||
+            read_type_ == DataReaderType::kSnapshotDelta) {
         ::openmldb::api::Manifest manifest;
         int ret = Snapshot::GetLocalManifest(snapshot_path_ + MANIFEST, manifest);
         if (ret == -1) {
             return false;
         } else if (ret == 0) {
             snapshot_offset = manifest.offset();
-            std::string path = absl::StrCat(snapshot_path_, "/", manifest.name());
-            FILE* fd = fopen(path.c_str(), "rb");
-            if (fd == nullptr) {
-                PDLOG(WARNING, "fail to open path %s for error %s", path.c_str(), strerror(errno));
+            if (read_type_ != DataReaderType::kSnapshotDelta) {
+                snapshot_files_.push_back(absl::StrCat(snapshot_path_, "/", manifest.name()));
+            }
+            for (const auto& delta : manifest.deltas()) {
+                snapshot_files_.push_back(absl::StrCat(snapshot_path_, "/", delta.name()));
+            }
+            if (!OpenNextSnapshot()) {
                 return false;
             }
-            seq_file_.reset(::openmldb::log::NewSeqFile(path, fd));
-            bool compressed = IsCompressed(path);
-            snapshot_reader_ = std::make_shared<::openmldb::log::Reader>(
-                    seq_file_.get(), nullptr, false, 0, compressed);
-            read_snapshot_ = true;
         }
     }
     if (read_type_ == DataReaderType::kBinlog || read_type_ == DataReaderType::kSnapshotAndBinlog) {
@@ -122,31 +123,56 @@ bool DataReader::Init() {
     return true;
 }
 
+bool DataReader::OpenNextSnapshot() {
+    snapshot_reader_.reset();
+    seq_file_.reset();
+    read_snapshot_ = false;
+    if (snapshot_file_idx_ >= snapshot_files_.size()) {
+        return true;
+    }
+    const std::string& path = snapshot_files_[snapshot_file_idx_++];
+    FILE* fd = fopen(path.c_str(), "rb");
+    if (fd == nullptr) {
+        PDLOG(WARNING, "fail to open path %s for error %s", path.c_str(), strerror(errno));
+        return false;
+    }
+    seq_file_.reset(FLAGS_log_reader_mmap ? ::openmldb::log::NewMmapSeqFile(path, fd)
+                                          : ::openmldb::log::NewSeqFile(path, fd));
+    bool compressed = IsCompressed(path);
+    snapshot_reader_ = std::make_shared<::openmldb::log::Reader>(
+            seq_file_.get(), nullptr, false, 0, compressed);
+    read_snapshot_ = true;
+    return true;
+}
+
 bool DataReader::ReadFromSnapshot() {
     if (!read_snapshot_) {
         return false;
     }
     do {
+        const std::string& path = snapshot_files_[snapshot_file_idx_ - 1];
         buffer_.clear();
         record_.clear();
         auto status = snapshot_reader_->ReadRecord(&record_, &buffer_);
         if (status.IsWaitRecord() || status.IsEof()) {
             PDLOG(INFO, "read snapshot completed, succ_cnt %lu, failed_cnt %lu, path %s",
-                    succ_cnt_, failed_cnt_, snapshot_path_.c_str());
+                    succ_cnt_, failed_cnt_, path.c_str());
             succ_cnt_ = 0;
             failed_cnt_ = 0;
-            read_snapshot_ = false;
-            return false;
+            if (!OpenNextSnapshot() || !read_snapshot_) {
+                return false;
+            }
+            continue;
         }
         if (!status.ok()) {
             PDLOG(WARNING, "fail to read snapshot record. path %s, error %s",
-                    snapshot_path_.c_str(), status.ToString().c_str());
+                    path.c_str(), status.ToString().c_str());
             failed_cnt_++;
             continue;
         }
         entry_buff_.assign(record_.data(), record_.size());
         if (!entry_.ParseFromString(entry_buff_)) {
-            PDLOG(WARNING, "fail to parse record. path %s", snapshot_path_);
+            PDLOG(WARNING, "fail to parse record. path %s", path.c_str());
             failed_cnt_++;
             continue;
         }
@@ -327,7 +353,15 @@ bool MemTableSnapshot::Recover(std::shared_ptr<Table> table, uint64_t& latest_of
         return false;
     }
     if (ret == 0) {
-        RecoverFromSnapshot(manifest.name(), manifest.count(), table);
+        uint64_t base_count = manifest.count();
+        for (const auto& delta : manifest.deltas()) {
+            base_count -= delta.count();
+        }
+        RecoverFromSnapshot(manifest.name(), base_count, table);
+        // the deltas may delete the rows of the former files, so they are loaded one by one in order
+        for (const auto& delta : manifest.deltas()) {
+            RecoverFromSnapshot(delta.name(), delta.count(), table);
+        }
         latest_offset = manifest.offset();
         offset_ = latest_offset;
     }
@@ -350,90 +384,52 @@ void MemTableSnapshot::RecoverFromSnapshot(const std::string& snapshot_name, uin
 
 void MemTableSnapshot::RecoverSingleSnapshot(const std::string& path, std::shared_ptr<Table> table,
                                              std::atomic<uint64_t>* g_succ_cnt, std::atomic<uint64_t>* g_failed_cnt) {
-    ::openmldb::base::TaskPool load_pool_(FLAGS_load_table_thread_num, FLAGS_load_table_batch);
-    std::atomic<uint64_t> succ_cnt, failed_cnt;
-    succ_cnt = failed_cnt = 0;
-
-    do {
-        if (table == NULL) {
-            PDLOG(WARNING, "table input is NULL");
-            break;
-        }
-        FILE* fd = fopen(path.c_str(), "rb");
-        if (fd == NULL) {
-            PDLOG(WARNING, "fail to open path %s for error %s", path.c_str(), strerror(errno));
+    if (table == NULL) {
+        PDLOG(WARNING, "table input is NULL");
+        return;
+    }
+    FILE* fd = fopen(path.c_str(), "rb");
+    if (fd == NULL) {
+        PDLOG(WARNING, "fail to open path %s for error %s", path.c_str(), strerror(errno));
+        return;
+    }
+    bool compressed = IsCompressed(path);
+    std::unique_ptr<::openmldb::log::SequentialFile> seq_file(
+        FLAGS_log_reader_mmap ? ::openmldb::log::NewMmapSeqFile(path, fd) : ::openmldb::log::NewSeqFile(path, fd));
+    ::openmldb::log::Reader reader(seq_file.get(), NULL, false, 0, compressed);
+    TableLoader loader(table, FLAGS_load_table_thread_num, FLAGS_load_table_insert_thread_num, FLAGS_load_table_batch,
+                       FLAGS_load_table_queue_size);
+    std::string buffer;
+    uint64_t read_failed_cnt = 0;
+    uint64_t consumed = ::baidu::common::timer::now_time();
+    while (true) {
+        buffer.clear();
+        ::openmldb::base::Slice record;
+        ::openmldb::log::Status status = reader.ReadRecord(&record, &buffer);
+        if (status.IsWaitRecord() || status.IsEof()) {
             break;
         }
-        bool compressed = IsCompressed(path);
-        std::unique_ptr<::openmldb::log::SequentialFile> seq_file(::openmldb::log::NewSeqFile(path, fd));
-        ::openmldb::log::Reader reader(seq_file.get(), NULL, false, 0, compressed);
-        std::string buffer;
-        uint64_t consumed = ::baidu::common::timer::now_time();
-        std::vector<std::string*> recordPtr;
-        recordPtr.reserve(FLAGS_load_table_batch);
-
-        while (true) {
-            buffer.clear();
-            ::openmldb::base::Slice record;
-            ::openmldb::log::Status status = reader.ReadRecord(&record, &buffer);
-            if (status.IsWaitRecord() || status.IsEof()) {
-                consumed = ::baidu::common::timer::now_time() - consumed;
-                PDLOG(INFO,
-                      "read path %s for table tid %u pid %u completed, "
-                      "succ_cnt %lu, failed_cnt %lu, consumed %us",
-                      path.c_str(), tid_, pid_, succ_cnt.load(std::memory_order_relaxed),
-                      failed_cnt.load(std::memory_order_relaxed), consumed);
-                break;
-            }
-
-            if (!status.ok()) {
-                PDLOG(WARNING, "fail to read record for tid %u, pid %u with error %s", tid_, pid_,
-                      status.ToString().c_str());
-                failed_cnt.fetch_add(1, std::memory_order_relaxed);
-                continue;
-            }
-            std::string* sp = new std::string(record.data(), record.size());
-            recordPtr.push_back(sp);
-            if (recordPtr.size() >= FLAGS_load_table_batch) {
-                load_pool_.AddTask(
-                    boost::bind(&MemTableSnapshot::Put, this, path, table, recordPtr, &succ_cnt, &failed_cnt));
-                recordPtr.clear();
-            }
-        }
-        if (recordPtr.size() > 0) {
-            load_pool_.AddTask(
-                boost::bind(&MemTableSnapshot::Put, this, path, table, recordPtr, &succ_cnt, &failed_cnt));
-        }
-        if (g_succ_cnt) {
-            g_succ_cnt->fetch_add(succ_cnt, std::memory_order_relaxed);
-        }
-        if (g_failed_cnt) {
-            g_failed_cnt->fetch_add(failed_cnt, std::memory_order_relaxed);
-        }
-    } while (false);
-    load_pool_.Stop();
-}
-
-void MemTableSnapshot::Put(std::string& path, std::shared_ptr<Table>& table, std::vector<std::string*> recordPtr,
-                           std::atomic<uint64_t>* succ_cnt, std::atomic<uint64_t>* failed_cnt) {
-    ::openmldb::api::LogEntry entry;
-    for (const auto ptr : recordPtr) {
-        bool ok = entry.ParseFromString(*ptr);
-        delete ptr;
-        if (!ok) {
-            failed_cnt->fetch_add(1, std::memory_order_relaxed);
+        if (!status.ok()) {
+            PDLOG(WARNING, "fail to read record for tid %u, pid %u with error %s", tid_, pid_,
+                  status.ToString().c_str());
+            read_failed_cnt++;
             continue;
         }
-        auto scount = succ_cnt->fetch_add(1, std::memory_order_relaxed);
-        if (scount % 100000 == 0) {
-            PDLOG(INFO, "load snapshot %s with succ_cnt %lu, failed_cnt %lu", path.c_str(), scount,
-                  failed_cnt->load(std::memory_order_relaxed));
-        }
-        if (entry.has_method_type() && entry.method_type() == ::openmldb::api::MethodType::kDelete) {
-            table->Delete(entry);
-        } else {
-            table->Put(entry);
-        }
+        loader.Add(record);
+    }
+    loader.Wait();
+    uint64_t succ_cnt = loader.GetSuccCnt();
+    uint64_t failed_cnt = loader.GetFailedCnt() + read_failed_cnt;
+    consumed = ::baidu::common::timer::now_time() - consumed;
+    PDLOG(INFO,
+          "read path %s for table tid %u pid %u completed, "
+          "succ_cnt %lu, failed_cnt %lu, consumed %us",
+          path.c_str(), tid_, pid_, succ_cnt, failed_cnt, consumed);
+    if (g_succ_cnt) {
+        g_succ_cnt->fetch_add(succ_cnt, std::memory_order_relaxed);
+    }
+    if (g_failed_cnt) {
+        g_failed_cnt->fetch_add(failed_cnt, std::memory_order_relaxed);
     }
 }
 
@@ -446,8 +442,14 @@ int MemTableSnapshot::TTLSnapshot(std::shared_ptr<Table> table, const ::openmldb
     }
     bool has_error = false;
     std::string tmp_buf;
+    uint64_t delete_entry_num = 0;
     while (data_reader->HasNext()) {
         auto& entry = data_reader->GetValue();
+        if (entry.has_method_type() && entry.method_type() == ::openmldb::api::MethodType::kDelete) {
+            // the delete entries of the deltas have been collected by CollectDeletedKey
+            delete_entry_num++;
+            continue;
+        }
         ::openmldb::base::Slice record(data_reader->GetStrValue());
         if (!delete_collector_.IsEmpty()) {
             int ret = CheckDeleteAndUpdate(table, &entry);
@@ -476,7 +478,7 @@ int MemTableSnapshot::TTLSnapshot(std::shared_ptr<Table> table, const ::openmldb
         }
         snapshot_meta->count++;
     }
-    if (snapshot_meta->expired_key_num + snapshot_meta->count + snapshot_meta->deleted_key_num
+    if (snapshot_meta->expired_key_num + snapshot_meta->count + snapshot_meta->deleted_key_num + delete_entry_num
             != manifest.count()) {
         PDLOG(WARNING, "key num not match! total key num[%lu] load key num[%lu] ttl key num[%lu]",
               manifest.count(), snapshot_meta->count, snapshot_meta->expired_key_num);
@@ -490,9 +492,35 @@ int MemTableSnapshot::TTLSnapshot(std::shared_ptr<Table> table, const ::openmldb
     return 0;
 }
 
+void MemTableSnapshot::CollectDeletedEntry(const ::openmldb::api::LogEntry& entry) {
+    uint64_t offset = entry.log_index();
+    if (entry.dimensions_size() == 0) {
+        delete_collector_.AddSpan(offset, DeleteSpan(entry));
+        DEBUGLOG("insert span offset %lu. tid %u pid %u", offset, tid_, pid_);
+    } else {
+        std::string combined_key = absl::StrCat(entry.dimensions(0).key(), "|", entry.dimensions(0).idx());
+        DEBUGLOG("insert key %s offset %lu. tid %u pid %u", combined_key.c_str(), offset, tid_, pid_);
+        if (entry.has_ts() || entry.has_end_ts()) {
+            delete_collector_.AddSpan(std::move(combined_key), DeleteSpan(entry));
+        } else {
+            delete_collector_.AddKey(offset, std::move(combined_key));
+        }
+    }
+}
+
 uint64_t MemTableSnapshot::CollectDeletedKey(uint64_t end_offset) {
     delete_collector_.Clear();
     uint64_t cur_offset = offset_;
+    // the deletes in the deltas are always collected, or the rows deleted by them will be written to the new snapshot
+    auto delta_reader = DataReader::CreateDataReader(snapshot_path_, nullptr, "", DataReaderType::kSnapshotDelta);
+    if (delta_reader) {
+        while (delta_reader->HasNext()) {
+            const auto& entry = delta_reader->GetValue();
+            if (entry.has_method_type() && entry.method_type() == ::openmldb::api::MethodType::kDelete) {
+                CollectDeletedEntry(entry);
+            }
+        }
+    }
     auto data_reader = DataReader::CreateDataReader(log_part_, log_path_, offset_, end_offset);
     if (!data_reader) {
         return cur_offset;
@@ -506,18 +534,7 @@ uint64_t MemTableSnapshot::CollectDeletedKey(uint64_t end_offset) {
         const auto& entry = data_reader->GetValue();
         cur_offset = entry.log_index();
         if (entry.has_method_type() && entry.method_type() == ::openmldb::api::MethodType::kDelete) {
-            if (entry.dimensions_size() == 0) {
-                delete_collector_.AddSpan(cur_offset, DeleteSpan(entry));
-                DEBUGLOG("insert span offset %lu. tid %u pid %u", cur_offset, tid_, pid_);
-            } else {
-                std::string combined_key = absl::StrCat(entry.dimensions(0).key(), "|", entry.dimensions(0).idx());
-                if (entry.has_ts() || entry.has_end_ts()) {
-                    delete_collector_.AddSpan(std::move(combined_key), DeleteSpan(entry));
-                } else {
-                    delete_collector_.AddKey(cur_offset, std::move(combined_key));
-                }
-                DEBUGLOG("insert key %s offset %lu. tid %u pid %u", combined_key.c_str(), cur_offset, tid_, pid_);
-            }
+            CollectDeletedEntry(entry);
         }
     }
     return cur_offset;
@@ -538,6 +555,16 @@ int MemTableSnapshot::MakeSnapshot(std::shared_ptr<Table> table, uint64_t& out_o
         this->making_snapshot_.store(false, std::memory_order_release);
         this->delete_collector_.Clear();
     };
+    ::openmldb::api::Manifest manifest;
+    int result = GetLocalManifest(snapshot_path_ + MANIFEST, manifest);
+    if (result < 0) {
+        PDLOG(WARNING, "fail to get manifest. tid %u pid %u", tid_, pid_);
+        return -1;
+    }
+    if (result == 0 && static_cast<uint32_t>(manifest.deltas_size()) < FLAGS_snapshot_max_delta_num) {
+        return MakeDeltaSnapshot(table, manifest, out_offset, end_offset);
+    }
+    // compact the old snapshot, its deltas and the binlog into a new full snapshot
     MemSnapshotMeta snapshot_meta(GenSnapshotName(), snapshot_path_, FLAGS_snapshot_compression);
     auto wh = ::openmldb::log::CreateWriteHandle(FLAGS_snapshot_compression,
             snapshot_meta.snapshot_name, snapshot_meta.tmp_file_path);
@@ -547,10 +574,8 @@ int MemTableSnapshot::MakeSnapshot(std::shared_ptr<Table> table, uint64_t& out_o
     }
     uint64_t collected_offset = CollectDeletedKey(end_offset);
     uint64_t start_time = ::baidu::common::timer::now_time();
-    ::openmldb::api::Manifest manifest;
     bool has_error = false;
     snapshot_meta.term = term;
-    int result = GetLocalManifest(snapshot_path_ + MANIFEST, manifest);
     if (result == 0) {
         // filter old snapshot
         if (TTLSnapshot(table, manifest, wh, &snapshot_meta) < 0) {
@@ -558,9 +583,6 @@ int MemTableSnapshot::MakeSnapshot(std::shared_ptr<Table> table, uint64_t& out_o
         }
         snapshot_meta.term = manifest.term();
         DEBUGLOG("old manifest term is %lu", snapshot_meta.term);
-    } else if (result < 0) {
-        // parse manifest error
-        has_error = true;
     }
 
     ::openmldb::log::LogReader log_reader(log_part_, log_path_, false);
@@ -574,7 +596,7 @@ int MemTableSnapshot::MakeSnapshot(std::shared_ptr<Table> table, uint64_t& out_o
         ::openmldb::log::Status status = log_reader.ReadNextRecord(&record, &buffer);
         if (status.ok()) {
             ::openmldb::api::LogEntry entry;
-            if (!entry.ParseFromString(record.ToString())) {
+            if (!entry.ParseFromArray(record.data(), record.size())) {
                 PDLOG(WARNING, "fail to parse LogEntry. record[%s] size[%ld]",
                       ::openmldb::base::DebugString(record.ToString()).c_str(), record.ToString().size());
                 has_error = true;
@@ -666,6 +688,89 @@ int MemTableSnapshot::MakeSnapshot(std::shared_ptr<Table> table, uint64_t& out_o
     return 0;
 }
 
+int MemTableSnapshot::MakeDeltaSnapshot(std::shared_ptr<Table> table, const ::openmldb::api::Manifest& manifest,
+                                        uint64_t& out_offset, uint64_t end_offset) {
+    // offset_ is in the name so that the deltas made in the same second don't overwrite each other
+    MemSnapshotMeta snapshot_meta(absl::StrCat("delta_", offset_, "_", GenSnapshotName()), snapshot_path_,
+            FLAGS_snapshot_compression);
+    snapshot_meta.term = manifest.term();
+    auto wh = ::openmldb::log::CreateWriteHandle(FLAGS_snapshot_compression,
+            snapshot_meta.snapshot_name, snapshot_meta.tmp_file_path);
+    if (!wh) {
+        PDLOG(WARNING, "fail to create file %s", snapshot_meta.tmp_file_path.c_str());
+        return -1;
+    }
+    auto data_reader = DataReader::CreateDataReader(log_part_, log_path_, offset_, end_offset);
+    if (!data_reader) {
+        PDLOG(WARNING, "fail to create data reader. tid %u pid %u", tid_, pid_);
+        wh.reset();
+        unlink(snapshot_meta.tmp_file_path.c_str());
+        return -1;
+    }
+    uint64_t start_time = ::baidu::common::timer::now_time();
+    uint64_t cur_offset = offset_;
+    bool has_error = false;
+    while (data_reader->HasNext()) {
+        const auto& entry = data_reader->GetValue();
+        cur_offset = entry.log_index();
+        if (entry.has_term()) {
+            snapshot_meta.term = entry.term();
+        }
+        // the delete entries are kept in the delta so that they are replayed in order when recovering
+        bool is_delete = entry.has_method_type() && entry.method_type() == ::openmldb::api::MethodType::kDelete;
+        if (!is_delete && table->IsExpire(entry)) {
+            snapshot_meta.expired_key_num++;
+            continue;
+        }
+        auto status = wh->Write(::openmldb::base::Slice(data_reader->GetStrValue()));
+        if (!status.ok()) {
+            PDLOG(WARNING, "fail to write snapshot. path[%s] status[%s]",
+                    snapshot_meta.tmp_file_path.c_str(), status.ToString().c_str());
+            has_error = true;
+            break;
+        }
+        snapshot_meta.count++;
+    }
+    wh->EndLog();
+    wh.reset();
+    if (has_error || cur_offset == offset_) {
+        unlink(snapshot_meta.tmp_file_path.c_str());
+        if (has_error) {
+            return -1;
+        }
+        PDLOG(INFO, "no new binlog since offset %lu, skip making delta snapshot. tid %u pid %u", offset_, tid_, pid_);
+        out_offset = offset_;
+        return 0;
+    }
+    if (rename(snapshot_meta.tmp_file_path.c_str(), snapshot_meta.full_path.c_str()) != 0) {
+        PDLOG(WARNING, "rename %s failed. tid %u pid %u", snapshot_meta.snapshot_name.c_str(), tid_, pid_);
+        unlink(snapshot_meta.tmp_file_path.c_str());
+        return -1;
+    }
+    ::openmldb::api::Manifest new_manifest(manifest);
+    new_manifest.set_offset(cur_offset);
+    new_manifest.set_term(snapshot_meta.term);
+    new_manifest.set_count(manifest.count() + snapshot_meta.count);
+    auto delta = new_manifest.add_deltas();
+    delta->set_name(snapshot_meta.snapshot_name);
+    delta->set_offset(cur_offset);
+    delta->set_count(snapshot_meta.count);
+    if (GenManifest(new_manifest) != 0) {
+        PDLOG(WARNING, "GenManifest failed. delete delta snapshot file %s", snapshot_meta.full_path.c_str());
+        unlink(snapshot_meta.full_path.c_str());
+        return -1;
+    }
+    uint64_t old_offset = offset_;
+    offset_ = cur_offset;
+    uint64_t consumed = ::baidu::common::timer::now_time() - start_time;
+    PDLOG(INFO, "make delta snapshot[%s] success. update offset from %lu to %lu. delta num %d. "
+          "use %lu second. write key %lu expired key %lu",
+          snapshot_meta.snapshot_name.c_str(), old_offset, offset_, new_manifest.deltas_size(), consumed,
+          snapshot_meta.count, snapshot_meta.expired_key_num);
+    out_offset = offset_;
+    return 0;
+}
+
 /**
  * return code:
  * -1 : error
@@ -762,6 +867,10 @@ std::string MemTableSnapshot::GenSnapshotName() {
                 DEBUGLOG("old snapshot[%s] has deleted", old_manifest.name().c_str());
                 unlink((snapshot_path_ + old_manifest.name()).c_str());
             }
+            for (const auto& delta : old_manifest.deltas()) {
+                DEBUGLOG("old delta snapshot[%s] has deleted", delta.name().c_str());
+                unlink((snapshot_path_ + delta.name()).c_str());
+            }
             offset_ = snapshot_meta.offset;
         } else {
             unlink(snapshot_meta.full_path.c_str());
@@ -64,7 +64,9 @@ struct MemSnapshotMeta : SnapshotMeta {
 enum class DataReaderType {
     kSnapshot = 1,
     kBinlog = 2,
-    kSnapshotAndBinlog = 3
+    kSnapshotAndBinlog = 3,
+    // only the delta snapshots after the base snapshot
+    kSnapshotDelta = 4
 };
 
 class DataReader {
@@ -91,6 +93,8 @@ class DataReader {
  private:
     bool ReadFromSnapshot();
     bool ReadFromBinlog();
+    // open the next file in snapshot_files_, return false if it fails to open
+    bool OpenNextSnapshot();
 
  private:
     std::string snapshot_path_;
@@ -102,6 +106,9 @@ class DataReader {
     uint64_t cur_offset_ = 0;
     bool read_snapshot_ = false;
     bool read_binlog_ = false;
+    // the base snapshot and its deltas which are read in order
+    std::vector<std::string> snapshot_files_;
+    size_t snapshot_file_idx_ = 0;
     std::shared_ptr<::openmldb::log::SequentialFile> seq_file_;
     std::shared_ptr<::openmldb::log::Reader> snapshot_reader_;
     std::shared_ptr<::openmldb::log::LogReader> binlog_reader_;
@@ -160,9 +167,6 @@ class MemTableSnapshot : public Snapshot {
     int TTLSnapshot(std::shared_ptr<Table> table, const ::openmldb::api::Manifest& manifest,
             const std::shared_ptr<WriteHandle>& wh, MemSnapshotMeta* snapshot_meta);
 
-    void Put(std::string& path, std::shared_ptr<Table>& table,  // NOLINT
-             std::vector<std::string*> recordPtr, std::atomic<uint64_t>* succ_cnt, std::atomic<uint64_t>* failed_cnt);
-
     base::Status ExtractIndexData(const std::shared_ptr<Table>& table,
             const std::vector<::openmldb::common::ColumnKey>& add_indexs,
             const std::vector<std::shared_ptr<::openmldb::log::WriteHandle>>& whs,
@@ -179,6 +183,13 @@ class MemTableSnapshot : public Snapshot {
 
     uint64_t CollectDeletedKey(uint64_t end_offset);
 
+    void CollectDeletedEntry(const ::openmldb::api::LogEntry& entry);
+
+    // write the binlog after offset_ to a delta snapshot and chain it to the manifest
+    int MakeDeltaSnapshot(std::shared_ptr<Table> table, const ::openmldb::api::Manifest& manifest,
+                          uint64_t& out_offset,  // NOLINT
+                          uint64_t end_offset);
+
     std::string GenSnapshotName();
 
     ::openmldb::base::Status WriteSnapshot(const MemSnapshotMeta& snapshot_meta);
@@ -19,6 +19,7 @@
 #include <snappy.h>
 
 #include <memory>
+#include <utility>
 
 #include "base/glog_wrapper.h"
 #include "base/strings.h"
@@ -35,12 +36,13 @@ namespace storage {
 
 static const SliceComparator scmp;
 
-Segment::Segment(uint8_t height)
+Segment::Segment(uint8_t height, bool compact_key_entry)
     : entries_(nullptr),
       mu_(),
       idx_byte_size_(0),
       pk_cnt_(0),
       key_entry_max_height_(height),
+      compact_key_entry_(compact_key_entry),
       ts_cnt_(1),
       gc_version_(0),
       ttl_offset_(FLAGS_gc_safe_offset * 60 * 1000),
@@ -49,12 +51,13 @@ Segment::Segment(uint8_t height)
     idx_cnt_vec_.push_back(std::make_shared<std::atomic<uint64_t>>(0));
 }
 
-Segment::Segment(uint8_t height, const std::vector<uint32_t>& ts_idx_vec)
+Segment::Segment(uint8_t height, const std::vector<uint32_t>& ts_idx_vec, bool compact_key_entry)
     : entries_(nullptr),
       mu_(),
       idx_byte_size_(0),
       pk_cnt_(0),
       key_entry_max_height_(height),
+      compact_key_entry_(compact_key_entry),
       ts_cnt_(ts_idx_vec.size()),
       gc_version_(0),
       ttl_offset_(FLAGS_gc_safe_offset * 60 * 1000),
@@ -147,62 +150,83 @@ bool Segment::Put(const Slice& key, uint64_t time, DataBlock* row, bool put_if_a
         LOG(ERROR) << "wrong call";
         return false;
     }
-    std::lock_guard<std::mutex> lock(mu_);
-    return PutUnlock(key, time, row, put_if_absent, check_all_time);
+    std::unique_lock<base::SpinMutex> key_lock;
+    auto entry = reinterpret_cast<KeyEntry*>(GetOrCreateEntry(key, &key_lock));
+    return PutUnlock(entry, time, row, put_if_absent, check_all_time);
 }
 
-bool Segment::PutUnlock(const Slice& key, uint64_t time, DataBlock* row, bool put_if_absent, bool check_all_time) {
+void* Segment::GetOrCreateEntry(const Slice& key, std::unique_lock<base::SpinMutex>* key_lock) {
     void* entry = nullptr;
-    uint32_t byte_size = 0;
-    // one key just one entry
-    int ret = entries_->Get(key, entry);
-    if (ret < 0 || entry == nullptr) {
+    // Keys are removed under mu_ and the removed entries are freed after some gc versions without any guard of the
+    // writers, so the entry must be got under mu_. Only the lookup is under mu_, the row is put with the key locked,
+    // and the key can't be removed until the lock is released.
+    std::lock_guard<std::mutex> lock(mu_);
+    if (entries_->Get(key, entry) < 0 || entry == nullptr) {
         char* pk = new char[key.size()];
         memcpy(pk, key.data(), key.size());
         // need to delete memory when free node
         Slice skey(pk, key.size());
-        entry = reinterpret_cast<void*>(new KeyEntry(key_entry_max_height_));
-        uint8_t height = entries_->Insert(skey, entry);
-        byte_size += GetRecordPkIdxSize(height, key.size(), key_entry_max_height_);
+        uint32_t byte_size = 0;
+        if (ts_cnt_ > 1) {
+            auto** entry_arr = new KeyEntry*[ts_cnt_];
+            for (uint32_t i = 0; i < ts_cnt_; i++) {
+                entry_arr[i] = new KeyEntry(key_entry_max_height_, compact_key_entry_);
+            }
+            entry = reinterpret_cast<void*>(entry_arr);
+            uint8_t height = entries_->Insert(skey, entry);
+            byte_size = GetRecordPkMultiIdxSize(height, key.size(), key_entry_max_height_, ts_cnt_);
+        } else {
+            entry = reinterpret_cast<void*>(new KeyEntry(key_entry_max_height_, compact_key_entry_));
+            uint8_t height = entries_->Insert(skey, entry);
+            byte_size = GetRecordPkIdxSize(height, key.size(), key_entry_max_height_);
+        }
+        idx_byte_size_.fetch_add(byte_size, std::memory_order_relaxed);
         pk_cnt_.fetch_add(1, std::memory_order_relaxed);
-        // no need to check if absent when first put
-    } else if (put_if_absent && ListContains(reinterpret_cast<KeyEntry*>(entry), time, row, check_all_time)) {
-        return false;
     }
+    *key_lock = std::unique_lock<base::SpinMutex>(GetKeyLock(key));
+    return entry;
+}
 
+base::Node<Slice, void*>* Segment::RemoveIfEmpty(const Slice& key, void* entry) {
+    std::lock_guard<std::mutex> lock(mu_);
+    // the key may be removed by Delete and put again since the caller got the entry
+    if (void* cur = nullptr; entries_->Get(key, cur) < 0 || cur != entry) {
+        return nullptr;
+    }
+    std::lock_guard<base::SpinMutex> key_lock(GetKeyLock(key));
+    if (ts_cnt_ > 1) {
+        for (uint32_t i = 0; i < ts_cnt_; i++) {
+            if (!reinterpret_cast<KeyEntry**>(entry)[i]->entries.IsEmpty()) {
+                return nullptr;
+            }
+        }
+    } else if (!reinterpret_cast<KeyEntry*>(entry)->entries.IsEmpty()) {
+        return nullptr;
+    }
+    return entries_->Remove(key);
+}
+
+bool Segment::PutUnlock(KeyEntry* entry, uint64_t time, DataBlock* row, bool put_if_absent, bool check_all_time) {
+    if (put_if_absent && ListContains(entry, time, row, check_all_time)) {
+        return false;
+    }
     idx_cnt_vec_[0]->fetch_add(1, std::memory_order_relaxed);
-    uint8_t height = reinterpret_cast<KeyEntry*>(entry)->entries.Insert(time, row);
-    reinterpret_cast<KeyEntry*>(entry)->count_.fetch_add(1, std::memory_order_relaxed);
-    byte_size += GetRecordTsIdxSize(height);
-    idx_byte_size_.fetch_add(byte_size, std::memory_order_relaxed);
+    uint8_t height = entry->entries.Insert(time, row);
+    entry->count_.fetch_add(1, std::memory_order_relaxed);
+    idx_byte_size_.fetch_add(GetRecordTsIdxSize(height), std::memory_order_relaxed);
     return true;
 }
 
 void Segment::BulkLoadPut(unsigned int key_entry_id, const Slice& key, uint64_t time, DataBlock* row) {
-    void* key_entry_or_list = nullptr;
-    uint32_t byte_size = 0;
-    std::lock_guard<std::mutex> lock(mu_);  // TODO(hw): need lock?
-    int ret = entries_->Get(key, key_entry_or_list);
+    std::unique_lock<base::SpinMutex> key_lock;
+    void* key_entry_or_list = GetOrCreateEntry(key, &key_lock);
     if (ts_cnt_ == 1) {
-        PutUnlock(key, time, row);
+        PutUnlock(reinterpret_cast<KeyEntry*>(key_entry_or_list), time, row);
     } else {
-        if (ret < 0 || key_entry_or_list == nullptr) {
-            char* pk = new char[key.size()];
-            memcpy(pk, key.data(), key.size());
-            Slice skey(pk, key.size());
-            auto** entry_arr_tmp = new KeyEntry*[ts_cnt_];
-            for (uint32_t i = 0; i < ts_cnt_; i++) {
-                entry_arr_tmp[i] = new KeyEntry(key_entry_max_height_);
-            }
-            auto entry_arr = reinterpret_cast<void*>(entry_arr_tmp);
-            uint8_t height = entries_->Insert(skey, entry_arr);
-            byte_size += GetRecordPkMultiIdxSize(height, key.size(), key_entry_max_height_, ts_cnt_);
-            pk_cnt_.fetch_add(1, std::memory_order_relaxed);
-        }
-        uint8_t height = reinterpret_cast<KeyEntry**>(key_entry_or_list)[key_entry_id]->entries.Insert(time, row);
-        reinterpret_cast<KeyEntry**>(key_entry_or_list)[key_entry_id]->count_.fetch_add(1, std::memory_order_relaxed);
-        byte_size += GetRecordTsIdxSize(height);
-        idx_byte_size_.fetch_add(byte_size, std::memory_order_relaxed);
+        KeyEntry* entry = reinterpret_cast<KeyEntry**>(key_entry_or_list)[key_entry_id];
+        uint8_t height = entry->entries.Insert(time, row);
+        entry->count_.fetch_add(1, std::memory_order_relaxed);
+        idx_byte_size_.fetch_add(GetRecordTsIdxSize(height), std::memory_order_relaxed);
         idx_cnt_vec_[key_entry_id]->fetch_add(1, std::memory_order_relaxed);
     }
 }
@@ -220,28 +244,14 @@ bool Segment::Put(const Slice& key, const std::map<int32_t, uint64_t>& ts_map, D
         return ret;
     }
     void* entry_arr = nullptr;
-    std::lock_guard<std::mutex> lock(mu_);
+    std::unique_lock<base::SpinMutex> key_lock;
     for (const auto& kv : ts_map) {
-        uint32_t byte_size = 0;
         auto pos = ts_idx_map_.find(kv.first);
         if (pos == ts_idx_map_.end()) {
             continue;
         }
         if (entry_arr == nullptr) {
-            int ret = entries_->Get(key, entry_arr);
-            if (ret < 0 || entry_arr == nullptr) {
-                char* pk = new char[key.size()];
-                memcpy(pk, key.data(), key.size());
-                Slice skey(pk, key.size());
-                KeyEntry** entry_arr_tmp = new KeyEntry*[ts_cnt_];
-                for (uint32_t i = 0; i < ts_cnt_; i++) {
-                    entry_arr_tmp[i] = new KeyEntry(key_entry_max_height_);
-                }
-                entry_arr = reinterpret_cast<void*>(entry_arr_tmp);
-                uint8_t height = entries_->Insert(skey, entry_arr);
-                byte_size += GetRecordPkMultiIdxSize(height, key.size(), key_entry_max_height_, ts_cnt_);
-                pk_cnt_.fetch_add(1, std::memory_order_relaxed);
-            }
+            entry_arr = GetOrCreateEntry(key, &key_lock);
         }
         auto entry = reinterpret_cast<KeyEntry**>(entry_arr)[pos->second];
         if (put_if_absent && ListContains(entry, kv.second, row, pos->first == DEFAULT_TS_COL_ID)) {
@@ -249,8 +259,7 @@ bool Segment::Put(const Slice& key, const std::map<int32_t, uint64_t>& ts_map, D
         }
         uint8_t height = entry->entries.Insert(kv.second, row);
         entry->count_.fetch_add(1, std::memory_order_relaxed);
-        byte_size += GetRecordTsIdxSize(height);
-        idx_byte_size_.fetch_add(byte_size, std::memory_order_relaxed);
+        idx_byte_size_.fetch_add(GetRecordTsIdxSize(height), std::memory_order_relaxed);
         idx_cnt_vec_[pos->second]->fetch_add(1, std::memory_order_relaxed);
     }
     return true;
@@ -265,7 +274,11 @@ bool Segment::Delete(const std::optional<uint32_t>& idx, const Slice& key) {
         ::openmldb::base::Node<Slice, void*>* entry_node = nullptr;
         {
             std::lock_guard<std::mutex> lock(mu_);
-            entry_node = entries_->Remove(key);
+            void* entry = nullptr;
+            if (entries_->Get(key, entry) == 0 && entry != nullptr) {
+                std::lock_guard<base::SpinMutex> key_lock(GetKeyLock(key));
+                entry_node = entries_->Remove(key);
+            }
         }
         if (entry_node != nullptr) {
             node_cache_.AddKeyEntryNode(gc_version_.load(std::memory_order_relaxed), entry_node);
@@ -274,11 +287,13 @@ bool Segment::Delete(const std::optional<uint32_t>& idx, const Slice& key) {
     } else {
         base::Node<uint64_t, DataBlock*>* data_node = nullptr;
         {
-            std::lock_guard<std::mutex> lock(mu_);
             void* entry_arr = nullptr;
+            std::unique_lock<std::mutex> lock(mu_);
             if (entries_->Get(key, entry_arr) < 0 || entry_arr == nullptr) {
                 return true;
             }
+            std::lock_guard<base::SpinMutex> key_lock(GetKeyLock(key));
+            lock.unlock();
             KeyEntry* key_entry = reinterpret_cast<KeyEntry**>(entry_arr)[ts_idx];
             std::unique_ptr<TimeEntries::Iterator> it(key_entry->entries.NewIterator());
             it->SeekToFirst();
@@ -329,10 +344,11 @@ bool Segment::Delete(const std::optional<uint32_t>& idx, const Slice& key,
     } else {
         key_entry = reinterpret_cast<KeyEntry**>(entry)[ts_idx];
     }
+    base::SpinMutex& key_mu = GetKeyLock(key);
     if (end_ts.has_value()) {
-        if (auto node = key_entry->entries.GetLast(); node == nullptr) {
+        if (uint64_t last_ts = 0; !key_entry->entries.GetLastTime(&last_ts)) {
             return true;
-        } else if (node->GetKey() <= end_ts.value()) {
+        } else if (last_ts <= end_ts.value()) {
             std::unique_ptr<TimeEntries::Iterator> it(key_entry->entries.NewIterator());
             it->Seek(ts);
             while (it->Valid()) {
@@ -340,7 +356,7 @@ bool Segment::Delete(const std::optional<uint32_t>& idx, const Slice& key,
                 it->Next();
                 base::Node<uint64_t, DataBlock*>* data_node = nullptr;
                 if (cur_ts <= ts && cur_ts > end_ts.value()) {
-                    std::lock_guard<std::mutex> lock(mu_);
+                    std::lock_guard<base::SpinMutex> key_lock(key_mu);
                     data_node = key_entry->entries.Remove(cur_ts);
                 } else {
                     return true;
@@ -352,7 +368,7 @@ bool Segment::Delete(const std::optional<uint32_t>& idx, const Slice& key,
     }
     base::Node<uint64_t, DataBlock*>* data_node = nullptr;
     {
-        std::lock_guard<std::mutex> lock(mu_);
+        std::lock_guard<base::SpinMutex> key_lock(key_mu);
         data_node = key_entry->entries.Split(ts);
         DLOG(INFO) << "entry " << key.ToString() << " split by " << ts;
     }
@@ -470,7 +486,7 @@ void Segment::Gc4Head(uint64_t keep_cnt, StatisticsInfo* statistics_info) {
         auto entry = reinterpret_cast<KeyEntry*>(it->GetValue());
         ::openmldb::base::Node<uint64_t, DataBlock*>* node = nullptr;
         {
-            std::lock_guard<std::mutex> lock(mu_);
+            std::lock_guard<base::SpinMutex> key_lock(GetKeyLock(it->GetKey()));
             if (entry->refs_.load(std::memory_order_acquire) <= 0) {
                 node = entry->entries.SplitByPos(keep_cnt);
             }
@@ -508,12 +524,11 @@ void Segment::GcAllType(const std::map<uint32_t, TTLSt>& ttl_st_map, StatisticsI
             bool continue_flag = false;
             switch (kv.second.ttl_type) {
                 case ::openmldb::storage::TTLType::kAbsoluteTime: {
-                    node = entry->entries.GetLast();
-                    if (node == nullptr || node->GetKey() > kv.second.abs_ttl) {
+                    if (uint64_t last_ts = 0;
+                        !entry->entries.GetLastTime(&last_ts) || last_ts > kv.second.abs_ttl) {
                         continue_flag = true;
                     } else {
-                        node = nullptr;
-                        std::lock_guard<std::mutex> lock(mu_);
+                        std::lock_guard<base::SpinMutex> key_lock(GetKeyLock(key));
                         SplitList(entry, kv.second.abs_ttl, &node);
                         if (entry->entries.IsEmpty()) {
                             DLOG(INFO) << "gc key " << key.ToString() << " is empty";
@@ -523,19 +538,18 @@ void Segment::GcAllType(const std::map<uint32_t, TTLSt>& ttl_st_map, StatisticsI
                     break;
                 }
                 case ::openmldb::storage::TTLType::kLatestTime: {
-                    std::lock_guard<std::mutex> lock(mu_);
+                    std::lock_guard<base::SpinMutex> key_lock(GetKeyLock(key));
                     if (entry->refs_.load(std::memory_order_acquire) <= 0) {
                         node = entry->entries.SplitByPos(kv.second.lat_ttl);
                     }
                     break;
                 }
                 case ::openmldb::storage::TTLType::kAbsAndLat: {
-                    node = entry->entries.GetLast();
-                    if (node == nullptr || node->GetKey() > kv.second.abs_ttl) {
+                    if (uint64_t last_ts = 0;
+                        !entry->entries.GetLastTime(&last_ts) || last_ts > kv.second.abs_ttl) {
                         continue_flag = true;
                     } else {
-                        node = nullptr;
-                        std::lock_guard<std::mutex> lock(mu_);
+                        std::lock_guard<base::SpinMutex> key_lock(GetKeyLock(key));
                         if (entry->refs_.load(std::memory_order_acquire) <= 0) {
                             node = entry->entries.SplitByKeyAndPos(kv.second.abs_ttl, kv.second.lat_ttl);
                         }
@@ -543,12 +557,10 @@ void Segment::GcAllType(const std::map<uint32_t, TTLSt>& ttl_st_map, StatisticsI
                     break;
                 }
                 case ::openmldb::storage::TTLType::kAbsOrLat: {
-                    node = entry->entries.GetLast();
-                    if (node == nullptr) {
+                    if (uint64_t last_ts = 0; !entry->entries.GetLastTime(&last_ts)) {
                         continue_flag = true;
                     } else {
-                        node = nullptr;
-                        std::lock_guard<std::mutex> lock(mu_);
+                        std::lock_guard<base::SpinMutex> key_lock(GetKeyLock(key));
                         if (entry->refs_.load(std::memory_order_acquire) <= 0) {
                             if (kv.second.abs_ttl == 0) {
                                 node = entry->entries.SplitByPos(kv.second.lat_ttl);
@@ -577,20 +589,7 @@ void Segment::GcAllType(const std::map<uint32_t, TTLSt>& ttl_st_map, StatisticsI
             idx_cnt_vec_[pos->second]->fetch_sub(free_idx_cnt, std::memory_order_relaxed);
         }
         if (empty_cnt == ts_cnt_) {
-            bool is_empty = true;
-            ::openmldb::base::Node<Slice, void*>* entry_node = nullptr;
-            {
-                std::lock_guard<std::mutex> lock(mu_);
-                for (uint32_t i = 0; i < ts_cnt_; i++) {
-                    if (!entry_arr[i]->entries.IsEmpty()) {
-                        is_empty = false;
-                        break;
-                    }
-                }
-                if (is_empty) {
-                    entry_node = entries_->Remove(key);
-                }
-            }
+            auto entry_node = RemoveIfEmpty(key, reinterpret_cast<void*>(entry_arr));
             if (entry_node != nullptr) {
                 node_cache_.AddKeyEntryNode(gc_version_.load(std::memory_order_relaxed), entry_node);
             }
@@ -646,21 +645,23 @@ void Segment::Gc4TTL(const uint64_t time, StatisticsInfo* statistics_info) {
         KeyEntry* entry = reinterpret_cast<KeyEntry*>(it->GetValue());
         Slice key = it->GetKey();
         it->Next();
-        ::openmldb::base::Node<uint64_t, DataBlock*>* node = entry->entries.GetLast();
-        if (node == nullptr) {
+        uint64_t last_ts = 0;
+        if (!entry->entries.GetLastTime(&last_ts)) {
             continue;
-        } else if (node->GetKey() > time) {
-            DEBUGLOG("[Gc4TTL] segment gc with key %lu need not ttl, last node key %lu", time, node->GetKey());
+        } else if (last_ts > time) {
+            DEBUGLOG("[Gc4TTL] segment gc with key %lu need not ttl, last node key %lu", time, last_ts);
             continue;
         }
-        node = nullptr;
+        ::openmldb::base::Node<uint64_t, DataBlock*>* node = nullptr;
         ::openmldb::base::Node<Slice, void*>* entry_node = nullptr;
+        bool is_empty = false;
         {
-            std::lock_guard<std::mutex> lock(mu_);
+            std::lock_guard<base::SpinMutex> key_lock(GetKeyLock(key));
             SplitList(entry, time, &node);
-            if (entry->entries.IsEmpty()) {
-                entry_node = entries_->Remove(key);
-            }
+            is_empty = entry->entries.IsEmpty();
+        }
+        if (is_empty) {
+            entry_node = RemoveIfEmpty(key, entry);
         }
         if (entry_node != nullptr) {
             DLOG(INFO) << "add key " << key.ToString() << " to node cache. version " << gc_version_;
@@ -686,17 +687,18 @@ void Segment::Gc4TTLAndHead(const uint64_t time, const uint64_t keep_cnt, Statis
     it->SeekToFirst();
     while (it->Valid()) {
         KeyEntry* entry = reinterpret_cast<KeyEntry*>(it->GetValue());
-        ::openmldb::base::Node<uint64_t, DataBlock*>* node = entry->entries.GetLast();
+        Slice key = it->GetKey();
+        uint64_t last_ts = 0;
         it->Next();
-        if (node == nullptr) {
+        if (!entry->entries.GetLastTime(&last_ts)) {
             continue;
-        } else if (node->GetKey() > time) {
-            DEBUGLOG("[Gc4TTLAndHead] segment gc with key %lu need not ttl, last node key %lu", time, node->GetKey());
+        } else if (last_ts > time) {
+            DEBUGLOG("[Gc4TTLAndHead] segment gc with key %lu need not ttl, last node key %lu", time, last_ts);
             continue;
         }
-        node = nullptr;
+        ::openmldb::base::Node<uint64_t, DataBlock*>* node = nullptr;
         {
-            std::lock_guard<std::mutex> lock(mu_);
+            std::lock_guard<base::SpinMutex> key_lock(GetKeyLock(key));
             if (entry->refs_.load(std::memory_order_acquire) <= 0) {
                 node = entry->entries.SplitByKeyAndPos(time, keep_cnt);
             }
@@ -729,20 +731,21 @@ void Segment::Gc4TTLOrHead(const uint64_t time, const uint64_t keep_cnt, Statist
         KeyEntry* entry = reinterpret_cast<KeyEntry*>(it->GetValue());
         Slice key = it->GetKey();
         it->Next();
-        ::openmldb::base::Node<uint64_t, DataBlock*>* node = entry->entries.GetLast();
-        if (node == nullptr) {
+        if (uint64_t last_ts = 0; !entry->entries.GetLastTime(&last_ts)) {
             continue;
         }
-        node = nullptr;
+        ::openmldb::base::Node<uint64_t, DataBlock*>* node = nullptr;
         ::openmldb::base::Node<Slice, void*>* entry_node = nullptr;
+        bool is_empty = false;
         {
-            std::lock_guard<std::mutex> lock(mu_);
+            std::lock_guard<base::SpinMutex> key_lock(GetKeyLock(key));
             if (entry->refs_.load(std::memory_order_acquire) <= 0) {
                 node = entry->entries.SplitByKeyOrPos(time, keep_cnt);
             }
-            if (entry->entries.IsEmpty()) {
-                entry_node = entries_->Remove(key);
-            }
+            is_empty = entry->entries.IsEmpty();
+        }
+        if (is_empty) {
+            entry_node = RemoveIfEmpty(key, entry);
         }
         if (entry_node != nullptr) {
             node_cache_.AddKeyEntryNode(gc_version_.load(std::memory_order_relaxed), entry_node);
@@ -17,16 +17,20 @@
 #ifndef SRC_STORAGE_SEGMENT_H_
 #define SRC_STORAGE_SEGMENT_H_
 
+#include <array>
 #include <atomic>
+#include <functional>
 #include <map>
 #include <memory>
 #include <mutex>  // NOLINT
 #include <optional>
 #include <string>
+#include <string_view>
 #include <vector>
 
 #include "base/skiplist.h"
 #include "base/slice.h"
+#include "base/spinlock.h"
 #include "proto/tablet.pb.h"
 #include "storage/iterator.h"
 #include "storage/key_entry.h"
@@ -66,8 +70,9 @@ using KeyEntryNodeList = base::Skiplist<uint64_t, base::Node<Slice, void*>*, Tim
 
 class Segment {
  public:
-    explicit Segment(uint8_t height);
-    Segment(uint8_t height, const std::vector<uint32_t>& ts_idx_vec);
+    // the rows of the keys are kept in time ordered chunks if compact_key_entry is set, see TimeEntries
+    explicit Segment(uint8_t height, bool compact_key_entry = false);
+    Segment(uint8_t height, const std::vector<uint32_t>& ts_idx_vec, bool compact_key_entry = false);
     ~Segment();
 
     // legacy interface called by memtable and ut
@@ -148,15 +153,34 @@ class Segment {
 
     bool ListContains(KeyEntry* entry, uint64_t time, DataBlock* row, bool check_all_time);
 
-    bool PutUnlock(const Slice& key, uint64_t time, DataBlock* row, bool put_if_absent = false,
+    // the caller must hold the lock of the key
+    bool PutUnlock(KeyEntry* entry, uint64_t time, DataBlock* row, bool put_if_absent = false,
                    bool check_all_time = false);
 
+    // the lock guards all the entries of the key. It's striped by a hash different from the one choosing the segment,
+    // so the keys of a segment spread over all the locks
+    ::openmldb::base::SpinMutex& GetKeyLock(const Slice& key) {
+        return key_locks_[std::hash<std::string_view>()(std::string_view(key.data(), key.size())) % KEY_LOCK_NUM];
+    }
+
+    // get the entry of the key with the key locked, the entry is created if it doesn't exist
+    void* GetOrCreateEntry(const Slice& key, std::unique_lock<::openmldb::base::SpinMutex>* key_lock);
+
+    // remove the key from entries_ if all its entries are empty, the caller must not hold the key lock
+    ::openmldb::base::Node<Slice, void*>* RemoveIfEmpty(const Slice& key, void* entry);
+
  private:
     KeyEntries* entries_;
+    // guards the lookup, insert and remove of keys in entries_. Writers of the same key are serialized by the
+    // key lock, see GetKeyLock. Lock order is mu_ then the key lock
     std::mutex mu_;
+    static constexpr uint32_t KEY_LOCK_NUM = 64;
+    // not in KeyEntry to keep it small, there are many more keys than writers
+    std::array<::openmldb::base::SpinMutex, KEY_LOCK_NUM> key_locks_;
     std::atomic<uint64_t> idx_byte_size_;
     std::atomic<uint64_t> pk_cnt_;
     uint8_t key_entry_max_height_;
+    bool compact_key_entry_;
     uint32_t ts_cnt_;
     std::atomic<uint64_t> gc_version_;
     std::map<uint32_t, uint32_t> ts_idx_map_;
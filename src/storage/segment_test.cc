@@ -16,8 +16,11 @@
 
 #include "storage/segment.h"
 
+#include <atomic>
 #include <iostream>
 #include <string>
+#include <thread>  // NOLINT
+#include <vector>
 
 #include "absl/strings/str_cat.h"
 #include "base/glog_wrapper.h"
@@ -500,6 +503,120 @@ TEST_F(SegmentTest, PutIfAbsent) {
     }
 }
 
+TEST_F(SegmentTest, ConcurrentPut) {
+    Segment segment(8);
+    int thread_num = 8;
+    int put_num = 1000;
+    std::vector<std::thread> threads;
+    for (int i = 0; i < thread_num; i++) {
+        threads.emplace_back([&segment, i, put_num]() {
+            for (int j = 0; j < put_num; j++) {
+                // a hot key written by all threads and keys of this thread
+                segment.Put(Slice("hot"), j, "value", 5);
+                std::string key = absl::StrCat("key", i, "_", j % 10);
+                segment.Put(Slice(key), j, "value", 5);
+            }
+        });
+    }
+    for (auto& t : threads) {
+        t.join();
+    }
+    ASSERT_EQ(1u + thread_num * 10, segment.GetPkCnt());
+    ASSERT_EQ(2u * thread_num * put_num, segment.GetIdxCnt());
+    uint64_t count = 0;
+    ASSERT_EQ(0, segment.GetCount(Slice("hot"), count));
+    ASSERT_EQ(static_cast<uint64_t>(thread_num * put_num), count);
+    ASSERT_EQ(0, segment.GetCount(Slice("key0_0"), count));
+    ASSERT_EQ(static_cast<uint64_t>(put_num / 10), count);
+}
+
+TEST_F(SegmentTest, ConcurrentPutAndGc) {
+    Segment segment(8);
+    std::atomic<bool> stop(false);
+    int put_num = 10000;
+    std::thread writer([&segment, put_num]() {
+        for (int j = 1; j <= put_num; j++) {
+            segment.Put(Slice(absl::StrCat("key", j % 100)), j, "value", 5);
+        }
+    });
+    std::thread gc([&segment, &stop]() {
+        while (!stop.load()) {
+            StatisticsInfo gc_info(1);
+            segment.Gc4TTL(100, &gc_info);
+        }
+    });
+    writer.join();
+    stop.store(true);
+    gc.join();
+    StatisticsInfo gc_info(1);
+    segment.Gc4TTL(100, &gc_info);
+    // all the rows newer than the ttl are kept even if the key was removed by gc concurrently
+    uint64_t total = 0;
+    for (int i = 0; i < 100; i++) {
+        uint64_t count = 0;
+        ASSERT_EQ(0, segment.GetCount(Slice(absl::StrCat("key", i)), count));
+        total += count;
+    }
+    ASSERT_EQ(static_cast<uint64_t>(put_num - 100), total);
+}
+
+TEST_F(SegmentTest, CompactKeyEntry) {
+    Segment segment(8, true);
+    Slice pk("PK");
+    // the rows in time order are appended to chunks and the late one falls back to the skiplist
+    for (uint64_t ts = 1; ts <= 100; ts++) {
+        segment.Put(pk, ts * 10, "test1", 5);
+    }
+    segment.Put(pk, 55, "test2", 5);
+    ASSERT_EQ(101u, segment.GetIdxCnt());
+    {
+        Ticket ticket;
+        std::unique_ptr<MemTableIterator> it(segment.NewIterator(pk, ticket, type::CompressType::kNoCompress));
+        it->SeekToFirst();
+        uint64_t last_ts = UINT64_MAX;
+        int cnt = 0;
+        while (it->Valid()) {
+            ASSERT_LE(it->GetKey(), last_ts);
+            last_ts = it->GetKey();
+            cnt++;
+            it->Next();
+        }
+        ASSERT_EQ(101, cnt);
+        it->Seek(58);
+        ASSERT_TRUE(it->Valid());
+        ASSERT_EQ(55u, it->GetKey());
+        ::openmldb::base::Slice value = it->GetValue();
+        ASSERT_EQ("test2", std::string(value.data(), value.size()));
+        it->Next();
+        ASSERT_TRUE(it->Valid());
+        ASSERT_EQ(50u, it->GetKey());
+    }
+    StatisticsInfo gc_info(1);
+    segment.Gc4Head(10, &gc_info);
+    CheckStatisticsInfo(CreateStatisticsInfo(91, 0, 91 * GetRecordSize(5)), gc_info);
+    {
+        Ticket ticket;
+        std::unique_ptr<MemTableIterator> it(segment.NewIterator(pk, ticket, type::CompressType::kNoCompress));
+        it->SeekToFirst();
+        ASSERT_TRUE(it->Valid());
+        ASSERT_EQ(1000u, it->GetKey());
+        int cnt = 0;
+        while (it->Valid()) {
+            cnt++;
+            it->Next();
+        }
+        ASSERT_EQ(10, cnt);
+    }
+    segment.Gc4TTL(1000, &gc_info);
+    CheckStatisticsInfo(CreateStatisticsInfo(101, 0, 101 * GetRecordSize(5)), gc_info);
+    ASSERT_EQ(0u, segment.GetIdxCnt());
+    segment.IncrGcVersion();
+    segment.IncrGcVersion();
+    segment.GcFreeList(&gc_info);
+    segment.Put(pk, 2000, "test3", 5);
+    ASSERT_EQ(1u, segment.GetIdxCnt());
+}
+
 }  // namespace storage
 }  // namespace openmldb
 
@@ -43,6 +43,7 @@
 
 DECLARE_string(db_root_path);
 DECLARE_string(snapshot_compression);
+DECLARE_uint32(snapshot_max_delta_num);
 
 using ::openmldb::api::LogEntry;
 namespace openmldb {
@@ -1839,6 +1840,118 @@ TEST_F(SnapshotTest, DeleteRange) {
     ASSERT_EQ(5, (int64_t)manifest.term());
 }
 
+TEST_F(SnapshotTest, DeltaSnapshot) {
+    uint32_t old_max_delta_num = FLAGS_snapshot_max_delta_num;
+    FLAGS_snapshot_max_delta_num = 2;
+    LogParts* log_part = new LogParts(12, 4, scmp);
+    uint32_t tid = GenRand();
+    uint32_t pid = 3;
+    MemTableSnapshot snapshot(tid, pid, log_part, FLAGS_db_root_path);
+    snapshot.Init();
+    std::map<std::string, uint32_t> mapping = { {"idx0", 0} };
+    auto table = std::make_shared<MemTable>("tx_log", tid, pid, 8, mapping, 0,
+            ::openmldb::type::TTLType::kAbsoluteTime);
+    table->Init();
+    uint64_t offset = 0;
+    uint32_t binlog_index = 0;
+    std::string log_path = absl::StrCat(FLAGS_db_root_path, "/", tid, "_", pid, "/binlog/");
+    std::string snapshot_path = absl::StrCat(FLAGS_db_root_path, "/", tid, "_", pid, "/snapshot/");
+    WriteHandle* wh = NULL;
+    RollWLogFile(&wh, log_part, log_path, binlog_index, offset++);
+    std::string buffer;
+    auto put = [&](const std::string& key, int num) {
+        for (int i = 0; i < num; i++) {
+            auto entry = ::openmldb::test::PackKVEntry(offset, key, "value", 1000 + offset, 5);
+            entry.SerializeToString(&buffer);
+            wh->Write(base::Slice(buffer));
+            offset++;
+        }
+    };
+    auto count_rows = [](const std::shared_ptr<MemTable>& table, const std::string& key) {
+        Ticket ticket;
+        std::unique_ptr<TableIterator> it(table->NewIterator(key, ticket));
+        uint64_t cnt = 0;
+        it->SeekToFirst();
+        while (it->Valid()) {
+            cnt++;
+            it->Next();
+        }
+        return cnt;
+    };
+    auto check_recover = [&](uint64_t expect_offset) {
+        auto new_table = std::make_shared<MemTable>("tx_log", tid, pid, 8, mapping, 0,
+                ::openmldb::type::TTLType::kAbsoluteTime);
+        new_table->Init();
+        MemTableSnapshot new_snapshot(tid, pid, log_part, FLAGS_db_root_path);
+        new_snapshot.Init();
+        uint64_t latest_offset = 0;
+        ASSERT_TRUE(new_snapshot.Recover(new_table, latest_offset));
+        ASSERT_EQ(expect_offset, latest_offset);
+        ASSERT_EQ(3u, count_rows(new_table, "key0"));
+        ASSERT_EQ(21u, count_rows(new_table, "key1"));
+    };
+    uint64_t offset_value = 0;
+    // the first snapshot is a full one
+    put("key0", 10);
+    put("key1", 10);
+    ASSERT_EQ(0, snapshot.MakeSnapshot(table, offset_value, 0));
+    ::openmldb::api::Manifest manifest;
+    GetManifest(snapshot_path + "MANIFEST", &manifest);
+    ASSERT_EQ(20u, manifest.offset());
+    ASSERT_EQ(20u, manifest.count());
+    ASSERT_EQ(0, manifest.deltas_size());
+
+    put("key0", 5);
+    put("key1", 5);
+    ::openmldb::api::LogEntry entry;
+    entry.set_log_index(offset);
+    entry.set_method_type(::openmldb::api::MethodType::kDelete);
+    auto dimension = entry.add_dimensions();
+    dimension->set_key("key0");
+    dimension->set_idx(0);
+    entry.set_term(5);
+    entry.SerializeToString(&buffer);
+    wh->Write(base::Slice(buffer));
+    offset++;
+    put("key0", 3);
+    ASSERT_EQ(0, snapshot.MakeSnapshot(table, offset_value, 0));
+    ASSERT_EQ(34u, offset_value);
+    manifest.Clear();
+    GetManifest(snapshot_path + "MANIFEST", &manifest);
+    ASSERT_EQ(34u, manifest.offset());
+    ASSERT_EQ(34u, manifest.count());
+    ASSERT_EQ(1, manifest.deltas_size());
+    ASSERT_EQ(34u, manifest.deltas(0).offset());
+    ASSERT_EQ(14u, manifest.deltas(0).count());
+
+    put("key1", 6);
+    ASSERT_EQ(0, snapshot.MakeSnapshot(table, offset_value, 0));
+    manifest.Clear();
+    GetManifest(snapshot_path + "MANIFEST", &manifest);
+    ASSERT_EQ(40u, manifest.offset());
+    ASSERT_EQ(40u, manifest.count());
+    ASSERT_EQ(2, manifest.deltas_size());
+    std::vector<std::string> vec;
+    ASSERT_EQ(0, ::openmldb::base::GetFileName(snapshot_path, vec));
+    ASSERT_EQ(4, (int32_t)vec.size());
+    check_recover(40);
+
+    // the deltas reach snapshot_max_delta_num, so they are compacted into a full snapshot
+    ASSERT_EQ(0, snapshot.MakeSnapshot(table, offset_value, 0));
+    manifest.Clear();
+    GetManifest(snapshot_path + "MANIFEST", &manifest);
+    ASSERT_EQ(40u, manifest.offset());
+    ASSERT_EQ(24u, manifest.count());
+    ASSERT_EQ(0, manifest.deltas_size());
+    vec.clear();
+    ASSERT_EQ(0, ::openmldb::base::GetFileName(snapshot_path, vec));
+    ASSERT_EQ(2, (int32_t)vec.size());
+    check_recover(40);
+    wh->EndLog();
+    delete wh;
+    FLAGS_snapshot_max_delta_num = old_max_delta_num;
+}
+
 }  // namespace storage
 }  // namespace openmldb
 
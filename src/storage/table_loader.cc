@@ -0,0 +1,196 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#include "storage/table_loader.h"
+
+#include <utility>
+
+#include "base/glog_wrapper.h"
+#include "base/hash.h"
+#include "boost/bind.hpp"
+
+namespace openmldb {
+namespace storage {
+
+constexpr uint32_t SEED = 0xe17a1465;
+
+TableLoader::TableLoader(std::shared_ptr<Table> table, uint32_t decode_thread_num, uint32_t insert_thread_num,
+                         uint32_t batch_size, uint32_t queue_size)
+    : table_(table),
+      batch_size_(batch_size == 0 ? 1 : batch_size),
+      batch_(),
+      next_seq_(0),
+      mu_(),
+      cv_(),
+      dispatch_seq_(0),
+      check_offset_(false),
+      offset_(0),
+      pending_(0),
+      applied_mu_(),
+      applied_cv_(),
+      succ_cnt_(0),
+      failed_cnt_(0),
+      insert_pools_(),
+      decode_pool_(decode_thread_num == 0 ? 1 : decode_thread_num, queue_size) {
+    if (insert_thread_num == 0) {
+        insert_thread_num = 1;
+    }
+    for (uint32_t i = 0; i < insert_thread_num; i++) {
+        insert_pools_.emplace_back(new ::openmldb::base::TaskPool(1, queue_size));
+    }
+}
+
+TableLoader::~TableLoader() { Wait(); }
+
+void TableLoader::SetStartOffset(uint64_t offset) {
+    std::lock_guard<std::mutex> lock(mu_);
+    check_offset_ = true;
+    offset_ = offset;
+}
+
+uint64_t TableLoader::GetOffset() {
+    std::lock_guard<std::mutex> lock(mu_);
+    return offset_;
+}
+
+void TableLoader::Add(const base::Slice& record) {
+    if (!batch_) {
+        batch_ = std::make_shared<Batch>();
+        batch_->seq = next_seq_++;
+        batch_->ends.reserve(batch_size_);
+    }
+    batch_->buf.append(record.data(), record.size());
+    batch_->ends.push_back(batch_->buf.size());
+    if (batch_->ends.size() >= batch_size_) {
+        Flush();
+    }
+}
+
+void TableLoader::Flush() {
+    if (batch_) {
+        decode_pool_.AddTask(boost::bind(&TableLoader::Decode, this, batch_));
+        batch_.reset();
+    }
+}
+
+void TableLoader::Wait() {
+    Flush();
+    {
+        std::unique_lock<std::mutex> lock(mu_);
+        cv_.wait(lock, [this] { return dispatch_seq_ == next_seq_; });
+    }
+    WaitApplied();
+}
+
+void TableLoader::WaitApplied() {
+    std::unique_lock<std::mutex> lock(applied_mu_);
+    applied_cv_.wait(lock, [this] { return pending_.load(std::memory_order_acquire) == 0; });
+}
+
+void TableLoader::Decode(std::shared_ptr<Batch> batch) {
+    EntryList entries(batch->ends.size());
+    uint32_t start = 0;
+    size_t cnt = 0;
+    for (auto end : batch->ends) {
+        if (!entries[cnt].ParseFromArray(batch->buf.data() + start, end - start)) {
+            PDLOG(WARNING, "fail to parse record for tid %u, pid %u", table_->GetId(), table_->GetPid());
+            failed_cnt_.fetch_add(1, std::memory_order_relaxed);
+        } else {
+            cnt++;
+        }
+        start = end;
+    }
+    entries.resize(cnt);
+    // the batches are decoded concurrently but dispatched in the order they are added
+    std::unique_lock<std::mutex> lock(mu_);
+    cv_.wait(lock, [this, &batch] { return dispatch_seq_ == batch->seq; });
+    Dispatch(&entries);
+    dispatch_seq_++;
+    cv_.notify_all();
+}
+
+void TableLoader::Dispatch(EntryList* entries) {
+    std::vector<std::shared_ptr<EntryList>> groups(insert_pools_.size());
+    auto flush_groups = [this, &groups]() {
+        for (uint32_t i = 0; i < groups.size(); i++) {
+            if (groups[i] && !groups[i]->empty()) {
+                pending_.fetch_add(groups[i]->size(), std::memory_order_relaxed);
+                insert_pools_[i]->AddTask(boost::bind(&TableLoader::Apply, this, groups[i]));
+            }
+            groups[i].reset();
+        }
+    };
+    for (auto& entry : *entries) {
+        if (check_offset_) {
+            if (entry.log_index() <= offset_) {
+                DEBUGLOG("offset %lu has been made snapshot", entry.log_index());
+                continue;
+            }
+            if (offset_ + 1 != entry.log_index()) {
+                PDLOG(WARNING, "missing log entry cur_offset %lu , new entry offset %lu for tid %u, pid %u", offset_,
+                      entry.log_index(), table_->GetId(), table_->GetPid());
+            }
+            offset_ = entry.log_index();
+        }
+        if (entry.has_method_type() && entry.method_type() == ::openmldb::api::MethodType::kDelete) {
+            // a delete may cover the keys of all the insert threads
+            flush_groups();
+            WaitApplied();
+            ApplyEntry(entry);
+            continue;
+        }
+        uint32_t idx = Route(entry);
+        if (!groups[idx]) {
+            groups[idx] = std::make_shared<EntryList>();
+        }
+        groups[idx]->push_back(std::move(entry));
+    }
+    flush_groups();
+}
+
+void TableLoader::Apply(std::shared_ptr<EntryList> entries) {
+    for (const auto& entry : *entries) {
+        ApplyEntry(entry);
+    }
+    if (pending_.fetch_sub(entries->size(), std::memory_order_acq_rel) == entries->size()) {
+        std::lock_guard<std::mutex> lock(applied_mu_);
+        applied_cv_.notify_all();
+    }
+}
+
+void TableLoader::ApplyEntry(const ::openmldb::api::LogEntry& entry) {
+    if (entry.has_method_type() && entry.method_type() == ::openmldb::api::MethodType::kDelete) {
+        table_->Delete(entry);
+    } else {
+        table_->Put(entry);
+    }
+    uint64_t cnt = succ_cnt_.fetch_add(1, std::memory_order_relaxed) + 1;
+    if (cnt % 100000 == 0) {
+        PDLOG(INFO, "[Recover] load data succ_cnt %lu, failed_cnt %lu for tid %u, pid %u", cnt,
+              failed_cnt_.load(std::memory_order_relaxed), table_->GetId(), table_->GetPid());
+    }
+}
+
+uint32_t TableLoader::Route(const ::openmldb::api::LogEntry& entry) const {
+    if (insert_pools_.size() == 1 || entry.dimensions_size() == 0) {
+        return 0;
+    }
+    const std::string& key = entry.dimensions(0).key();
+    return ::openmldb::base::hash(key.data(), key.size(), SEED) % insert_pools_.size();
+}
+
+}  // namespace storage
+}  // namespace openmldb
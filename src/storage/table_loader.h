@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef SRC_STORAGE_TABLE_LOADER_H_
+#define SRC_STORAGE_TABLE_LOADER_H_
+
+#include <atomic>
+#include <condition_variable>  // NOLINT
+#include <memory>
+#include <mutex>  // NOLINT
+#include <string>
+#include <vector>
+
+#include "base/slice.h"
+#include "base/taskpool.hpp"
+#include "proto/tablet.pb.h"
+#include "storage/table.h"
+
+namespace openmldb {
+namespace storage {
+
+// TableLoader replays the log entries of snapshot or binlog into a table in a pipeline. The records are
+// collected into batches by the reader, decoded by several threads and then dispatched in the read order to
+// the insert threads. The entries with the same key of the first dimension always go to the same insert thread,
+// so they are applied in order. A delete entry waits until all the former entries are applied.
+class TableLoader {
+ public:
+    TableLoader(std::shared_ptr<Table> table, uint32_t decode_thread_num, uint32_t insert_thread_num,
+                uint32_t batch_size, uint32_t queue_size);
+    ~TableLoader();
+    TableLoader(const TableLoader&) = delete;
+    TableLoader& operator=(const TableLoader&) = delete;
+
+    // skip the entries whose log index is not greater than offset, it's used when replaying binlog
+    void SetStartOffset(uint64_t offset);
+
+    // add a serialized LogEntry, it must be called by one thread
+    void Add(const base::Slice& record);
+
+    // wait until all the added entries are applied
+    void Wait();
+
+    uint64_t GetSuccCnt() const { return succ_cnt_.load(std::memory_order_relaxed); }
+    uint64_t GetFailedCnt() const { return failed_cnt_.load(std::memory_order_relaxed); }
+    // the log index of the last dispatched entry, it's valid after Wait if SetStartOffset is called
+    uint64_t GetOffset();
+
+ private:
+    struct Batch {
+        uint64_t seq = 0;
+        std::string buf;
+        std::vector<uint32_t> ends;
+    };
+    using EntryList = std::vector<::openmldb::api::LogEntry>;
+
+    void Flush();
+    void Decode(std::shared_ptr<Batch> batch);
+    void Dispatch(EntryList* entries);
+    void Apply(std::shared_ptr<EntryList> entries);
+    void ApplyEntry(const ::openmldb::api::LogEntry& entry);
+    void WaitApplied();
+    uint32_t Route(const ::openmldb::api::LogEntry& entry) const;
+
+    std::shared_ptr<Table> table_;
+    uint32_t batch_size_;
+    std::shared_ptr<Batch> batch_;
+    uint64_t next_seq_;
+    // guards the dispatch order and offset_
+    std::mutex mu_;
+    std::condition_variable cv_;
+    uint64_t dispatch_seq_;
+    bool check_offset_;
+    uint64_t offset_;
+    // the entries dispatched to the insert threads but not applied
+    std::atomic<uint64_t> pending_;
+    std::mutex applied_mu_;
+    std::condition_variable applied_cv_;
+    std::atomic<uint64_t> succ_cnt_;
+    std::atomic<uint64_t> failed_cnt_;
+    std::vector<std::unique_ptr<::openmldb::base::TaskPool>> insert_pools_;
+    // declared last so it's stopped first, the decode tasks dispatch entries to the insert pools
+    ::openmldb::base::TaskPool decode_pool_;
+};
+
+}  // namespace storage
+}  // namespace openmldb
+
+#endif  // SRC_STORAGE_TABLE_LOADER_H_
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021 4Paradigm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#include "storage/table_loader.h"
+
+#include <map>
+#include <memory>
+#include <string>
+
+#include "base/glog_wrapper.h"
+#include "gtest/gtest.h"
+#include "proto/tablet.pb.h"
+#include "storage/mem_table.h"
+#include "storage/ticket.h"
+#include "test/util.h"
+
+namespace openmldb {
+namespace storage {
+
+class TableLoaderTest : public ::testing::Test {
+ public:
+    TableLoaderTest() {}
+    ~TableLoaderTest() {}
+};
+
+std::shared_ptr<MemTable> CreateMemTable() {
+    std::map<std::string, uint32_t> mapping;
+    mapping.insert(std::make_pair("idx0", 0));
+    auto table = std::make_shared<MemTable>("test", 1, 1, 8, mapping, 0, ::openmldb::type::TTLType::kAbsoluteTime);
+    table->Init();
+    return table;
+}
+
+void AddEntry(TableLoader* loader, const ::openmldb::api::LogEntry& entry) {
+    std::string buffer;
+    entry.SerializeToString(&buffer);
+    loader->Add(base::Slice(buffer));
+}
+
+uint64_t CountRows(std::shared_ptr<MemTable> table, const std::string& key) {
+    Ticket ticket;
+    std::unique_ptr<TableIterator> it(table->NewIterator(key, ticket));
+    uint64_t cnt = 0;
+    it->SeekToFirst();
+    while (it->Valid()) {
+        cnt++;
+        it->Next();
+    }
+    return cnt;
+}
+
+TEST_F(TableLoaderTest, Load) {
+    auto table = CreateMemTable();
+    {
+        TableLoader loader(table, 3, 4, 7, 16);
+        for (uint64_t i = 1; i <= 1000; i++) {
+            std::string key = "key" + std::to_string(i % 10);
+            AddEntry(&loader, ::openmldb::test::PackKVEntry(i, key, "value" + std::to_string(i), i, 0));
+        }
+        loader.Wait();
+        ASSERT_EQ(1000u, loader.GetSuccCnt());
+        ASSERT_EQ(0u, loader.GetFailedCnt());
+    }
+    for (int i = 0; i < 10; i++) {
+        ASSERT_EQ(100u, CountRows(table, "key" + std::to_string(i)));
+    }
+}
+
+TEST_F(TableLoaderTest, DeleteInOrder) {
+    auto table = CreateMemTable();
+    TableLoader loader(table, 3, 4, 3, 16);
+    uint64_t offset = 0;
+    for (int round = 0; round < 10; round++) {
+        for (int i = 0; i < 20; i++) {
+            offset++;
+            std::string key = "key" + std::to_string(i % 4);
+            AddEntry(&loader, ::openmldb::test::PackKVEntry(offset, key, "value", offset, 0));
+        }
+        // the delete must be applied after all the rows before it and before all the rows after it
+        offset++;
+        ::openmldb::api::LogEntry entry;
+        entry.set_log_index(offset);
+        entry.set_method_type(::openmldb::api::MethodType::kDelete);
+        auto dimension = entry.add_dimensions();
+        dimension->set_key("key0");
+        dimension->set_idx(0);
+        AddEntry(&loader, entry);
+    }
+    for (int i = 0; i < 20; i++) {
+        offset++;
+        std::string key = "key" + std::to_string(i % 4);
+        AddEntry(&loader, ::openmldb::test::PackKVEntry(offset, key, "value", offset, 0));
+    }
+    loader.Wait();
+    ASSERT_EQ(offset, loader.GetSuccCnt());
+    ASSERT_EQ(5u, CountRows(table, "key0"));
+    ASSERT_EQ(55u, CountRows(table, "key1"));
+}
+
+TEST_F(TableLoaderTest, StartOffset) {
+    auto table = CreateMemTable();
+    TableLoader loader(table, 2, 2, 4, 16);
+    loader.SetStartOffset(50);
+    for (uint64_t i = 1; i <= 100; i++) {
+        AddEntry(&loader, ::openmldb::test::PackKVEntry(i, "key", "value", i, 0));
+    }
+    loader.Wait();
+    ASSERT_EQ(50u, loader.GetSuccCnt());
+    ASSERT_EQ(100u, loader.GetOffset());
+    ASSERT_EQ(50u, CountRows(table, "key"));
+}
+
+}  // namespace storage
+}  // namespace openmldb
+
+int main(int argc, char** argv) {
+    ::testing::InitGoogleTest(&argc, argv);
+    ::openmldb::base::SetLogLevel(INFO);
+    return RUN_ALL_TESTS();
+}
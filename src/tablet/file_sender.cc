@@ -16,6 +16,10 @@
 
 #include "tablet/file_sender.h"
 
+#include <snappy.h>
+
+#include <algorithm>
+#include <atomic>
 #include <thread>  // NOLINT
 #include <vector>
 
@@ -24,13 +28,14 @@
 #include "boost/algorithm/string/predicate.hpp"
 #include "common/timer.h"
 #include "gflags/gflags.h"
+#include "log/log_format.h"
 
 DECLARE_int32(send_file_max_try);
 DECLARE_uint32(stream_block_size);
 DECLARE_int32(stream_bandwidth_limit);
-DECLARE_uint32(stream_block_size);
-DECLARE_int32(stream_bandwidth_limit);
 DECLARE_int32(stream_close_wait_time_ms);
+DECLARE_string(stream_compression);
+DECLARE_uint32(stream_parallel_num);
 DECLARE_int32(retry_send_file_wait_time_ms);
 DECLARE_int32(request_max_retry);
 DECLARE_int32(request_timeout_ms);
@@ -45,7 +50,8 @@ FileSender::FileSender(uint32_t tid, uint32_t pid, common::StorageMode storage_m
       endpoint_(endpoint),
       cur_try_time_(0),
       max_try_time_(FLAGS_send_file_max_try),
-      limit_time_(0),
+      limit_mu_(),
+      next_send_time_(0),
       channel_(NULL),
       stub_(NULL) {}
 
@@ -55,12 +61,6 @@ FileSender::~FileSender() {
 }
 
 bool FileSender::Init() {
-    // compute the used time(microseconds) that send a block by limit bandwidth.
-    // limit_time = (FLAGS_stream_block_size / FLAGS_stream_bandwidth_limit) *
-    // 1000 * 1000
-    if (FLAGS_stream_bandwidth_limit > 0) {
-        limit_time_ = (FLAGS_stream_block_size * 1000000) / FLAGS_stream_bandwidth_limit;
-    }
     channel_ = new brpc::Channel();
     brpc::ChannelOptions options;
     options.timeout_ms = FLAGS_request_timeout_ms;
@@ -74,13 +74,31 @@ bool FileSender::Init() {
     return true;
 }
 
-int FileSender::WriteData(const std::string& file_name, const std::string& dir_name, const char* buffer, size_t len,
-                          uint64_t block_id) {
-    if (buffer == NULL) {
-        return -1;
+void FileSender::Throttle(size_t len) {
+    if (FLAGS_stream_bandwidth_limit <= 0 || len == 0) {
+        return;
     }
+    // every block reserves a time slot computed by the limit bandwidth, so the streams sending concurrently
+    // share the limit
+    uint64_t cost = static_cast<uint64_t>(len) * 1000000 / FLAGS_stream_bandwidth_limit;
     uint64_t cur_time = ::baidu::common::timer::get_micros();
-    ::openmldb::api::SendDataRequest request;
+    uint64_t start_time = 0;
+    {
+        std::lock_guard<std::mutex> lock(limit_mu_);
+        start_time = std::max(cur_time, next_send_time_);
+        next_send_time_ = start_time + cost;
+    }
+    if (start_time > cur_time) {
+        DEBUGLOG("sleep %lu us, cost %lu", start_time - cur_time, cost);
+        std::this_thread::sleep_for(std::chrono::microseconds(start_time - cur_time));
+    }
+}
+
+std::shared_ptr<FileSender::Block> FileSender::NewBlock(const std::string& file_name, const std::string& dir_name,
+                                                        const char* buffer, size_t len, uint64_t block_id, bool eof,
+                                                        bool compress) {
+    auto block = std::make_shared<Block>();
+    auto& request = block->request;
     request.set_tid(tid_);
     request.set_pid(pid_);
     request.set_storage_mode(storage_mode_);
@@ -89,34 +107,52 @@ int FileSender::WriteData(const std::string& file_name, const std::string& dir_n
         request.set_dir_name(dir_name);
     }
     request.set_block_id(block_id);
-    request.set_block_size(len);
-    brpc::Controller cntl;
-    if (block_id > 0) {
-        cntl.request_attachment().append(buffer, len);
+    request.set_eof(eof);
+    size_t size = len;
+    if (compress && len > 0) {
+        std::string compressed;
+        ::snappy::Compress(buffer, len, &compressed);
+        // the block is sent as it is if it cannot be compressed
+        if (compressed.size() < len) {
+            request.set_compress_type(::openmldb::type::kSnappy);
+            size = compressed.size();
+            block->cntl.request_attachment().append(compressed);
+        }
     }
-    if (len > 0 && len < FLAGS_stream_block_size) {
-        request.set_eof(true);
+    if (!request.has_compress_type() && len > 0) {
+        block->cntl.request_attachment().append(buffer, len);
     }
-    ::openmldb::api::GeneralResponse response;
-    stub_->SendData(&cntl, &request, &response, NULL);
-    if (cntl.Failed()) {
+    request.set_block_size(size);
+    return block;
+}
+
+int FileSender::WaitBlock(const std::shared_ptr<Block>& block) {
+    brpc::Join(block->cntl.call_id());
+    const std::string& file_name = block->request.file_name();
+    if (block->cntl.Failed()) {
         PDLOG(WARNING, "send data failed. tid %u pid %u file %s error msg %s", tid_, pid_, file_name.c_str(),
-              cntl.ErrorText().c_str());
+              block->cntl.ErrorText().c_str());
         return -1;
-    } else if (response.code() != 0) {
+    } else if (block->response.code() != 0) {
         PDLOG(WARNING, "send data failed. tid %u pid %u file %s error msg %s", tid_, pid_, file_name.c_str(),
-              response.msg().c_str());
+              block->response.msg().c_str());
         return -1;
     }
-    uint64_t time_used = ::baidu::common::timer::get_micros() - cur_time;
-    if (limit_time_ > time_used && len > FLAGS_stream_block_size / 2) {
-        uint64_t sleep_time = limit_time_ - time_used;
-        DEBUGLOG("sleep %lu us, limit_time %lu time_used %lu", sleep_time, limit_time_, time_used);
-        std::this_thread::sleep_for(std::chrono::microseconds(sleep_time));
-    }
     return 0;
 }
 
+int FileSender::WriteData(const std::string& file_name, const std::string& dir_name, const char* buffer, size_t len,
+                          uint64_t block_id) {
+    if (buffer == NULL) {
+        return -1;
+    }
+    bool eof = len > 0 && len < FLAGS_stream_block_size;
+    auto block = NewBlock(file_name, dir_name, buffer, len, block_id, eof, false);
+    Throttle(block->request.block_size());
+    stub_->SendData(&block->cntl, &block->request, &block->response, brpc::DoNothing());
+    return WaitBlock(block);
+}
+
 int FileSender::SendFile(const std::string& file_name, const std::string& full_path) {
     return SendFile(file_name, "", full_path);
 }
@@ -159,41 +195,60 @@ int FileSender::SendFileInternal(const std::string& file_name, const std::string
         PDLOG(WARNING, "fail to open file %s", full_path.c_str());
         return -1;
     }
-    char buffer[FLAGS_stream_block_size];
-
+    // the compressed snapshot files are not compressed again
+    bool compress = FLAGS_stream_compression == "snappy" &&
+                    full_path.find(::openmldb::log::ZLIB_COMPRESS_SUFFIX) == std::string::npos &&
+                    full_path.find(::openmldb::log::SNAPPY_COMPRESS_SUFFIX) == std::string::npos;
+    // two buffers, the next block is read and compressed while the former one is being sent
+    std::vector<char> buffers[2] = {std::vector<char>(FLAGS_stream_block_size),
+                                    std::vector<char>(FLAGS_stream_block_size)};
+    uint32_t cur = 0;
     uint64_t block_num = file_size / FLAGS_stream_block_size + 1;
     uint64_t report_block_num = block_num / 100;
     int ret = 0;
     uint64_t block_count = 0;
+    uint64_t send_size = 0;
+    std::shared_ptr<Block> pending;
     do {
-        if (block_count == 0 && WriteData(file_name, dir_name, buffer, 0, block_count) < 0) {
+        if (block_count == 0 && WriteData(file_name, dir_name, buffers[cur].data(), 0, block_count) < 0) {
             PDLOG(WARNING, "Init file receiver failed. tid[%u] pid[%u] file %s", tid_, pid_, file_name.c_str());
             ret = -1;
             break;
         }
         block_count++;
-
+        char* buffer = buffers[cur].data();
 #ifdef __APPLE__
         size_t len = fread(buffer, 1, FLAGS_stream_block_size, file);
 #else
         size_t len = fread_unlocked(buffer, 1, FLAGS_stream_block_size, file);
 #endif
-        if (len < FLAGS_stream_block_size) {
-            if (feof(file)) {
-                if (len > 0) {
-                    ret = WriteData(file_name, dir_name, buffer, len, block_count);
-                }
-                break;
-            }
+        if (len < FLAGS_stream_block_size && !feof(file)) {
             PDLOG(WARNING, "read file %s error. error message: %s", file_name.c_str(), strerror(errno));
             ret = -1;
             break;
         }
-        if (WriteData(file_name, dir_name, buffer, len, block_count) < 0) {
-            PDLOG(WARNING, "data write failed. tid[%u] pid[%u] file %s", tid_, pid_, file_name.c_str());
-            ret = -1;
+        // a short block ends the file. an empty one is sent if the file size is a multiple of the block size,
+        // so the receiver always gets the eof
+        bool eof = len < FLAGS_stream_block_size;
+        auto block = NewBlock(file_name, dir_name, buffer, len, block_count, eof, compress);
+        // the receiver writes the blocks in order, so only one block of the file is in flight
+        if (pending) {
+            int wait_ret = WaitBlock(pending);
+            pending.reset();
+            if (wait_ret < 0) {
+                PDLOG(WARNING, "data write failed. tid[%u] pid[%u] file %s", tid_, pid_, file_name.c_str());
+                ret = -1;
+                break;
+            }
+        }
+        Throttle(block->request.block_size());
+        send_size += block->request.block_size();
+        stub_->SendData(&block->cntl, &block->request, &block->response, brpc::DoNothing());
+        pending = block;
+        if (eof) {
             break;
         }
+        cur ^= 1;
         if (report_block_num == 0 || block_count % report_block_num == 0) {
             PDLOG(INFO,
                   "send block num[%lu] total block num[%lu]. tid[%u] pid[%u] "
@@ -201,7 +256,15 @@ int FileSender::SendFileInternal(const std::string& file_name, const std::string
                   block_count, block_num, tid_, pid_, file_name.c_str(), endpoint_.c_str());
         }
     } while (true);
+    if (pending && WaitBlock(pending) < 0) {
+        PDLOG(WARNING, "data write failed. tid[%u] pid[%u] file %s", tid_, pid_, file_name.c_str());
+        ret = -1;
+    }
     fclose(file);
+    if (ret == 0) {
+        PDLOG(INFO, "send file %s done. file size[%lu] send size[%lu]. tid[%u] pid[%u]", file_name.c_str(),
+              file_size, send_size, tid_, pid_);
+    }
     std::this_thread::sleep_for(std::chrono::milliseconds(FLAGS_stream_close_wait_time_ms));
     return ret;
 }
@@ -235,12 +298,34 @@ int FileSender::CheckFile(const std::string& file_name, const std::string& dir_n
 int FileSender::SendDir(const std::string& dir_name, const std::string& full_path) {
     std::vector<std::string> file_vec;
     ::openmldb::base::GetFileName(full_path, file_vec);
-    for (const std::string& file : file_vec) {
-        if (SendFile(file.substr(file.find_last_of("/") + 1), dir_name, file) < 0) {
-            return -1;
+    return SendFiles(dir_name, file_vec);
+}
+
+int FileSender::SendFiles(const std::string& dir_name, const std::vector<std::string>& full_paths) {
+    std::atomic<size_t> next_idx(0);
+    std::atomic<bool> has_error(false);
+    auto send_task = [this, &dir_name, &full_paths, &next_idx, &has_error]() {
+        while (!has_error.load(std::memory_order_relaxed)) {
+            size_t idx = next_idx.fetch_add(1, std::memory_order_relaxed);
+            if (idx >= full_paths.size()) {
+                break;
+            }
+            const std::string& file = full_paths[idx];
+            if (SendFile(file.substr(file.find_last_of("/") + 1), dir_name, file) < 0) {
+                has_error.store(true, std::memory_order_relaxed);
+            }
         }
+    };
+    size_t thread_num = std::min(static_cast<size_t>(std::max(FLAGS_stream_parallel_num, 1u)), full_paths.size());
+    std::vector<std::thread> threads;
+    for (size_t i = 1; i < thread_num; i++) {
+        threads.emplace_back(send_task);
     }
-    return 0;
+    send_task();
+    for (auto& thread : threads) {
+        thread.join();
+    }
+    return has_error.load(std::memory_order_relaxed) ? -1 : 0;
 }
 
 }  // namespace tablet
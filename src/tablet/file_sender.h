@@ -19,7 +19,10 @@
 #include <brpc/channel.h>
 #include <brpc/controller.h>
 
+#include <memory>
+#include <mutex>  // NOLINT
 #include <string>
+#include <vector>
 
 #include "proto/tablet.pb.h"
 
@@ -36,18 +39,34 @@ class FileSender {
     int SendFileInternal(const std::string& file_name, const std::string& dir_name, const std::string& full_path,
                          uint64_t file_size);
     int SendDir(const std::string& dir_name, const std::string& full_path);
+    // send the files by FLAGS_stream_parallel_num streams. the file name is the last part of the path
+    int SendFiles(const std::string& dir_name, const std::vector<std::string>& full_paths);
     int WriteData(const std::string& file_name, const std::string& dir_name, const char* buffer, size_t len,
                   uint64_t block_id);
     int CheckFile(const std::string& file_name, const std::string& dir_name, uint64_t file_size);
 
  private:
+    struct Block {
+        brpc::Controller cntl;
+        ::openmldb::api::SendDataRequest request;
+        ::openmldb::api::GeneralResponse response;
+    };
+
+    std::shared_ptr<Block> NewBlock(const std::string& file_name, const std::string& dir_name, const char* buffer,
+                                    size_t len, uint64_t block_id, bool eof, bool compress);
+    // wait for the response of the block which is sent asynchronously
+    int WaitBlock(const std::shared_ptr<Block>& block);
+    // limit the bandwidth of all the streams of the sender
+    void Throttle(size_t len);
+
     uint32_t tid_;
     uint32_t pid_;
     common::StorageMode storage_mode_;
     std::string endpoint_;
     uint32_t cur_try_time_;
     uint32_t max_try_time_;
-    uint64_t limit_time_;
+    std::mutex limit_mu_;
+    uint64_t next_send_time_;
     brpc::Channel* channel_;
     ::openmldb::api::TabletServer_Stub* stub_;
 };
@@ -32,6 +32,7 @@
 #include <vector>
 
 #include "absl/cleanup/cleanup.h"
+#include "absl/strings/str_cat.h"
 #include "absl/time/clock.h"
 #include "absl/time/time.h"
 #include "boost/bind.hpp"
@@ -82,7 +83,6 @@ DECLARE_int32(get_sys_mem_interval);
 DECLARE_string(db_root_path);
 DECLARE_string(ssd_root_path);
 DECLARE_string(hdd_root_path);
-DECLARE_bool(binlog_notify_on_put);
 DECLARE_int32(task_pool_size);
 DECLARE_int32(io_pool_size);
 DECLARE_int32(make_snapshot_time);
@@ -102,6 +102,7 @@ DECLARE_bool(use_name);
 DECLARE_bool(enable_distsql);
 DECLARE_string(snapshot_compression);
 DECLARE_string(file_compression);
+DECLARE_string(stream_compression);
 DECLARE_int32(request_timeout_ms);
 
 // cluster config
@@ -224,6 +225,11 @@ bool TabletImpl::Init(const std::string& zk_cluster, const std::string& zk_path,
         LOG(ERROR) << "wrong snapshot_compression: " << FLAGS_snapshot_compression;
         return false;
     }
+    std::set<std::string> stream_compression_set{"off", "snappy"};
+    if (stream_compression_set.find(FLAGS_stream_compression) == stream_compression_set.end()) {
+        LOG(ERROR) << "wrong stream_compression: " << FLAGS_stream_compression;
+        return false;
+    }
     std::set<std::string> file_compression_set{"off", "zlib", "lz4"};
     if (file_compression_set.find(FLAGS_file_compression) == file_compression_set.end()) {
         LOG(ERROR) << "wrong FLAGS_file_compression: " << FLAGS_file_compression;
@@ -811,10 +817,117 @@ void TabletImpl::Put(RpcController* controller, const ::openmldb::api::PutReques
         PDLOG(INFO, "slow log[put]. key %s time %lu. tid %u, pid %u", key.c_str(), end_time - start_time, tid, pid);
     }
 
-    if (replicator) {
-        if (FLAGS_binlog_notify_on_put) {
-            replicator->Notify();
+    // update global var in standalone mode
+    if (!IsClusterMode() && table->GetDB() == openmldb::nameserver::INFORMATION_SCHEMA_DB &&
+        table->GetName() == openmldb::nameserver::GLOBAL_VARIABLES) {
+        UpdateGlobalVarTable();
+    }
+}
+
+void TabletImpl::PutBatch(RpcController* controller, const ::openmldb::api::PutBatchRequest* request,
+                          ::openmldb::api::PutBatchResponse* response, Closure* done) {
+    brpc::ClosureGuard done_guard(done);
+    if (follower_.load(std::memory_order_relaxed)) {
+        response->set_code(::openmldb::base::ReturnCode::kIsFollowerCluster);
+        response->set_msg("is follower cluster");
+        return;
+    }
+    uint32_t tid = request->tid();
+    uint32_t pid = request->pid();
+    auto table = GetTable(tid, pid);
+    if (auto status = CheckTable(tid, pid, true, table); !status.OK()) {
+        SetResponseStatus(status, response);
+        return;
+    }
+    uint64_t start_time = ::baidu::common::timer::get_micros();
+    if (table->GetStorageMode() == ::openmldb::common::StorageMode::kMemory &&
+        memory_used_.load(std::memory_order_relaxed) > FLAGS_max_memory_mb) {
+        PDLOG(WARNING, "current memory %lu MB exceed max memory limit %lu MB. tid %u, pid %u",
+              memory_used_.load(std::memory_order_relaxed), FLAGS_max_memory_mb, tid, pid);
+        response->set_code(::openmldb::base::ReturnCode::kExceedMaxMemory);
+        response->set_msg("exceed max memory");
+        return;
+    }
+    bool is_snappy = table->GetCompressType() == openmldb::type::CompressType::kSnappy;
+    uint32_t idx_cnt = table->GetIdxCnt();
+    // rows put into the table, they must be written to the binlog even if a later row fails
+    std::vector<::openmldb::api::LogEntry> entries;
+    std::vector<int> row_idx;
+    entries.reserve(request->rows_size());
+    row_idx.reserve(request->rows_size());
+    uint32_t ignored_cnt = 0;
+    response->set_code(::openmldb::base::ReturnCode::kOk);
+    for (int i = 0; i < request->rows_size(); i++) {
+        const auto& row = request->rows(i);
+        if (row.dimensions_size() == 0 || CheckDimessionPut(&row, idx_cnt) != 0) {
+            response->set_code(::openmldb::base::ReturnCode::kInvalidDimensionParameter);
+            response->set_msg(absl::StrCat("invalid dimension parameter in row ", i));
+            break;
+        }
+        ::openmldb::api::LogEntry& entry = entries.emplace_back();
+        entry.set_ts(row.time());
+        if (is_snappy) {
+            ::snappy::Compress(row.value().c_str(), row.value().length(), entry.mutable_value());
+        } else {
+            entry.set_value(row.value());
+        }
+        entry.mutable_dimensions()->CopyFrom(row.dimensions());
+        auto st = table->Put(entry.ts(), entry.value(), entry.dimensions(), request->put_if_absent());
+        if (!st.ok()) {
+            entries.pop_back();
+            if (request->put_if_absent() && absl::IsAlreadyExists(st)) {
+                ignored_cnt++;
+                continue;
+            }
+            LOG(WARNING) << "put row " << i << " failed: " << st.ToString();
+            response->set_code(::openmldb::base::ReturnCode::kPutFailed);
+            response->set_msg(absl::StrCat("put row ", i, " failed: ", st.ToString()));
+            break;
         }
+        row_idx.push_back(i);
+    }
+    response->set_ignored_cnt(ignored_cnt);
+    if (entries.empty()) {
+        response->set_put_cnt(0);
+        return;
+    }
+
+    std::shared_ptr<LogReplicator> replicator = GetReplicator(tid, pid);
+    if (!replicator) {
+        PDLOG(WARNING, "fail to find table tid %u pid %u leader's log replicator", tid, pid);
+    } else {
+        uint64_t term = replicator->GetLeaderTerm();
+        for (auto& entry : entries) {
+            entry.set_term(term);
+        }
+        // same as Put, the aggregators are updated within the replicator lock so that
+        // the binlog offsets they see are strictly increasing
+        bool aggr_ok = true;
+        auto update_aggr = [this, tid, pid, &request, &entries, &row_idx, &aggr_ok]() {
+            for (size_t i = 0; i < entries.size(); i++) {
+                const auto& row = request->rows(row_idx[i]);
+                if (!UpdateAggrs(tid, pid, row.value(), row.dimensions(), entries[i].log_index())) {
+                    aggr_ok = false;
+                    return;
+                }
+            }
+        };
+        UpdateAggrClosure closure(update_aggr);
+        if (!replicator->AppendEntries(&entries, &closure)) {
+            PDLOG(WARNING, "fail to append %zu entries to binlog. tid %u pid %u", entries.size(), tid, pid);
+            response->set_code(::openmldb::base::ReturnCode::kError);
+            response->set_msg("append binlog failed");
+        } else if (!aggr_ok) {
+            response->set_code(::openmldb::base::ReturnCode::kError);
+            response->set_msg("update aggr failed");
+        }
+    }
+    response->set_put_cnt(entries.size());
+
+    uint64_t end_time = ::baidu::common::timer::get_micros();
+    if (start_time + FLAGS_put_slow_log_threshold < end_time) {
+        PDLOG(INFO, "slow log[put_batch]. rows %d time %lu. tid %u, pid %u", request->rows_size(),
+              end_time - start_time, tid, pid);
     }
     // update global var in standalone mode
     if (!IsClusterMode() && table->GetDB() == openmldb::nameserver::INFORMATION_SCHEMA_DB &&
@@ -1659,9 +1772,6 @@ void TabletImpl::Delete(RpcController* controller, const ::openmldb::api::Delete
     response->set_msg("ok");
 
     replicator->AppendEntry(entry);
-    if (FLAGS_binlog_notify_on_put) {
-        replicator->Notify();
-    }
 }
 
 void TabletImpl::Query(RpcController* ctrl, const openmldb::api::QueryRequest* request,
@@ -1758,6 +1868,16 @@ void TabletImpl::ProcessQuery(bool is_sub, RpcController* ctrl, const openmldb::
         if (request->is_debug()) {
             session.EnableDebug();
         }
+        ::openmldb::api::QueryTrace* trace = nullptr;
+        if (request->has_trace_id()) {
+            trace = response->mutable_trace();
+            trace->set_trace_id(request->trace_id());
+        }
+        absl::Cleanup trace_total = [trace, start]() {
+            if (trace != nullptr) {
+                trace->set_total_us(absl::ToInt64Microseconds(absl::Now() - start));
+            }
+        };
         if (request->is_procedure()) {
             const std::string& db_name = request->db();
             const std::string& sp_name = request->sp_name();
@@ -1772,11 +1892,20 @@ void TabletImpl::ProcessQuery(bool is_sub, RpcController* ctrl, const openmldb::
                     return;
                 }
             }
+            if (trace != nullptr) {
+                // deployments are compiled when they are created
+                trace->set_compile_cache_hit(true);
+                trace->set_compile_us(absl::ToInt64Microseconds(absl::Now() - start));
+            }
             session.SetCompileInfo(request_compile_info);
             session.SetSpName(sp_name);
             RunRequestQuery(ctrl, *request, session, *response, *buf);
         } else {
             bool ok = engine_->Get(request->sql(), request->db(), session, status);
+            if (trace != nullptr) {
+                trace->set_compile_cache_hit(session.IsCompileCacheHit());
+                trace->set_compile_us(absl::ToInt64Microseconds(absl::Now() - start));
+            }
             if (!ok || session.GetCompileInfo() == nullptr) {
                 response->set_msg(status.msg);
                 response->set_code(::openmldb::base::kSQLCompileError);
@@ -2750,6 +2879,17 @@ void TabletImpl::SendData(RpcController* controller, const ::openmldb::api::Send
         response->set_msg("receive data error");
         return;
     }
+    if (request->compress_type() == ::openmldb::type::kSnappy) {
+        std::string raw_data;
+        if (!::snappy::Uncompress(data.data(), data.size(), &raw_data)) {
+            PDLOG(WARNING, "uncompress data failed. tid %u, pid %u, file_name %s", tid, pid,
+                  request->file_name().c_str());
+            response->set_code(::openmldb::base::ReturnCode::kReceiveDataError);
+            response->set_msg("uncompress data failed");
+            return;
+        }
+        data.swap(raw_data);
+    }
     if (receiver->WriteData(data, request->block_id()) < 0) {
         PDLOG(WARNING, "receiver write data failed. tid %u, pid %u, file_name %s", tid, pid,
               request->file_name().c_str());
@@ -2863,6 +3003,7 @@ void TabletImpl::SendSnapshotInternal(const std::string& endpoint, uint32_t tid,
         full_path.append("snapshot/");
         std::string manifest_file = full_path + "MANIFEST";
         std::string snapshot_file;
+        std::vector<std::string> delta_files;
         {
             int fd = open(manifest_file.c_str(), O_RDONLY);
             if (fd < 0) {
@@ -2878,10 +3019,17 @@ void TabletImpl::SendSnapshotInternal(const std::string& endpoint, uint32_t tid,
                 break;
             }
             snapshot_file = manifest.name();
+            for (const auto& delta : manifest.deltas()) {
+                delta_files.push_back(delta.name());
+            }
         }
         if (table->GetStorageMode() == common::kMemory) {
-            // send snapshot file
-            if (sender.SendFile(snapshot_file, full_path + snapshot_file) < 0) {
+            // send snapshot file and its deltas
+            std::vector<std::string> snapshot_paths = {full_path + snapshot_file};
+            for (const auto& delta_file : delta_files) {
+                snapshot_paths.push_back(full_path + delta_file);
+            }
+            if (sender.SendFiles("", snapshot_paths) < 0) {
                 PDLOG(WARNING, "send snapshot failed. tid[%u] pid[%u]", tid, pid);
                 break;
             }
@@ -5402,6 +5550,8 @@ void TabletImpl::RunRequestQuery(RpcController* ctrl, const openmldb::api::Query
     if (request.is_debug()) {
         session.EnableDebug();
     }
+    ::openmldb::api::QueryTrace* trace = request.has_trace_id() ? response.mutable_trace() : nullptr;
+    auto stage_start = absl::Now();
     ::hybridse::codec::Row row;
     auto& request_buf = dynamic_cast<brpc::Controller*>(ctrl)->request_attachment();
     size_t input_slices = request.row_slices();
@@ -5410,6 +5560,11 @@ void TabletImpl::RunRequestQuery(RpcController* ctrl, const openmldb::api::Query
         response.set_msg("fail to decode input row");
         return;
     }
+    if (trace != nullptr) {
+        auto now = absl::Now();
+        trace->set_decode_us(absl::ToInt64Microseconds(now - stage_start));
+        stage_start = now;
+    }
     ::hybridse::codec::Row output;
     int32_t ret = 0;
     if (request.has_task_id()) {
@@ -5417,6 +5572,11 @@ void TabletImpl::RunRequestQuery(RpcController* ctrl, const openmldb::api::Query
     } else {
         ret = session.Run(row, &output);
     }
+    if (trace != nullptr) {
+        auto now = absl::Now();
+        trace->set_run_us(absl::ToInt64Microseconds(now - stage_start));
+        stage_start = now;
+    }
     if (ret != 0) {
         response.set_code(::openmldb::base::kSQLRunError);
         response.set_msg("fail to run sql");
@@ -5432,6 +5592,9 @@ void TabletImpl::RunRequestQuery(RpcController* ctrl, const openmldb::api::Query
         response.set_msg("fail to encode sql output row");
         return;
     }
+    if (trace != nullptr) {
+        trace->set_encode_us(absl::ToInt64Microseconds(absl::Now() - stage_start));
+    }
     if (!request.has_task_id()) {
         response.set_schema(session.GetEncodedSchema());
     }
@@ -5620,12 +5783,6 @@ void TabletImpl::BulkLoad(RpcController* controller, const ::openmldb::api::Bulk
         } while (false);
         auto binlog_end = ::baidu::common::timer::get_micros();
         PDLOG(INFO, "%u-%u, binlog cost %lu us", request->tid(), request->pid(), binlog_end - binlog_start);
-
-        if (replicator) {
-            if (FLAGS_binlog_notify_on_put) {
-                replicator->Notify();
-            }
-        }
     }
 
     if (request->index_region_size() > 0) {
@@ -541,6 +541,58 @@ TEST_P(TabletImplTest, CountLatestTable) {
     }
 }
 
+TEST_P(TabletImplTest, PutBatch) {
+    ::openmldb::common::StorageMode storage_mode = GetParam();
+    TabletImpl tablet;
+    tablet.Init("");
+    uint32_t id = counter++;
+    ASSERT_EQ(0, CreateDefaultTable("", "t0", id, 0, 0, 0, kLatestTime, storage_mode, &tablet));
+    MockClosure closure;
+    {
+        ::openmldb::api::PutBatchRequest request;
+        request.set_tid(id);
+        request.set_pid(0);
+        for (int32_t i = 0; i < 100; i++) {
+            auto row = request.add_rows();
+            ::openmldb::test::SetDimension(0, std::to_string(i % 10), row->add_dimensions());
+            row->set_time(i + 1);
+            row->set_value(::openmldb::test::EncodeKV(std::to_string(i % 10), std::to_string(i)));
+        }
+        ::openmldb::api::PutBatchResponse response;
+        tablet.PutBatch(NULL, &request, &response, &closure);
+        ASSERT_EQ(0, response.code());
+        ASSERT_EQ(100u, response.put_cnt());
+    }
+    {
+        // the rows before the invalid one are still put
+        ::openmldb::api::PutBatchRequest request;
+        request.set_tid(id);
+        request.set_pid(0);
+        auto row = request.add_rows();
+        ::openmldb::test::SetDimension(0, "0", row->add_dimensions());
+        row->set_time(101);
+        row->set_value(::openmldb::test::EncodeKV("0", "100"));
+        row = request.add_rows();
+        ::openmldb::test::SetDimension(1, "0", row->add_dimensions());
+        row->set_time(102);
+        row->set_value(::openmldb::test::EncodeKV("0", "101"));
+        ::openmldb::api::PutBatchResponse response;
+        tablet.PutBatch(NULL, &request, &response, &closure);
+        ASSERT_EQ(::openmldb::base::ReturnCode::kInvalidDimensionParameter, response.code());
+        ASSERT_EQ(1u, response.put_cnt());
+    }
+    {
+        ::openmldb::api::CountRequest request;
+        request.set_tid(id);
+        request.set_pid(0);
+        request.set_key("0");
+        ::openmldb::api::CountResponse response;
+        tablet.Count(NULL, &request, &response, &closure);
+        ASSERT_EQ(0, response.code());
+        ASSERT_EQ(11u, response.count());
+    }
+}
+
 TEST_P(TabletImplTest, CountTimeTable) {
     ::openmldb::common::StorageMode storage_mode = GetParam();
     TabletImpl tablet;